@@ -0,0 +1,52 @@
+package code.hub.codehubbackend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Creates activities_seq and moves it past the existing activity ids before the
+ * EntityManagerFactory starts. Activities were numbered by AUTO_INCREMENT before they moved to
+ * pooled sequence ids, so a sequence created later by Hibernate would start at 1 and its first
+ * blocks would collide with existing rows. Running before JPA means no writer can draw an id
+ * from the sequence until it is in place; if this fails, startup fails instead of losing writes.
+ */
+@Configuration
+@Slf4j
+public class ActivitySequenceInitializer implements InitializingBean {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ActivitySequenceInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor activitySequenceBeforeJpa() {
+        return new EntityManagerFactoryDependsOnPostProcessor(ActivitySequenceInitializer.class);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Integer tables = jdbcTemplate.queryForObject("""
+            SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'activities'
+            """, Integer.class);
+        if (tables == null || tables == 0) {
+            // Fresh schema: Hibernate creates the table and the sequence together
+            return;
+        }
+
+        // Leave room for one pooled block below the first id handed out
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM activities", Long.class);
+        long next = maxId + 100;
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS activities_seq START WITH " + next + " INCREMENT BY 50");
+
+        // SETVAL never moves a sequence backwards, so this is a no-op once ids come from it
+        jdbcTemplate.queryForObject("SELECT SETVAL(activities_seq, " + next + ")", Long.class);
+        log.info("Activity id sequence is past {}", maxId);
+    }
+}
@@ -0,0 +1,33 @@
+package code.hub.codehubbackend.config;
+
+import code.hub.codehubbackend.messaging.ClusterBrokerRelay;
+import code.hub.codehubbackend.messaging.ClusterTransport;
+import code.hub.codehubbackend.messaging.InProcessClusterTransport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.UUID;
+
+/**
+ * Beans for the clustered broker mode ({@code app.websocket.broker.mode=cluster}).
+ * A deployment spanning several JVMs supplies its own {@link ClusterTransport} bean;
+ * otherwise nodes are connected through the in-process transport.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.websocket.broker.mode", havingValue = "cluster")
+public class ClusterBrokerConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ClusterTransport clusterTransport(@Value("${app.websocket.broker.node-id:}") String nodeId) {
+        return new InProcessClusterTransport(nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId);
+    }
+
+    @Bean
+    public ClusterBrokerRelay clusterBrokerRelay(ClusterTransport clusterTransport) {
+        return new ClusterBrokerRelay(clusterTransport, "/topic/", "/user/");
+    }
+}
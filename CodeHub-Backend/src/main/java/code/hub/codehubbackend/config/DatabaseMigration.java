@@ -26,6 +26,15 @@ public class DatabaseMigration {
                 // Run migrations
                 migrateRecentlyViewedTable();
                 migrateNotificationTypeColumn();
+                runMigrationOnce("chat_messages_room_id_index", this::migrateChatMessagesIndex);
+                runMigrationOnce("notification_aggregation_v1", this::migrateNotificationAggregation);
+                runMigrationOnce("chat_messages_archive_table", this::migrateChatMessagesArchive);
+                runMigrationOnce("activities_user_id_index", this::migrateActivitiesIndex);
+                runMigrationOnce("activities_structured_metadata", this::migrateActivityMetadata);
+                runMigrationOnce("snippet_purge_indexes", this::migrateSnippetPurgeIndexes);
+                runMigrationOnce("rate_limit_counters_table", this::migrateRateLimitCounters);
+                runMigrationOnce("notification_group_actors_table", this::migrateNotificationGroupActors);
+                runMigrationOnce("comment_notification_targets", this::migrateCommentNotificationTargets);
                 
                 log.info("✅ Database migration completed successfully!");
                 
@@ -127,6 +136,176 @@ public class DatabaseMigration {
         }
     }
 
+    /**
+     * Run a migration unless migration_history records it as successful. Only successes are
+     * recorded, so a failed migration is retried on the next startup.
+     */
+    private void runMigrationOnce(String migrationName, Runnable migration) {
+        try {
+            Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM migration_history WHERE migration_name = ? AND success = TRUE",
+                Integer.class, migrationName
+            );
+            
+            if (count != null && count > 0) {
+                log.info("Migration '{}' already executed, skipping", migrationName);
+                return;
+            }
+            
+        } catch (Exception e) {
+            log.debug("Migration table check failed, proceeding with migration: {}", e.getMessage());
+        }
+
+        try {
+            log.info("🔧 Running migration '{}'...", migrationName);
+            migration.run();
+            log.info("✅ Migration '{}' completed", migrationName);
+        } catch (Exception e) {
+            log.error("❌ Migration '{}' failed, will retry on next startup: {}", migrationName, e.getMessage());
+            return;
+        }
+
+        try {
+            // Replaces a failure row left by earlier versions, which recorded failures too
+            jdbcTemplate.update(
+                "INSERT INTO migration_history (migration_name, success) VALUES (?, TRUE) "
+                    + "ON DUPLICATE KEY UPDATE success = TRUE, executed_at = CURRENT_TIMESTAMP",
+                migrationName
+            );
+        } catch (Exception e) {
+            log.debug("Failed to record migration: {}", e.getMessage());
+        }
+    }
+
+    private void migrateChatMessagesIndex() {
+        // Keyset pagination seeks on (chat_room_id, id)
+        createIndexIfNotExists("idx_chat_messages_room_id", "chat_messages", "(chat_room_id, id)");
+    }
+
+    private void migrateNotificationAggregation() {
+        addColumnIfNotExists("notifications", "updated_at", "TIMESTAMP NULL");
+        addColumnIfNotExists("notifications", "group_key", "VARCHAR(150) NULL");
+        addColumnIfNotExists("notifications", "actor_count", "INT NOT NULL DEFAULT 1");
+        addColumnIfNotExists("notifications", "recent_actor_ids", "VARCHAR(255) NULL");
+        addColumnIfNotExists("notifications", "version", "BIGINT DEFAULT 0");
+        
+        // Existing rows become single-actor groups that are never folded into (no group key)
+        int updated = jdbcTemplate.update("""
+            UPDATE notifications
+            SET updated_at = COALESCE(updated_at, created_at),
+                actor_count = CASE WHEN actor_count IS NULL OR actor_count < 1 THEN 1 ELSE actor_count END,
+                recent_actor_ids = COALESCE(recent_actor_ids, CAST(actor_id AS CHAR)),
+                version = COALESCE(version, 0)
+            WHERE updated_at IS NULL OR actor_count IS NULL OR actor_count < 1 OR version IS NULL
+            """);
+        log.info("Backfilled aggregation columns on {} notifications", updated);
+        
+        createIndexIfNotExists("idx_notifications_recipient_group", "notifications", "(recipient_id, group_key, is_read)");
+        createIndexIfNotExists("idx_notifications_recipient_updated", "notifications", "(recipient_id, updated_at)");
+    }
+
+    private void migrateChatMessagesArchive() {
+        // Target of read chat message archival; same layout as chat_messages, without foreign keys
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS chat_messages_archive LIKE chat_messages");
+    }
+
+    private void migrateActivitiesIndex() {
+        // Feed keyset queries seek on (user_id, id)
+        createIndexIfNotExists("idx_activities_user_id", "activities", "(user_id, id)");
+    }
+
+    private void migrateRateLimitCounters() {
+        // Shared counters for cluster-wide rate limits, one row per key and window
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS rate_limit_counters (
+                counter_key VARCHAR(191) NOT NULL,
+                window_start BIGINT NOT NULL,
+                used BIGINT NOT NULL DEFAULT 0,
+                PRIMARY KEY (counter_key, window_start)
+            )
+            """);
+        createIndexIfNotExists("idx_rate_limit_counters_window", "rate_limit_counters", "(window_start)");
+    }
+
+    private void migrateNotificationGroupActors() {
+        // Distinct actors per notification group; rows outlive their group only until retention removes them
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS notification_group_actors (
+                id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                notification_id BIGINT NOT NULL,
+                actor_id BIGINT NOT NULL,
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                UNIQUE KEY uk_notification_group_actor (notification_id, actor_id)
+            )
+            """);
+    }
+
+    private void migrateCommentNotificationTargets() {
+        // Comment like and reply notifications were created without a target, so snippet deletes
+        // missed them; the comment id is in their metadata
+        int liked = jdbcTemplate.update("""
+            UPDATE notifications
+            SET target_type = 'comment', target_id = CAST(JSON_VALUE(metadata, '$.comment.id') AS UNSIGNED)
+            WHERE type = 'COMMENT_LIKED' AND target_id IS NULL AND JSON_VALUE(metadata, '$.comment.id') IS NOT NULL
+            """);
+        int replied = jdbcTemplate.update("""
+            UPDATE notifications
+            SET target_type = 'comment', target_id = CAST(JSON_VALUE(metadata, '$.reply.id') AS UNSIGNED)
+            WHERE type = 'COMMENT_REPLIED' AND target_id IS NULL AND JSON_VALUE(metadata, '$.reply.id') IS NOT NULL
+            """);
+        log.info("Backfilled targets on {} comment like and {} comment reply notifications", liked, replied);
+    }
+
+    private void migrateSnippetPurgeIndexes() {
+        // Set-based snippet deletes look rows up by snippet or target instead of scanning
+        addColumnIfNotExists("snippets", "deleted_at", "DATETIME(6) NULL");
+        createIndexIfNotExists("idx_snippets_deleted_at", "snippets", "(deleted_at)");
+        createIndexIfNotExists("idx_activities_snippet_id", "activities", "(snippet_id)");
+        createIndexIfNotExists("idx_activities_target", "activities", "(target_id, target_type)");
+        createIndexIfNotExists("idx_notifications_target", "notifications", "(target_id, target_type)");
+    }
+
+    private void migrateActivityMetadata() {
+        addColumnIfNotExists("activities", "snippet_id", "BIGINT NULL");
+        addColumnIfNotExists("activities", "snippet_title", "VARCHAR(255) NULL");
+        addColumnIfNotExists("activities", "snippet_language", "VARCHAR(50) NULL");
+        addColumnIfNotExists("activities", "subject_username", "VARCHAR(50) NULL");
+        addColumnIfNotExists("activities", "subject_full_name", "VARCHAR(255) NULL");
+        addColumnIfNotExists("activities", "content_preview", "VARCHAR(210) NULL");
+        addColumnIfNotExists("activities", "structured", "BOOLEAN NOT NULL DEFAULT FALSE");
+        
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM activities", Long.class);
+        if (maxId == null) {
+            return;
+        }
+        
+        // Promote the JSON fields in id-range chunks to keep each statement short
+        String sql = """
+            UPDATE activities SET
+                snippet_id = CAST(JSON_VALUE(metadata, '$.snippet.id') AS UNSIGNED),
+                snippet_title = JSON_VALUE(metadata, '$.snippet.title'),
+                snippet_language = JSON_VALUE(metadata, '$.snippet.language'),
+                subject_username = COALESCE(JSON_VALUE(metadata, '$.snippet.author'),
+                                            JSON_VALUE(metadata, '$.comment.author'),
+                                            JSON_VALUE(metadata, '$.followedUser.username'),
+                                            JSON_VALUE(metadata, '$.unfollowedUser.username'),
+                                            JSON_VALUE(metadata, '$.user.username')),
+                subject_full_name = COALESCE(JSON_VALUE(metadata, '$.followedUser.fullName'),
+                                             JSON_VALUE(metadata, '$.unfollowedUser.fullName')),
+                content_preview = LEFT(COALESCE(JSON_VALUE(metadata, '$.comment.content'),
+                                                JSON_VALUE(metadata, '$.comment')), 203),
+                structured = TRUE
+            WHERE id >= ? AND id < ? AND structured = FALSE
+              AND metadata IS NOT NULL AND JSON_VALID(metadata)
+            """;
+        int chunk = 5000;
+        long updated = 0;
+        for (long start = 0; start <= maxId; start += chunk) {
+            updated += jdbcTemplate.update(sql, start, start + chunk);
+        }
+        log.info("Promoted metadata of {} activities to typed columns", updated);
+    }
+
     private void addColumnIfNotExists(String tableName, String columnName, String columnDefinition) {
         try {
             // Check if column exists
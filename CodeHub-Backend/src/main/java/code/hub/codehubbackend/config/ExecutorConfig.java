@@ -0,0 +1,100 @@
+package code.hub.codehubbackend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Bounded pool for activity and notification fan-out. Rejected work stays in the outbox
+     * and is picked up by the poller, so the queue never grows without limit.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor sideEffectExecutor(
+            @Value("${app.outbox.workers:4}") int workers,
+            @Value("${app.outbox.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("codehub-fanout-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * Pool for CPU-bound password hashing, sized to the cores by default. The queue is bounded so
+     * a login storm is turned away with 503s instead of tying up the request threads.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashingExecutor(
+            @Value("${app.security.hashing.threads:0}") int threads,
+            @Value("${app.security.hashing.queue-capacity:100}") int queueCapacity) {
+        int workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("codehub-hashing-");
+        return executor;
+    }
+
+    /**
+     * Pool for uploads to storage. Uploads are I/O-bound, so a few threads overlap the round trips
+     * of a multi-file request; when the queue is full the request thread uploads the file itself.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor storageUploadExecutor(
+            @Value("${app.storage.upload.parallelism:4}") int parallelism,
+            @Value("${app.storage.upload.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("codehub-upload-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    /**
+     * Pool for background upload jobs. It is separate from the request-scoped upload pool so a
+     * slow provider and retry backoff only delay other jobs; when its queue is full new jobs are
+     * turned away with 503s. Running jobs get a short grace period on shutdown.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor uploadJobExecutor(
+            @Value("${app.storage.jobs.workers:4}") int workers,
+            @Value("${app.storage.jobs.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("codehub-upload-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Pool for decoding and resizing images, CPU- and memory-heavy work sized to the cores by
+     * default. The queue is bounded so a burst of uploads is turned away with 503s.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor imageProcessingExecutor(
+            @Value("${app.storage.images.threads:0}") int threads,
+            @Value("${app.storage.images.queue-capacity:20}") int queueCapacity) {
+        int workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("codehub-images-");
+        return executor;
+    }
+}
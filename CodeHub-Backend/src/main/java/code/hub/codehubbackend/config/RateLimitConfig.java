@@ -1,84 +1,50 @@
 package code.hub.codehubbackend.config;
 
+import code.hub.codehubbackend.ratelimit.InMemorySharedCounterStore;
+import code.hub.codehubbackend.ratelimit.JdbcSharedCounterStore;
+import code.hub.codehubbackend.ratelimit.RateLimitFilter;
+import code.hub.codehubbackend.ratelimit.RateLimitService;
+import code.hub.codehubbackend.ratelimit.SharedCounterStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.filter.GenericFilterBean;
-
-import jakarta.servlet.FilterChain;
-import jakarta.servlet.ServletException;
-import jakarta.servlet.ServletRequest;
-import jakarta.servlet.ServletResponse;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-import java.io.IOException;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @Configuration
 public class RateLimitConfig {
-    
+
+    /**
+     * Runs right after the security filter chain, so limits can be keyed by the authenticated user
+     */
     @Bean
-    public RateLimitFilter rateLimitFilter() {
-        return new RateLimitFilter();
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(
+            RateLimitService rateLimitService,
+            @Value("${app.rate-limit.enabled:true}") boolean enabled) {
+        FilterRegistrationBean<RateLimitFilter> registration =
+                new FilterRegistrationBean<>(new RateLimitFilter(rateLimitService));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        registration.setEnabled(enabled);
+        return registration;
     }
-    
-    public static class RateLimitFilter extends GenericFilterBean {
-        
-        private final ConcurrentHashMap<String, RequestCounter> requestCounts = new ConcurrentHashMap<>();
-        private final long timeWindowInMillis = TimeUnit.MINUTES.toMillis(1); // 1 minute window
-        private final int maxRequestsPerWindow = 100; // 100 requests per minute
-        
-        @Override
-        public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) 
-                throws IOException, ServletException {
-            
-            HttpServletRequest httpRequest = (HttpServletRequest) request;
-            HttpServletResponse httpResponse = (HttpServletResponse) response;
-            
-            String clientIp = getClientIP(httpRequest);
-            
-            if (isRateLimited(clientIp)) {
-                httpResponse.setStatus(429);
-                httpResponse.getWriter().write("{\"error\":\"Too many requests\",\"message\":\"Rate limit exceeded\"}");
-                httpResponse.setContentType("application/json");
-                return;
-            }
-            
-            chain.doFilter(request, response);
-        }
-        
-        private boolean isRateLimited(String clientIp) {
-            long currentTime = System.currentTimeMillis();
-            
-            requestCounts.compute(clientIp, (key, counter) -> {
-                if (counter == null || currentTime - counter.windowStart > timeWindowInMillis) {
-                    return new RequestCounter(currentTime, 1);
-                } else {
-                    counter.requestCount++;
-                    return counter;
-                }
-            });
-            
-            RequestCounter counter = requestCounts.get(clientIp);
-            return counter.requestCount > maxRequestsPerWindow;
-        }
-        
-        private String getClientIP(HttpServletRequest request) {
-            String xfHeader = request.getHeader("X-Forwarded-For");
-            if (xfHeader == null) {
-                return request.getRemoteAddr();
-            }
-            return xfHeader.split(",")[0];
-        }
-        
-        private static class RequestCounter {
-            long windowStart;
-            int requestCount;
-            
-            RequestCounter(long windowStart, int requestCount) {
-                this.windowStart = windowStart;
-                this.requestCount = requestCount;
-            }
-        }
+
+    /**
+     * Counters for cluster-wide limits. "memory" suits a single instance; deployments with several
+     * nodes use "jdbc" so every node leases from the same table.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.rate-limit.cluster.store", havingValue = "memory", matchIfMissing = true)
+    public SharedCounterStore inMemorySharedCounterStore() {
+        return new InMemorySharedCounterStore();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.rate-limit.cluster.store", havingValue = "jdbc")
+    public SharedCounterStore jdbcSharedCounterStore(JdbcTemplate jdbcTemplate,
+                                                     PlatformTransactionManager transactionManager) {
+        return new JdbcSharedCounterStore(jdbcTemplate, transactionManager);
     }
 }
@@ -0,0 +1,99 @@
+package code.hub.codehubbackend.config;
+
+import code.hub.codehubbackend.storage.CloudinaryStorageService;
+import code.hub.codehubbackend.storage.LocalStorageService;
+import code.hub.codehubbackend.storage.StorageService;
+import com.cloudinary.Cloudinary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Storage backend for uploads, chosen by {@code app.storage.type}: "cloudinary" (the default) or
+ * "local", which keeps files on disk for tests and self-hosted installs.
+ */
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.storage.type", havingValue = "cloudinary", matchIfMissing = true)
+    public StorageService cloudinaryStorageService(Cloudinary cloudinary,
+                                                   MeterRegistry meterRegistry,
+                                                   @Value("${app.storage.cloudinary.chunk-size:6291456}") int chunkSize) {
+        return new CloudinaryStorageService(cloudinary, chunkSize, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.storage.type", havingValue = "local")
+    public LocalStorageService localStorageService(MeterRegistry meterRegistry,
+                                                   @Value("${app.storage.local.root:./data/media}") String root,
+                                                   @Value("${app.storage.local.public-url:/media}") String publicUrl,
+                                                   @Value("${app.storage.buffer-size:65536}") int bufferSize) throws IOException {
+        return new LocalStorageService(Path.of(root), publicUrl, bufferSize, meterRegistry);
+    }
+
+    /**
+     * Serves locally stored files under /media/**. They are user uploads on the API origin, so
+     * only raster images are shown inline; everything else, SVG included, is a download.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.storage.type", havingValue = "local")
+    public WebMvcConfigurer localStorageResources(LocalStorageService localStorageService) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addResourceHandlers(ResourceHandlerRegistry registry) {
+                registry.addResourceHandler("/media/**")
+                        .addResourceLocations(localStorageService.getRoot().toUri().toString());
+            }
+
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new LocalMediaHeaders()).addPathPatterns("/media/**");
+            }
+        };
+    }
+
+    /**
+     * Keeps browsers from rendering uploaded files as pages: no content sniffing, and anything
+     * that is not a raster image is sent as an attachment.
+     */
+    static class LocalMediaHeaders implements HandlerInterceptor {
+
+        private static final Set<String> INLINE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "webp");
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            // Image variants from MediaController are always JPEG and set their own headers
+            if (!(handler instanceof ResourceHttpRequestHandler)) {
+                return true;
+            }
+            response.setHeader("X-Content-Type-Options", "nosniff");
+
+            String name = StringUtils.getFilename(request.getRequestURI());
+            String extension = StringUtils.getFilenameExtension(name);
+            if (extension == null || !INLINE_EXTENSIONS.contains(extension.toLowerCase(Locale.ROOT))) {
+                response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(name, StandardCharsets.UTF_8).build().toString());
+            }
+            return true;
+        }
+    }
+}
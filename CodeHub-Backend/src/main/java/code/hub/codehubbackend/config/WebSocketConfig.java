@@ -1,13 +1,21 @@
 package code.hub.codehubbackend.config;
 
+import code.hub.codehubbackend.messaging.ClusterBrokerRelay;
 import code.hub.codehubbackend.security.ChatChannelInterceptor;
+import code.hub.codehubbackend.security.SessionExpiryService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -16,10 +24,30 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Autowired
     private ChatChannelInterceptor chatChannelInterceptor;
 
+    @Autowired
+    private SessionExpiryService sessionExpiryService;
+
+    @Autowired
+    private ObjectProvider<ClusterBrokerRelay> clusterBrokerRelay;
+
+    @Autowired
+    @Lazy
+    @Qualifier("messageBrokerTaskScheduler")
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    @Value("${app.websocket.heartbeat-ms:10000}")
+    private long heartbeatMillis;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable simple memory-based message broker to carry messages back to client
-        config.enableSimpleBroker("/topic", "/queue");
+        // Enable simple memory-based message broker to carry messages back to client.
+        // Heartbeats in both directions let the presence registry detect dead sessions.
+        config.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(new long[]{heartbeatMillis, heartbeatMillis})
+                .setTaskScheduler(messageBrokerTaskScheduler);
+
+        // In cluster mode, broadcasts and user destinations are also relayed to the other nodes
+        clusterBrokerRelay.ifAvailable(relay -> config.configureBrokerChannel().interceptors(relay));
         
         // Destination prefix for messages from client to server
         config.setApplicationDestinationPrefixes("/app");
@@ -40,6 +68,12 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("*");
     }
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Lets sessions whose token expired be closed from the server side
+        registration.addDecoratorFactory(sessionExpiryService::decorate);
+    }
+
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
         // Add interceptor for authentication and authorization
@@ -1,7 +1,9 @@
 package code.hub.codehubbackend.controller;
 
 import code.hub.codehubbackend.dto.activity.ActivityResponse;
+import code.hub.codehubbackend.dto.activity.FeedResponse;
 import code.hub.codehubbackend.service.ActivityService;
+import code.hub.codehubbackend.service.FeedService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -19,6 +21,19 @@ import org.springframework.web.bind.annotation.*;
 public class ActivityController {
     
     private final ActivityService activityService;
+    private final FeedService feedService;
+    
+    @GetMapping("/feed")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    @Operation(summary = "Get home feed", description = "Get activities from followed users, newest first, with cursor pagination")
+    public ResponseEntity<FeedResponse> getFeed(
+            @Parameter(description = "Return activities older than this activity id (nextCursor of the previous page)") 
+            @RequestParam(required = false) Long before,
+            @Parameter(description = "Page size (max 50)") 
+            @RequestParam(defaultValue = "20") int limit) {
+        
+        return ResponseEntity.ok(feedService.getCurrentUserFeed(before, limit));
+    }
     
     @GetMapping("/me")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
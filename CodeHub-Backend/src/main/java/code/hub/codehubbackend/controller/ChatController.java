@@ -1,17 +1,22 @@
 package code.hub.codehubbackend.controller;
 
 import code.hub.codehubbackend.dto.chat.*;
+import code.hub.codehubbackend.dto.upload.UploadJobResponse;
 import code.hub.codehubbackend.entity.ChatMessage;
 import code.hub.codehubbackend.entity.ChatParticipant;
 import code.hub.codehubbackend.entity.ChatRoom;
 import code.hub.codehubbackend.entity.User;
 import code.hub.codehubbackend.exception.ResourceNotFoundException;
+import code.hub.codehubbackend.exception.ServiceBusyException;
 import code.hub.codehubbackend.exception.UnauthorizedException;
 import code.hub.codehubbackend.repository.ChatParticipantRepository;
 import code.hub.codehubbackend.repository.ChatRoomRepository;
 import code.hub.codehubbackend.repository.UserRepository;
+import code.hub.codehubbackend.security.CurrentUserContext;
 import code.hub.codehubbackend.service.ChatService;
 import code.hub.codehubbackend.service.CloudinaryService;
+import code.hub.codehubbackend.storage.UploadJob;
+import code.hub.codehubbackend.storage.UploadJobService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -19,6 +24,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -43,6 +49,8 @@ public class ChatController {
     private final UserRepository userRepository;
     private final ChatRoomRepository chatRoomRepository;
     private final ChatParticipantRepository chatParticipantRepository;
+    private final CurrentUserContext currentUserContext;
+    private final UploadJobService uploadJobService;
 
     @PostMapping("/rooms")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
@@ -83,6 +91,29 @@ public class ChatController {
         return ResponseEntity.ok(messages);
     }
 
+    @GetMapping("/rooms/{chatId}/messages/cursor")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    @Operation(summary = "Get chat messages by cursor", description = "Get messages older than 'before' or newer than 'after' (message ids); latest messages when both are omitted")
+    public ResponseEntity<ChatMessageCursorResponse> getChatMessagesByCursor(
+            @PathVariable String chatId,
+            @Parameter(description = "Return messages older than this message id") @RequestParam(required = false) Long before,
+            @Parameter(description = "Return messages newer than this message id") @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of messages") @RequestParam(defaultValue = "50") int limit) {
+        
+        return ResponseEntity.ok(chatService.getChatMessagesByCursor(chatId, before, after, limit));
+    }
+
+    @GetMapping("/rooms/{chatId}/messages/around/{messageId}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    @Operation(summary = "Jump to message", description = "Get a window of messages centred on the given message id")
+    public ResponseEntity<ChatMessageCursorResponse> getChatMessagesAround(
+            @PathVariable String chatId,
+            @PathVariable Long messageId,
+            @Parameter(description = "Window size") @RequestParam(defaultValue = "50") int limit) {
+        
+        return ResponseEntity.ok(chatService.getChatMessagesAround(chatId, messageId, limit));
+    }
+
     @PostMapping("/messages")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     @Operation(summary = "Send message", description = "Send a message to a chat room")
@@ -91,6 +122,23 @@ public class ChatController {
         return ResponseEntity.ok(message);
     }
 
+    @PutMapping("/messages/{messageId}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    @Operation(summary = "Edit message", description = "Edit the content of one of your own messages")
+    public ResponseEntity<ChatMessageResponse> editMessage(
+            @PathVariable Long messageId,
+            @Valid @RequestBody ChatMessageEditRequest request) {
+        return ResponseEntity.ok(chatService.editMessage(messageId, request));
+    }
+
+    @DeleteMapping("/messages/{messageId}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    @Operation(summary = "Delete message", description = "Delete one of your own messages")
+    public ResponseEntity<Void> deleteMessage(@PathVariable Long messageId) {
+        chatService.deleteMessage(messageId);
+        return ResponseEntity.noContent().build();
+    }
+
     @PutMapping("/rooms/{chatId}/read")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     @Operation(summary = "Mark messages as read", description = "Mark all messages in a chat room as read")
@@ -150,49 +198,11 @@ public class ChatController {
             }
             
             // Upload file to Cloudinary
-            String fileUrl = cloudinaryService.uploadFile(file, "chat-files");
+            String fileUrl = cloudinaryService.uploadFile(file, "chat-files", authentication.getName());
             log.info("📎 [ChatController] File uploaded successfully to: {}", fileUrl);
             
             // Determine chat ID - either from direct roomId or create/find private chat
-            String chatId = roomId;
-            if (chatId == null && recipientUsername != null) {
-                // For direct messages, find or create private chat
-                User currentUser = userRepository.findByUsername(authentication.getName())
-                        .orElseThrow(() -> new UnauthorizedException("User not found"));
-                User recipient = userRepository.findByUsername(recipientUsername)
-                        .orElseThrow(() -> new ResourceNotFoundException("Recipient not found"));
-                
-                // Find existing private chat or create new one
-                ChatRoom existingChat = chatRoomRepository.findPrivateChatBetweenUsers(currentUser, recipient)
-                        .orElse(null);
-                
-                if (existingChat != null) {
-                    chatId = existingChat.getChatId();
-                } else {
-                    // Create new private chat room
-                    ChatRoom newChatRoom = ChatRoom.builder()
-                            .chatId(UUID.randomUUID().toString())
-                            .roomType(ChatRoom.RoomType.PRIVATE)
-                            .roomName(null)
-                            .isActive(true)
-                            .build();
-                    newChatRoom = chatRoomRepository.save(newChatRoom);
-                    chatId = newChatRoom.getChatId();
-                    
-                    // Add participants
-                    chatParticipantRepository.save(ChatParticipant.builder()
-                            .chatRoom(newChatRoom)
-                            .user(currentUser)
-                            .isActive(true)
-                            .build());
-                    
-                    chatParticipantRepository.save(ChatParticipant.builder()
-                            .chatRoom(newChatRoom)
-                            .user(recipient)
-                            .isActive(true)
-                            .build());
-                }
-            }
+            String chatId = resolveFileChatId(roomId, recipientUsername, authentication);
             
             if (chatId == null) {
                 Map<String, Object> response = new HashMap<>();
@@ -211,7 +221,7 @@ public class ChatController {
             messageRequest.setFileSize(file.getSize());
             
             // Send message through chat service
-            ChatMessageResponse messageResponse = chatService.sendMessage(messageRequest, authentication.getName());
+            ChatMessageResponse messageResponse = chatService.sendMessage(messageRequest, authentication);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -230,4 +240,113 @@ public class ChatController {
             return ResponseEntity.badRequest().body(response);
         }
     }
+
+    @PostMapping("/send-file/jobs")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    @Operation(summary = "Queue file message", description = "Queue a file upload and send it in chat once stored; progress is reported on the upload job")
+    public ResponseEntity<Map<String, Object>> submitFileMessage(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "recipientUsername", required = false) String recipientUsername,
+            @RequestParam(value = "roomId", required = false) String roomId,
+            @RequestParam("messageType") String messageType,
+            Authentication authentication) {
+        
+        Map<String, Object> response = new HashMap<>();
+        try {
+            if (file.isEmpty()) {
+                response.put("success", false);
+                response.put("message", "File is empty");
+                return ResponseEntity.badRequest().body(response);
+            }
+            
+            if (file.getSize() > 10 * 1024 * 1024) {
+                response.put("success", false);
+                response.put("message", "File size exceeds 10MB limit");
+                return ResponseEntity.badRequest().body(response);
+            }
+            
+            ChatMessage.MessageType type = ChatMessage.MessageType.valueOf(messageType);
+            String chatId = resolveFileChatId(roomId, recipientUsername, authentication);
+            if (chatId == null) {
+                response.put("success", false);
+                response.put("message", "Either roomId or recipientUsername must be provided");
+                return ResponseEntity.badRequest().body(response);
+            }
+            // Refuse before anything is stored, not when the message is posted
+            chatService.checkParticipant(chatId);
+            
+            String fileName = file.getOriginalFilename();
+            long fileSize = file.getSize();
+            UploadJob job = uploadJobService.submit(authentication.getName(), "chat-file", file,
+                    spooled -> cloudinaryService.uploadFile(spooled, "chat-files", authentication.getName()),
+                    fileUrl -> {
+                        ChatMessageRequest messageRequest = new ChatMessageRequest();
+                        messageRequest.setContent(fileName);
+                        messageRequest.setMessageType(type);
+                        messageRequest.setChatId(chatId);
+                        messageRequest.setFileUrl(fileUrl);
+                        messageRequest.setFileName(fileName);
+                        messageRequest.setFileSize(fileSize);
+                        return chatService.sendMessage(messageRequest, authentication);
+                    });
+            
+            log.info("📎 [ChatController] Queued file message {} for chat {} as job {}", fileName, chatId, job.getId());
+            response.put("success", true);
+            response.put("message", "File upload queued");
+            response.put("jobId", job.getId());
+            response.put("job", UploadJobResponse.from(job));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+            
+        } catch (ServiceBusyException | UnauthorizedException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("❌ [ChatController] Error queueing file message", e);
+            response.put("success", false);
+            response.put("message", "Failed to send file: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Direct messages go to the private chat with the recipient, created on first contact
+    private String resolveFileChatId(String roomId, String recipientUsername, Authentication authentication) {
+        String chatId = roomId;
+        if (chatId == null && recipientUsername != null) {
+            // For direct messages, find or create private chat
+            User currentUser = currentUserContext.resolve(authentication);
+            User recipient = userRepository.findByUsername(recipientUsername)
+                    .orElseThrow(() -> new ResourceNotFoundException("Recipient not found"));
+            
+            // Find existing private chat or create new one
+            ChatRoom existingChat = chatRoomRepository.findPrivateChatBetweenUsers(currentUser, recipient)
+                    .orElse(null);
+            
+            if (existingChat != null) {
+                chatId = existingChat.getChatId();
+            } else {
+                // Create new private chat room
+                ChatRoom newChatRoom = ChatRoom.builder()
+                        .chatId(UUID.randomUUID().toString())
+                        .roomType(ChatRoom.RoomType.PRIVATE)
+                        .roomName(null)
+                        .isActive(true)
+                        .build();
+                newChatRoom = chatRoomRepository.save(newChatRoom);
+                chatId = newChatRoom.getChatId();
+                
+                // Add participants
+                chatParticipantRepository.save(ChatParticipant.builder()
+                        .chatRoom(newChatRoom)
+                        .user(currentUser)
+                        .isActive(true)
+                        .build());
+                
+                chatParticipantRepository.save(ChatParticipant.builder()
+                        .chatRoom(newChatRoom)
+                        .user(recipient)
+                        .isActive(true)
+                        .build());
+            }
+        }
+        return chatId;
+    }
 }
@@ -65,15 +65,50 @@ public class ChatHistoryController {
         return ResponseEntity.ok(messages);
     }
 
+    @GetMapping("/conversations/{username}/messages/cursor")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    @Operation(summary = "Get conversation messages by cursor", description = "Get messages from conversation with a specific user older than 'before' or newer than 'after' (message ids)")
+    public ResponseEntity<ChatMessageCursorResponse> getConversationMessagesByCursor(
+            @PathVariable String username,
+            @Parameter(description = "Return messages older than this message id") @RequestParam(required = false) Long before,
+            @Parameter(description = "Return messages newer than this message id") @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of messages") @RequestParam(defaultValue = "50") int limit) {
+        
+        return ResponseEntity.ok(chatHistoryService.getConversationMessagesByCursor(username, before, after, limit));
+    }
+
+    @GetMapping("/chatrooms/{chatId}/messages/cursor")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    @Operation(summary = "Get chat messages by chat ID and cursor", description = "Get messages from a chat room older than 'before' or newer than 'after' (message ids)")
+    public ResponseEntity<ChatMessageCursorResponse> getConversationMessagesByChatIdCursor(
+            @PathVariable String chatId,
+            @Parameter(description = "Return messages older than this message id") @RequestParam(required = false) Long before,
+            @Parameter(description = "Return messages newer than this message id") @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of messages") @RequestParam(defaultValue = "50") int limit) {
+        
+        return ResponseEntity.ok(chatHistoryService.getConversationMessagesByChatIdCursor(chatId, before, after, limit));
+    }
+
+    @GetMapping("/chatrooms/{chatId}/messages/around/{messageId}")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    @Operation(summary = "Jump to message", description = "Get a window of messages centred on the given message id")
+    public ResponseEntity<ChatMessageCursorResponse> getMessagesAround(
+            @PathVariable String chatId,
+            @PathVariable Long messageId,
+            @Parameter(description = "Window size") @RequestParam(defaultValue = "50") int limit) {
+        
+        return ResponseEntity.ok(chatHistoryService.getMessagesAround(chatId, messageId, limit));
+    }
+
     @GetMapping("/search")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    @Operation(summary = "Search messages", description = "Search messages across all conversations")
-    public ResponseEntity<Page<ChatMessageResponse>> searchMessages(
+    @Operation(summary = "Search messages", description = "Full-text search across all conversations, ranked by relevance with highlighted snippets")
+    public ResponseEntity<Page<ChatSearchResultResponse>> searchMessages(
             @Parameter(description = "Search term") @RequestParam("q") String searchTerm,
             @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "20") int size) {
         
-        Page<ChatMessageResponse> messages = chatHistoryService.searchMessagesInAllConversations(searchTerm, page, size);
+        Page<ChatSearchResultResponse> messages = chatHistoryService.searchMessagesInAllConversations(searchTerm, page, size);
         return ResponseEntity.ok(messages);
     }
 
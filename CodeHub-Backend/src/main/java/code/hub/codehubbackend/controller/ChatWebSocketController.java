@@ -2,12 +2,15 @@ package code.hub.codehubbackend.controller;
 
 import code.hub.codehubbackend.dto.chat.ChatMessageRequest;
 import code.hub.codehubbackend.dto.chat.ChatMessageResponse;
+import code.hub.codehubbackend.messaging.EphemeralSignalChannel;
+import code.hub.codehubbackend.security.ChatChannelInterceptor;
 import code.hub.codehubbackend.service.ChatService;
+import code.hub.codehubbackend.service.PresenceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.stereotype.Controller;
 
 import java.security.Principal;
@@ -18,14 +21,15 @@ import java.security.Principal;
 public class ChatWebSocketController {
 
     private final ChatService chatService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final EphemeralSignalChannel signalChannel;
+    private final PresenceService presenceService;
 
     @MessageMapping("/chat.sendMessage")
     public ChatMessageResponse sendMessage(@Payload ChatMessageRequest chatMessageRequest, Principal principal) {
         log.info("Received message from user: {} for chat: {}", principal.getName(), chatMessageRequest.getChatId());
         
         try {
-            ChatMessageResponse response = chatService.sendMessage(chatMessageRequest, principal.getName());
+            ChatMessageResponse response = chatService.sendMessage(chatMessageRequest, principal);
             // Send to topic using the chatId from the request
             return response;
         } catch (Exception e) {
@@ -39,7 +43,7 @@ public class ChatWebSocketController {
         log.info("Marking messages as read for user: {} in chat: {}", principal.getName(), request.getChatId());
         
         try {
-            chatService.markMessagesAsRead(request.getChatId(), principal.getName());
+            chatService.markMessagesAsRead(request.getChatId(), principal);
         } catch (Exception e) {
             log.error("Error marking messages as read", e);
         }
@@ -47,20 +51,34 @@ public class ChatWebSocketController {
 
     @MessageMapping("/chat.typing")
     public void sendTypingNotification(@Payload TypingRequest request, 
-                                      Principal principal) {
-        log.debug("User {} is typing in chat {}", principal.getName(), request.getChatId());
-        
-        TypingNotification notification = new TypingNotification(principal.getName(), request.getChatId(), true);
-        messagingTemplate.convertAndSend("/topic/chat/" + request.getChatId() + "/typing", notification);
+                                      Principal principal,
+                                      SimpMessageHeaderAccessor headerAccessor) {
+        submitTypingSignal(EphemeralSignalChannel.SignalType.TYPING_START, request, principal, headerAccessor);
     }
 
     @MessageMapping("/chat.stopTyping")
     public void sendStopTypingNotification(@Payload TypingRequest request, 
-                                          Principal principal) {
-        log.debug("User {} stopped typing in chat {}", principal.getName(), request.getChatId());
-        
-        TypingNotification notification = new TypingNotification(principal.getName(), request.getChatId(), false);
-        messagingTemplate.convertAndSend("/topic/chat/" + request.getChatId() + "/typing", notification);
+                                          Principal principal,
+                                          SimpMessageHeaderAccessor headerAccessor) {
+        submitTypingSignal(EphemeralSignalChannel.SignalType.TYPING_STOP, request, principal, headerAccessor);
+    }
+
+    @MessageMapping("/presence.ping")
+    public void pingPresence(SimpMessageHeaderAccessor headerAccessor) {
+        if (signalChannel.tryAcquire(headerAccessor.getSessionId())) {
+            presenceService.touch(headerAccessor.getSessionId());
+        }
+    }
+
+    private void submitTypingSignal(EphemeralSignalChannel.SignalType type, TypingRequest request,
+                                    Principal principal, SimpMessageHeaderAccessor headerAccessor) {
+        // Membership was verified when the session subscribed to the room's topic
+        if (principal == null || !ChatChannelInterceptor.isAuthorizedForChat(
+                headerAccessor.getSessionAttributes(), request.getChatId())) {
+            log.debug("Ignoring {} signal for chat {} from a non-member session", type, request.getChatId());
+            return;
+        }
+        signalChannel.submit(type, request.getChatId(), principal.getName(), headerAccessor.getSessionId());
     }
 
     // Inner class for typing requests
@@ -76,27 +94,4 @@ public class ChatWebSocketController {
         public String getChatId() { return chatId; }
         public void setChatId(String chatId) { this.chatId = chatId; }
     }
-
-    // Inner class for typing notifications
-    public static class TypingNotification {
-        private String username;
-        private String chatId;
-        private boolean isTyping;
-
-        public TypingNotification(String username, String chatId, boolean isTyping) {
-            this.username = username;
-            this.chatId = chatId;
-            this.isTyping = isTyping;
-        }
-
-        // Getters and setters
-        public String getUsername() { return username; }
-        public void setUsername(String username) { this.username = username; }
-        
-        public String getChatId() { return chatId; }
-        public void setChatId(String chatId) { this.chatId = chatId; }
-        
-        public boolean isTyping() { return isTyping; }
-        public void setTyping(boolean typing) { isTyping = typing; }
-    }
 }
@@ -0,0 +1,79 @@
+package code.hub.codehubbackend.controller;
+
+import code.hub.codehubbackend.entity.MediaObject;
+import code.hub.codehubbackend.exception.ResourceNotFoundException;
+import code.hub.codehubbackend.storage.ImagePipeline;
+import code.hub.codehubbackend.storage.ImageProfile;
+import code.hub.codehubbackend.storage.ImageVariant;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+/**
+ * Serves avatar and cover variants rendered by the {@link ImagePipeline}. A variant URL names the
+ * content hash and the render version, so its bytes never change: responses carry a strong ETag and
+ * may be cached forever. URLs of an earlier render version redirect to the current one.
+ */
+@RestController
+@RequestMapping("/media/images")
+@RequiredArgsConstructor
+public class MediaController {
+
+    private static final Pattern CONTENT_HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern VERSION = Pattern.compile("v[0-9]+");
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    private final ImagePipeline imagePipeline;
+
+    @GetMapping("/{profile}/{hash}/{version}/{variant}")
+    public ResponseEntity<Resource> getVariant(
+            @PathVariable String profile,
+            @PathVariable String hash,
+            @PathVariable String version,
+            @PathVariable String variant,
+            WebRequest request) {
+        ImageProfile imageProfile = ImageProfile.fromPath(profile);
+        ImageVariant imageVariant = ImageVariant.fromPath(variant);
+        if (imageProfile == null || imageVariant == null || !CONTENT_HASH.matcher(hash).matches()
+                || !VERSION.matcher(version).matches()) {
+            throw new ResourceNotFoundException("Image", "path", profile + "/" + hash + "/" + version + "/" + variant);
+        }
+
+        // Stored URLs keep the version they were rendered with; send them to the current rendering
+        if (!version.equals(ImagePipeline.RENDER_VERSION)) {
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(URI.create(imagePipeline.variantUrl(imageProfile, hash, imageVariant)))
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+
+        // A cached ETag must not revalidate an image that has since been deleted
+        MediaObject original = imagePipeline.original(imageProfile, hash);
+        String etag = imagePipeline.etag(hash, imageVariant);
+        if (request.checkNotModified(etag)) {
+            // 304 with the headers set by checkNotModified
+            return null;
+        }
+
+        Path path = imagePipeline.variant(imageProfile, original, imageVariant);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(IMMUTABLE)
+                .contentType(MediaType.IMAGE_JPEG)
+                .body(new FileSystemResource(path));
+    }
+}
@@ -1,15 +1,21 @@
 package code.hub.codehubbackend.controller;
 
+import code.hub.codehubbackend.dto.upload.UploadJobResponse;
 import code.hub.codehubbackend.service.CloudinaryService;
+import code.hub.codehubbackend.storage.UploadJob;
+import code.hub.codehubbackend.storage.UploadJobService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Controller for handling image uploads
@@ -22,6 +28,7 @@ import java.util.Map;
 public class UploadController {
 
     private final CloudinaryService cloudinaryService;
+    private final UploadJobService uploadJobService;
 
     /**
      * Upload avatar image
@@ -86,7 +93,7 @@ public class UploadController {
             @RequestParam(value = "folder", defaultValue = "general") String folder,
             Authentication authentication) {
         try {
-            String imageUrl = cloudinaryService.uploadImage(file, folder);
+            String imageUrl = cloudinaryService.uploadImage(file, folder, authentication.getName());
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -105,14 +112,80 @@ public class UploadController {
     }
 
     /**
-     * Delete image
+     * Queue an avatar, cover photo or general image upload and return its job right away.
+     * Progress and the resulting URL come from the job endpoint or /user/queue/uploads.
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitUploadJob(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam("type") String type,
+            @RequestParam(value = "folder", defaultValue = "general") String folder,
+            Authentication authentication) {
+        String username = authentication.getName();
+        UploadJobService.Upload upload = switch (type) {
+            case "avatar" -> spooled -> cloudinaryService.uploadAvatar(spooled, username);
+            case "cover" -> spooled -> cloudinaryService.uploadCoverPhoto(spooled, username);
+            case "image" -> spooled -> cloudinaryService.uploadImage(spooled, folder, username);
+            default -> null;
+        };
+
+        Map<String, Object> response = new HashMap<>();
+        if (upload == null) {
+            response.put("success", false);
+            response.put("message", "Unknown upload type: " + type);
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            if (file.isEmpty()) {
+                throw new IllegalArgumentException("File cannot be null or empty");
+            }
+            cloudinaryService.validateImageFile(file);
+            UploadJob job = uploadJobService.submit(username, type, file, upload, null);
+
+            response.put("success", true);
+            response.put("message", "Upload queued");
+            response.put("jobId", job.getId());
+            response.put("job", UploadJobResponse.from(job));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException | IOException e) {
+            log.error("Error queueing {} upload", type, e);
+            response.put("success", false);
+            response.put("message", "Failed to upload image: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * Get the status of one of the caller's upload jobs
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getUploadJob(
+            @PathVariable String jobId,
+            Authentication authentication) {
+        Optional<UploadJob> job = uploadJobService.getJob(jobId, authentication.getName());
+
+        Map<String, Object> response = new HashMap<>();
+        if (job.isEmpty()) {
+            response.put("success", false);
+            response.put("message", "Upload job not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+
+        response.put("success", true);
+        response.put("job", UploadJobResponse.from(job.get()));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Delete one of the caller's uploads of an image
      */
     @DeleteMapping("/image")
     public ResponseEntity<?> deleteImage(
             @RequestParam("imageUrl") String imageUrl,
             Authentication authentication) {
         try {
-            boolean deleted = cloudinaryService.deleteImage(imageUrl);
+            boolean deleted = cloudinaryService.deleteImage(imageUrl, authentication.getName());
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", deleted);
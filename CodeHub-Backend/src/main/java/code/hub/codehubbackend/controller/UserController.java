@@ -8,6 +8,7 @@ import code.hub.codehubbackend.dto.user.CommunityStatsResponse;
 import code.hub.codehubbackend.dto.user.TrendingSkillResponse;
 import code.hub.codehubbackend.dto.user.LeaderboardUserResponse;
 import code.hub.codehubbackend.dto.user.UserStatsResponse;
+import code.hub.codehubbackend.dto.user.PresenceResponse;
 import code.hub.codehubbackend.dto.snippet.SnippetResponse;
 import code.hub.codehubbackend.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -21,6 +22,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/users")
@@ -38,6 +40,13 @@ public class UserController {
         return ResponseEntity.ok(profile);
     }
     
+    @GetMapping("/presence")
+    @Operation(summary = "Get online presence", description = "Get online state and last-seen time for a batch of users")
+    public ResponseEntity<List<PresenceResponse>> getPresence(
+            @Parameter(description = "Comma-separated user IDs") @RequestParam List<Long> ids) {
+        return ResponseEntity.ok(userService.getPresence(ids));
+    }
+    
     @GetMapping("/{id}")
     @Operation(summary = "Get user profile by ID", description = "Get a user's public profile information")
     public ResponseEntity<UserProfileResponse> getUserProfile(@PathVariable Long id) {
@@ -97,10 +106,11 @@ public class UserController {
     
     @PutMapping("/profile/password")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    @Operation(summary = "Change password", description = "Change the current user's password")
-    public ResponseEntity<Void> changePassword(@Valid @RequestBody PasswordChangeRequest request) {
-        userService.changePassword(request);
-        return ResponseEntity.ok().build();
+    @Operation(summary = "Change password",
+            description = "Change the current user's password; earlier tokens stop working and a new one is returned")
+    public ResponseEntity<Map<String, Object>> changePassword(@Valid @RequestBody PasswordChangeRequest request) {
+        String token = userService.changePassword(request);
+        return ResponseEntity.ok(Map.of("token", token, "type", "Bearer"));
     }
     
     @GetMapping("/search")
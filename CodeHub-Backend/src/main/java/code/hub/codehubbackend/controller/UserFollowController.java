@@ -2,6 +2,8 @@ package code.hub.codehubbackend.controller;
 
 import code.hub.codehubbackend.dto.user.FollowResponse;
 import code.hub.codehubbackend.dto.user.FollowStatusResponse;
+import code.hub.codehubbackend.dto.user.FollowSuggestionResponse;
+import code.hub.codehubbackend.service.FollowRecommendationService;
 import code.hub.codehubbackend.service.UserFollowService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,15 +14,23 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/users")
 @Tag(name = "User Follow", description = "User follow/unfollow management APIs")
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class UserFollowController {
     
+    private static final int MAX_STATUS_IDS = 100;
+    
     @Autowired
     private UserFollowService userFollowService;
     
+    @Autowired
+    private FollowRecommendationService followRecommendationService;
+    
     @PostMapping("/{userId}/follow")
     @Operation(summary = "Follow user", description = "Follow a user")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
@@ -52,6 +62,36 @@ public class UserFollowController {
         return ResponseEntity.ok(status);
     }
     
+    @GetMapping("/follow/status")
+    @Operation(summary = "Get follow status for many users", description = "Follow status between the current user and each of the given users")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<Map<Long, FollowStatusResponse>> getFollowStatuses(
+            @Parameter(description = "User IDs to check (at most 100)") @RequestParam List<Long> ids
+    ) {
+        if (ids.size() > MAX_STATUS_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(userFollowService.getFollowStatuses(ids));
+    }
+    
+    @GetMapping("/suggestions")
+    @Operation(summary = "Who to follow", description = "Suggested users for the current user, from friends of friends and shared interests")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<List<FollowSuggestionResponse>> getFollowSuggestions(
+            @Parameter(description = "Maximum number of users") @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(followRecommendationService.getSuggestions(Math.min(limit, 50)));
+    }
+    
+    @GetMapping("/{userId}/mutuals")
+    @Operation(summary = "Get mutual follows", description = "Users the given user follows who follow them back")
+    public ResponseEntity<List<FollowResponse>> getMutualFollows(
+            @Parameter(description = "User ID") @PathVariable Long userId,
+            @Parameter(description = "Maximum number of users") @RequestParam(defaultValue = "20") int limit
+    ) {
+        return ResponseEntity.ok(userFollowService.getMutualFollows(userId, Math.min(limit, 100)));
+    }
+    
     @GetMapping("/{userId}/followers")
     @Operation(summary = "Get user followers", description = "Get paginated list of user's followers")
     public ResponseEntity<Page<FollowResponse>> getUserFollowers(
@@ -0,0 +1,19 @@
+package code.hub.codehubbackend.dto.activity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeedResponse {
+    
+    private List<ActivityResponse> items; // Newest first
+    private Long nextCursor; // Pass as "before" to load the next page
+    private boolean hasMore;
+}
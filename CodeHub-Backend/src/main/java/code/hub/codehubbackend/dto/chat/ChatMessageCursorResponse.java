@@ -0,0 +1,26 @@
+package code.hub.codehubbackend.dto.chat;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A window of chat messages addressed by message id cursors instead of page numbers.
+ * Messages are ordered newest first; pass {@code oldestId} as {@code before} to load older
+ * messages and {@code newestId} as {@code after} to load newer ones.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMessageCursorResponse {
+    private List<ChatMessageResponse> messages;
+    private Long oldestId;
+    private Long newestId;
+    private Long anchorId;
+    private boolean hasOlder;
+    private boolean hasNewer;
+}
@@ -0,0 +1,16 @@
+package code.hub.codehubbackend.dto.chat;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMessageEditRequest {
+    @NotBlank(message = "Content cannot be blank")
+    private String content;
+}
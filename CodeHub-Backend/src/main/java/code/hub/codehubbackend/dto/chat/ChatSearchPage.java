@@ -0,0 +1,25 @@
+package code.hub.codehubbackend.dto.chat;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * A page of chat search results. The search index caps the postings it examines per query, so
+ * for very common terms {@code totalElements} only counts the matches it found before stopping;
+ * {@code totalIsLowerBound} tells clients when that happened.
+ */
+public class ChatSearchPage extends PageImpl<ChatSearchResultResponse> {
+
+    private final boolean totalIsLowerBound;
+
+    public ChatSearchPage(List<ChatSearchResultResponse> content, Pageable pageable, long total, boolean totalIsLowerBound) {
+        super(content, pageable, total);
+        this.totalIsLowerBound = totalIsLowerBound;
+    }
+
+    public boolean isTotalIsLowerBound() {
+        return totalIsLowerBound;
+    }
+}
@@ -0,0 +1,30 @@
+package code.hub.codehubbackend.dto.chat;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSearchResultResponse {
+    private ChatMessageResponse message;
+    private String snippet;
+    private List<HighlightRange> highlights;
+    private double score;
+
+    /**
+     * Half-open character range [start, end) of a matched term inside {@code snippet}
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HighlightRange {
+        private int start;
+        private int end;
+    }
+}
@@ -0,0 +1,20 @@
+package code.hub.codehubbackend.dto.chat;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Aggregated "who is typing" state of a chat room, broadcast on {@code /topic/chat/{chatId}/typing}
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TypingStatusResponse {
+    private String chatId;
+    private List<String> typingUsers;
+}
@@ -0,0 +1,21 @@
+package code.hub.codehubbackend.dto.notification;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPushMessage {
+    
+    public static final String KIND_NOTIFICATION = "NOTIFICATION";
+    public static final String KIND_BADGE = "BADGE";
+    
+    private String kind;
+    private NotificationResponse notification; // Only set for NOTIFICATION frames
+    private long unreadDelta;
+    private long unreadCount;
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.Instant;
+import java.util.List;
 
 @Data
 @Builder
@@ -23,7 +24,9 @@ public class NotificationResponse {
     private boolean read;
     private Instant createdAt;
     private Instant readAt;
-    private ActorInfo actor;
+    private ActorInfo actor; // Most recent actor
+    private int actorCount;
+    private List<Long> recentActorIds;
     
     @Data
     @Builder
@@ -0,0 +1,48 @@
+package code.hub.codehubbackend.dto.upload;
+
+import code.hub.codehubbackend.storage.UploadJob;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadJobResponse {
+
+    private String jobId;
+    private String kind;
+    private UploadJob.Status status;
+    private String filename;
+    private long totalBytes;
+    private long transferredBytes;
+    private int progress;
+    private int attempts;
+    private String url;    // Only set once the job has succeeded
+    private Object result; // What the upload was for, e.g. the chat message it sent
+    private String error;  // Only set once the job has failed
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    public static UploadJobResponse from(UploadJob job) {
+        return UploadJobResponse.builder()
+                .jobId(job.getId())
+                .kind(job.getKind())
+                .status(job.getStatus())
+                .filename(job.getFilename())
+                .totalBytes(job.getTotalBytes())
+                .transferredBytes(job.getTransferredBytes())
+                .progress(job.getProgress())
+                .attempts(job.getAttempts())
+                .url(job.getUrl())
+                .result(job.getResult())
+                .error(job.getError())
+                .createdAt(job.getCreatedAt())
+                .updatedAt(job.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,22 @@
+package code.hub.codehubbackend.dto.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FollowSuggestionResponse {
+    
+    private Long id;
+    private String username;
+    private String fullName;
+    private String avatarUrl;
+    private String bio;
+    private String reason; // FOLLOWED_BY_PEOPLE_YOU_FOLLOW, SIMILAR_INTERESTS or POPULAR
+    private long mutualCount; // People the viewer follows who follow this user
+    private long followerCount;
+}
@@ -0,0 +1,19 @@
+package code.hub.codehubbackend.dto.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceResponse {
+    private Long userId;
+    private String username;
+    private Boolean isOnline;
+    private Instant lastSeenAt;
+}
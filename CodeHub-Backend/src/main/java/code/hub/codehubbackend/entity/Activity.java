@@ -10,7 +10,11 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "activities")
+@Table(name = "activities", indexes = {
+    @Index(name = "idx_activities_user_id", columnList = "user_id, id"),
+    @Index(name = "idx_activities_snippet_id", columnList = "snippet_id"),
+    @Index(name = "idx_activities_target", columnList = "target_id, target_type")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -18,8 +22,9 @@ import java.time.LocalDateTime;
 public class Activity {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "activities_seq")
+    @SequenceGenerator(name = "activities_seq", sequenceName = "activities_seq", allocationSize = 50)
+    private Long id; // Pooled sequence ids so inserts can be JDBC batched
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
@@ -32,7 +37,30 @@ public class Activity {
     private String targetType;
     
     @Column(columnDefinition = "TEXT")
-    private String metadata; // JSON string for additional data
+    private String metadata; // Legacy JSON payload; new rows use the typed columns below
+    
+    // Display fields read by activity lists, so pages need no JSON parsing
+    @Column(name = "snippet_id")
+    private Long snippetId;
+    
+    @Column(name = "snippet_title")
+    private String snippetTitle;
+    
+    @Column(name = "snippet_language", length = 50)
+    private String snippetLanguage;
+    
+    @Column(name = "subject_username", length = 50)
+    private String subjectUsername; // Snippet/comment author or followed user
+    
+    @Column(name = "subject_full_name")
+    private String subjectFullName;
+    
+    @Column(name = "content_preview", length = 210)
+    private String contentPreview; // Truncated comment text
+    
+    @Builder.Default
+    @Column(nullable = false)
+    private boolean structured = false; // True once the typed columns are populated
     
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
@@ -0,0 +1,59 @@
+package code.hub.codehubbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * A stored upload, addressed by the SHA-256 of its content within a folder. Identical uploads to
+ * the same folder share one object; refCount counts the uploads pointing at it.
+ */
+@Entity
+@Table(name = "media_objects",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_media_objects_hash_folder", columnNames = {"content_hash", "folder"})
+    },
+    indexes = {
+        @Index(name = "idx_media_objects_url", columnList = "url")
+    })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaObject {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+    
+    @Column(nullable = false, length = 255)
+    private String folder;
+    
+    @Column(name = "storage_key", nullable = false, length = 300)
+    private String storageKey;
+    
+    @Column(nullable = false, length = 500)
+    private String url;
+    
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+    
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+    
+    @Column(name = "ref_count", nullable = false)
+    @Builder.Default
+    private int refCount = 1;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,39 @@
+package code.hub.codehubbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * One upload's reference to a {@link MediaObject}, held by the user who uploaded it. Only that
+ * user can release it.
+ */
+@Entity
+@Table(name = "media_refs", indexes = {
+    @Index(name = "idx_media_refs_media_owner", columnList = "media_id, owner")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaRef {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "media_id", nullable = false)
+    private Long mediaId;
+    
+    @Column(nullable = false)
+    private String owner; // Username of the uploader
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+}
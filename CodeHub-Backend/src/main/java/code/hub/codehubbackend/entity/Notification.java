@@ -10,7 +10,13 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.Instant;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+    @Index(name = "idx_notifications_recipient_group", columnList = "recipient_id, group_key, is_read"),
+    @Index(name = "idx_notifications_recipient_updated", columnList = "recipient_id, updated_at"),
+    @Index(name = "idx_notifications_target", columnList = "target_id, target_type")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_notifications_recipient_group_seq", columnNames = {"recipient_id", "group_key", "group_seq"})
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -27,7 +33,7 @@ public class Notification {
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "actor_id")
-    private User actor; // The user who performed the action
+    private User actor; // The most recent user who performed the action
     
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 50)
@@ -59,6 +65,28 @@ public class Notification {
     @Column(name = "read_at")
     private Instant readAt;
     
+    // Last time an actor was folded into this notification; drives ordering
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+    
+    // Aggregation: one rolling notification per (recipient, type, target) within a window
+    @Column(name = "group_key", length = 150)
+    private String groupKey;
+    
+    // Numbers the groups of a (recipient, key) in order; unique, so two groups cannot be started at once
+    @Column(name = "group_seq")
+    private Integer groupSeq;
+    
+    @Builder.Default
+    @Column(name = "actor_count", nullable = false)
+    private int actorCount = 1;
+    
+    @Column(name = "recent_actor_ids")
+    private String recentActorIds; // Comma-separated, most recent first
+    
+    @Version
+    private Long version;
+    
     // Additional metadata as JSON string
     @Column(columnDefinition = "TEXT")
     private String metadata;
@@ -75,6 +103,13 @@ public class Notification {
         SYSTEM_ANNOUNCEMENT
     }
     
+    @PrePersist
+    protected void onCreate() {
+        if (updatedAt == null) {
+            updatedAt = Instant.now();
+        }
+    }
+    
     public void markAsRead() {
         this.read = true;
         this.readAt = Instant.now();
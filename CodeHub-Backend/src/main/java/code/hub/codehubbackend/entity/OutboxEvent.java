@@ -0,0 +1,72 @@
+package code.hub.codehubbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * Pending side effect (activity and notification fan-out) of a social action, written in the same
+ * transaction as the action itself and removed once it has been processed.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+    @Index(name = "idx_outbox_events_status_next_attempt", columnList = "status, next_attempt_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private SideEffectType type;
+    
+    @Column(name = "actor_id", nullable = false)
+    private Long actorId;
+    
+    @Column(name = "target_id", nullable = false)
+    private Long targetId; // Snippet, comment or user depending on the type
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private Status status = Status.PENDING;
+    
+    @Column(nullable = false)
+    @Builder.Default
+    private int attempts = 0;
+    
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+    
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+    
+    public enum SideEffectType {
+        SNIPPET_LIKED,
+        SNIPPET_UNLIKED,
+        SNIPPET_FAVORITED,
+        SNIPPET_UNFAVORITED,
+        COMMENT_ADDED,
+        USER_FOLLOWED
+    }
+    
+    public enum Status {
+        PENDING,
+        FAILED
+    }
+}
@@ -5,13 +5,17 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "snippets")
+@Table(name = "snippets", indexes = {
+    @Index(name = "idx_snippets_deleted_at", columnList = "deleted_at")
+})
+@SQLRestriction("deleted_at IS NULL")
 @Data
 @Builder
 @NoArgsConstructor
@@ -58,6 +62,9 @@ public class Snippet {
     @Builder.Default
     private Instant updatedAt = Instant.now();
     
+    @Column(name = "deleted_at")
+    private Instant deletedAt; // Tombstone; the row is purged in the background
+    
     @Builder.Default
     private Long viewCount = 0L;
     
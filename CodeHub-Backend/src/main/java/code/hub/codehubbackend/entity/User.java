@@ -34,6 +34,10 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private String passwordHash;
     
+    // Tokens issued before this are rejected; whole seconds, like the token's issued-at claim
+    @Column(name = "password_changed_at")
+    private Instant passwordChangedAt;
+    
     @Enumerated(EnumType.STRING)
     @Column(length = 20)
     @Builder.Default
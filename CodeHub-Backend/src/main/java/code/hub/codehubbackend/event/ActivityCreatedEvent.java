@@ -0,0 +1,19 @@
+package code.hub.codehubbackend.event;
+
+import code.hub.codehubbackend.entity.Activity;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published after an activity row is written, so feeds can fan it out without reloading it.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ActivityCreatedEvent {
+
+    private final Long activityId;
+    private final Long userId;
+    private final Activity.ActivityType type;
+}
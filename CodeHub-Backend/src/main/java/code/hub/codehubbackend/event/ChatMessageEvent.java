@@ -0,0 +1,30 @@
+package code.hub.codehubbackend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Published whenever a chat message is created, edited or deleted.
+ * Carries everything listeners need so they do not have to reload the message.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ChatMessageEvent {
+
+    public enum Type {
+        SENT, EDITED, DELETED
+    }
+
+    private final Type type;
+    private final Long messageId;
+    private final Long chatRoomId;
+    private final String content;
+    private final String fileName;
+    private final Instant createdAt;
+    private final List<Long> participantIds;
+}
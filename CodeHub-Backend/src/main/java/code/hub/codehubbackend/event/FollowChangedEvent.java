@@ -0,0 +1,18 @@
+package code.hub.codehubbackend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when a user follows or unfollows another user.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class FollowChangedEvent {
+
+    private final Long followerId;
+    private final Long followedUserId;
+    private final boolean following;
+}
@@ -0,0 +1,26 @@
+package code.hub.codehubbackend.event;
+
+import code.hub.codehubbackend.dto.notification.NotificationResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published whenever a user's notifications change. The unread delta is relative to the
+ * recipient's badge; {@code notification} is only set for {@link Type#CREATED} and {@link Type#UPDATED}.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class NotificationEvent {
+
+    public enum Type {
+        CREATED, UPDATED, READ, ALL_READ, DELETED
+    }
+
+    private final Type type;
+    private final Long recipientId;
+    private final String recipientUsername;
+    private final NotificationResponse notification;
+    private final long unreadDelta;
+}
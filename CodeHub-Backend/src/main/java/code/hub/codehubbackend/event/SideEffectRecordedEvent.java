@@ -0,0 +1,17 @@
+package code.hub.codehubbackend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when a side effect has been written to the outbox; dispatched to the worker pool
+ * once the surrounding transaction commits.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class SideEffectRecordedEvent {
+
+    private final Long outboxEventId;
+}
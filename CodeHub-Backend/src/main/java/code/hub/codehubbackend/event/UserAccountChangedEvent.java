@@ -0,0 +1,17 @@
+package code.hub.codehubbackend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when a user's profile, role, enabled flag or password changes, so cached
+ * principals are reloaded.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class UserAccountChangedEvent {
+
+    private final Long userId;
+}
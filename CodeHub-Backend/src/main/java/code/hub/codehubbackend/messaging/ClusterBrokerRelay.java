@@ -0,0 +1,106 @@
+package code.hub.codehubbackend.messaging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+
+/**
+ * Bridges the local simple broker with the other nodes of the cluster.
+ * <p>
+ * Registered as an interceptor on the broker channel: every broadcast ({@code /topic/**}) and every
+ * user destination ({@code /user/{name}/**}) sent by the application is published to the
+ * {@link ClusterTransport}. User destinations are relayed even when the user has local sessions, since
+ * they may have sessions on other nodes too. Peers re-inject the message into their own broker
+ * channel, where the simple broker delivers topics to local subscribers and the user destination
+ * handler resolves the user's local sessions, so a message reaches its recipients whichever node they
+ * are connected to. Messages from peers are received once the broker channel is attached.
+ */
+@Slf4j
+public class ClusterBrokerRelay implements ChannelInterceptor {
+
+    public static final String ORIGIN_NODE_HEADER = "clusterOriginNode";
+
+    private final ClusterTransport transport;
+    private final String[] relayedPrefixes;
+    private volatile MessageChannel brokerChannel;
+
+    public ClusterBrokerRelay(ClusterTransport transport, String... relayedPrefixes) {
+        this.transport = transport;
+        this.relayedPrefixes = relayedPrefixes;
+    }
+
+    @EventListener
+    public void onContextRefreshed(ContextRefreshedEvent event) {
+        if (brokerChannel == null && event.getApplicationContext().containsBean("brokerChannel")) {
+            attach(event.getApplicationContext().getBean("brokerChannel", MessageChannel.class));
+        }
+    }
+
+    /**
+     * Set the local broker channel that messages from peers are delivered to
+     */
+    public synchronized void attach(MessageChannel brokerChannel) {
+        boolean first = this.brokerChannel == null;
+        this.brokerChannel = brokerChannel;
+        if (first) {
+            transport.subscribe(this::onEnvelope);
+        }
+        log.info("Cluster broker relay attached on node {}", transport.getNodeId());
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE
+                || accessor.getHeader(ORIGIN_NODE_HEADER) != null
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+
+        String destination = accessor.getDestination();
+        if (!isRelayed(destination)) {
+            return message;
+        }
+
+        MimeType contentType = accessor.getContentType();
+        transport.publish(ClusterEnvelope.builder()
+                .originNodeId(transport.getNodeId())
+                .destination(destination)
+                .contentType(contentType != null ? contentType.toString() : null)
+                .payload(payload)
+                .build());
+        return message;
+    }
+
+    private void onEnvelope(ClusterEnvelope envelope) {
+        if (transport.getNodeId().equals(envelope.getOriginNodeId())) {
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(envelope.getDestination());
+        if (envelope.getContentType() != null) {
+            accessor.setContentType(MimeType.valueOf(envelope.getContentType()));
+        }
+        accessor.setHeader(ORIGIN_NODE_HEADER, envelope.getOriginNodeId());
+        brokerChannel.send(MessageBuilder.createMessage(envelope.getPayload(), accessor.getMessageHeaders()));
+    }
+
+    private boolean isRelayed(String destination) {
+        if (destination == null) {
+            return false;
+        }
+        for (String prefix : relayedPrefixes) {
+            if (destination.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,25 @@
+package code.hub.codehubbackend.messaging;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A broker message as it travels between nodes of the cluster.
+ * The payload is the already-serialized STOMP body, so peers can deliver it without re-encoding.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterEnvelope {
+
+    private String originNodeId;
+
+    private String destination;
+
+    private String contentType;
+
+    private byte[] payload;
+}
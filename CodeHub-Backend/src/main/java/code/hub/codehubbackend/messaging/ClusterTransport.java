@@ -0,0 +1,26 @@
+package code.hub.codehubbackend.messaging;
+
+import java.util.function.Consumer;
+
+/**
+ * Node-to-node transport used by the clustered broker mode.
+ * Implementations must deliver every published envelope to the listeners of all other nodes;
+ * delivery back to the publishing node is allowed and is filtered out by the relay.
+ */
+public interface ClusterTransport {
+
+    /**
+     * Identifier of the local node, stamped on every outgoing envelope
+     */
+    String getNodeId();
+
+    /**
+     * Publish an envelope to the other nodes
+     */
+    void publish(ClusterEnvelope envelope);
+
+    /**
+     * Register a listener for envelopes published by other nodes
+     */
+    void subscribe(Consumer<ClusterEnvelope> listener);
+}
@@ -0,0 +1,195 @@
+package code.hub.codehubbackend.messaging;
+
+import code.hub.codehubbackend.dto.chat.TypingStatusResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transient, best-effort signals (typing indicators, presence pings) that never touch the database.
+ * <p>
+ * Inbound signals are rate limited per WebSocket session and queued in a bounded buffer that drops
+ * the oldest entry when full. A periodic flush folds them into per-room typing state, expires
+ * entries that were not refreshed, and emits at most one aggregated frame per changed room per
+ * interval. Refreshing an existing "typing" entry changes nothing visible and emits no frame.
+ */
+@Component
+@Slf4j
+public class EphemeralSignalChannel {
+
+    public enum SignalType {
+        TYPING_START, TYPING_STOP
+    }
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final BlockingQueue<Signal> pending;
+    private final Map<String, AtomicLong> sessionThrottles = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, TypingEntry>> typingByRoom = new ConcurrentHashMap<>();
+    private final long typingTtlMillis;
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final Counter droppedSignals;
+    private final Counter throttledSignals;
+
+    public EphemeralSignalChannel(SimpMessagingTemplate messagingTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.chat.signals.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${app.chat.signals.typing-ttl-ms:6000}") long typingTtlMillis,
+                                  @Value("${app.chat.signals.rate-per-second:5}") int ratePerSecond,
+                                  @Value("${app.chat.signals.burst:10}") int burst) {
+        this.messagingTemplate = messagingTemplate;
+        this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        this.typingTtlMillis = typingTtlMillis;
+        this.emissionIntervalNanos = 1_000_000_000L / Math.max(1, ratePerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * Math.max(0, burst - 1);
+
+        this.droppedSignals = Counter.builder("codehub.signals.dropped")
+                .description("Ephemeral signals dropped because the buffer was full")
+                .register(meterRegistry);
+        this.throttledSignals = Counter.builder("codehub.signals.throttled")
+                .description("Ephemeral signals rejected by the per-session rate limit")
+                .register(meterRegistry);
+        Gauge.builder("codehub.signals.pending", pending, BlockingQueue::size)
+                .description("Ephemeral signals waiting for the next flush")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue a typing signal; returns false when the session exceeded its rate
+     */
+    public boolean submit(SignalType type, String chatId, String username, String sessionId) {
+        if (!tryAcquire(sessionId)) {
+            return false;
+        }
+        Signal signal = new Signal(type, chatId, username, sessionId);
+        while (!pending.offer(signal)) {
+            if (pending.poll() != null) {
+                droppedSignals.increment();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Per-session GCRA rate limit, shared by every signal type sent on the session
+     */
+    public boolean tryAcquire(String sessionId) {
+        if (sessionId == null) {
+            return false;
+        }
+        AtomicLong theoreticalArrival = sessionThrottles.computeIfAbsent(sessionId, key -> new AtomicLong(System.nanoTime()));
+        while (true) {
+            long now = System.nanoTime();
+            long tat = theoreticalArrival.get();
+            long base = tat - now > 0 ? tat : now;
+            if (base - now > burstToleranceNanos) {
+                throttledSignals.increment();
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(tat, base + emissionIntervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.signals.flush-interval-ms:500}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        Set<String> changedRooms = new HashSet<>();
+
+        Signal signal;
+        while ((signal = pending.poll()) != null) {
+            apply(signal, now, changedRooms);
+        }
+
+        typingByRoom.forEach((chatId, typists) -> {
+            if (typists.values().removeIf(entry -> entry.expiresAtMillis <= now)) {
+                changedRooms.add(chatId);
+            }
+        });
+
+        for (String chatId : changedRooms) {
+            Map<String, TypingEntry> typists = typingByRoom.get(chatId);
+            List<String> typingUsers = typists == null ? List.of() : new ArrayList<>(new TreeSet<>(typists.keySet()));
+            messagingTemplate.convertAndSend("/topic/chat/" + chatId + "/typing",
+                    new TypingStatusResponse(chatId, typingUsers));
+            if (typists != null && typists.isEmpty()) {
+                typingByRoom.remove(chatId, typists);
+            }
+        }
+    }
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        String sessionId = event.getSessionId();
+        sessionThrottles.remove(sessionId);
+        // Expire the session's typing entries; the next flush broadcasts the change
+        for (Map<String, TypingEntry> typists : typingByRoom.values()) {
+            for (TypingEntry entry : typists.values()) {
+                if (sessionId.equals(entry.sessionId)) {
+                    entry.expiresAtMillis = 0;
+                }
+            }
+        }
+    }
+
+    private void apply(Signal signal, long now, Set<String> changedRooms) {
+        if (signal.type == SignalType.TYPING_START) {
+            Map<String, TypingEntry> typists = typingByRoom.computeIfAbsent(signal.chatId, key -> new ConcurrentHashMap<>());
+            TypingEntry existing = typists.get(signal.username);
+            if (existing != null && existing.expiresAtMillis > now) {
+                existing.expiresAtMillis = now + typingTtlMillis;
+            } else {
+                typists.put(signal.username, new TypingEntry(signal.sessionId, now + typingTtlMillis));
+                changedRooms.add(signal.chatId);
+            }
+        } else {
+            Map<String, TypingEntry> typists = typingByRoom.get(signal.chatId);
+            if (typists != null && typists.remove(signal.username) != null) {
+                changedRooms.add(signal.chatId);
+            }
+        }
+    }
+
+    private static final class Signal {
+        private final SignalType type;
+        private final String chatId;
+        private final String username;
+        private final String sessionId;
+
+        private Signal(SignalType type, String chatId, String username, String sessionId) {
+            this.type = type;
+            this.chatId = chatId;
+            this.username = username;
+            this.sessionId = sessionId;
+        }
+    }
+
+    private static final class TypingEntry {
+        private final String sessionId;
+        private volatile long expiresAtMillis;
+
+        private TypingEntry(String sessionId, long expiresAtMillis) {
+            this.sessionId = sessionId;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
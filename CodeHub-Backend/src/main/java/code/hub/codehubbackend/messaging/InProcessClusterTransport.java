@@ -0,0 +1,84 @@
+package code.hub.codehubbackend.messaging;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * {@link ClusterTransport} that connects nodes living in the same JVM through a shared {@link Hub}.
+ * Used for single-instance deployments running in cluster mode and as a multi-node test harness.
+ * A node joins its hub when its first listener subscribes.
+ */
+@Slf4j
+public class InProcessClusterTransport implements ClusterTransport {
+
+    private static final Hub SHARED_HUB = new Hub();
+
+    private final String nodeId;
+    private final Hub hub;
+    private final List<Consumer<ClusterEnvelope>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean joined = new AtomicBoolean();
+
+    public InProcessClusterTransport(String nodeId) {
+        this(nodeId, SHARED_HUB);
+    }
+
+    public InProcessClusterTransport(String nodeId, Hub hub) {
+        this.nodeId = nodeId;
+        this.hub = hub;
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publish(ClusterEnvelope envelope) {
+        for (InProcessClusterTransport member : hub.members) {
+            if (member != this) {
+                member.deliver(envelope);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<ClusterEnvelope> listener) {
+        listeners.add(listener);
+        if (joined.compareAndSet(false, true)) {
+            hub.join(this);
+        }
+    }
+
+    /**
+     * Detach this node from its hub so it no longer receives envelopes
+     */
+    public void leave() {
+        hub.members.remove(this);
+    }
+
+    private void deliver(ClusterEnvelope envelope) {
+        for (Consumer<ClusterEnvelope> listener : listeners) {
+            try {
+                listener.accept(envelope);
+            } catch (Exception e) {
+                log.error("Node {} failed to handle envelope for {}", nodeId, envelope.getDestination(), e);
+            }
+        }
+    }
+
+    /**
+     * Group of in-process nodes that see each other's messages
+     */
+    public static class Hub {
+
+        private final List<InProcessClusterTransport> members = new CopyOnWriteArrayList<>();
+
+        private void join(InProcessClusterTransport transport) {
+            members.add(transport);
+        }
+    }
+}
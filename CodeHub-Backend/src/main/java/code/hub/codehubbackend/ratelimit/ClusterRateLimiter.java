@@ -0,0 +1,141 @@
+package code.hub.codehubbackend.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cluster-wide limit for one policy: at most {@code requests} per key in each fixed window of
+ * {@code period}, summed over all nodes. Each node leases tokens from the {@link SharedCounterStore}
+ * in batches and spends them with a local compare-and-set, so only one request in a batch makes a
+ * remote call.
+ * <p>
+ * The store never grants more than the limit, so the cluster cannot over-admit. Tokens left
+ * unspent in other nodes' leases are lost when the window ends, so the cluster may under-admit by
+ * up to {@code (nodes - 1) * (leaseSize - 1)} requests per window.
+ */
+@Slf4j
+public class ClusterRateLimiter {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final RateLimitPolicy policy;
+    private final SharedCounterStore store;
+    private final long periodMillis;
+    private final long leaseSize;
+    private final int maxKeys;
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final LongAdder leaseCalls = new LongAdder();
+    private final LongAdder storeErrors = new LongAdder();
+
+    public ClusterRateLimiter(RateLimitPolicy policy, SharedCounterStore store, long leaseSize, int maxKeys) {
+        this.policy = policy;
+        this.store = store;
+        this.periodMillis = Math.max(1, policy.getPeriod().toMillis());
+        this.leaseSize = Math.max(1, leaseSize);
+        this.maxKeys = maxKeys;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Take one request for the key at {@code nowMillis}, wall clock time shared by all nodes
+     */
+    public boolean tryAcquire(String key, long nowMillis) {
+        long window = windowStart(nowMillis);
+        Lease lease = leases.get(key);
+        if (lease != null && lease.window == window && (lease.closed || lease.take())) {
+            return !lease.closed;
+        }
+
+        // One refill per key at a time; the others wait for it instead of calling the store too
+        synchronized (locks[Math.floorMod(key.hashCode(), LOCK_STRIPES)]) {
+            lease = leases.get(key);
+            if (lease != null && lease.window == window && (lease.closed || lease.take())) {
+                return !lease.closed;
+            }
+
+            if (leases.size() >= maxKeys) {
+                evictStale(nowMillis);
+            }
+            if (leases.size() >= maxKeys) {
+                // No room to keep a lease; ask the store for exactly this request
+                return lease(key, window, 1) > 0;
+            }
+
+            long granted = lease(key, window, leaseSize);
+            Lease refill = new Lease(window, granted);
+            leases.put(key, refill);
+            return refill.take();
+        }
+    }
+
+    /**
+     * Drop leases of windows that have ended
+     */
+    public int evictStale(long nowMillis) {
+        long window = windowStart(nowMillis);
+        int before = leases.size();
+        leases.values().removeIf(lease -> lease.window < window);
+        return before - leases.size();
+    }
+
+    public long windowEnd(long nowMillis) {
+        return windowStart(nowMillis) + periodMillis;
+    }
+
+    public long leaseCallCount() {
+        return leaseCalls.sum();
+    }
+
+    public long storeErrorCount() {
+        return storeErrors.sum();
+    }
+
+    private long lease(String key, long window, long requested) {
+        leaseCalls.increment();
+        try {
+            return store.lease(policy.getName() + ":" + key, window, requested, policy.getRequests());
+        } catch (Exception e) {
+            // Fail open for one batch; the local limiter still applies meanwhile
+            storeErrors.increment();
+            log.warn("Shared rate limit store failed for policy {}: {}", policy.getName(), e.getMessage());
+            return requested;
+        }
+    }
+
+    private long windowStart(long nowMillis) {
+        return nowMillis - Math.floorMod(nowMillis, periodMillis);
+    }
+
+    private static final class Lease {
+        final long window;
+        final AtomicLong remaining;
+
+        // The store had nothing left for this window, so neither will a later call
+        final boolean closed;
+
+        Lease(long window, long granted) {
+            this.window = window;
+            this.remaining = new AtomicLong(granted);
+            this.closed = granted <= 0;
+        }
+
+        boolean take() {
+            while (true) {
+                long current = remaining.get();
+                if (current <= 0) {
+                    return false;
+                }
+                if (remaining.compareAndSet(current, current - 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package code.hub.codehubbackend.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generic cell rate algorithm for one policy. Each key keeps a single "theoretical arrival time"
+ * in an {@link AtomicLong} that is advanced with compare-and-set, so checks take no locks and a
+ * rejected request writes nothing.
+ * <p>
+ * A key whose arrival time has passed is indistinguishable from a new one, so such entries can be
+ * dropped at any time without losing state. The map is swept for them periodically and whenever it
+ * fills up; if it is still full, unseen keys share one overflow cell instead of growing the map.
+ */
+public class GcraLimiter {
+
+    private static final long MIN_SWEEP_GAP_NANOS = 1_000_000_000L;
+
+    private final RateLimitPolicy policy;
+    private final long interval;
+    private final long capacity;
+    private final int maxKeys;
+    private final Map<String, AtomicLong> cells = new ConcurrentHashMap<>();
+    private final AtomicLong overflow = new AtomicLong();
+    private final AtomicLong lastSweep = new AtomicLong(-MIN_SWEEP_GAP_NANOS);
+    private final LongAdder overflowHits = new LongAdder();
+
+    public GcraLimiter(RateLimitPolicy policy, int maxKeys) {
+        this.policy = policy;
+        this.interval = policy.emissionIntervalNanos();
+        this.capacity = interval * Math.max(1, policy.getBurst());
+        this.maxKeys = maxKeys;
+    }
+
+    public RateLimitPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Take one request for the key at {@code now}, a non-negative monotonic time in nanoseconds
+     */
+    public RateLimitDecision tryAcquire(String key, long now) {
+        AtomicLong cell = cell(key, now);
+        while (true) {
+            long stored = cell.get();
+            long tat = Math.max(stored, now);
+            long next = tat + interval;
+            long wait = next - now - capacity;
+            if (wait > 0) {
+                return new RateLimitDecision(false, policy.getBurst(), 0, tat - now, wait);
+            }
+            if (cell.compareAndSet(stored, next)) {
+                long remaining = (capacity - (next - now)) / interval;
+                return new RateLimitDecision(true, policy.getBurst(), remaining, next - now, 0);
+            }
+        }
+    }
+
+    /**
+     * Drop keys whose bucket has refilled completely
+     */
+    public int evictExpired(long now) {
+        int before = cells.size();
+        cells.values().removeIf(cell -> cell.get() <= now);
+        return before - cells.size();
+    }
+
+    public int size() {
+        return cells.size();
+    }
+
+    /**
+     * Requests checked against the shared overflow cell because the map was full
+     */
+    public long overflowCount() {
+        return overflowHits.sum();
+    }
+
+    private AtomicLong cell(String key, long now) {
+        AtomicLong cell = cells.get(key);
+        if (cell != null) {
+            return cell;
+        }
+        if (cells.size() >= maxKeys) {
+            // At most one inline sweep per second, however many new keys arrive
+            long last = lastSweep.get();
+            if (now - last >= MIN_SWEEP_GAP_NANOS && lastSweep.compareAndSet(last, now)) {
+                evictExpired(now);
+            }
+            if (cells.size() >= maxKeys) {
+                overflowHits.increment();
+                return overflow;
+            }
+        }
+        return cells.computeIfAbsent(key, k -> new AtomicLong());
+    }
+}
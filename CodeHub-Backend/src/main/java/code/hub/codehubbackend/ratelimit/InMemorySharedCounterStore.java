@@ -0,0 +1,59 @@
+package code.hub.codehubbackend.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link SharedCounterStore} held in this JVM. Several limiters built on one instance behave like
+ * nodes sharing a remote store, which makes it the default for single-instance deployments and
+ * the harness for multi-node tests.
+ */
+public class InMemorySharedCounterStore implements SharedCounterStore {
+
+    private final Map<Window, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public long lease(String key, long windowStart, long requested, long limit) {
+        AtomicLong used = counters.computeIfAbsent(new Window(key, windowStart), window -> new AtomicLong());
+        while (true) {
+            long current = used.get();
+            long granted = Math.min(requested, limit - current);
+            if (granted <= 0) {
+                return 0;
+            }
+            if (used.compareAndSet(current, current + granted)) {
+                return granted;
+            }
+        }
+    }
+
+    @Override
+    public void evictBefore(long windowStart) {
+        counters.keySet().removeIf(window -> window.start < windowStart);
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    private static final class Window {
+        final String key;
+        final long start;
+
+        Window(String key, long start) {
+            this.key = key;
+            this.start = start;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Window window && start == window.start && key.equals(window.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * key.hashCode() + Long.hashCode(start);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package code.hub.codehubbackend.ratelimit;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * {@link SharedCounterStore} backed by the {@code rate_limit_counters} table. Each lease upserts
+ * and locks one counter row for a short transaction, so nodes serialize per key and window only.
+ */
+public class JdbcSharedCounterStore implements SharedCounterStore {
+
+    private static final String SELECT_FOR_UPDATE =
+            "SELECT used FROM rate_limit_counters WHERE counter_key = ? AND window_start = ? FOR UPDATE";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcSharedCounterStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public long lease(String key, long windowStart, long requested, long limit) {
+        Long granted = transactionTemplate.execute(status -> {
+            long used = lockCounter(key, windowStart);
+            long grant = Math.min(requested, limit - used);
+            if (grant <= 0) {
+                return 0L;
+            }
+            jdbcTemplate.update("UPDATE rate_limit_counters SET used = used + ? WHERE counter_key = ? AND window_start = ?",
+                    grant, key, windowStart);
+            return grant;
+        });
+        return granted != null ? granted : 0;
+    }
+
+    @Override
+    public void evictBefore(long windowStart) {
+        jdbcTemplate.update("DELETE FROM rate_limit_counters WHERE window_start < ?", windowStart);
+    }
+
+    private long lockCounter(String key, long windowStart) {
+        // One upsert creates or row-locks the counter. A locking read of a missing row would take a
+        // gap lock instead, and two nodes opening the same window would deadlock on their inserts.
+        jdbcTemplate.update("INSERT INTO rate_limit_counters (counter_key, window_start, used) VALUES (?, ?, 0) "
+                + "ON DUPLICATE KEY UPDATE used = used", key, windowStart);
+        return jdbcTemplate.queryForObject(SELECT_FOR_UPDATE, Long.class, key, windowStart);
+    }
+}
@@ -0,0 +1,35 @@
+package code.hub.codehubbackend.ratelimit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of one rate limit check, with the numbers reported in the RateLimit-* headers
+ */
+@Getter
+@AllArgsConstructor
+public class RateLimitDecision {
+
+    private final boolean allowed;
+    private final long limit;
+    private final long remaining;
+
+    // Until the bucket is full again
+    private final long resetNanos;
+
+    // Until the next request would be allowed; 0 when allowed
+    private final long retryAfterNanos;
+
+    public long resetSeconds() {
+        return toSeconds(resetNanos);
+    }
+
+    public long retryAfterSeconds() {
+        return Math.max(1, toSeconds(retryAfterNanos));
+    }
+
+    private static long toSeconds(long nanos) {
+        // Round up so clients never retry early
+        return (nanos + 999_999_999L) / 1_000_000_000L;
+    }
+}
@@ -0,0 +1,43 @@
+package code.hub.codehubbackend.ratelimit;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * One rate limit: requests matching any of {@code patterns} may arrive at a sustained
+ * {@code requests} per {@code period}, with up to {@code burst} of them back to back.
+ */
+@Getter
+@Builder
+@ToString
+public class RateLimitPolicy {
+
+    public enum KeyType {
+        // Client address only, for endpoints hit before the caller is known
+        IP,
+        // User id when authenticated, client address otherwise
+        USER
+    }
+
+    private final String name;
+
+    @Singular
+    private final List<String> patterns;
+
+    private final long requests;
+    private final Duration period;
+    private final long burst;
+    private final KeyType keyType;
+
+    /**
+     * Time between requests at the sustained rate
+     */
+    public long emissionIntervalNanos() {
+        return Math.max(1, period.toNanos() / Math.max(1, requests));
+    }
+}
@@ -0,0 +1,193 @@
+package code.hub.codehubbackend.ratelimit;
+
+import code.hub.codehubbackend.security.CurrentUserContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.AntPathMatcher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-route rate limits. Requests are checked against the first policy whose patterns match the
+ * path; the default policy covers the rest of the API. Auth endpoints are keyed by client address,
+ * everything else by user id once the caller is authenticated.
+ * <p>
+ * Each node shapes bursts locally. With {@code app.rate-limit.cluster.enabled} the sustained rate
+ * is also enforced across all nodes through leases on a {@link SharedCounterStore}.
+ */
+@Service
+@Slf4j
+public class RateLimitService {
+
+    private final ClientAddressResolver clientAddressResolver;
+    private final CurrentUserContext currentUserContext;
+    private final List<GcraLimiter> limiters;
+    private final Map<String, ClusterRateLimiter> clusterLimiters = new HashMap<>();
+    private final SharedCounterStore sharedCounterStore;
+    private final Duration longestPeriod;
+    private final Map<String, Counter> allowedCounters = new HashMap<>();
+    private final Map<String, Counter> rejectedCounters = new HashMap<>();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final long origin = System.nanoTime();
+
+    public RateLimitService(ClientAddressResolver clientAddressResolver,
+                            CurrentUserContext currentUserContext,
+                            SharedCounterStore sharedCounterStore,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.rate-limit.max-keys:100000}") int maxKeys,
+                            @Value("${app.rate-limit.cluster.enabled:false}") boolean clusterEnabled,
+                            @Value("${app.rate-limit.cluster.lease-size:10}") long leaseSize,
+                            @Value("${app.rate-limit.auth.requests-per-minute:10}") long authRequests,
+                            @Value("${app.rate-limit.auth.burst:5}") long authBurst,
+                            @Value("${app.rate-limit.upload.requests-per-minute:20}") long uploadRequests,
+                            @Value("${app.rate-limit.upload.burst:5}") long uploadBurst,
+                            @Value("${app.rate-limit.default.requests-per-minute:100}") long defaultRequests,
+                            @Value("${app.rate-limit.default.burst:50}") long defaultBurst) {
+        this.clientAddressResolver = clientAddressResolver;
+        this.currentUserContext = currentUserContext;
+        this.sharedCounterStore = sharedCounterStore;
+
+        List<RateLimitPolicy> policies = List.of(
+                RateLimitPolicy.builder()
+                        .name("auth")
+                        .pattern("/api/auth/**")
+                        .requests(authRequests)
+                        .period(Duration.ofMinutes(1))
+                        .burst(authBurst)
+                        .keyType(RateLimitPolicy.KeyType.IP)
+                        .build(),
+                RateLimitPolicy.builder()
+                        .name("upload")
+                        // Only the endpoints that take files; job status polls fall under the default policy
+                        .pattern("/api/upload/{type:avatar|cover|image|jobs}")
+                        .pattern("/api/chat/send-file")
+                        .pattern("/api/chat/send-file/jobs")
+                        .requests(uploadRequests)
+                        .period(Duration.ofMinutes(1))
+                        .burst(uploadBurst)
+                        .keyType(RateLimitPolicy.KeyType.USER)
+                        .build(),
+                RateLimitPolicy.builder()
+                        .name("default")
+                        .pattern("/api/**")
+                        .pattern("/ws/**")
+                        .requests(defaultRequests)
+                        .period(Duration.ofMinutes(1))
+                        .burst(defaultBurst)
+                        .keyType(RateLimitPolicy.KeyType.USER)
+                        .build());
+
+        List<GcraLimiter> configured = new ArrayList<>();
+        for (RateLimitPolicy policy : policies) {
+            GcraLimiter limiter = new GcraLimiter(policy, maxKeys);
+            configured.add(limiter);
+            allowedCounters.put(policy.getName(), Counter.builder("codehub.ratelimit.requests")
+                    .tag("policy", policy.getName()).tag("outcome", "allowed").register(meterRegistry));
+            rejectedCounters.put(policy.getName(), Counter.builder("codehub.ratelimit.requests")
+                    .tag("policy", policy.getName()).tag("outcome", "rejected").register(meterRegistry));
+            Gauge.builder("codehub.ratelimit.keys", limiter, GcraLimiter::size)
+                    .tag("policy", policy.getName()).register(meterRegistry);
+            FunctionCounter.builder("codehub.ratelimit.overflow", limiter, GcraLimiter::overflowCount)
+                    .tag("policy", policy.getName()).register(meterRegistry);
+
+            if (clusterEnabled) {
+                ClusterRateLimiter cluster = new ClusterRateLimiter(policy, sharedCounterStore, leaseSize, maxKeys);
+                clusterLimiters.put(policy.getName(), cluster);
+                FunctionCounter.builder("codehub.ratelimit.cluster.leases", cluster, ClusterRateLimiter::leaseCallCount)
+                        .tag("policy", policy.getName()).register(meterRegistry);
+                FunctionCounter.builder("codehub.ratelimit.cluster.errors", cluster, ClusterRateLimiter::storeErrorCount)
+                        .tag("policy", policy.getName()).register(meterRegistry);
+            }
+        }
+        this.limiters = Collections.unmodifiableList(configured);
+        this.longestPeriod = policies.stream().map(RateLimitPolicy::getPeriod).max(Duration::compareTo).orElseThrow();
+        log.info("Rate limit policies: {} (cluster-wide: {})", policies, clusterEnabled);
+    }
+
+    /**
+     * Check the request against its policy, or null when no policy covers the path
+     */
+    public RateLimitDecision check(HttpServletRequest request) {
+        GcraLimiter limiter = limiterFor(request.getRequestURI());
+        if (limiter == null) {
+            return null;
+        }
+
+        RateLimitPolicy policy = limiter.getPolicy();
+        String key = keyFor(policy, request);
+        RateLimitDecision decision = limiter.tryAcquire(key, now());
+
+        ClusterRateLimiter cluster = clusterLimiters.get(policy.getName());
+        if (decision.isAllowed() && cluster != null) {
+            long nowMillis = System.currentTimeMillis();
+            if (!cluster.tryAcquire(key, nowMillis)) {
+                // The cluster quota is spent until the window rolls over
+                long waitNanos = (cluster.windowEnd(nowMillis) - nowMillis) * 1_000_000L;
+                decision = new RateLimitDecision(false, decision.getLimit(), 0, waitNanos, waitNanos);
+            }
+        }
+        (decision.isAllowed() ? allowedCounters : rejectedCounters).get(policy.getName()).increment();
+        return decision;
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        long now = now();
+        int evicted = 0;
+        for (GcraLimiter limiter : limiters) {
+            evicted += limiter.evictExpired(now);
+        }
+        if (!clusterLimiters.isEmpty()) {
+            long nowMillis = System.currentTimeMillis();
+            for (ClusterRateLimiter cluster : clusterLimiters.values()) {
+                evicted += cluster.evictStale(nowMillis);
+            }
+            try {
+                sharedCounterStore.evictBefore(nowMillis - longestPeriod.toMillis());
+            } catch (Exception e) {
+                log.warn("Failed to evict old shared rate limit counters: {}", e.getMessage());
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate limit keys", evicted);
+        }
+    }
+
+    private GcraLimiter limiterFor(String path) {
+        for (GcraLimiter limiter : limiters) {
+            for (String pattern : limiter.getPolicy().getPatterns()) {
+                if (pathMatcher.match(pattern, path)) {
+                    return limiter;
+                }
+            }
+        }
+        return null;
+    }
+
+    private String keyFor(RateLimitPolicy policy, HttpServletRequest request) {
+        if (policy.getKeyType() == RateLimitPolicy.KeyType.USER) {
+            Long userId = currentUserContext.currentUserId();
+            if (userId != null) {
+                return "user:" + userId;
+            }
+        }
+        return "ip:" + clientAddressResolver.resolve(request);
+    }
+
+    // Monotonic and non-negative, as the limiters expect
+    private long now() {
+        return System.nanoTime() - origin;
+    }
+}
@@ -0,0 +1,22 @@
+package code.hub.codehubbackend.ratelimit;
+
+/**
+ * Counters shared by all nodes, used to enforce cluster-wide rate limits. Nodes do not call the
+ * store per request; they lease batches of tokens and spend them locally.
+ * Implementations must make {@link #lease} atomic across nodes.
+ */
+public interface SharedCounterStore {
+
+    /**
+     * Take up to {@code requested} tokens from the counter of {@code key} for the window starting
+     * at {@code windowStart} (epoch millis), never letting the window's total pass {@code limit}.
+     *
+     * @return tokens granted, between 0 and {@code requested}
+     */
+    long lease(String key, long windowStart, long requested, long limit);
+
+    /**
+     * Forget counters of windows that started before {@code windowStart}
+     */
+    void evictBefore(long windowStart);
+}
@@ -7,8 +7,10 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -34,8 +36,27 @@ public interface ActivityRepository extends JpaRepository<Activity, Long> {
     Page<Activity> findByTargetIdAndTargetTypeOrderByCreatedAtDesc(Long targetId, String targetType, Pageable pageable);
     
     // Delete activities by target (for cleanup when target is deleted)
-    void deleteByTargetIdAndTargetType(Long targetId, String targetType);
+    @Modifying
+    @Query("DELETE FROM Activity a WHERE a.targetId = :targetId AND a.targetType = :targetType")
+    void deleteByTargetIdAndTargetType(@Param("targetId") Long targetId, @Param("targetType") String targetType);
     
     // Count activities by user and type
     long countByUserAndType(User user, Activity.ActivityType type);
+    
+    // Feed keyset page: newest activity ids of the given authors below the cursor
+    @Query("SELECT a.id FROM Activity a WHERE a.user.id IN :userIds AND a.type IN :types AND a.id < :beforeId ORDER BY a.id DESC")
+    List<Long> findFeedActivityIds(@Param("userIds") Collection<Long> userIds,
+                                   @Param("types") Collection<Activity.ActivityType> types,
+                                   @Param("beforeId") Long beforeId,
+                                   Pageable pageable);
+    
+    @Query("SELECT a FROM Activity a JOIN FETCH a.user WHERE a.id IN :ids")
+    List<Activity> findAllWithUserByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Covers typed rows by snippet and legacy rows that only reference the snippet or one of its comments
+    @Modifying
+    @Query("DELETE FROM Activity a WHERE a.snippetId = :snippetId " +
+           "OR (a.targetType = 'snippet' AND a.targetId = :snippetId) " +
+           "OR (a.targetType = 'comment' AND a.targetId IN (SELECT c.id FROM Comment c WHERE c.snippet.id = :snippetId))")
+    int deleteAllBySnippetId(@Param("snippetId") Long snippetId);
 }
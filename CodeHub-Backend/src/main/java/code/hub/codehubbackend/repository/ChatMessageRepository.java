@@ -73,4 +73,38 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
     Page<ChatMessage> findRecentMessagesInChatRooms(@Param("chatRooms") java.util.List<ChatRoom> chatRooms,
                                                    @Param("fromDate") Instant fromDate,
                                                    Pageable pageable);
+    
+    // Keyset queries for cursor-based history, served by idx_chat_messages_room_id (chat_room_id, id)
+    @Query("SELECT cm FROM ChatMessage cm JOIN FETCH cm.sender " +
+           "WHERE cm.chatRoom = :chatRoom " +
+           "ORDER BY cm.id DESC")
+    List<ChatMessage> findLatestByChatRoom(@Param("chatRoom") ChatRoom chatRoom, Pageable pageable);
+    
+    @Query("SELECT cm FROM ChatMessage cm JOIN FETCH cm.sender " +
+           "WHERE cm.chatRoom = :chatRoom AND cm.id < :beforeId " +
+           "ORDER BY cm.id DESC")
+    List<ChatMessage> findByChatRoomBeforeId(@Param("chatRoom") ChatRoom chatRoom,
+                                             @Param("beforeId") Long beforeId,
+                                             Pageable pageable);
+    
+    @Query("SELECT cm FROM ChatMessage cm JOIN FETCH cm.sender " +
+           "WHERE cm.chatRoom = :chatRoom AND cm.id > :afterId " +
+           "ORDER BY cm.id ASC")
+    List<ChatMessage> findByChatRoomAfterId(@Param("chatRoom") ChatRoom chatRoom,
+                                            @Param("afterId") Long afterId,
+                                            Pageable pageable);
+    
+    boolean existsByIdAndChatRoom(Long id, ChatRoom chatRoom);
+    
+    // (id, chat room id, content, file name, created at) rows for building a user's search partition
+    @Query("SELECT cm.id, cm.chatRoom.id, cm.content, cm.fileName, cm.createdAt FROM ChatMessage cm " +
+           "WHERE cm.id < :beforeId AND cm.chatRoom.id IN " +
+           "(SELECT p.chatRoom.id FROM ChatParticipant p WHERE p.user.id = :userId AND p.isActive = true) " +
+           "ORDER BY cm.id DESC")
+    List<Object[]> findIndexableMessagesForUser(@Param("userId") Long userId,
+                                                @Param("beforeId") Long beforeId,
+                                                Pageable pageable);
+    
+    @Query("SELECT cm FROM ChatMessage cm JOIN FETCH cm.sender JOIN FETCH cm.chatRoom WHERE cm.id IN :ids")
+    List<ChatMessage> findAllWithSenderAndRoomByIdIn(@Param("ids") java.util.Collection<Long> ids);
 }
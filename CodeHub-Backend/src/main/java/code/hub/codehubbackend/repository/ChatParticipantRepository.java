@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,4 +40,15 @@ public interface ChatParticipantRepository extends JpaRepository<ChatParticipant
     Long countActiveByChatRoom(@Param("chatRoom") ChatRoom chatRoom);
     
     boolean existsByChatRoomAndUserAndIsActiveTrue(ChatRoom chatRoom, User user);
+    
+    boolean existsByChatRoomChatIdAndUserIdAndIsActiveTrue(String chatId, Long userId);
+    
+    // (user id, peer id, peer username) rows for every active room the users share with someone
+    @Query("SELECT DISTINCT p.user.id, peer.user.id, peer.user.username FROM ChatParticipant p, ChatParticipant peer " +
+           "WHERE peer.chatRoom = p.chatRoom AND peer.user.id <> p.user.id " +
+           "AND p.isActive = true AND peer.isActive = true AND p.user.id IN :userIds")
+    List<Object[]> findPeerIdsAndUsernamesByUserIds(@Param("userIds") Collection<Long> userIds);
+    
+    @Query("SELECT p.chatRoom.id FROM ChatParticipant p WHERE p.user.id = :userId AND p.isActive = true")
+    List<Long> findActiveChatRoomIdsByUserId(@Param("userId") Long userId);
 }
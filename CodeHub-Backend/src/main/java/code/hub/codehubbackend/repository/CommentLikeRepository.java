@@ -4,6 +4,7 @@ import code.hub.codehubbackend.entity.CommentLike;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -24,4 +25,8 @@ public interface CommentLikeRepository extends JpaRepository<CommentLike, Commen
     
     @Query("SELECT COUNT(cl) FROM CommentLike cl WHERE cl.comment.author.id = :authorId")
     Long countByCommentAuthorId(@Param("authorId") Long authorId);
+    
+    @Modifying
+    @Query("DELETE FROM CommentLike cl WHERE cl.comment.id IN (SELECT c.id FROM Comment c WHERE c.snippet.id = :snippetId)")
+    int deleteAllBySnippetId(@Param("snippetId") Long snippetId);
 }
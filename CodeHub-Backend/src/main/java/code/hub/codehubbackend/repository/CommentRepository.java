@@ -6,6 +6,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -48,4 +49,13 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     // Find comments with mentions
     @Query("SELECT c FROM Comment c WHERE c.content LIKE CONCAT('%@', :username, '%') AND c.isDeleted = false")
     List<Comment> findCommentsMentioning(@Param("username") String username);
+    
+    // Replies reference their parent, so detach them before deleting a snippet's comments in one statement
+    @Modifying
+    @Query("UPDATE Comment c SET c.parentComment = null WHERE c.snippet.id = :snippetId AND c.parentComment IS NOT NULL")
+    int detachRepliesBySnippetId(@Param("snippetId") Long snippetId);
+    
+    @Modifying
+    @Query("DELETE FROM Comment c WHERE c.snippet.id = :snippetId")
+    int deleteAllBySnippetId(@Param("snippetId") Long snippetId);
 }
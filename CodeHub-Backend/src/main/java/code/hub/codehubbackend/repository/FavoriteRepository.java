@@ -6,6 +6,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -33,4 +34,8 @@ public interface FavoriteRepository extends JpaRepository<Favorite, Favorite.Fav
     Page<Favorite> findByUserIdAndSnippetLanguage(@Param("userId") Long userId, 
                                                    @Param("language") String language, 
                                                    Pageable pageable);
+    
+    @Modifying
+    @Query("DELETE FROM Favorite f WHERE f.snippet.id = :snippetId")
+    int deleteAllBySnippetId(@Param("snippetId") Long snippetId);
 }
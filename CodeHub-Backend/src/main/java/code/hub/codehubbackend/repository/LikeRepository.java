@@ -3,6 +3,7 @@ package code.hub.codehubbackend.repository;
 import code.hub.codehubbackend.entity.Like;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.repository.query.Param;
 
@@ -36,4 +37,8 @@ public interface LikeRepository extends JpaRepository<Like, Like.LikeKey> {
     // Count likes received by user's snippets
     @Query("SELECT COUNT(l) FROM Like l WHERE l.snippet.owner.id = :authorId")
     Long countBySnippetAuthorId(@Param("authorId") Long authorId);
+    
+    @Modifying
+    @Query("DELETE FROM Like l WHERE l.snippet.id = :snippetId")
+    int deleteAllBySnippetId(@Param("snippetId") Long snippetId);
 }
@@ -0,0 +1,36 @@
+package code.hub.codehubbackend.repository;
+
+import code.hub.codehubbackend.entity.MediaObject;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface MediaObjectRepository extends JpaRepository<MediaObject, Long> {
+    
+    Optional<MediaObject> findByContentHashAndFolder(String contentHash, String folder);
+    
+    Optional<MediaObject> findFirstByUrl(String url);
+    
+    // Each is its own short transaction, so no transaction is held open across an upload
+    @Transactional
+    @Modifying
+    @Query("UPDATE MediaObject m SET m.refCount = m.refCount + 1 WHERE m.id = :id AND m.refCount > 0")
+    int acquire(@Param("id") Long id);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE MediaObject m SET m.refCount = m.refCount - 1 WHERE m.id = :id AND m.refCount > 0")
+    int release(@Param("id") Long id);
+    
+    // Only succeeds while nothing references the object, so it cannot race with a new acquire
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM MediaObject m WHERE m.id = :id AND m.refCount = 0")
+    int deleteIfUnreferenced(@Param("id") Long id);
+}
@@ -0,0 +1,19 @@
+package code.hub.codehubbackend.repository;
+
+import code.hub.codehubbackend.entity.MediaRef;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface MediaRefRepository extends JpaRepository<MediaRef, Long> {
+    
+    // Removes one of the owner's references; 0 when the owner holds none
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM media_refs WHERE media_id = :mediaId AND owner = :owner LIMIT 1", nativeQuery = true)
+    int deleteOne(@Param("mediaId") Long mediaId, @Param("owner") String owner);
+}
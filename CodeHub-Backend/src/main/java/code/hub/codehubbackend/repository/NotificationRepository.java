@@ -12,6 +12,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
@@ -22,9 +23,36 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     // Get unread notifications for a user
     Page<Notification> findByRecipientAndReadOrderByCreatedAtDesc(User recipient, boolean read, Pageable pageable);
     
+    // Same as above, ordered by the latest folded activity so busy groups bubble up
+    Page<Notification> findByRecipientOrderByUpdatedAtDesc(User recipient, Pageable pageable);
+    
+    Page<Notification> findByRecipientAndReadOrderByUpdatedAtDesc(User recipient, boolean read, Pageable pageable);
+    
+    // Sequence number of the latest aggregation group for a recipient and key, open or not
+    @Query("SELECT MAX(n.groupSeq) FROM Notification n WHERE n.recipient = :recipient AND n.groupKey = :groupKey")
+    Integer findMaxGroupSeq(@Param("recipient") User recipient, @Param("groupKey") String groupKey);
+    
+    // Open aggregation group for a recipient and key
+    Optional<Notification> findFirstByRecipientAndGroupKeyAndReadFalseAndCreatedAtAfterOrderByCreatedAtDesc(
+        User recipient, String groupKey, Instant since
+    );
+    
+    // Every distinct actor folded into a group, so repeat actors are recognised after leaving the recent list
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO notification_group_actors (notification_id, actor_id) VALUES (:notificationId, :actorId)",
+           nativeQuery = true)
+    int addGroupActor(@Param("notificationId") Long notificationId, @Param("actorId") Long actorId);
+    
+    @Query(value = "SELECT COUNT(*) FROM notification_group_actors WHERE notification_id = :notificationId",
+           nativeQuery = true)
+    long countGroupActors(@Param("notificationId") Long notificationId);
+    
     // Count unread notifications for a user
     long countByRecipientAndRead(User recipient, boolean read);
     
+    // Unread count used to seed the cached badge
+    long countByRecipientIdAndReadFalse(Long recipientId);
+    
     // Get recent notifications for a user (for real-time updates)
     @Query("SELECT n FROM Notification n WHERE n.recipient = :recipient AND n.createdAt > :since ORDER BY n.createdAt DESC")
     List<Notification> findRecentNotifications(@Param("recipient") User recipient, @Param("since") Instant since);
@@ -34,11 +62,6 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     @Query("UPDATE Notification n SET n.read = true, n.readAt = :readAt WHERE n.recipient = :recipient AND n.read = false")
     int markAllAsReadByRecipient(@Param("recipient") User recipient, @Param("readAt") Instant readAt);
     
-    // Delete old read notifications (cleanup)
-    @Modifying
-    @Query("DELETE FROM Notification n WHERE n.recipient = :recipient AND n.read = true AND n.createdAt < :before")
-    int deleteOldReadNotifications(@Param("recipient") User recipient, @Param("before") Instant before);
-    
     // Check if notification exists for specific action (to avoid duplicates)
     boolean existsByRecipientAndActorAndTypeAndTargetIdAndTargetType(
         User recipient, User actor, Notification.NotificationType type, Long targetId, String targetType
@@ -59,4 +82,23 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     // Count notifications by recipient and created after
     @Query("SELECT COUNT(n) FROM Notification n WHERE n.recipient = :recipient AND n.createdAt > :createdAt")
     long countByRecipientAndCreatedAtAfter(@Param("recipient") User recipient, @Param("createdAt") Instant createdAt);
+    
+    // Total, today and this week counts in a single pass; returns one row
+    @Query("SELECT COUNT(n), " +
+           "COALESCE(SUM(CASE WHEN n.createdAt > :today THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN n.createdAt > :weekAgo THEN 1 ELSE 0 END), 0) " +
+           "FROM Notification n WHERE n.recipient.id = :recipientId")
+    List<Object[]> aggregateCountsByRecipientId(@Param("recipientId") Long recipientId,
+                                                @Param("today") Instant today,
+                                                @Param("weekAgo") Instant weekAgo);
+    
+    @Query("SELECT DISTINCT n.recipient.id FROM Notification n WHERE n.read = false AND (" +
+           "(n.targetType = 'snippet' AND n.targetId = :snippetId) OR " +
+           "(n.targetType = 'comment' AND n.targetId IN (SELECT c.id FROM Comment c WHERE c.snippet.id = :snippetId)))")
+    List<Long> findUnreadRecipientIdsBySnippetId(@Param("snippetId") Long snippetId);
+    
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE (n.targetType = 'snippet' AND n.targetId = :snippetId) " +
+           "OR (n.targetType = 'comment' AND n.targetId IN (SELECT c.id FROM Comment c WHERE c.snippet.id = :snippetId))")
+    int deleteAllBySnippetId(@Param("snippetId") Long snippetId);
 }
@@ -0,0 +1,36 @@
+package code.hub.codehubbackend.repository;
+
+import code.hub.codehubbackend.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    
+    // Pending events whose lease or backoff has expired, oldest first
+    @Query("SELECT e FROM OutboxEvent e WHERE e.status = 'PENDING' AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt")
+    List<OutboxEvent> findDue(@Param("now") Instant now, Pageable pageable);
+    
+    // Claim an attempt; only one worker wins for a given attempt number
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1, e.nextAttemptAt = :leaseUntil " +
+           "WHERE e.id = :id AND e.status = 'PENDING' AND e.attempts = :attempts")
+    int claim(@Param("id") Long id, @Param("attempts") int attempts, @Param("leaseUntil") Instant leaseUntil);
+    
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.nextAttemptAt = :nextAttemptAt, e.lastError = :error WHERE e.id = :id")
+    int reschedule(@Param("id") Long id, @Param("nextAttemptAt") Instant nextAttemptAt, @Param("error") String error);
+    
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = 'FAILED', e.lastError = :error WHERE e.id = :id")
+    int markFailed(@Param("id") Long id, @Param("error") String error);
+    
+    long countByStatus(OutboxEvent.Status status);
+}
@@ -45,4 +45,8 @@ public interface RecentlyViewedRepository extends JpaRepository<RecentlyViewed,
             viewed_at = NOW()
         """, nativeQuery = true)
     void upsertRecentlyViewedSafe(@Param("userId") Long userId, @Param("snippetId") Long snippetId);
+    
+    @Modifying
+    @Query("DELETE FROM RecentlyViewed rv WHERE rv.snippet.id = :snippetId")
+    int deleteAllBySnippetId(@Param("snippetId") Long snippetId);
 }
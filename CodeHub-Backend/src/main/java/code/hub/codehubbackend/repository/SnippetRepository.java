@@ -10,9 +10,10 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.Optional;
 
 @Repository
 public interface SnippetRepository extends JpaRepository<Snippet, Long> {
@@ -70,6 +71,10 @@ public interface SnippetRepository extends JpaRepository<Snippet, Long> {
   @Query("SELECT COALESCE(SUM(s.likeCount), 0) FROM Snippet s WHERE s.owner = :user")
   Long sumLikesByOwner(@Param("user") User user);
 
+  // (owner id, snippet count, total likes) for those of the owners that have snippets
+  @Query("SELECT s.owner.id, COUNT(s), COALESCE(SUM(s.likeCount), 0) FROM Snippet s WHERE s.owner.id IN :ownerIds GROUP BY s.owner.id")
+  List<Object[]> sumStatsByOwnerIds(@Param("ownerIds") Collection<Long> ownerIds);
+
   @Query("SELECT COALESCE(SUM(s.viewCount), 0) FROM Snippet s WHERE s.owner = :user")
   Long sumViewsByOwner(@Param("user") User user);
 
@@ -117,4 +122,31 @@ public interface SnippetRepository extends JpaRepository<Snippet, Long> {
 
   @Query(value = "SELECT HOUR(s.created_at) as hour, COUNT(*) as count FROM snippets s WHERE s.created_at >= DATE_SUB(NOW(), INTERVAL 7 DAY) GROUP BY HOUR(s.created_at) ORDER BY hour", nativeQuery = true)
   List<Object[]> getSnippetsByHourLast7Days();
+  
+  // Tombstoned snippets are hidden by the entity restriction, so these work on the table directly
+  @Modifying
+  @Query(value = "UPDATE snippets SET deleted_at = :deletedAt WHERE id = :id AND deleted_at IS NULL", nativeQuery = true)
+  int tombstone(@Param("id") Long id, @Param("deletedAt") Instant deletedAt);
+  
+  @Query(value = "SELECT id FROM snippets WHERE deleted_at IS NOT NULL ORDER BY deleted_at LIMIT :limit", nativeQuery = true)
+  List<Long> findTombstonedIds(@Param("limit") int limit);
+  
+  @Modifying
+  @Query(value = "DELETE FROM snippet_tags WHERE snippet_id = :id", nativeQuery = true)
+  int deleteTagsBySnippetId(@Param("id") Long id);
+  
+  @Modifying
+  @Query(value = "DELETE FROM snippet_media_urls WHERE snippet_id = :id", nativeQuery = true)
+  int deleteMediaUrlsBySnippetId(@Param("id") Long id);
+  
+  @Modifying
+  @Query(value = "DELETE FROM snippets WHERE id = :id", nativeQuery = true)
+  int deleteRowById(@Param("id") Long id);
+  
+  // (owner id, language, snippet count) and (owner id, tag, snippet count) rows for interest profiles
+  @Query("SELECT s.owner.id, s.language, COUNT(s) FROM Snippet s WHERE s.language IS NOT NULL GROUP BY s.owner.id, s.language")
+  List<Object[]> countLanguagesByOwner();
+  
+  @Query("SELECT s.owner.id, t, COUNT(s) FROM Snippet s JOIN s.tags t GROUP BY s.owner.id, t")
+  List<Object[]> countTagsByOwner();
 }
@@ -4,6 +4,7 @@ import code.hub.codehubbackend.entity.SnippetVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -19,4 +20,8 @@ public interface SnippetVersionRepository extends JpaRepository<SnippetVersion,
     @Query("SELECT sv FROM SnippetVersion sv WHERE sv.snippet.id = :snippetId AND sv.versionNumber = :versionNumber")
     SnippetVersion findBySnippetIdAndVersionNumber(@Param("snippetId") Long snippetId, 
                                                   @Param("versionNumber") Integer versionNumber);
+    
+    @Modifying
+    @Query("DELETE FROM SnippetVersion sv WHERE sv.snippet.id = :snippetId")
+    int deleteAllBySnippetId(@Param("snippetId") Long snippetId);
 }
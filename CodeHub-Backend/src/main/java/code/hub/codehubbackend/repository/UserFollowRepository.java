@@ -9,6 +9,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -31,4 +33,22 @@ public interface UserFollowRepository extends JpaRepository<UserFollow, Long> {
     Page<UserFollow> findByFollowedUserOrderByCreatedAtDesc(User followedUser, Pageable pageable);
     
     Page<UserFollow> findByFollowerOrderByCreatedAtDesc(User follower, Pageable pageable);
+    
+    // (followed user id, follower id, follower username) rows for presence fan-out
+    @Query("SELECT f.followedUser.id, f.follower.id, f.follower.username FROM UserFollow f WHERE f.followedUser.id IN :userIds")
+    List<Object[]> findFollowerIdsAndUsernamesByUserIds(@Param("userIds") Collection<Long> userIds);
+    
+    @Query("SELECT f.follower.id FROM UserFollow f WHERE f.followedUser.id = :userId")
+    List<Long> findFollowerIdsByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT f.followedUser.id FROM UserFollow f WHERE f.follower.id = :userId")
+    List<Long> findFollowedUserIdsByUserId(@Param("userId") Long userId);
+    
+    // Authors whose follower count exceeds the threshold (feed merge-on-read candidates)
+    @Query("SELECT f.followedUser.id FROM UserFollow f GROUP BY f.followedUser.id HAVING COUNT(f) > :threshold")
+    List<Long> findUserIdsWithMoreFollowersThan(@Param("threshold") long threshold);
+    
+    // (id, follower id, followed user id) edges in id order, for loading the follow graph in chunks
+    @Query("SELECT f.id, f.follower.id, f.followedUser.id FROM UserFollow f WHERE f.id > :afterId ORDER BY f.id")
+    List<Object[]> findEdgesAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
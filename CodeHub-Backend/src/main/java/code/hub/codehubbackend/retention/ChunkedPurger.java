@@ -0,0 +1,137 @@
+package code.hub.codehubbackend.retention;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Walks a table by primary key in fixed-size id ranges and purges each range with one short
+ * statement, pausing between chunks so locks are held briefly and replicas can keep up. Each chunk
+ * starts at the next row that is actually eligible, so ranges of rows the predicate keeps (unread
+ * notifications, say) are skipped instead of eating into the per-run chunk limit. Monotonic tables
+ * start every run from their oldest eligible row and stop at the first row newer than the cutoff, so
+ * no search walks the recent part of the table; other tables resume from where the previous run
+ * stopped and wrap around at the end.
+ */
+@Component
+@Slf4j
+public class ChunkedPurger {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, Long> cursors = new ConcurrentHashMap<>();
+
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+    private final long chunkPauseMillis;
+
+    public ChunkedPurger(JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${app.retention.chunk-size:1000}") int chunkSize,
+                         @Value("${app.retention.max-chunks-per-run:500}") int maxChunksPerRun,
+                         @Value("${app.retention.chunk-pause-ms:100}") long chunkPauseMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+        this.chunkPauseMillis = chunkPauseMillis;
+    }
+
+    /**
+     * @return number of rows removed
+     */
+    public long purge(RetentionPolicy policy, Instant now) {
+        Timestamp cutoff = Timestamp.from(now.minus(policy.getRetention()));
+        long start = policy.isMonotonic() ? 0L : cursors.getOrDefault(policy.getName(), 0L);
+        long bound = policy.isMonotonic() ? firstRecentId(policy, cutoff) : Long.MAX_VALUE;
+
+        Long next = nextEligibleId(policy, start, bound, cutoff);
+        long removed = 0;
+        int chunks = 0;
+
+        while (next != null && chunks < maxChunksPerRun) {
+            long end = Math.min(next + chunkSize, bound);
+            removed += purgeChunk(policy, next, end, cutoff);
+            chunks++;
+
+            if (!pause()) {
+                break;
+            }
+            next = nextEligibleId(policy, end, bound, cutoff);
+        }
+
+        if (!policy.isMonotonic()) {
+            cursors.put(policy.getName(), next != null ? next : 0L);
+        }
+        log.debug("Retention '{}' removed {} rows in {} chunks", policy.getName(), removed, chunks);
+        return removed;
+    }
+
+    // Ids grow with time on monotonic tables, so nothing at or past the first recent row is eligible
+    private long firstRecentId(RetentionPolicy policy, Timestamp cutoff) {
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM " + policy.getTable()
+                + " WHERE " + policy.getTimestampColumn() + " >= ? ORDER BY id LIMIT 1", Long.class, cutoff);
+        return ids.isEmpty() ? Long.MAX_VALUE : ids.get(0);
+    }
+
+    // One primary key range scan from the given id to the first row the purge would remove
+    private Long nextEligibleId(RetentionPolicy policy, long from, long bound, Timestamp cutoff) {
+        if (from >= bound) {
+            return null;
+        }
+        return jdbcTemplate.queryForObject(
+                "SELECT MIN(id) FROM " + policy.getTable() + " WHERE id >= ? AND id < ? AND " + eligible(policy),
+                Long.class, params(policy, from, bound, cutoff));
+    }
+
+    private long purgeChunk(RetentionPolicy policy, long start, long end, Timestamp cutoff) {
+        String where = " WHERE id >= ? AND id < ? AND " + eligible(policy);
+        Object[] params = params(policy, start, end, cutoff);
+
+        if (policy.getArchiveTable() == null) {
+            return jdbcTemplate.update("DELETE FROM " + policy.getTable() + where, params);
+        }
+
+        // Copy and delete the same range atomically so a row is never lost or duplicated
+        Integer moved = transactionTemplate.execute(status -> {
+            jdbcTemplate.update("INSERT INTO " + policy.getArchiveTable()
+                    + " SELECT * FROM " + policy.getTable() + where, params);
+            return jdbcTemplate.update("DELETE FROM " + policy.getTable() + where, params);
+        });
+        return moved != null ? moved : 0;
+    }
+
+    private static String eligible(RetentionPolicy policy) {
+        return policy.getTimestampColumn() + " < ?"
+                + (policy.getPredicate() != null ? " AND " + policy.getPredicate() : "");
+    }
+
+    private static Object[] params(RetentionPolicy policy, Object... leading) {
+        List<Object> args = new ArrayList<>(List.of(leading));
+        args.addAll(policy.getPredicateArgs());
+        return args.toArray();
+    }
+
+    private boolean pause() {
+        if (chunkPauseMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(chunkPauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package code.hub.codehubbackend.retention;
+
+import code.hub.codehubbackend.entity.Activity;
+import code.hub.codehubbackend.entity.Notification;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Scheduled retention for high-churn tables. Notifications and activities support per-type
+ * retention: types sharing a retention period are purged together with one {@code type IN (...)}
+ * walk, and a period of 0 days keeps rows forever.
+ */
+@Service
+@Slf4j
+public class DataRetentionService {
+
+    private final ChunkedPurger purger;
+    private final MeterRegistry meterRegistry;
+    private final List<RetentionPolicy> policies;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public DataRetentionService(ChunkedPurger purger,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.retention.notifications.read-days:30}") int readNotificationDays,
+                                @Value("${app.retention.notifications.type-days:}") String notificationTypeDays,
+                                @Value("${app.retention.activities.days:365}") int activityDays,
+                                @Value("${app.retention.activities.type-days:}") String activityTypeDays,
+                                @Value("${app.retention.recently-viewed.days:90}") int recentlyViewedDays,
+                                @Value("${app.retention.chat-messages.archive-read-days:0}") int chatArchiveDays,
+                                @Value("${app.notifications.aggregation.window-ms:86400000}") long aggregationWindowMillis) {
+        this.purger = purger;
+        this.meterRegistry = meterRegistry;
+
+        List<RetentionPolicy> configured = new ArrayList<>();
+        configured.addAll(typedPolicies("notifications", "notifications", "created_at", "is_read = TRUE",
+                Notification.NotificationType.class, readNotificationDays, notificationTypeDays));
+        configured.addAll(typedPolicies("activities", "activities", "created_at", null,
+                Activity.ActivityType.class, activityDays, activityTypeDays));
+        // Group members only matter while their group is open, which is at most one aggregation window
+        configured.add(RetentionPolicy.builder()
+                .name("notification_group_actors")
+                .table("notification_group_actors")
+                .timestampColumn("created_at")
+                .retention(Duration.ofMillis(aggregationWindowMillis))
+                .monotonic(true)
+                .build());
+        if (recentlyViewedDays > 0) {
+            // Rows are updated in place on every view, so ids say nothing about age
+            configured.add(RetentionPolicy.builder()
+                    .name("recently_viewed")
+                    .table("recently_viewed")
+                    .timestampColumn("COALESCE(last_viewed_at, viewed_at)")
+                    .retention(Duration.ofDays(recentlyViewedDays))
+                    .monotonic(false)
+                    .build());
+        }
+        if (chatArchiveDays > 0) {
+            configured.add(RetentionPolicy.builder()
+                    .name("chat_messages")
+                    .table("chat_messages")
+                    .timestampColumn("created_at")
+                    .retention(Duration.ofDays(chatArchiveDays))
+                    .predicate("is_read = TRUE")
+                    .monotonic(true)
+                    .archiveTable("chat_messages_archive")
+                    .build());
+        }
+        this.policies = Collections.unmodifiableList(configured);
+        log.info("Retention policies: {}", policies.stream().map(RetentionPolicy::getName).toList());
+    }
+
+    @Scheduled(cron = "${app.retention.cron:0 30 3 * * *}")
+    public void runAll() {
+        run("");
+    }
+
+    /**
+     * Run every policy whose name starts with the prefix, e.g. "notifications". Skipped, returning
+     * 0, while another run is in progress.
+     */
+    public long run(String namePrefix) {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Retention run already in progress, skipping");
+            return 0;
+        }
+        try {
+            Instant now = Instant.now();
+            long removed = 0;
+            for (RetentionPolicy policy : policies) {
+                if (policy.getName().startsWith(namePrefix)) {
+                    removed += run(policy, now);
+                }
+            }
+            return removed;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private long run(RetentionPolicy policy, Instant now) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            long removed = purger.purge(policy, now);
+            meterRegistry.counter("codehub.retention.removed", "policy", policy.getName()).increment(removed);
+            if (removed > 0) {
+                log.info("Retention '{}' removed {} rows", policy.getName(), removed);
+            }
+            return removed;
+        } catch (Exception e) {
+            meterRegistry.counter("codehub.retention.errors", "policy", policy.getName()).increment();
+            log.error("Retention '{}' failed: {}", policy.getName(), e.getMessage());
+            return 0;
+        } finally {
+            sample.stop(meterRegistry.timer("codehub.retention.duration", "policy", policy.getName()));
+        }
+    }
+
+    /**
+     * One policy per distinct retention period over the enum's types
+     */
+    private static <E extends Enum<E>> List<RetentionPolicy> typedPolicies(String name, String table,
+                                                                           String timestampColumn, String basePredicate,
+                                                                           Class<E> typeClass, int defaultDays,
+                                                                           String overrides) {
+        Map<E, Integer> daysByType = new EnumMap<>(typeClass);
+        for (E type : typeClass.getEnumConstants()) {
+            daysByType.put(type, defaultDays);
+        }
+        daysByType.putAll(parseTypeDays(typeClass, overrides));
+
+        Map<Integer, List<String>> typesByDays = new TreeMap<>();
+        daysByType.forEach((type, days) -> {
+            if (days > 0) {
+                typesByDays.computeIfAbsent(days, key -> new ArrayList<>()).add(type.name());
+            }
+        });
+
+        List<RetentionPolicy> result = new ArrayList<>();
+        typesByDays.forEach((days, types) -> {
+            String typePredicate = "type IN (" + String.join(", ", Collections.nCopies(types.size(), "?")) + ")";
+            result.add(RetentionPolicy.builder()
+                    .name(typesByDays.size() == 1 ? name : name + "_" + days + "d")
+                    .table(table)
+                    .timestampColumn(timestampColumn)
+                    .retention(Duration.ofDays(days))
+                    .predicate(basePredicate != null ? basePredicate + " AND " + typePredicate : typePredicate)
+                    .predicateArgs(new ArrayList<>(types))
+                    .monotonic(true)
+                    .build());
+        });
+        return result;
+    }
+
+    /**
+     * Parses "SNIPPET_LIKED:14,USER_FOLLOWED:60"; unknown types are ignored with a warning
+     */
+    private static <E extends Enum<E>> Map<E, Integer> parseTypeDays(Class<E> typeClass, String overrides) {
+        Map<E, Integer> result = new EnumMap<>(typeClass);
+        if (overrides == null || overrides.isBlank()) {
+            return result;
+        }
+        for (String entry : overrides.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                log.warn("Ignoring malformed retention override '{}'", entry);
+                continue;
+            }
+            try {
+                result.put(Enum.valueOf(typeClass, parts[0].trim()), Integer.parseInt(parts[1].trim()));
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring retention override '{}': {}", entry, e.getMessage());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,36 @@
+package code.hub.codehubbackend.retention;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * One set-based purge: rows of {@code table} older than {@code retention} on {@code timestampColumn}
+ * and matching the optional extra predicate are deleted (or archived first) in id-range chunks.
+ */
+@Getter
+@Builder
+@ToString
+public class RetentionPolicy {
+
+    private final String name;
+    private final String table;
+    private final String timestampColumn;
+    private final Duration retention;
+
+    // Optional SQL predicate with positional parameters, e.g. "is_read = TRUE AND type IN (?, ?)"
+    private final String predicate;
+
+    @Singular
+    private final List<Object> predicateArgs;
+
+    // Ids grow with the timestamp, so each run starts from the oldest eligible row instead of a saved cursor
+    private final boolean monotonic;
+
+    // When set, rows are copied here before being deleted
+    private final String archiveTable;
+}
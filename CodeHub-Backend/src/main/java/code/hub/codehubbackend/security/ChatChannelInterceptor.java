@@ -1,29 +1,44 @@
 package code.hub.codehubbackend.security;
 
 import code.hub.codehubbackend.entity.User;
-import code.hub.codehubbackend.repository.UserRepository;
+import code.hub.codehubbackend.repository.ChatParticipantRepository;
+import code.hub.codehubbackend.service.PresenceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class ChatChannelInterceptor implements ChannelInterceptor {
 
+    /**
+     * Session attribute holding the chat ids this session was authorized to subscribe to
+     */
+    public static final String CHAT_ROOMS_ATTRIBUTE = "chatRooms";
+    private static final String CHAT_TOPIC_PREFIX = "/topic/chat/";
+
     private final JwtUtils jwtUtils;
-    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final SessionExpiryService sessionExpiryService;
+    private final PresenceService presenceService;
+    private final ChatParticipantRepository chatParticipantRepository;
 
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
@@ -32,10 +47,29 @@ public class ChatChannelInterceptor implements ChannelInterceptor {
         if (accessor != null) {
             StompCommand command = accessor.getCommand();
             
-            if (StompCommand.CONNECT.equals(command)) {
+            if (SimpMessageType.HEARTBEAT.equals(accessor.getMessageType())) {
+                // Heartbeats only keep the session's presence fresh
+                presenceService.touch(accessor.getSessionId());
+            } else if (StompCommand.CONNECT.equals(command)) {
                 // Handle initial connection authentication
                 authenticateConnection(accessor);
+            } else if (StompCommand.DISCONNECT.equals(command)) {
+                // Sent by the client, or synthesized by Spring when the socket closes
+                presenceService.disconnect(accessor.getSessionId());
+                sessionExpiryService.unregister(accessor.getSessionId());
+            } else if (StompCommand.SUBSCRIBE.equals(command)) {
+                rejectIfExpired(accessor);
+                authorizeChatSubscription(accessor);
             } else if (StompCommand.SEND.equals(command)) {
+                presenceService.touch(accessor.getSessionId());
+                
+                if (SessionExpiryService.REFRESH_DESTINATION.equals(accessor.getDestination())) {
+                    // Handled here in full; nothing downstream needs the frame
+                    refreshSession(accessor);
+                    return null;
+                }
+                rejectIfExpired(accessor);
+                
                 // For message sending, check if user is already authenticated
                 // If not, try to authenticate using session attributes
                 if (accessor.getUser() == null) {
@@ -57,39 +91,99 @@ public class ChatChannelInterceptor implements ChannelInterceptor {
         return message;
     }
     
+    /**
+     * Whether the session subscribed to the given chat room after passing the membership check
+     */
+    public static boolean isAuthorizedForChat(Map<String, Object> sessionAttributes, String chatId) {
+        if (sessionAttributes == null || chatId == null) {
+            return false;
+        }
+        Object rooms = sessionAttributes.get(CHAT_ROOMS_ATTRIBUTE);
+        return rooms instanceof Set<?> set && set.contains(chatId);
+    }
+    
+    private void authorizeChatSubscription(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        Map<String, Object> sessionAttributes = accessor.getSessionAttributes();
+        if (destination == null || !destination.startsWith(CHAT_TOPIC_PREFIX) || sessionAttributes == null) {
+            return;
+        }
+        
+        String chatId = destination.substring(CHAT_TOPIC_PREFIX.length()).split("/", 2)[0];
+        if (isAuthorizedForChat(sessionAttributes, chatId)) {
+            return;
+        }
+        
+        // One membership query per room and session; later signals only check the session attribute
+        Object userId = sessionAttributes.get("userId");
+        if (!(userId instanceof Long id)
+                || !chatParticipantRepository.existsByChatRoomChatIdAndUserIdAndIsActiveTrue(chatId, id)) {
+            throw new AccessDeniedException("Not a participant of chat " + chatId);
+        }
+        
+        @SuppressWarnings("unchecked")
+        Set<String> rooms = (Set<String>) sessionAttributes.computeIfAbsent(
+                CHAT_ROOMS_ATTRIBUTE, key -> ConcurrentHashMap.newKeySet());
+        rooms.add(chatId);
+    }
+    
     private void authenticateConnection(StompHeaderAccessor accessor) {
-        // Extract JWT token from headers
-        List<String> authorization = accessor.getNativeHeader("Authorization");
+        TokenClaims claims = parseBearerToken(accessor);
+        if (claims == null) {
+            return;
+        }
         
-        if (authorization != null && !authorization.isEmpty()) {
-            String token = authorization.get(0);
+        try {
+            // One signature check above, and the user comes from the principal cache
+            User user = principalCache.resolve(claims);
             
-            if (token != null && token.startsWith("Bearer ")) {
-                token = token.substring(7);
+            if (user != null) {
+                Authentication auth = new UsernamePasswordAuthenticationToken(
+                        user, null, user.getAuthorities());
+                accessor.setUser(auth);
                 
-                try {
-                    if (jwtUtils.validateJwtToken(token)) {
-                        String username = jwtUtils.getUserNameFromJwtToken(token);
-                        User user = userRepository.findByUsername(username)
-                                .orElse(null);
-                        
-                        if (user != null) {
-                            Authentication auth = new UsernamePasswordAuthenticationToken(
-                                    user, null, user.getAuthorities());
-                            accessor.setUser(auth);
-                            
-                            // Store in session for later use
-                            accessor.getSessionAttributes().put("user", auth);
-                            accessor.getSessionAttributes().put("username", username);
-                            accessor.getSessionAttributes().put("userId", user.getId());
-                            
-                            log.info("WebSocket connection authenticated for user: {}", username);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.error("Error authenticating WebSocket connection", e);
-                }
+                // Store in session for later use
+                accessor.getSessionAttributes().put("user", auth);
+                accessor.getSessionAttributes().put("username", user.getUsername());
+                accessor.getSessionAttributes().put("userId", user.getId());
+                
+                presenceService.connect(accessor.getSessionId(), user.getId(), user.getUsername());
+                sessionExpiryService.register(accessor.getSessionId(), user.getUsername(), user.getId(),
+                        claims.getExpiresAt());
+                
+                log.info("WebSocket connection authenticated for user: {}", user.getUsername());
             }
+        } catch (Exception e) {
+            log.error("Error authenticating WebSocket connection", e);
+        }
+    }
+    
+    private void refreshSession(StompHeaderAccessor accessor) {
+        TokenClaims claims = parseBearerToken(accessor);
+        if (claims == null || principalCache.resolve(claims) == null
+                || !sessionExpiryService.refresh(accessor.getSessionId(), claims)) {
+            log.warn("Rejected token refresh for WebSocket session {}", accessor.getSessionId());
+        }
+    }
+    
+    private void rejectIfExpired(StompHeaderAccessor accessor) {
+        if (sessionExpiryService.isExpired(accessor.getSessionId())) {
+            throw new AccessDeniedException("Session token expired, send a new token to "
+                    + SessionExpiryService.REFRESH_DESTINATION);
+        }
+    }
+    
+    private TokenClaims parseBearerToken(StompHeaderAccessor accessor) {
+        // Extract JWT token from headers
+        List<String> authorization = accessor.getNativeHeader("Authorization");
+        if (authorization == null || authorization.isEmpty()) {
+            return null;
+        }
+        
+        String token = authorization.get(0);
+        if (token == null || !token.startsWith("Bearer ")) {
+            return null;
         }
+        return jwtUtils.parseToken(token.substring(7));
     }
 }
@@ -0,0 +1,109 @@
+package code.hub.codehubbackend.security;
+
+import code.hub.codehubbackend.entity.User;
+import code.hub.codehubbackend.exception.UnauthorizedException;
+import code.hub.codehubbackend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.simp.SimpAttributes;
+import org.springframework.messaging.simp.SimpAttributesContextHolder;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.security.Principal;
+import java.util.Optional;
+
+/**
+ * The user behind the current HTTP request or STOMP frame. The auth filter and the WebSocket
+ * CONNECT handler already put the resolved {@link User} into the security context, so services
+ * read it from there instead of looking the account up by name again. Other principals (such as
+ * mock users in tests) are looked up once and remembered for the rest of the request.
+ */
+@Component
+@RequiredArgsConstructor
+public class CurrentUserContext {
+
+    private static final String ATTRIBUTE = CurrentUserContext.class.getName() + ".user";
+
+    private final UserRepository userRepository;
+
+    /**
+     * The authenticated user, or empty for anonymous callers
+     */
+    public Optional<User> find() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return Optional.empty();
+        }
+        if (authentication.getPrincipal() instanceof User user) {
+            return Optional.of(user);
+        }
+
+        Object remembered = getAttribute();
+        if (remembered instanceof User user && user.getUsername().equals(authentication.getName())) {
+            return Optional.of(user);
+        }
+        Optional<User> user = userRepository.findByUsername(authentication.getName());
+        user.ifPresent(this::setAttribute);
+        return user;
+    }
+
+    /**
+     * The authenticated user; fails when the caller is anonymous or the account is gone
+     */
+    public User require() {
+        return find().orElseThrow(() -> new UnauthorizedException("User not authenticated"));
+    }
+
+    /**
+     * The user behind a STOMP frame's principal. Message handlers run on the inbound channel's threads,
+     * where the security context of the frame is not set.
+     */
+    public User resolve(Principal principal) {
+        if (principal instanceof Authentication authentication && authentication.getPrincipal() instanceof User user) {
+            return user;
+        }
+        if (principal == null) {
+            throw new UnauthorizedException("User not authenticated");
+        }
+
+        Object remembered = getAttribute();
+        if (remembered instanceof User user && user.getUsername().equals(principal.getName())) {
+            return user;
+        }
+        User user = userRepository.findByUsername(principal.getName())
+                .orElseThrow(() -> new UnauthorizedException("User not found: " + principal.getName()));
+        setAttribute(user);
+        return user;
+    }
+
+    public Long currentUserId() {
+        return find().map(User::getId).orElse(null);
+    }
+
+    private Object getAttribute() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            return request.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        }
+        SimpAttributes frame = SimpAttributesContextHolder.getAttributes();
+        return frame != null ? frame.getAttribute(ATTRIBUTE) : null;
+    }
+
+    private void setAttribute(User user) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.setAttribute(ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+            return;
+        }
+        // Session-scoped for WebSocket frames, so the lookup happens once per connection
+        SimpAttributes frame = SimpAttributesContextHolder.getAttributes();
+        if (frame != null) {
+            frame.setAttribute(ATTRIBUTE, user);
+        }
+    }
+}
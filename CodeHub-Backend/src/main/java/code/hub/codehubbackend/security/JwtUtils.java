@@ -1,7 +1,9 @@
 package code.hub.codehubbackend.security;
 
+import code.hub.codehubbackend.entity.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -17,24 +19,48 @@ public class JwtUtils {
     
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
     
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_ROLE = "role";
+    static final String CLAIM_ENABLED = "enabled";
+    
     @Value("${app.jwt.secret}")
     private String jwtSecret;
     
     @Value("${app.jwt.expiration}")
     private int jwtExpirationMs;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    private SecretKey signingKey;
+    
+    private JwtParser jwtParser;
+    
+    @PostConstruct
+    void init() {
+        // Built once; both are immutable and thread-safe
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parser().verifyWith(signingKey).build();
     }
     
     public String generateJwtToken(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof User user) {
+            return generateToken(user);
+        }
         UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
-        
+        return generateTokenFromUsername(userPrincipal.getUsername());
+    }
+    
+    /**
+     * Token carrying the user id, role and enabled flag, so requests can be authenticated
+     * without looking the user up by name
+     */
+    public String generateToken(User user) {
         return Jwts.builder()
-                .subject(userPrincipal.getUsername())
+                .subject(user.getUsername())
+                .claim(CLAIM_USER_ID, user.getId())
+                .claim(CLAIM_ROLE, user.getRole().name())
+                .claim(CLAIM_ENABLED, user.isEnabled())
                 .issuedAt(new Date())
                 .expiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
     
@@ -43,36 +69,44 @@ public class JwtUtils {
                 .subject(username)
                 .issuedAt(new Date())
                 .expiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
     
-    public String getUserNameFromJwtToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
-    }
-    
-    public boolean validateJwtToken(String authToken) {
+    /**
+     * Verify a token and read its claims in a single parse. Returns null for invalid tokens.
+     */
+    public TokenClaims parseToken(String token) {
         try {
-            Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(authToken);
-            return true;
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+            Object userId = claims.get(CLAIM_USER_ID);
+            return new TokenClaims(
+                    claims.getSubject(),
+                    userId instanceof Number number ? number.longValue() : null,
+                    claims.get(CLAIM_ROLE, String.class),
+                    claims.get(CLAIM_ENABLED, Boolean.class),
+                    claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                    claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
             logger.error("JWT token is expired: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
             logger.error("JWT token is unsupported: {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.error("JWT token rejected: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
         }
         
-        return false;
+        return null;
+    }
+    
+    public String getUserNameFromJwtToken(String token) {
+        return jwtParser.parseSignedClaims(token).getPayload().getSubject();
+    }
+    
+    public boolean validateJwtToken(String authToken) {
+        return parseToken(authToken) != null;
     }
 }
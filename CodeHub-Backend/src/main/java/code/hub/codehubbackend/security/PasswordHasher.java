@@ -0,0 +1,99 @@
+package code.hub.codehubbackend.security;
+
+import code.hub.codehubbackend.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing on the bounded hashing pool instead of request threads. When the queue
+ * is full the work is refused with {@link ServiceBusyException}, so a login storm slows logins
+ * down without starving every other endpoint.
+ */
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolTaskExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejectedCounter;
+    private final long retryAfterSeconds;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          @Qualifier("passwordHashingExecutor") ThreadPoolTaskExecutor executor,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.security.hashing.retry-after-seconds:2}") long retryAfterSeconds) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.rejectedCounter = meterRegistry.counter("codehub.password.hash.rejected");
+        Gauge.builder("codehub.password.hash.queue", executor,
+                        pool -> pool.getThreadPoolExecutor().getQueue().size())
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return submit("encode", () -> passwordEncoder.encode(rawPassword));
+    }
+
+    public CompletableFuture<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        return submit("matches", () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Hash on the pool and wait for the result, for callers that cannot go async
+     */
+    public String hash(CharSequence rawPassword) {
+        return await(encode(rawPassword));
+    }
+
+    /**
+     * Check a password on the pool and wait for the result, for callers that cannot go async
+     */
+    public boolean verify(CharSequence rawPassword, String encodedPassword) {
+        return await(matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Run work dominated by password hashing, such as a full login, on the hashing pool
+     */
+    public <T> CompletableFuture<T> submit(String operation, Supplier<T> work) {
+        Timer timer = meterRegistry.timer("codehub.password.hash", "operation", operation);
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                try {
+                    return work.get();
+                } finally {
+                    sample.stop(timer);
+                }
+            }, executor);
+        } catch (TaskRejectedException e) {
+            rejectedCounter.increment();
+            throw new ServiceBusyException("Too many sign-in requests, please retry shortly", retryAfterSeconds);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package code.hub.codehubbackend.security;
+
+import code.hub.codehubbackend.entity.User;
+import code.hub.codehubbackend.event.UserAccountChangedEvent;
+import code.hub.codehubbackend.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.ConcurrentLruCache;
+
+import java.time.Instant;
+
+/**
+ * Short-lived cache of authenticated users keyed by id, so a valid token costs no query. Entries
+ * are dropped when the account changes and expire after a TTL as a safety net for changes made
+ * on other instances.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final long ttlMillis;
+    private final ConcurrentLruCache<Long, Entry> entries;
+    private final Counter missCounter;
+
+    public PrincipalCache(UserRepository userRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.security.principal-cache.max-users:10000}") int maxUsers,
+                          @Value("${app.security.principal-cache.ttl-ms:30000}") long ttlMillis) {
+        this.userRepository = userRepository;
+        this.ttlMillis = ttlMillis;
+        this.entries = new ConcurrentLruCache<>(maxUsers, this::load);
+        this.missCounter = meterRegistry.counter("codehub.auth.principal-cache.misses");
+        meterRegistry.gauge("codehub.auth.principal-cache.size", entries, ConcurrentLruCache::size);
+    }
+
+    /**
+     * Resolve the user a token was issued to, or null when the token no longer matches the
+     * account: unknown, renamed, disabled or issued before the last password change. Each call
+     * returns a private copy, so request code can modify it freely.
+     */
+    public User resolve(TokenClaims claims) {
+        if (Boolean.FALSE.equals(claims.getEnabled())) {
+            return null;
+        }
+
+        User user;
+        if (claims.getUserId() != null) {
+            user = cached(claims.getUserId());
+        } else {
+            // Token from before ids were embedded; these age out with the token expiry
+            user = userRepository.findByUsername(claims.getUsername()).orElse(null);
+        }
+
+        if (user == null || !user.isEnabled() || !user.getUsername().equals(claims.getUsername())
+                || issuedBeforePasswordChange(claims, user)) {
+            return null;
+        }
+        return copy(user);
+    }
+
+    private static boolean issuedBeforePasswordChange(TokenClaims claims, User user) {
+        Instant changedAt = user.getPasswordChangedAt();
+        return changedAt != null && (claims.getIssuedAt() == null || claims.getIssuedAt().isBefore(changedAt));
+    }
+
+    public void invalidate(Long userId) {
+        entries.remove(userId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserAccountChanged(UserAccountChangedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    private User cached(Long userId) {
+        Entry entry = entries.get(userId);
+        if (System.currentTimeMillis() - entry.loadedAt > ttlMillis) {
+            entries.remove(userId);
+            entry = entries.get(userId);
+        }
+        return entry.user;
+    }
+
+    private Entry load(Long userId) {
+        missCounter.increment();
+        return new Entry(userRepository.findById(userId).orElse(null), System.currentTimeMillis());
+    }
+
+    private static User copy(User user) {
+        return User.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .passwordHash(user.getPasswordHash())
+                .passwordChangedAt(user.getPasswordChangedAt())
+                .role(user.getRole())
+                .avatarUrl(user.getAvatarUrl())
+                .coverPhotoUrl(user.getCoverPhotoUrl())
+                .bio(user.getBio())
+                .fullName(user.getFullName())
+                .location(user.getLocation())
+                .websiteUrl(user.getWebsiteUrl())
+                .githubUrl(user.getGithubUrl())
+                .twitterUrl(user.getTwitterUrl())
+                .linkedinUrl(user.getLinkedinUrl())
+                .createdAt(user.getCreatedAt())
+                .updatedAt(user.getUpdatedAt())
+                .enabled(user.isEnabled())
+                .build();
+    }
+
+    private static final class Entry {
+        final User user;
+        final long loadedAt;
+
+        Entry(User user, long loadedAt) {
+            this.user = user;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package code.hub.codehubbackend.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps authenticated WebSocket sessions within the lifetime of the token they connected with.
+ * <p>
+ * Each session's token expiry sits on a {@link SessionExpiryWheel}. When it passes, the session is
+ * sent a {@code REAUTH_REQUIRED} message on {@code /user/queue/session} and has a grace period to
+ * send a fresh token to {@link #REFRESH_DESTINATION}; sessions that do not are closed.
+ */
+@Slf4j
+@Component
+public class SessionExpiryService {
+
+    public static final String REFRESH_DESTINATION = "/app/session.refresh";
+    private static final String SESSION_QUEUE = "/queue/session";
+    private static final CloseStatus TOKEN_EXPIRED = CloseStatus.POLICY_VIOLATION.withReason("Token expired");
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SessionExpiryWheel wheel;
+    private final long graceMillis;
+    private final Map<String, SessionAuth> sessions = new ConcurrentHashMap<>();
+    private final Map<String, WebSocketSession> openSockets = new ConcurrentHashMap<>();
+    private final Counter reauthCounter;
+    private final Counter refreshedCounter;
+    private final Counter closedCounter;
+
+    public SessionExpiryService(@Lazy SimpMessagingTemplate messagingTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.websocket.auth.tick-ms:1000}") long tickMillis,
+                                @Value("${app.websocket.auth.wheel-size:512}") int wheelSize,
+                                @Value("${app.websocket.auth.reauth-grace-ms:30000}") long graceMillis) {
+        this.messagingTemplate = messagingTemplate;
+        this.wheel = new SessionExpiryWheel(tickMillis, wheelSize, System.currentTimeMillis());
+        this.graceMillis = graceMillis;
+        this.reauthCounter = meterRegistry.counter("codehub.websocket.auth.reauth-requested");
+        this.refreshedCounter = meterRegistry.counter("codehub.websocket.auth.refreshed");
+        this.closedCounter = meterRegistry.counter("codehub.websocket.auth.expired-closed");
+        Gauge.builder("codehub.websocket.auth.sessions", wheel, SessionExpiryWheel::size).register(meterRegistry);
+    }
+
+    /**
+     * Start tracking a session authenticated with a token that expires at {@code expiresAt}.
+     * Tokens without an expiry are not tracked.
+     */
+    public void register(String sessionId, String username, Long userId, Instant expiresAt) {
+        if (sessionId == null || expiresAt == null) {
+            return;
+        }
+        sessions.put(sessionId, new SessionAuth(username, userId, expiresAt.toEpochMilli()));
+        wheel.schedule(sessionId, expiresAt.toEpochMilli());
+    }
+
+    /**
+     * Extend a session with a newly issued token for the same user. Returns false when the token
+     * belongs to someone else, in which case the session keeps its old deadline.
+     */
+    public boolean refresh(String sessionId, TokenClaims claims) {
+        SessionAuth current = sessionId != null ? sessions.get(sessionId) : null;
+        if (current == null || claims.getExpiresAt() == null || !current.username.equals(claims.getUsername())
+                || (current.userId != null && claims.getUserId() != null && !current.userId.equals(claims.getUserId()))) {
+            return false;
+        }
+        long expiresAt = claims.getExpiresAt().toEpochMilli();
+        sessions.put(sessionId, new SessionAuth(current.username, current.userId, expiresAt));
+        wheel.schedule(sessionId, expiresAt);
+        refreshedCounter.increment();
+        return true;
+    }
+
+    public void unregister(String sessionId) {
+        if (sessionId != null && sessions.remove(sessionId) != null) {
+            wheel.cancel(sessionId);
+        }
+    }
+
+    /**
+     * Whether the session's token has run out; such sessions may only refresh
+     */
+    public boolean isExpired(String sessionId) {
+        SessionAuth auth = sessionId != null ? sessions.get(sessionId) : null;
+        return auth != null && auth.expiresAtMillis <= System.currentTimeMillis();
+    }
+
+    /**
+     * Wrap the STOMP endpoint handler so expired sessions can be closed from here
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                openSockets.put(session.getId(), session);
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                openSockets.remove(session.getId());
+                unregister(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Scheduled(fixedDelayString = "${app.websocket.auth.tick-ms:1000}")
+    public void expireSessions() {
+        long now = System.currentTimeMillis();
+        for (String sessionId : wheel.advance(now)) {
+            SessionAuth auth = sessions.get(sessionId);
+            if (auth == null) {
+                continue;
+            }
+            if (!auth.reauthRequested && auth.expiresAtMillis > now) {
+                // Refreshed while the grace deadline was being set; go back to the token's own expiry
+                wheel.schedule(sessionId, auth.expiresAtMillis);
+            } else if (auth.reauthRequested) {
+                close(sessionId, auth);
+            } else if (sessions.replace(sessionId, auth, auth.withReauthRequested())) {
+                // Skipped when a refresh got in first
+                requestReauthentication(sessionId, auth);
+                wheel.schedule(sessionId, now + graceMillis);
+            }
+        }
+    }
+
+    private void requestReauthentication(String sessionId, SessionAuth auth) {
+        // Addressed to this session only, not to every session of the user
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setLeaveMutable(true);
+        try {
+            messagingTemplate.convertAndSendToUser(auth.username, SESSION_QUEUE,
+                    Map.of("type", "REAUTH_REQUIRED", "expiredAt", auth.expiresAtMillis, "graceMillis", graceMillis),
+                    headers.getMessageHeaders());
+            reauthCounter.increment();
+        } catch (Exception e) {
+            log.warn("Failed to request re-authentication for session {}: {}", sessionId, e.getMessage());
+        }
+    }
+
+    private void close(String sessionId, SessionAuth auth) {
+        if (!sessions.remove(sessionId, auth)) {
+            return;
+        }
+        WebSocketSession socket = openSockets.remove(sessionId);
+        if (socket == null) {
+            return;
+        }
+        try {
+            // Closing the socket makes Spring synthesize a DISCONNECT, which updates presence
+            socket.close(TOKEN_EXPIRED);
+            closedCounter.increment();
+            log.info("Closed WebSocket session {} of user {}: token expired", sessionId, auth.username);
+        } catch (IOException e) {
+            log.warn("Failed to close expired WebSocket session {}: {}", sessionId, e.getMessage());
+        }
+    }
+
+    private static final class SessionAuth {
+        final String username;
+        final Long userId;
+        final long expiresAtMillis;
+        final boolean reauthRequested;
+
+        SessionAuth(String username, Long userId, long expiresAtMillis) {
+            this(username, userId, expiresAtMillis, false);
+        }
+
+        private SessionAuth(String username, Long userId, long expiresAtMillis, boolean reauthRequested) {
+            this.username = username;
+            this.userId = userId;
+            this.expiresAtMillis = expiresAtMillis;
+            this.reauthRequested = reauthRequested;
+        }
+
+        SessionAuth withReauthRequested() {
+            return new SessionAuth(username, userId, expiresAtMillis, true);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package code.hub.codehubbackend.security;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timer wheel of session deadlines. Scheduling and cancelling are O(1) and advancing visits
+ * only the slots for the ticks that passed, so thousands of sessions cost one periodic task rather
+ * than one scheduled future each. Deadlines are rounded up to the next tick.
+ */
+public class SessionExpiryWheel {
+
+    private final long tickMillis;
+    private final List<Map<String, Long>> slots;
+    private final Map<String, Integer> slotBySession = new HashMap<>();
+    private long lastTick;
+
+    public SessionExpiryWheel(long tickMillis, int wheelSize, long nowMillis) {
+        this.tickMillis = Math.max(1, tickMillis);
+        int size = Math.max(1, wheelSize);
+        this.slots = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            slots.add(new HashMap<>());
+        }
+        this.lastTick = nowMillis / this.tickMillis;
+    }
+
+    /**
+     * Set the session's deadline, replacing any earlier one. A deadline already in the past fires
+     * on the next advance.
+     */
+    public synchronized void schedule(String sessionId, long deadlineMillis) {
+        cancel(sessionId);
+        long tick = Math.max(Math.ceilDiv(deadlineMillis, tickMillis), lastTick + 1);
+        int slot = (int) Math.floorMod(tick, (long) slots.size());
+        slots.get(slot).put(sessionId, deadlineMillis);
+        slotBySession.put(sessionId, slot);
+    }
+
+    public synchronized void cancel(String sessionId) {
+        Integer slot = slotBySession.remove(sessionId);
+        if (slot != null) {
+            slots.get(slot).remove(sessionId);
+        }
+    }
+
+    /**
+     * Move the wheel to {@code nowMillis} and return the sessions whose deadline has passed. They
+     * are removed from the wheel; schedule them again to be called back later.
+     */
+    public synchronized List<String> advance(long nowMillis) {
+        long nowTick = nowMillis / tickMillis;
+        List<String> expired = new ArrayList<>();
+        // After a long pause one lap covers every slot; later laps would find nothing new
+        long ticks = Math.min(nowTick - lastTick, slots.size());
+        for (long i = 1; i <= ticks; i++) {
+            int slot = (int) Math.floorMod(lastTick + i, (long) slots.size());
+            Iterator<Map.Entry<String, Long>> it = slots.get(slot).entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Long> timeout = it.next();
+                // Entries more than a lap ahead share the slot and stay for a later round
+                if (timeout.getValue() <= nowMillis) {
+                    it.remove();
+                    slotBySession.remove(timeout.getKey());
+                    expired.add(timeout.getKey());
+                }
+            }
+        }
+        lastTick = Math.max(lastTick, nowTick);
+        return expired;
+    }
+
+    public synchronized int size() {
+        return slotBySession.size();
+    }
+}
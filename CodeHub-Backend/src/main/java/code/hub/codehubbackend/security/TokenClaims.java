@@ -0,0 +1,22 @@
+package code.hub.codehubbackend.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Verified contents of an access token. Tokens issued before the claims were added carry only
+ * the subject, in which case userId, role and enabled are null.
+ */
+@Getter
+@AllArgsConstructor
+public class TokenClaims {
+
+    private final String username;
+    private final Long userId;
+    private final String role;
+    private final Boolean enabled;
+    private final Instant issuedAt;
+    private final Instant expiresAt;
+}
@@ -7,22 +7,25 @@ import code.hub.codehubbackend.entity.Snippet;
 import code.hub.codehubbackend.entity.User;
 import code.hub.codehubbackend.repository.ActivityRepository;
 import code.hub.codehubbackend.repository.UserRepository;
+import code.hub.codehubbackend.security.CurrentUserContext;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -32,6 +35,10 @@ public class ActivityService {
     private final ActivityRepository activityRepository;
     private final UserRepository userRepository;
     private final ObjectMapper objectMapper;
+    private final ActivityWriter activityWriter;
+    private final CurrentUserContext currentUserContext;
+    
+    private static final int PREVIEW_LENGTH = 200;
     
     /**
      * Get activities for a specific user with optional filtering
@@ -49,7 +56,7 @@ public class ActivityService {
             activities = activityRepository.findByUserOrderByCreatedAtDesc(user, pageable);
         }
         
-        return activities.map(this::convertToResponse);
+        return new PageImpl<>(convertToResponses(activities.getContent()), pageable, activities.getTotalElements());
     }
     
     /**
@@ -65,23 +72,18 @@ public class ActivityService {
     @Transactional
     public void createSnippetActivity(Snippet snippet, Activity.ActivityType type) {
         try {
-            Map<String, Object> metadata = new HashMap<>();
-            metadata.put("snippet", Map.of(
-                "id", snippet.getId(),
-                "title", snippet.getTitle(),
-                "language", snippet.getLanguage(),
-                "description", snippet.getDescription()
-            ));
-            
             Activity activity = Activity.builder()
                     .user(snippet.getOwner())
                     .type(type)
                     .targetId(snippet.getId())
                     .targetType("snippet")
-                    .metadata(objectMapper.writeValueAsString(metadata))
+                    .snippetId(snippet.getId())
+                    .snippetTitle(snippet.getTitle())
+                    .snippetLanguage(snippet.getLanguage())
+                    .structured(true)
                     .build();
             
-            activityRepository.save(activity);
+            saveActivity(activity);
             log.info("Created activity: {} for snippet: {}", type, snippet.getId());
         } catch (Exception e) {
             log.error("Error creating snippet activity: {}", e.getMessage());
@@ -94,90 +96,70 @@ public class ActivityService {
     @Transactional
     public void createLikeActivity(Snippet snippet, boolean isLike) {
         try {
-            User currentUser = getCurrentUser();
-            
-            Map<String, Object> metadata = new HashMap<>();
-            metadata.put("snippet", Map.of(
-                "id", snippet.getId(),
-                "title", snippet.getTitle(),
-                "author", snippet.getOwner().getUsername()
-            ));
-            
-            Activity activity = Activity.builder()
-                    .user(currentUser)
-                    .type(isLike ? Activity.ActivityType.SNIPPET_LIKED : Activity.ActivityType.SNIPPET_UNLIKED)
-                    .targetId(snippet.getId())
-                    .targetType("snippet")
-                    .metadata(objectMapper.writeValueAsString(metadata))
-                    .build();
-            
-            activityRepository.save(activity);
+            saveActivity(likeActivity(snippet, getCurrentUser(), isLike));
             log.info("Created {} activity for snippet: {}", isLike ? "LIKE" : "UNLIKE", snippet.getId());
         } catch (Exception e) {
             log.error("Error creating like activity: {}", e.getMessage());
             // Don't throw the error to prevent breaking the main functionality
         }
     }
+    
+    /**
+     * Create like/unlike activity on behalf of the given user. It is written in the caller's
+     * transaction, so the outbox row that asked for it is only removed together with it; failures
+     * are thrown so the outbox retries.
+     */
+    @Transactional
+    public void createLikeActivity(Snippet snippet, User actor, boolean isLike) {
+        activityWriter.writeNow(likeActivity(snippet, actor, isLike));
+        log.info("Created {} activity for snippet: {}", isLike ? "LIKE" : "UNLIKE", snippet.getId());
+    }
       /**
      * Create activity for comment
      */
     @Transactional
     public void createCommentActivity(Snippet snippet, String commentContent) {
         try {
-            User currentUser = getCurrentUser();
-            
-            Map<String, Object> metadata = new HashMap<>();
-            metadata.put("snippet", Map.of(
-                "id", snippet.getId(),
-                "title", snippet.getTitle()
-            ));
-            metadata.put("comment", commentContent);
-            
-            Activity activity = Activity.builder()
-                    .user(currentUser)
-                    .type(Activity.ActivityType.COMMENT_ADDED)
-                    .targetId(snippet.getId())
-                    .targetType("snippet")
-                    .metadata(objectMapper.writeValueAsString(metadata))
-                    .build();
-            
-            activityRepository.save(activity);
+            saveActivity(commentActivity(snippet, getCurrentUser(), commentContent));
             log.info("Created comment activity for snippet: {}", snippet.getId());
         } catch (Exception e) {
             log.error("Error creating comment activity: {}", e.getMessage());
             // Don't throw the error to prevent breaking the main functionality
         }
     }
+    
+    /**
+     * Create comment activity on behalf of the given user, written in the caller's transaction;
+     * failures are thrown
+     */
+    @Transactional
+    public void createCommentActivity(Snippet snippet, User actor, String commentContent) {
+        activityWriter.writeNow(commentActivity(snippet, actor, commentContent));
+        log.info("Created comment activity for snippet: {}", snippet.getId());
+    }
       /**
      * Create activity for favorite
      */
     @Transactional
     public void createFavoriteActivity(Snippet snippet, boolean isFavorite) {
         try {
-            User currentUser = getCurrentUser();
-            
-            Map<String, Object> metadata = new HashMap<>();
-            metadata.put("snippet", Map.of(
-                "id", snippet.getId(),
-                "title", snippet.getTitle(),
-                "author", snippet.getOwner().getUsername()
-            ));
-            
-            Activity activity = Activity.builder()
-                    .user(currentUser)
-                    .type(isFavorite ? Activity.ActivityType.SNIPPET_FAVORITED : Activity.ActivityType.SNIPPET_UNFAVORITED)
-                    .targetId(snippet.getId())
-                    .targetType("snippet")
-                    .metadata(objectMapper.writeValueAsString(metadata))
-                    .build();
-            
-            activityRepository.save(activity);
+            saveActivity(favoriteActivity(snippet, getCurrentUser(), isFavorite));
             log.info("Created {} activity for snippet: {}", isFavorite ? "FAVORITE" : "UNFAVORITE", snippet.getId());
         } catch (Exception e) {
             log.error("Error creating favorite activity: {}", e.getMessage());
             // Don't throw the error to prevent breaking the main functionality
         }
     }
+    
+    /**
+     * Create favorite/unfavorite activity on behalf of the given user, written in the caller's
+     * transaction; failures are thrown
+     */
+    @Transactional
+    public void createFavoriteActivity(Snippet snippet, User actor, boolean isFavorite) {
+        activityWriter.writeNow(favoriteActivity(snippet, actor, isFavorite));
+        log.info("Created {} activity for snippet: {}", isFavorite ? "FAVORITE" : "UNFAVORITE", snippet.getId());
+    }
       /**
      * Create activity for profile update
      */
@@ -186,23 +168,18 @@ public class ActivityService {
         try {
             User currentUser = getCurrentUser();
             
-            Map<String, Object> metadata = new HashMap<>();
-            metadata.put("user", Map.of(
-                "id", currentUser.getId(),
-                "username", currentUser.getUsername()
-            ));
-            
             Activity activity = Activity.builder()
                     .user(currentUser)
                     .type(Activity.ActivityType.PROFILE_UPDATED)
                     .targetId(currentUser.getId())
                     .targetType("user")
-                    .metadata(objectMapper.writeValueAsString(metadata))
+                    .subjectUsername(currentUser.getUsername())
+                    .structured(true)
                     .build();
             
-            activityRepository.save(activity);
+            saveActivity(activity);
             log.info("Created profile update activity for user: {}", currentUser.getId());
-        } catch (JsonProcessingException e) {
+        } catch (Exception e) {
             log.error("Error creating profile update activity", e);
         }
     }
@@ -215,24 +192,19 @@ public class ActivityService {
         try {
             User currentUser = getCurrentUser();
             
-            Map<String, Object> metadata = new HashMap<>();
-            metadata.put("followedUser", Map.of(
-                "id", userToFollow.getId(),
-                "username", userToFollow.getUsername(),
-                "fullName", userToFollow.getFullName() != null ? userToFollow.getFullName() : userToFollow.getUsername()
-            ));
-            
             Activity activity = Activity.builder()
                     .user(currentUser)
                     .type(Activity.ActivityType.USER_FOLLOWED)
                     .targetId(userToFollow.getId())
                     .targetType("user")
-                    .metadata(objectMapper.writeValueAsString(metadata))
+                    .subjectUsername(userToFollow.getUsername())
+                    .subjectFullName(userToFollow.getFullName() != null ? userToFollow.getFullName() : userToFollow.getUsername())
+                    .structured(true)
                     .build();
             
-            activityRepository.save(activity);
+            saveActivity(activity);
             log.info("Created follow activity: user {} followed user {}", currentUser.getId(), userToFollow.getId());
-        } catch (JsonProcessingException e) {
+        } catch (Exception e) {
             log.error("Error creating follow activity", e);
         }
     }
@@ -245,24 +217,19 @@ public class ActivityService {
         try {
             User currentUser = getCurrentUser();
             
-            Map<String, Object> metadata = new HashMap<>();
-            metadata.put("unfollowedUser", Map.of(
-                "id", userToUnfollow.getId(),
-                "username", userToUnfollow.getUsername(),
-                "fullName", userToUnfollow.getFullName() != null ? userToUnfollow.getFullName() : userToUnfollow.getUsername()
-            ));
-            
             Activity activity = Activity.builder()
                     .user(currentUser)
                     .type(Activity.ActivityType.USER_UNFOLLOWED)
                     .targetId(userToUnfollow.getId())
                     .targetType("user")
-                    .metadata(objectMapper.writeValueAsString(metadata))
+                    .subjectUsername(userToUnfollow.getUsername())
+                    .subjectFullName(userToUnfollow.getFullName() != null ? userToUnfollow.getFullName() : userToUnfollow.getUsername())
+                    .structured(true)
                     .build();
             
-            activityRepository.save(activity);
+            saveActivity(activity);
             log.info("Created unfollow activity: user {} unfollowed user {}", currentUser.getId(), userToUnfollow.getId());
-        } catch (JsonProcessingException e) {
+        } catch (Exception e) {
             log.error("Error creating unfollow activity", e);
         }
     }
@@ -272,10 +239,81 @@ public class ActivityService {
      */
     @Transactional
     public void deleteActivitiesByTarget(Long targetId, String targetType) {
+        // Buffered activities of this target would otherwise be inserted after the delete
+        activityWriter.flush();
         activityRepository.deleteByTargetIdAndTargetType(targetId, targetType);
         log.info("Deleted activities for target: {} of type: {}", targetId, targetType);
     }
     
+    private static Activity likeActivity(Snippet snippet, User actor, boolean isLike) {
+        return Activity.builder()
+                .user(actor)
+                .type(isLike ? Activity.ActivityType.SNIPPET_LIKED : Activity.ActivityType.SNIPPET_UNLIKED)
+                .targetId(snippet.getId())
+                .targetType("snippet")
+                .snippetId(snippet.getId())
+                .snippetTitle(snippet.getTitle())
+                .subjectUsername(snippet.getOwner().getUsername())
+                .structured(true)
+                .build();
+    }
+    
+    private static Activity commentActivity(Snippet snippet, User actor, String commentContent) {
+        return Activity.builder()
+                .user(actor)
+                .type(Activity.ActivityType.COMMENT_ADDED)
+                .targetId(snippet.getId())
+                .targetType("snippet")
+                .snippetId(snippet.getId())
+                .snippetTitle(snippet.getTitle())
+                .contentPreview(preview(commentContent))
+                .structured(true)
+                .build();
+    }
+    
+    private static Activity favoriteActivity(Snippet snippet, User actor, boolean isFavorite) {
+        return Activity.builder()
+                .user(actor)
+                .type(isFavorite ? Activity.ActivityType.SNIPPET_FAVORITED : Activity.ActivityType.SNIPPET_UNFAVORITED)
+                .targetId(snippet.getId())
+                .targetType("snippet")
+                .snippetId(snippet.getId())
+                .snippetTitle(snippet.getTitle())
+                .subjectUsername(snippet.getOwner().getUsername())
+                .structured(true)
+                .build();
+    }
+    
+    /**
+     * Hand an activity to the batched writer; it is inserted and announced to feed fan-out
+     * shortly after the transaction commits
+     */
+    private void saveActivity(Activity activity) {
+        activityWriter.submit(activity);
+    }
+    
+    /**
+     * Convert activities to responses, keeping their order. Authors that are not loaded yet are
+     * fetched with one batch query instead of one lazy load per row.
+     */
+    public List<ActivityResponse> convertToResponses(List<Activity> activities) {
+        Set<Long> missingUserIds = activities.stream()
+                .map(Activity::getUser)
+                .filter(user -> !Hibernate.isInitialized(user))
+                .map(User::getId)
+                .collect(Collectors.toSet());
+        
+        Map<Long, User> users = new HashMap<>();
+        if (!missingUserIds.isEmpty()) {
+            userRepository.findAllById(missingUserIds).forEach(user -> users.put(user.getId(), user));
+        }
+        
+        return activities.stream()
+                .map(activity -> convertToResponse(activity,
+                        users.getOrDefault(activity.getUser().getId(), activity.getUser())))
+                .toList();
+    }
+    
     /**
      * Get filtered activities based on type
      */
@@ -307,42 +345,100 @@ public class ActivityService {
     /**
      * Convert Activity entity to ActivityResponse DTO
      */
-    private ActivityResponse convertToResponse(Activity activity) {
-        Map<String, Object> data = new HashMap<>();
-        
-        if (activity.getMetadata() != null) {
-            try {
-                data = objectMapper.readValue(activity.getMetadata(), new TypeReference<Map<String, Object>>() {});
-            } catch (JsonProcessingException e) {
-                log.error("Error parsing activity metadata", e);
-            }
-        }
-        
+    private ActivityResponse convertToResponse(Activity activity, User user) {
         return ActivityResponse.builder()
                 .id(activity.getId())
                 .type(activity.getType().name())
                 .targetId(activity.getTargetId())
                 .targetType(activity.getTargetType())
-                .data(data)
+                .data(activity.isStructured() ? renderData(activity) : parseLegacyMetadata(activity))
                 .createdAt(activity.getCreatedAt().atZone(java.time.ZoneId.systemDefault()).toLocalDateTime())
                 .user(ActivityResponse.UserInfo.builder()
-                        .id(activity.getUser().getId())
-                        .username(activity.getUser().getUsername())
-                        .fullName(activity.getUser().getFullName())
-                        .avatarUrl(activity.getUser().getAvatarUrl())
+                        .id(user.getId())
+                        .username(user.getUsername())
+                        .fullName(user.getFullName())
+                        .avatarUrl(user.getAvatarUrl())
                         .build())
                 .build();
     }
     
+    /**
+     * Build the response data from the typed columns, in the same shape the JSON metadata had
+     */
+    private Map<String, Object> renderData(Activity activity) {
+        Map<String, Object> data = new HashMap<>();
+        switch (activity.getType()) {
+            case PROFILE_UPDATED -> data.put("user", userData(activity));
+            case USER_FOLLOWED -> data.put("followedUser", userData(activity));
+            case USER_UNFOLLOWED -> data.put("unfollowedUser", userData(activity));
+            case COMMENT_LIKED, COMMENT_UNLIKED -> {
+                Map<String, Object> comment = new HashMap<>();
+                comment.put("id", activity.getTargetId());
+                comment.put("content", activity.getContentPreview());
+                comment.put("author", activity.getSubjectUsername());
+                data.put("comment", comment);
+                data.put("snippet", snippetData(activity));
+            }
+            default -> {
+                data.put("snippet", snippetData(activity));
+                if (activity.getContentPreview() != null) {
+                    data.put("comment", activity.getContentPreview());
+                }
+            }
+        }
+        return data;
+    }
+    
+    private Map<String, Object> snippetData(Activity activity) {
+        Map<String, Object> snippet = new HashMap<>();
+        snippet.put("id", activity.getSnippetId());
+        snippet.put("title", activity.getSnippetTitle());
+        if (activity.getSnippetLanguage() != null) {
+            snippet.put("language", activity.getSnippetLanguage());
+        }
+        if (activity.getSubjectUsername() != null) {
+            snippet.put("author", activity.getSubjectUsername());
+        }
+        return snippet;
+    }
+    
+    private Map<String, Object> userData(Activity activity) {
+        Map<String, Object> user = new HashMap<>();
+        user.put("id", activity.getTargetId());
+        user.put("username", activity.getSubjectUsername());
+        if (activity.getSubjectFullName() != null) {
+            user.put("fullName", activity.getSubjectFullName());
+        }
+        return user;
+    }
+    
+    /**
+     * Rows written before the typed columns existed and not yet backfilled by the migration
+     */
+    private Map<String, Object> parseLegacyMetadata(Activity activity) {
+        if (activity.getMetadata() == null) {
+            return new HashMap<>();
+        }
+        try {
+            return objectMapper.readValue(activity.getMetadata(), new TypeReference<Map<String, Object>>() {});
+        } catch (JsonProcessingException e) {
+            log.error("Error parsing activity metadata", e);
+            return new HashMap<>();
+        }
+    }
+    
+    private static String preview(String content) {
+        if (content == null || content.length() <= PREVIEW_LENGTH) {
+            return content;
+        }
+        return content.substring(0, PREVIEW_LENGTH) + "...";
+    }
+    
     /**
      * Get current authenticated user
      */
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new RuntimeException("No authenticated user found");
-        }
-        return (User) authentication.getPrincipal();
+        return currentUserContext.require();
     }
 
     /**
@@ -353,26 +449,19 @@ public class ActivityService {
         try {
             User currentUser = getCurrentUser();
             
-            Map<String, Object> metadata = new HashMap<>();
-            metadata.put("comment", Map.of(
-                "id", comment.getId(),
-                "content", comment.getContent().length() > 100 ? comment.getContent().substring(0, 100) + "..." : comment.getContent(),
-                "author", comment.getAuthor().getUsername()
-            ));
-            metadata.put("snippet", Map.of(
-                "id", comment.getSnippet().getId(),
-                "title", comment.getSnippet().getTitle()
-            ));
-            
             Activity activity = Activity.builder()
                     .user(currentUser)
                     .type(isLike ? Activity.ActivityType.COMMENT_LIKED : Activity.ActivityType.COMMENT_UNLIKED)
                     .targetId(comment.getId())
                     .targetType("comment")
-                    .metadata(objectMapper.writeValueAsString(metadata))
+                    .snippetId(comment.getSnippet().getId())
+                    .snippetTitle(comment.getSnippet().getTitle())
+                    .subjectUsername(comment.getAuthor().getUsername())
+                    .contentPreview(preview(comment.getContent()))
+                    .structured(true)
                     .build();
             
-            activityRepository.save(activity);
+            saveActivity(activity);
             log.info("Created {} activity for comment: {}", isLike ? "LIKE" : "UNLIKE", comment.getId());
         } catch (Exception e) {
             log.error("Error creating comment like activity: {}", e.getMessage());
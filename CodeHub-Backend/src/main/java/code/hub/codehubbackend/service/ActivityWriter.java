@@ -0,0 +1,184 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.entity.Activity;
+import code.hub.codehubbackend.event.ActivityCreatedEvent;
+import code.hub.codehubbackend.repository.ActivityRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Buffers new activities and writes them in batches. Activities are queued once the calling
+ * transaction commits and flushed when a batch fills up or the flush interval elapses, so a burst
+ * of engagement costs a few batched inserts instead of one round trip per action.
+ * <p>
+ * The buffer is lost if the process dies before a flush. Callers that must not lose the activity,
+ * such as the outbox worker that deletes its row in the same transaction, use {@link #writeNow}.
+ */
+@Component
+@Slf4j
+public class ActivityWriter {
+
+    private final ActivityRepository activityRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ThreadPoolTaskExecutor executor;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate joiningTransactionTemplate;
+    private final BlockingQueue<Activity> pending;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+    private final Timer flushTimer;
+
+    @Value("${app.activity.writer.batch-size:50}")
+    private int batchSize;
+
+    public ActivityWriter(ActivityRepository activityRepository,
+                          ApplicationEventPublisher eventPublisher,
+                          @Qualifier("sideEffectExecutor") ThreadPoolTaskExecutor executor,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.activity.writer.capacity:10000}") int capacity) {
+        this.activityRepository = activityRepository;
+        this.eventPublisher = eventPublisher;
+        this.executor = executor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Flushes can run from inside a caller's transaction; batches always commit on their own
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.joiningTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.pending = new LinkedBlockingQueue<>(capacity);
+        this.writtenCounter = meterRegistry.counter("codehub.activity.writer.written");
+        this.droppedCounter = meterRegistry.counter("codehub.activity.writer.dropped");
+        this.flushTimer = meterRegistry.timer("codehub.activity.writer.flush");
+        Gauge.builder("codehub.activity.writer.pending", pending, BlockingQueue::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue an activity for the next batch. Inside a transaction it is only queued after commit,
+     * so rolled back actions never produce activities.
+     */
+    public void submit(Activity activity) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(activity);
+                }
+            });
+        } else {
+            enqueue(activity);
+        }
+    }
+
+    /**
+     * Insert an activity right away in the caller's transaction, so it commits or rolls back with
+     * the work that produced it. Failures are thrown to the caller.
+     */
+    public void writeNow(Activity activity) {
+        joiningTransactionTemplate.executeWithoutResult(status -> {
+            activityRepository.save(activity);
+            eventPublisher.publishEvent(new ActivityCreatedEvent(
+                    activity.getId(), activity.getUser().getId(), activity.getType()));
+        });
+        writtenCounter.increment();
+    }
+
+    /**
+     * Write everything queued so far. Runs on the flush interval, when a batch fills up, before
+     * activities of a target are deleted and on shutdown.
+     */
+    @Scheduled(fixedDelayString = "${app.activity.writer.flush-interval-ms:200}")
+    public synchronized int flush() {
+        flushRequested.set(false);
+        int written = 0;
+        List<Activity> batch = new ArrayList<>(batchSize);
+        while (pending.drainTo(batch, batchSize) > 0) {
+            Timer.Sample sample = Timer.start();
+            written += write(batch);
+            sample.stop(flushTimer);
+            batch.clear();
+        }
+        return written;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        int written = flush();
+        if (written > 0) {
+            log.info("Flushed {} buffered activities on shutdown", written);
+        }
+    }
+
+    private void enqueue(Activity activity) {
+        if (!pending.offer(activity)) {
+            // Buffer is full; write this one directly rather than losing it
+            write(List.of(activity));
+            return;
+        }
+        if (pending.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::flush);
+            } catch (TaskRejectedException e) {
+                // The scheduled flush picks the batch up shortly
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private int write(List<Activity> batch) {
+        try {
+            insert(batch);
+            return batch.size();
+        } catch (Exception e) {
+            log.warn("Batch insert of {} activities failed, retrying one by one: {}", batch.size(), e.getMessage());
+        }
+
+        int written = 0;
+        for (Activity activity : batch) {
+            try {
+                activity.setId(null);
+                insert(List.of(activity));
+                written++;
+            } catch (Exception e) {
+                droppedCounter.increment();
+                log.error("Dropping activity {} for user {}: {}",
+                        activity.getType(), activity.getUser().getId(), e.getMessage());
+            }
+        }
+        return written;
+    }
+
+    private void insert(List<Activity> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Sequence ids let Hibernate send these as one JDBC batch
+            activityRepository.saveAll(batch);
+            activityRepository.flush();
+            // Feed fan-out runs once this transaction commits
+            batch.forEach(activity -> eventPublisher.publishEvent(new ActivityCreatedEvent(
+                    activity.getId(), activity.getUser().getId(), activity.getType())));
+        });
+        writtenCounter.increment(batch.size());
+    }
+}
@@ -3,9 +3,11 @@ package code.hub.codehubbackend.service;
 import code.hub.codehubbackend.dto.admin.*;
 import code.hub.codehubbackend.entity.*;
 import code.hub.codehubbackend.repository.*;
+import code.hub.codehubbackend.event.UserAccountChangedEvent;
 import code.hub.codehubbackend.exception.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -32,6 +34,7 @@ public class AdminService {
     private final CommentRepository commentRepository;
     private final LikeRepository likeRepository;
     private final ActivityRepository activityRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public DashboardStatsResponse getDashboardStats() {
         log.info("Fetching dashboard statistics");
@@ -157,6 +160,7 @@ public class AdminService {
         
         user.setEnabled(enabled);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserAccountChangedEvent(userId));
         
         log.info("User status updated successfully");
     }
@@ -442,9 +446,24 @@ public class AdminService {
                 .userUsername(activity.getUser().getUsername())
                 .userEmail(activity.getUser().getEmail())
                 .timestamp(activity.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant())
-                .details(activity.getMetadata())
+                .details(activity.getMetadata() != null ? activity.getMetadata() : summarizeActivity(activity))
                 .ipAddress("127.0.0.1") // Placeholder
                 .userAgent("Unknown") // Placeholder
                 .build();
     }
+
+    // Activities written with typed columns carry no JSON payload
+    private String summarizeActivity(Activity activity) {
+        StringBuilder summary = new StringBuilder();
+        if (activity.getSnippetTitle() != null) {
+            summary.append("snippet \"").append(activity.getSnippetTitle()).append("\"");
+        }
+        if (activity.getSubjectUsername() != null) {
+            summary.append(summary.isEmpty() ? "" : " ").append("@").append(activity.getSubjectUsername());
+        }
+        if (activity.getContentPreview() != null) {
+            summary.append(summary.isEmpty() ? "" : ": ").append(activity.getContentPreview());
+        }
+        return summary.isEmpty() ? null : summary.toString();
+    }
 }
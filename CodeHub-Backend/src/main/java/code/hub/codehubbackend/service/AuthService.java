@@ -6,14 +6,15 @@ import code.hub.codehubbackend.dto.auth.RegisterRequest;
 import code.hub.codehubbackend.entity.User;
 import code.hub.codehubbackend.repository.UserRepository;
 import code.hub.codehubbackend.security.JwtUtils;
+import code.hub.codehubbackend.security.PasswordHasher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class AuthService {
     
@@ -24,38 +25,33 @@ public class AuthService {
     private UserRepository userRepository;
     
     @Autowired
-    private PasswordEncoder encoder;
+    private PasswordHasher passwordHasher;
     
     @Autowired
     private JwtUtils jwtUtils;
-      public AuthResponse login(LoginRequest loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        loginRequest.getUsername(),
-                        loginRequest.getPassword()));
-        
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        String jwt = jwtUtils.generateJwtToken(authentication);
-        
-        // Safe casting with proper error handling
-        if (!(authentication.getPrincipal() instanceof User)) {
-            throw new RuntimeException("Authentication principal is not a User instance");
-        }        User user = (User) authentication.getPrincipal();
-        
-        return AuthResponse.builder()
-                .token(jwt)
-                .id(user.getId())
-                .username(user.getUsername())
-                .email(user.getEmail())
-                .role(user.getRole().name())
-                .avatarUrl(user.getAvatarUrl())
-                .coverPhotoUrl(user.getCoverPhotoUrl())
-                .bio(user.getBio())
-                .fullName(user.getFullName())
-                .build();
+    
+    /**
+     * Authenticate on the password hashing pool; the request thread is released meanwhile
+     */
+    public CompletableFuture<AuthResponse> login(LoginRequest loginRequest) {
+        return passwordHasher.submit("login", () -> {
+            Authentication authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            loginRequest.getUsername(),
+                            loginRequest.getPassword()));
+            
+            String jwt = jwtUtils.generateJwtToken(authentication);
+            
+            // Safe casting with proper error handling
+            if (!(authentication.getPrincipal() instanceof User)) {
+                throw new RuntimeException("Authentication principal is not a User instance");
+            }
+            User user = (User) authentication.getPrincipal();
+            return toResponse(jwt, user);
+        });
     }
     
-    public AuthResponse register(RegisterRequest registerRequest) {
+    public CompletableFuture<AuthResponse> register(RegisterRequest registerRequest) {
         if (userRepository.existsByUsername(registerRequest.getUsername())) {
             throw new RuntimeException("Error: Username is already taken!");
         }
@@ -64,18 +60,23 @@ public class AuthService {
             throw new RuntimeException("Error: Email is already in use!");
         }
         
-        // Create new user account
-        User user = User.builder()
-                .username(registerRequest.getUsername())
-                .email(registerRequest.getEmail())
-                .passwordHash(encoder.encode(registerRequest.getPassword()))
-                .role(User.Role.USER)
-                .build();
-        
-        userRepository.save(user);
-          // Generate JWT token for immediate login
-        String jwt = jwtUtils.generateTokenFromUsername(user.getUsername());
-        
+        return passwordHasher.encode(registerRequest.getPassword()).thenApply(passwordHash -> {
+            // Create new user account
+            User user = User.builder()
+                    .username(registerRequest.getUsername())
+                    .email(registerRequest.getEmail())
+                    .passwordHash(passwordHash)
+                    .role(User.Role.USER)
+                    .build();
+            
+            userRepository.save(user);
+            
+            // Generate JWT token for immediate login
+            return toResponse(jwtUtils.generateToken(user), user);
+        });
+    }
+    
+    private AuthResponse toResponse(String jwt, User user) {
         return AuthResponse.builder()
                 .token(jwt)
                 .id(user.getId())
@@ -7,6 +7,7 @@ import code.hub.codehubbackend.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -14,8 +15,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -23,9 +29,15 @@ import java.util.List;
 @Transactional(readOnly = true)
 public class ChatHistoryService {
     
+    private static final int SNIPPET_LENGTH = 160;
+    
     private final ChatRoomRepository chatRoomRepository;
     private final ChatMessageRepository chatMessageRepository;
     private final UserService userService;
+    private final PresenceService presenceService;
+    private final ChatMessageCursorLoader chatMessageCursorLoader;
+    private final ChatParticipantRepository chatParticipantRepository;
+    private final ChatSearchIndex chatSearchIndex;
     
     /**
      * Get all conversations for the current user, ordered by latest activity
@@ -77,16 +89,7 @@ public class ChatHistoryService {
     public Page<ChatMessageResponse> getConversationMessagesByChatId(String chatId, int page, int size) {
         User currentUser = userService.getCurrentUser();
         
-        ChatRoom chatRoom = chatRoomRepository.findByChatId(chatId)
-            .orElseThrow(() -> new ResourceNotFoundException("Chat room not found: " + chatId));
-        
-        // Verify user is participant
-        boolean isParticipant = chatRoom.getParticipants().stream()
-            .anyMatch(p -> p.getUser().getId().equals(currentUser.getId()) && p.getIsActive());
-        
-        if (!isParticipant) {
-            throw new ResourceNotFoundException("User is not a participant in this chat room");
-        }
+        ChatRoom chatRoom = getParticipatingChatRoom(chatId, currentUser);
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
         Page<ChatMessage> messages = chatMessageRepository.findByChatRoomOrderByCreatedAtDesc(chatRoom, pageable);
@@ -95,25 +98,78 @@ public class ChatHistoryService {
     }
     
     /**
-     * Search messages in all conversations
+     * Get conversation messages with a specific user using message id cursors
      */
-    public Page<ChatMessageResponse> searchMessagesInAllConversations(String searchTerm, int page, int size) {
+    public ChatMessageCursorResponse getConversationMessagesByCursor(String targetUsername, Long before, Long after, int limit) {
         User currentUser = userService.getCurrentUser();
+        User targetUser = userService.getUserByUsername(targetUsername);
         
-        // Get user's active chat rooms
-        List<ChatRoom> userChatRooms = chatRoomRepository
-            .findByUserOrderByUpdatedAtDesc(currentUser, PageRequest.of(0, Integer.MAX_VALUE))
-            .getContent();
+        ChatRoom chatRoom = chatRoomRepository
+            .findPrivateChatBetweenUsers(currentUser, targetUser)
+            .orElseThrow(() -> new ResourceNotFoundException("No conversation found with user: " + targetUsername));
         
-        if (userChatRooms.isEmpty()) {
-            return Page.empty();
+        return chatMessageCursorLoader.load(chatRoom, before, after, limit, this::mapToChatMessageResponse);
+    }
+    
+    /**
+     * Get chat room messages by chatId using message id cursors
+     */
+    public ChatMessageCursorResponse getConversationMessagesByChatIdCursor(String chatId, Long before, Long after, int limit) {
+        ChatRoom chatRoom = getParticipatingChatRoom(chatId, userService.getCurrentUser());
+        return chatMessageCursorLoader.load(chatRoom, before, after, limit, this::mapToChatMessageResponse);
+    }
+    
+    /**
+     * Get the window of messages surrounding a specific message
+     */
+    public ChatMessageCursorResponse getMessagesAround(String chatId, Long messageId, int limit) {
+        ChatRoom chatRoom = getParticipatingChatRoom(chatId, userService.getCurrentUser());
+        return chatMessageCursorLoader.loadAround(chatRoom, messageId, limit, this::mapToChatMessageResponse);
+    }
+    
+    /**
+     * Full-text search over the current user's conversations, ranked by relevance
+     */
+    public Page<ChatSearchResultResponse> searchMessagesInAllConversations(String searchTerm, int page, int size) {
+        User currentUser = userService.getCurrentUser();
+        Pageable pageable = PageRequest.of(page, size);
+        
+        // The index may lag behind membership changes; only search rooms the user is still in
+        Set<Long> activeRoomIds = new HashSet<>(
+            chatParticipantRepository.findActiveChatRoomIdsByUserId(currentUser.getId()));
+        ChatSearchIndex.SearchResult result = chatSearchIndex.search(
+            currentUser.getId(), searchTerm, activeRoomIds, page * size, size);
+        if (result.getHits().isEmpty()) {
+            return searchPage(List.of(), pageable, result);
         }
         
-        Pageable pageable = PageRequest.of(page, size);
-        Instant fromDate = Instant.now().minus(365, ChronoUnit.DAYS); // Search last year
+        List<Long> messageIds = result.getHits().stream()
+            .map(ChatSearchIndex.Hit::getMessageId)
+            .collect(Collectors.toList());
+        Map<Long, ChatMessage> messages = chatMessageRepository.findAllWithSenderAndRoomByIdIn(messageIds).stream()
+            .collect(Collectors.toMap(ChatMessage::getId, Function.identity()));
+        
+        Set<String> terms = new HashSet<>(result.getTerms());
         
-        return chatMessageRepository.findRecentMessagesInChatRooms(userChatRooms, fromDate, pageable)
-            .map(this::mapToChatMessageResponse);
+        List<ChatSearchResultResponse> content = new ArrayList<>();
+        for (ChatSearchIndex.Hit hit : result.getHits()) {
+            ChatMessage message = messages.get(hit.getMessageId());
+            if (message == null) {
+                continue; // Deleted since it was indexed
+            }
+            content.add(buildSearchResult(message, terms, hit.getScore()));
+        }
+        
+        return searchPage(content, pageable, result);
+    }
+    
+    /**
+     * A page of search results. When the index stopped scanning early the match count is only a
+     * lower bound, which the page reports as totalIsLowerBound.
+     */
+    private ChatSearchPage searchPage(List<ChatSearchResultResponse> content, Pageable pageable,
+                                      ChatSearchIndex.SearchResult result) {
+        return new ChatSearchPage(content, pageable, result.getMatchCount(), result.isTruncated());
     }
     
     /**
@@ -154,6 +210,20 @@ public class ChatHistoryService {
             .build();
     }
     
+    private ChatRoom getParticipatingChatRoom(String chatId, User currentUser) {
+        ChatRoom chatRoom = chatRoomRepository.findByChatId(chatId)
+            .orElseThrow(() -> new ResourceNotFoundException("Chat room not found: " + chatId));
+        
+        // Verify user is participant
+        boolean isParticipant = chatRoom.getParticipants().stream()
+            .anyMatch(p -> p.getUser().getId().equals(currentUser.getId()) && p.getIsActive());
+        
+        if (!isParticipant) {
+            throw new ResourceNotFoundException("User is not a participant in this chat room");
+        }
+        return chatRoom;
+    }
+    
     private ConversationResponse buildConversationResponse(ChatRoom chatRoom, User currentUser) {
         // Get the other participant (for private chats)
         ChatParticipant otherParticipant = chatRoom.getParticipants().stream()
@@ -188,7 +258,7 @@ public class ChatHistoryService {
                 .participantFullName(otherUser.getFullName())
                 .participantAvatarUrl(otherUser.getAvatarUrl())
                 .lastSeenAt(otherParticipant.getLastReadAt())
-                .isOnline(false); // TODO: Implement online status
+                .isOnline(presenceService.isOnline(otherUser.getId()));
         } else if (chatRoom.getRoomType() == ChatRoom.RoomType.GROUP) {
             builder.roomName(chatRoom.getRoomName())
                 .totalParticipants(chatRoom.getParticipants().size());
@@ -233,7 +303,38 @@ public class ChatHistoryService {
             .fullName(user.getFullName())
             .avatarUrl(user.getAvatarUrl())
             .lastSeenAt(participant != null ? participant.getLastReadAt() : null)
-            .isOnline(false) // TODO: Implement online status
+            .isOnline(presenceService.isOnline(user.getId()))
+            .build();
+    }
+    
+    private ChatSearchResultResponse buildSearchResult(ChatMessage message, Set<String> terms, double score) {
+        String text = message.getContent() != null ? message.getContent() : "";
+        List<ChatSearchIndex.Token> matches = ChatSearchIndex.tokenize(text).stream()
+            .filter(token -> terms.contains(token.getTerm()))
+            .collect(Collectors.toList());
+        
+        // Centre the snippet on the first match
+        int firstMatch = matches.isEmpty() ? 0 : matches.get(0).getStart();
+        int start = Math.max(0, firstMatch - SNIPPET_LENGTH / 3);
+        int end = Math.min(text.length(), start + SNIPPET_LENGTH);
+        start = Math.max(0, Math.min(start, end - SNIPPET_LENGTH));
+        
+        String prefix = start > 0 ? "…" : "";
+        String snippet = prefix + text.substring(start, end) + (end < text.length() ? "…" : "");
+        
+        List<ChatSearchResultResponse.HighlightRange> highlights = new ArrayList<>();
+        for (ChatSearchIndex.Token match : matches) {
+            if (match.getStart() >= start && match.getEnd() <= end) {
+                highlights.add(new ChatSearchResultResponse.HighlightRange(
+                    match.getStart() - start + prefix.length(), match.getEnd() - start + prefix.length()));
+            }
+        }
+        
+        return ChatSearchResultResponse.builder()
+            .message(mapToChatMessageResponse(message))
+            .snippet(snippet)
+            .highlights(highlights)
+            .score(score)
             .build();
     }
     
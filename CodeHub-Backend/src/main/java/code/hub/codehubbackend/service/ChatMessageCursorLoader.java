@@ -0,0 +1,106 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.dto.chat.ChatMessageCursorResponse;
+import code.hub.codehubbackend.dto.chat.ChatMessageResponse;
+import code.hub.codehubbackend.entity.ChatMessage;
+import code.hub.codehubbackend.entity.ChatRoom;
+import code.hub.codehubbackend.exception.BadRequestException;
+import code.hub.codehubbackend.exception.ResourceNotFoundException;
+import code.hub.codehubbackend.repository.ChatMessageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Loads chat history windows with keyset (seek) queries on {@code (chat_room_id, id)}.
+ * Each window reads at most {@code limit + 1} index entries, so the cost does not grow with the
+ * depth of the history and windows do not shift when new messages arrive.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChatMessageCursorLoader {
+
+    public static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 100;
+
+    private final ChatMessageRepository chatMessageRepository;
+
+    /**
+     * Load messages older than {@code before}, newer than {@code after}, or the latest ones when
+     * neither cursor is given
+     */
+    public ChatMessageCursorResponse load(ChatRoom chatRoom, Long before, Long after, int limit,
+                                          Function<ChatMessage, ChatMessageResponse> mapper) {
+        if (before != null && after != null) {
+            throw new BadRequestException("Use either 'before' or 'after', not both");
+        }
+        int size = clamp(limit);
+
+        if (after != null) {
+            List<ChatMessage> newer = chatMessageRepository.findByChatRoomAfterId(
+                    chatRoom, after, PageRequest.of(0, size + 1));
+            boolean hasNewer = newer.size() > size;
+            List<ChatMessage> window = new ArrayList<>(newer.subList(0, Math.min(size, newer.size())));
+            Collections.reverse(window);
+            return toResponse(window, null, true, hasNewer, mapper);
+        }
+
+        List<ChatMessage> older = before != null
+                ? chatMessageRepository.findByChatRoomBeforeId(chatRoom, before, PageRequest.of(0, size + 1))
+                : chatMessageRepository.findLatestByChatRoom(chatRoom, PageRequest.of(0, size + 1));
+        boolean hasOlder = older.size() > size;
+        List<ChatMessage> window = older.subList(0, Math.min(size, older.size()));
+        return toResponse(window, null, hasOlder, before != null, mapper);
+    }
+
+    /**
+     * Load a window centred on {@code messageId}, used to jump to a search hit or a quoted message
+     */
+    public ChatMessageCursorResponse loadAround(ChatRoom chatRoom, Long messageId, int limit,
+                                                Function<ChatMessage, ChatMessageResponse> mapper) {
+        if (!chatMessageRepository.existsByIdAndChatRoom(messageId, chatRoom)) {
+            throw new ResourceNotFoundException("Message not found in this chat: " + messageId);
+        }
+        int size = clamp(limit);
+        int newerCount = size / 2;
+        int olderCount = size - newerCount;
+
+        // ids <= anchor, newest first (includes the anchor itself)
+        List<ChatMessage> older = chatMessageRepository.findByChatRoomBeforeId(
+                chatRoom, messageId + 1, PageRequest.of(0, olderCount + 1));
+        // ids > anchor, oldest first
+        List<ChatMessage> newer = chatMessageRepository.findByChatRoomAfterId(
+                chatRoom, messageId, PageRequest.of(0, newerCount + 1));
+
+        boolean hasOlder = older.size() > olderCount;
+        boolean hasNewer = newer.size() > newerCount;
+
+        List<ChatMessage> window = new ArrayList<>(newer.subList(0, Math.min(newerCount, newer.size())));
+        Collections.reverse(window);
+        window.addAll(older.subList(0, Math.min(olderCount, older.size())));
+        return toResponse(window, messageId, hasOlder, hasNewer, mapper);
+    }
+
+    private ChatMessageCursorResponse toResponse(List<ChatMessage> newestFirst, Long anchorId,
+                                                 boolean hasOlder, boolean hasNewer,
+                                                 Function<ChatMessage, ChatMessageResponse> mapper) {
+        return ChatMessageCursorResponse.builder()
+                .messages(newestFirst.stream().map(mapper).collect(Collectors.toList()))
+                .newestId(newestFirst.isEmpty() ? null : newestFirst.get(0).getId())
+                .oldestId(newestFirst.isEmpty() ? null : newestFirst.get(newestFirst.size() - 1).getId())
+                .anchorId(anchorId)
+                .hasOlder(hasOlder)
+                .hasNewer(hasNewer)
+                .build();
+    }
+
+    private int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
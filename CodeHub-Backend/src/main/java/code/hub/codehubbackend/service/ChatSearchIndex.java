@@ -0,0 +1,520 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.event.ChatMessageEvent;
+import code.hub.codehubbackend.repository.ChatMessageRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over chat message text, partitioned per user.
+ * <p>
+ * A user's partition covers the messages of the rooms they take part in. Partitions are built
+ * lazily from the database on the first search and then maintained incrementally from
+ * {@link ChatMessageEvent}s after the sending transaction commits, including while they are still
+ * being built. A message is indexed once per participant, so memory is bounded by a document
+ * budget over the whole index: the least recently searched partitions are dropped when the budget
+ * or the partition limit is exceeded. Queries use AND semantics and BM25 scoring with a mild
+ * recency boost; the number of postings examined per query is capped so latency stays bounded for
+ * very large histories.
+ */
+@Component
+@Slf4j
+public class ChatSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int BUILD_CHUNK_SIZE = 1000;
+    private static final int MAX_TOP_K = 1000;
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final int maxPartitions;
+    private final int maxMessagesPerUser;
+    private final long maxIndexedMessages;
+    private final int maxCandidates;
+    // Least recently searched first; guarded by itself
+    private final LinkedHashMap<Long, UserPartition> partitions = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong indexedMessages = new AtomicLong();
+
+    public ChatSearchIndex(ChatMessageRepository chatMessageRepository,
+                           @Value("${app.chat.search.max-partitions:2000}") int maxPartitions,
+                           @Value("${app.chat.search.max-messages-per-user:20000}") int maxMessagesPerUser,
+                           @Value("${app.chat.search.max-indexed-messages:1000000}") long maxIndexedMessages,
+                           @Value("${app.chat.search.max-candidates:5000}") int maxCandidates) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.maxPartitions = maxPartitions;
+        this.maxMessagesPerUser = maxMessagesPerUser;
+        this.maxIndexedMessages = maxIndexedMessages;
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * Apply a committed message change to the partitions that are currently loaded or being built.
+     * Partitions that are not loaded pick the change up from the database when they are built.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChatMessageEvent(ChatMessageEvent event) {
+        String text = indexableText(event.getContent(), event.getFileName());
+        long createdAt = event.getCreatedAt() != null ? event.getCreatedAt().toEpochMilli() : System.currentTimeMillis();
+
+        for (Long userId : event.getParticipantIds()) {
+            UserPartition partition;
+            synchronized (partitions) {
+                partition = partitions.get(userId);
+            }
+            if (partition == null) {
+                continue;
+            }
+            if (event.getType() == ChatMessageEvent.Type.DELETED) {
+                partition.remove(event.getMessageId());
+            } else {
+                partition.put(event.getMessageId(), event.getChatRoomId(), createdAt, text);
+            }
+        }
+        enforceBudget(null);
+    }
+
+    /**
+     * Rank the user's messages in the given rooms against the query and return the hits in
+     * [offset, offset + limit). Rooms are filtered before ranking, so pages are only short at the
+     * end of the results.
+     */
+    public SearchResult search(Long userId, String query, Set<Long> chatRoomIds, int offset, int limit) {
+        List<String> terms = queryTerms(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return new SearchResult(List.of(), terms, 0, false);
+        }
+
+        int topK = Math.min(offset + limit, MAX_TOP_K);
+        SearchResult ranked = partition(userId).search(terms, chatRoomIds, topK, maxCandidates);
+        List<Hit> hits = ranked.getHits();
+        List<Hit> page = offset >= hits.size()
+                ? List.of()
+                : hits.subList(offset, Math.min(hits.size(), offset + limit));
+        // Ranking stops at MAX_TOP_K, so later pages are cut off like a truncated scan
+        boolean truncated = ranked.isTruncated() || (topK < offset + limit && ranked.getMatchCount() > topK);
+        return new SearchResult(page, terms, ranked.getMatchCount(), truncated);
+    }
+
+    /**
+     * Messages currently held across all partitions
+     */
+    public long getIndexedMessages() {
+        return indexedMessages.get();
+    }
+
+    /**
+     * The user's partition, built on first use. Concurrent searches for a user share one build;
+     * message events reach the partition while it is being built.
+     */
+    private UserPartition partition(Long userId) {
+        UserPartition partition;
+        boolean created = false;
+        synchronized (partitions) {
+            partition = partitions.get(userId);
+            if (partition == null) {
+                partition = new UserPartition(maxMessagesPerUser, indexedMessages);
+                partitions.put(userId, partition);
+                created = true;
+            }
+        }
+
+        if (created) {
+            try {
+                buildPartition(userId, partition);
+                partition.ready.complete(null);
+            } catch (RuntimeException e) {
+                synchronized (partitions) {
+                    partitions.remove(userId, partition);
+                }
+                partition.discard();
+                partition.ready.completeExceptionally(e);
+                throw e;
+            }
+            enforceBudget(partition);
+        }
+
+        try {
+            partition.ready.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        return partition;
+    }
+
+    // Drop least recently searched partitions, except the one in use, until the index fits
+    private void enforceBudget(UserPartition inUse) {
+        List<UserPartition> evicted = new ArrayList<>();
+        synchronized (partitions) {
+            Iterator<UserPartition> eldest = partitions.values().iterator();
+            long projected = indexedMessages.get();
+            int count = partitions.size();
+            while ((count > maxPartitions || projected > maxIndexedMessages) && eldest.hasNext()) {
+                UserPartition partition = eldest.next();
+                // Searches may be waiting on a partition that is still being built
+                if (partition == inUse || !partition.ready.isDone()) {
+                    continue;
+                }
+                eldest.remove();
+                evicted.add(partition);
+                projected -= partition.size();
+                count--;
+            }
+        }
+        evicted.forEach(UserPartition::discard);
+        if (!evicted.isEmpty()) {
+            log.debug("Evicted {} chat search partitions; {} messages indexed", evicted.size(), indexedMessages.get());
+        }
+    }
+
+    /**
+     * Distinct normalized terms of a query, in query order
+     */
+    public static List<String> queryTerms(String query) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (Token token : tokenize(query)) {
+            terms.add(token.getTerm());
+        }
+        return new ArrayList<>(terms);
+    }
+
+    /**
+     * Split text into normalized terms: lower-cased, diacritics folded, letters and digits only.
+     * Offsets refer to the original text so matches can be highlighted in place.
+     */
+    public static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        StringBuilder term = new StringBuilder();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (start < 0) {
+                    start = i;
+                }
+                term.append(fold(c));
+            } else if (start >= 0) {
+                if (term.length() >= MIN_TERM_LENGTH) {
+                    tokens.add(new Token(term.toString(), start, i));
+                }
+                term.setLength(0);
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static char fold(char c) {
+        if (c < 128) {
+            return Character.toLowerCase(c);
+        }
+        if (c == 'đ' || c == 'Đ') {
+            return 'd';
+        }
+        String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+        return Character.toLowerCase(decomposed.charAt(0));
+    }
+
+    private static String indexableText(String content, String fileName) {
+        if (fileName == null || fileName.isBlank()) {
+            return content;
+        }
+        return content == null ? fileName : content + " " + fileName;
+    }
+
+    private void buildPartition(Long userId, UserPartition partition) {
+        long beforeId = Long.MAX_VALUE;
+        int loaded = 0;
+
+        while (loaded < maxMessagesPerUser) {
+            List<Object[]> rows = chatMessageRepository.findIndexableMessagesForUser(
+                    userId, beforeId, PageRequest.of(0, BUILD_CHUNK_SIZE));
+            for (Object[] row : rows) {
+                Long messageId = (Long) row[0];
+                Instant createdAt = (Instant) row[4];
+                partition.load(messageId, (Long) row[1],
+                        createdAt != null ? createdAt.toEpochMilli() : 0L,
+                        indexableText((String) row[2], (String) row[3]));
+                beforeId = messageId;
+            }
+            loaded += rows.size();
+            if (rows.size() < BUILD_CHUNK_SIZE) {
+                break;
+            }
+        }
+        partition.loaded();
+
+        log.debug("Built chat search partition for user {} with {} messages", userId, partition.size());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Token {
+        private final String term;
+        private final int start;
+        private final int end;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Hit {
+        private final Long messageId;
+        private final Long chatRoomId;
+        private final double score;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class SearchResult {
+        private final List<Hit> hits;
+        private final List<String> terms;
+        // Matches among the postings examined: exact, or only a lower bound when truncated
+        private final long matchCount;
+        private final boolean truncated;
+    }
+
+    private static final class Doc {
+        private final Long chatRoomId;
+        private final long createdAtMillis;
+        private final int length;
+        private final String[] terms;
+
+        private Doc(Long chatRoomId, long createdAtMillis, int length, String[] terms) {
+            this.chatRoomId = chatRoomId;
+            this.createdAtMillis = createdAtMillis;
+            this.length = length;
+            this.terms = terms;
+        }
+    }
+
+    private static final class UserPartition {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final CompletableFuture<Void> ready = new CompletableFuture<>();
+        // term -> (message id -> term frequency), ordered by id so newest postings are scanned first
+        private final Map<String, TreeMap<Long, Integer>> postings = new HashMap<>();
+        private final TreeMap<Long, Doc> docs = new TreeMap<>();
+        private final int maxDocs;
+        private final AtomicLong indexedMessages;
+        private long totalLength;
+        // Messages changed by events during the build; rows loaded afterwards may be older
+        private Set<Long> changedDuringBuild = new HashSet<>();
+        private boolean discarded;
+
+        private UserPartition(int maxDocs, AtomicLong indexedMessages) {
+            this.maxDocs = maxDocs;
+            this.indexedMessages = indexedMessages;
+        }
+
+        /**
+         * Add a row read by the build, unless an event already changed that message
+         */
+        void load(Long messageId, Long chatRoomId, long createdAtMillis, String text) {
+            put(messageId, chatRoomId, createdAtMillis, text, false);
+        }
+
+        void loaded() {
+            lock.writeLock().lock();
+            try {
+                changedDuringBuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Drop the contents of an evicted partition from the index total
+         */
+        void discard() {
+            lock.writeLock().lock();
+            try {
+                discarded = true;
+                indexedMessages.addAndGet(-docs.size());
+                docs.clear();
+                postings.clear();
+                totalLength = 0;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return docs.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void put(Long messageId, Long chatRoomId, long createdAtMillis, String text) {
+            put(messageId, chatRoomId, createdAtMillis, text, true);
+        }
+
+        private void put(Long messageId, Long chatRoomId, long createdAtMillis, String text, boolean fromEvent) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            int length = 0;
+            for (Token token : tokenize(text)) {
+                frequencies.merge(token.getTerm(), 1, Integer::sum);
+                length++;
+            }
+
+            lock.writeLock().lock();
+            try {
+                if (discarded || (!fromEvent && changedDuringBuild != null && changedDuringBuild.contains(messageId))) {
+                    return;
+                }
+                if (fromEvent && changedDuringBuild != null) {
+                    changedDuringBuild.add(messageId);
+                }
+                removeLocked(messageId);
+                if (frequencies.isEmpty()) {
+                    return;
+                }
+                docs.put(messageId, new Doc(chatRoomId, createdAtMillis, length,
+                        frequencies.keySet().toArray(new String[0])));
+                indexedMessages.incrementAndGet();
+                totalLength += length;
+                frequencies.forEach((term, count) ->
+                        postings.computeIfAbsent(term, key -> new TreeMap<>()).put(messageId, count));
+
+                // Keep the partition bounded by dropping the oldest messages
+                while (docs.size() > maxDocs) {
+                    removeLocked(docs.firstKey());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long messageId) {
+            lock.writeLock().lock();
+            try {
+                if (changedDuringBuild != null) {
+                    changedDuringBuild.add(messageId);
+                }
+                removeLocked(messageId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeLocked(Long messageId) {
+            Doc doc = docs.remove(messageId);
+            if (doc == null) {
+                return;
+            }
+            indexedMessages.decrementAndGet();
+            totalLength -= doc.length;
+            for (String term : doc.terms) {
+                TreeMap<Long, Integer> list = postings.get(term);
+                if (list != null) {
+                    list.remove(messageId);
+                    if (list.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+
+        SearchResult search(List<String> terms, Set<Long> chatRoomIds, int topK, int maxCandidates) {
+            lock.readLock().lock();
+            try {
+                List<TreeMap<Long, Integer>> lists = new ArrayList<>(terms.size());
+                for (String term : terms) {
+                    TreeMap<Long, Integer> list = postings.get(term);
+                    if (list == null) {
+                        return new SearchResult(List.of(), terms, 0, false);
+                    }
+                    lists.add(list);
+                }
+                // Drive the intersection from the rarest term
+                lists.sort(Comparator.comparingInt(TreeMap::size));
+
+                int docCount = docs.size();
+                double averageLength = docCount == 0 ? 1.0 : (double) totalLength / docCount;
+                double[] idf = new double[lists.size()];
+                for (int i = 0; i < lists.size(); i++) {
+                    int df = lists.get(i).size();
+                    idf[i] = Math.log(1.0 + (docCount - df + 0.5) / (df + 0.5));
+                }
+
+                long now = System.currentTimeMillis();
+                PriorityQueue<Hit> top = new PriorityQueue<>(Comparator.comparingDouble(Hit::getScore));
+                long matches = 0;
+                int examined = 0;
+                boolean truncated = false;
+
+                for (Map.Entry<Long, Integer> entry : lists.get(0).descendingMap().entrySet()) {
+                    if (examined++ >= maxCandidates) {
+                        truncated = true;
+                        break;
+                    }
+                    Long messageId = entry.getKey();
+                    Doc doc = docs.get(messageId);
+                    // The index may lag behind membership changes; only rooms the user is still in count
+                    if (!chatRoomIds.contains(doc.chatRoomId)) {
+                        continue;
+                    }
+                    double norm = K1 * (1 - B + B * doc.length / averageLength);
+
+                    double score = 0;
+                    boolean matchesAll = true;
+                    for (int i = 0; i < lists.size(); i++) {
+                        Integer tf = i == 0 ? entry.getValue() : lists.get(i).get(messageId);
+                        if (tf == null) {
+                            matchesAll = false;
+                            break;
+                        }
+                        score += idf[i] * (tf * (K1 + 1)) / (tf + norm);
+                    }
+                    if (!matchesAll) {
+                        continue;
+                    }
+
+                    matches++;
+                    double ageDays = Math.max(0, now - doc.createdAtMillis) / 86_400_000.0;
+                    score *= 1.0 + 0.25 / (1.0 + ageDays / 30.0);
+
+                    top.offer(new Hit(messageId, doc.chatRoomId, score));
+                    if (top.size() > topK) {
+                        top.poll();
+                    }
+                }
+
+                List<Hit> ranked = new ArrayList<>(top);
+                ranked.sort(Comparator.comparingDouble(Hit::getScore).reversed());
+                return new SearchResult(ranked, terms, matches, truncated);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
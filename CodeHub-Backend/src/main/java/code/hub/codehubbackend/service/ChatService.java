@@ -2,21 +2,23 @@ package code.hub.codehubbackend.service;
 
 import code.hub.codehubbackend.dto.chat.*;
 import code.hub.codehubbackend.entity.*;
+import code.hub.codehubbackend.event.ChatMessageEvent;
 import code.hub.codehubbackend.exception.ResourceNotFoundException;
 import code.hub.codehubbackend.exception.UnauthorizedException;
 import code.hub.codehubbackend.repository.*;
+import code.hub.codehubbackend.security.CurrentUserContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.http.ResponseEntity;
 
+import java.security.Principal;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
@@ -35,6 +37,10 @@ public class ChatService {
     private final ChatParticipantRepository chatParticipantRepository;
     private final UserRepository userRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final PresenceService presenceService;
+    private final ChatMessageCursorLoader chatMessageCursorLoader;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CurrentUserContext currentUserContext;
 
     @Transactional
     public ChatRoomResponse createPrivateChat(CreateChatRoomRequest request) {
@@ -68,8 +74,15 @@ public class ChatService {
 
     @Transactional
     public ChatMessageResponse sendMessage(ChatMessageRequest request) {
-        User sender = getCurrentUser();
-        
+        return sendMessage(request, getCurrentUser());
+    }
+
+    @Transactional
+    public ChatMessageResponse sendMessage(ChatMessageRequest request, Principal principal) {
+        return sendMessage(request, currentUserContext.resolve(principal));
+    }
+
+    private ChatMessageResponse sendMessage(ChatMessageRequest request, User sender) {
         ChatRoom chatRoom = chatRoomRepository.findByChatId(request.getChatId())
                 .orElseThrow(() -> new ResourceNotFoundException("Chat room not found"));
 
@@ -116,65 +129,45 @@ public class ChatService {
         // Also send to topic for the chat room
         messagingTemplate.convertAndSend("/topic/chat/" + chatRoom.getChatId(), response);
 
+        publishMessageEvent(ChatMessageEvent.Type.SENT, message, participants);
+
         log.info("Message sent in chat room {} by user {}", chatRoom.getChatId(), sender.getUsername());
 
         return response;
     }
 
     @Transactional
-    public ChatMessageResponse sendMessage(ChatMessageRequest request, String username) {
-        User sender = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UnauthorizedException("User not found: " + username));
-        
-        ChatRoom chatRoom = chatRoomRepository.findByChatId(request.getChatId())
-                .orElseThrow(() -> new ResourceNotFoundException("Chat room not found"));
-
-        // Verify user is participant
-        if (!chatParticipantRepository.existsByChatRoomAndUserAndIsActiveTrue(chatRoom, sender)) {
-            throw new UnauthorizedException("You are not a participant in this chat");
-        }
-
-        // Create message
-        ChatMessage message = ChatMessage.builder()
-                .chatRoom(chatRoom)
-                .sender(sender)
-                .content(request.getContent())
-                .messageType(request.getMessageType())
-                .attachmentUrl(request.getAttachmentUrl())
-                .fileUrl(request.getFileUrl())
-                .fileName(request.getFileName())
-                .fileSize(request.getFileSize())
-                .isRead(false)
-                .isEdited(false)
-                .build();
+    public ChatMessageResponse editMessage(Long messageId, ChatMessageEditRequest request) {
+        User user = getCurrentUser();
+        ChatMessage message = getOwnMessage(messageId, user);
 
+        message.setContent(request.getContent());
+        message.setIsEdited(true);
+        message.setEditedAt(Instant.now());
         message = chatMessageRepository.save(message);
 
-        // Update chat room's updated timestamp
-        chatRoom.setUpdatedAt(Instant.now());
-        chatRoomRepository.save(chatRoom);
-
-        // Convert to response
         ChatMessageResponse response = convertToChatMessageResponse(message);
+        messagingTemplate.convertAndSend("/topic/chat/" + message.getChatRoom().getChatId() + "/edited", response);
 
-        // Send to all participants via WebSocket
-        List<ChatParticipant> participants = chatParticipantRepository.findByChatRoomAndIsActiveTrue(chatRoom);
-        participants.forEach(participant -> {
-            if (!participant.getUser().getId().equals(sender.getId())) {
-                messagingTemplate.convertAndSendToUser(
-                        participant.getUser().getUsername(),
-                        "/queue/messages",
-                        response
-                );
-            }
-        });
+        publishMessageEvent(ChatMessageEvent.Type.EDITED, message,
+                chatParticipantRepository.findByChatRoomAndIsActiveTrue(message.getChatRoom()));
+        return response;
+    }
 
-        // Also send to topic for the chat room
-        messagingTemplate.convertAndSend("/topic/chat/" + chatRoom.getChatId(), response);
+    @Transactional
+    public void deleteMessage(Long messageId) {
+        User user = getCurrentUser();
+        ChatMessage message = getOwnMessage(messageId, user);
+        ChatRoom chatRoom = message.getChatRoom();
 
-        log.info("Message sent in chat room {} by user {}", chatRoom.getChatId(), sender.getUsername());
+        List<ChatParticipant> participants = chatParticipantRepository.findByChatRoomAndIsActiveTrue(chatRoom);
+        chatMessageRepository.delete(message);
 
-        return response;
+        messagingTemplate.convertAndSend("/topic/chat/" + chatRoom.getChatId() + "/deleted",
+                Map.of("messageId", messageId, "chatId", chatRoom.getChatId()));
+
+        publishMessageEvent(ChatMessageEvent.Type.DELETED, message, participants);
+        log.info("Message {} deleted from chat room {} by user {}", messageId, chatRoom.getChatId(), user.getUsername());
     }
 
     public Page<ChatRoomResponse> getUserChatRooms(int page, int size) {
@@ -203,6 +196,18 @@ public class ChatService {
         return messages.map(this::convertToChatMessageResponse);
     }
 
+    @Transactional(readOnly = true)
+    public ChatMessageCursorResponse getChatMessagesByCursor(String chatId, Long before, Long after, int limit) {
+        ChatRoom chatRoom = getParticipatingChatRoom(chatId);
+        return chatMessageCursorLoader.load(chatRoom, before, after, limit, this::convertToChatMessageResponse);
+    }
+
+    @Transactional(readOnly = true)
+    public ChatMessageCursorResponse getChatMessagesAround(String chatId, Long messageId, int limit) {
+        ChatRoom chatRoom = getParticipatingChatRoom(chatId);
+        return chatMessageCursorLoader.loadAround(chatRoom, messageId, limit, this::convertToChatMessageResponse);
+    }
+
     @Transactional
     public void markMessagesAsRead(String chatId) {
         User user = getCurrentUser();
@@ -233,9 +238,8 @@ public class ChatService {
     }
 
     @Transactional
-    public void markMessagesAsRead(String chatId, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UnauthorizedException("User not found: " + username));
+    public void markMessagesAsRead(String chatId, Principal principal) {
+        User user = currentUserContext.resolve(principal);
         
         ChatRoom chatRoom = chatRoomRepository.findByChatId(chatId)
                 .orElseThrow(() -> new ResourceNotFoundException("Chat room not found"));
@@ -340,6 +344,45 @@ public class ChatService {
         chatParticipantRepository.save(participant);
     }
 
+    private ChatMessage getOwnMessage(Long messageId, User user) {
+        ChatMessage message = chatMessageRepository.findById(messageId)
+                .orElseThrow(() -> new ResourceNotFoundException("Message not found"));
+        if (!message.getSender().getId().equals(user.getId())) {
+            throw new UnauthorizedException("You can only modify your own messages");
+        }
+        return message;
+    }
+
+    private void publishMessageEvent(ChatMessageEvent.Type type, ChatMessage message, List<ChatParticipant> participants) {
+        eventPublisher.publishEvent(new ChatMessageEvent(
+                type,
+                message.getId(),
+                message.getChatRoom().getId(),
+                message.getContent(),
+                message.getFileName(),
+                message.getCreatedAt(),
+                participants.stream().map(p -> p.getUser().getId()).collect(Collectors.toList())));
+    }
+
+    /**
+     * Fails unless the current user is an active participant of the chat
+     */
+    public void checkParticipant(String chatId) {
+        getParticipatingChatRoom(chatId);
+    }
+
+    private ChatRoom getParticipatingChatRoom(String chatId) {
+        User user = getCurrentUser();
+
+        ChatRoom chatRoom = chatRoomRepository.findByChatId(chatId)
+                .orElseThrow(() -> new ResourceNotFoundException("Chat room not found"));
+
+        if (!chatParticipantRepository.existsByChatRoomAndUserAndIsActiveTrue(chatRoom, user)) {
+            throw new UnauthorizedException("You are not a participant in this chat");
+        }
+        return chatRoom;
+    }
+
     private String generatePrivateChatName(User user1, User user2) {
         return user1.getUsername() + " & " + user2.getUsername();
     }
@@ -413,17 +456,13 @@ public class ChatService {
                 .fullName(participant.getUser().getFullName())
                 .role(participant.getRole())
                 .isActive(participant.getIsActive())
-                .isOnline(false) // TODO: Implement online status
+                .isOnline(presenceService.isOnline(participant.getUser().getId()))
                 .lastReadAt(participant.getLastReadAt())
                 .joinedAt(participant.getJoinedAt())
                 .build();
     }
 
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !(authentication.getPrincipal() instanceof User)) {
-            throw new UnauthorizedException("User not authenticated");
-        }
-        return (User) authentication.getPrincipal();
+        return currentUserContext.require();
     }
 }
@@ -1,25 +1,29 @@
 package code.hub.codehubbackend.service;
 
-import com.cloudinary.Cloudinary;
-import com.cloudinary.utils.ObjectUtils;
+import code.hub.codehubbackend.storage.StorageRequest;
+import code.hub.codehubbackend.storage.ImagePipeline;
+import code.hub.codehubbackend.storage.ImageProfile;
+import code.hub.codehubbackend.storage.MediaStore;
+import code.hub.codehubbackend.storage.StorageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.UUID;
 
 /**
- * Service for handling image uploads to Cloudinary
+ * Service for handling image uploads. Files go through the {@link MediaStore}, so identical uploads
+ * share one stored object, and on to the configured {@link StorageService}. Avatars and covers are
+ * transformed by Cloudinary, or by the {@link ImagePipeline} when storage is local.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CloudinaryService {
 
-    private final Cloudinary cloudinary;
+    private final MediaStore mediaStore;
+    private final ImagePipeline imagePipeline;
 
     /**
      * Upload avatar image
@@ -30,23 +34,18 @@ public class CloudinaryService {
         }
 
         validateImageFile(file);
-        String publicId = "avatars/" + userId + "_" + UUID.randomUUID().toString();
-
-        @SuppressWarnings("unchecked")
-        Map<String, Object> uploadParams = ObjectUtils.asMap(
-                "public_id", publicId,
-                "folder", "codehub/avatars",
-                "width", 300,
-                "height", 300,
-                "crop", "fill",
-                "gravity", "face",
-                "quality", "auto",
-                "format", "webp",
-                "overwrite", true,
-                "resource_type", "image");
-
-        Map<?, ?> uploadResult = cloudinary.uploader().upload(file.getBytes(), uploadParams);
-        String imageUrl = (String) uploadResult.get("secure_url");
+        String imageUrl;
+        if (imagePipeline.isEnabled()) {
+            imageUrl = imagePipeline.store(file, ImageProfile.AVATAR, userId);
+        } else {
+            StorageRequest request = imageRequest(file, "codehub/avatars")
+                    .option("width", 300)
+                    .option("height", 300)
+                    .option("crop", "fill")
+                    .option("gravity", "face")
+                    .build();
+            imageUrl = mediaStore.store(file, request, userId);
+        }
 
         log.info("Avatar uploaded successfully for user {}: {}", userId, imageUrl);
         return imageUrl;
@@ -61,22 +60,17 @@ public class CloudinaryService {
         }
 
         validateImageFile(file);
-        String publicId = "covers/" + userId + "_" + UUID.randomUUID().toString();
-
-        @SuppressWarnings("unchecked")
-        Map<String, Object> uploadParams = ObjectUtils.asMap(
-                "public_id", publicId,
-                "folder", "codehub/covers",
-                "width", 1200,
-                "height", 400,
-                "crop", "fill",
-                "quality", "auto",
-                "format", "webp",
-                "overwrite", true,
-                "resource_type", "image");
-
-        Map<?, ?> uploadResult = cloudinary.uploader().upload(file.getBytes(), uploadParams);
-        String imageUrl = (String) uploadResult.get("secure_url");
+        String imageUrl;
+        if (imagePipeline.isEnabled()) {
+            imageUrl = imagePipeline.store(file, ImageProfile.COVER, userId);
+        } else {
+            StorageRequest request = imageRequest(file, "codehub/covers")
+                    .option("width", 1200)
+                    .option("height", 400)
+                    .option("crop", "fill")
+                    .build();
+            imageUrl = mediaStore.store(file, request, userId);
+        }
 
         log.info("Cover photo uploaded successfully for user {}: {}", userId, imageUrl);
         return imageUrl;
@@ -85,44 +79,28 @@ public class CloudinaryService {
     /**
      * Upload general image (for snippets, posts, etc.)
      */
-    public String uploadImage(MultipartFile file, String folder) throws IOException {
+    public String uploadImage(MultipartFile file, String folder, String username) throws IOException {
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("File cannot be null or empty");
         }
 
         validateImageFile(file);
-        String publicId = folder + "/" + UUID.randomUUID().toString();
-
-        @SuppressWarnings("unchecked")
-        Map<String, Object> uploadParams = ObjectUtils.asMap(
-                "public_id", publicId,
-                "folder", "codehub/" + folder,
-                "quality", "auto",
-                "format", "webp",
-                "overwrite", true,
-                "resource_type", "image");
-
-        Map<?, ?> uploadResult = cloudinary.uploader().upload(file.getBytes(), uploadParams);
-        String imageUrl = (String) uploadResult.get("secure_url");
+        String imageUrl = mediaStore.store(file, imageRequest(file, "codehub/" + folder).build(), username);
 
         log.info("Image uploaded successfully to folder {}: {}", folder, imageUrl);
         return imageUrl;
     }
 
     /**
-     * Delete image from Cloudinary
+     * Delete one of the user's uploads of an image; false when the user has none
      */
-    public boolean deleteImage(String imageUrl) {
+    public boolean deleteImage(String imageUrl, String username) {
         try {
-            // Extract public_id from URL
-            String publicId = extractPublicIdFromUrl(imageUrl);
-            if (publicId != null) {
-                Map<?, ?> result = cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
-                String resultStatus = (String) result.get("result");
-                log.info("Image deletion result for {}: {}", publicId, resultStatus);
-                return "ok".equals(resultStatus);
+            // Shared objects are only removed with their last reference
+            if (imagePipeline.isVariantUrl(imageUrl)) {
+                return imagePipeline.release(imageUrl, username);
             }
-            return false;
+            return mediaStore.release(imageUrl, username);
         } catch (Exception e) {
             log.error("Error deleting image: {}", imageUrl, e);
             return false;
@@ -130,9 +108,9 @@ public class CloudinaryService {
     }
 
     /**
-     * Validate uploaded file
+     * Validate uploaded file; public so upload jobs can refuse bad files before they are queued
      */
-    private void validateImageFile(MultipartFile file) {
+    public void validateImageFile(MultipartFile file) {
         // Check file size (max 10MB)
         if (file.getSize() > 10 * 1024 * 1024) {
             throw new IllegalArgumentException("File size must be less than 10MB");
@@ -162,7 +140,7 @@ public class CloudinaryService {
     /**
      * Upload general file (documents, archives, etc.)
      */
-    public String uploadFile(MultipartFile file, String folder) throws IOException {
+    public String uploadFile(MultipartFile file, String folder, String username) throws IOException {
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("File cannot be null or empty");
         }
@@ -173,52 +151,29 @@ public class CloudinaryService {
             throw new IllegalArgumentException("File size exceeds 10MB limit");
         }
 
-        // Generate unique public ID
-        String publicId = folder + "/" + UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-
-        @SuppressWarnings("unchecked")
-        Map<String, Object> uploadParams = ObjectUtils.asMap(
-                "public_id", publicId,
-                "folder", "codehub/" + folder,
-                "resource_type", "auto", // Auto-detect resource type
-                "overwrite", false);
-
-        Map<?, ?> uploadResult = cloudinary.uploader().upload(file.getBytes(), uploadParams);
-        String fileUrl = (String) uploadResult.get("secure_url");
+        StorageRequest request = StorageRequest.builder()
+                .folder("codehub/" + folder)
+                .filename(file.getOriginalFilename())
+                .contentType(file.getContentType())
+                .size(file.getSize())
+                .resourceType(StorageRequest.ResourceType.AUTO) // Auto-detect resource type
+                .option("overwrite", false)
+                .build();
+        String fileUrl = mediaStore.store(file, request, username);
 
         log.info("File uploaded successfully: {} -> {}", file.getOriginalFilename(), fileUrl);
         return fileUrl;
     }
 
-    /**
-     * Extract public ID from Cloudinary URL
-     */
-    private String extractPublicIdFromUrl(String imageUrl) {
-        try {
-            if (imageUrl == null || !imageUrl.contains("cloudinary.com")) {
-                return null;
-            }
-
-            // Example URL:
-            // https://res.cloudinary.com/dqmlxcbxt/image/upload/v1234567890/codehub/avatars/user123_uuid.webp
-            int lastSlash = imageUrl.lastIndexOf('/');
-            int secondLastSlash = imageUrl.lastIndexOf('/', lastSlash - 1);
-            int thirdLastSlash = imageUrl.lastIndexOf('/', secondLastSlash - 1);
-
-            if (thirdLastSlash > 0) {
-                String publicId = imageUrl.substring(thirdLastSlash + 1);
-                // Remove file extension
-                int dotIndex = publicId.lastIndexOf('.');
-                if (dotIndex > 0) {
-                    publicId = publicId.substring(0, dotIndex);
-                }
-                return publicId;
-            }
-
-            return null;
-        } catch (Exception e) {
-            log.error("Error extracting public ID from URL: {}", imageUrl, e);
-            return null;
-        }
+    private StorageRequest.StorageRequestBuilder imageRequest(MultipartFile file, String folder) {
+        return StorageRequest.builder()
+                .folder(folder)
+                .filename(file.getOriginalFilename())
+                .contentType(file.getContentType())
+                .size(file.getSize())
+                .resourceType(StorageRequest.ResourceType.IMAGE)
+                .option("quality", "auto")
+                .option("format", "webp")
+                .option("overwrite", true);
     }
 }
@@ -5,10 +5,9 @@ import code.hub.codehubbackend.entity.CommentLike;
 import code.hub.codehubbackend.entity.User;
 import code.hub.codehubbackend.repository.CommentLikeRepository;
 import code.hub.codehubbackend.repository.CommentRepository;
+import code.hub.codehubbackend.security.CurrentUserContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +22,7 @@ public class CommentLikeService {
     private final CommentRepository commentRepository;
     private final ActivityService activityService;
     private final NotificationService notificationService;
+    private final CurrentUserContext currentUserContext;
     
     @Transactional
     public boolean toggleCommentLike(Long commentId) {
@@ -123,10 +123,6 @@ public class CommentLikeService {
     }
     
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return null;
-        }
-        return (User) authentication.getPrincipal();
+        return currentUserContext.find().orElse(null);
     }
 }
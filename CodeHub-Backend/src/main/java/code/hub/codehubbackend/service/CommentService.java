@@ -3,6 +3,7 @@ package code.hub.codehubbackend.service;
 import code.hub.codehubbackend.dto.comment.CommentCreateRequest;
 import code.hub.codehubbackend.dto.comment.CommentResponse;
 import code.hub.codehubbackend.entity.Comment;
+import code.hub.codehubbackend.entity.OutboxEvent;
 import code.hub.codehubbackend.entity.Snippet;
 import code.hub.codehubbackend.entity.User;
 import code.hub.codehubbackend.exception.ResourceNotFoundException;
@@ -10,12 +11,11 @@ import code.hub.codehubbackend.exception.UnauthorizedException;
 import code.hub.codehubbackend.repository.CommentRepository;
 import code.hub.codehubbackend.repository.CommentLikeRepository;
 import code.hub.codehubbackend.repository.SnippetRepository;
+import code.hub.codehubbackend.security.CurrentUserContext;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,8 +29,8 @@ public class CommentService {
     private final CommentRepository commentRepository;
     private final SnippetRepository snippetRepository;
     private final CommentLikeRepository commentLikeRepository;
-    private final ActivityService activityService;
-    private final NotificationService notificationService;
+    private final SideEffectOutbox sideEffectOutbox;
+    private final CurrentUserContext currentUserContext;
     
     public Page<CommentResponse> getSnippetComments(Long snippetId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
@@ -63,19 +63,8 @@ public class CommentService {
         
         Comment comment = commentRepository.save(commentBuilder.build());
         
-        // Create comment activity
-        activityService.createCommentActivity(snippet, request.getContent());
-        
-        // Create notification for snippet owner
-        if (!snippet.getOwner().getId().equals(currentUser.getId())) {
-            notificationService.createSnippetCommentNotification(snippet, comment, currentUser);
-        }
-        
-        // Create notification for parent comment author if this is a reply
-        if (comment.getParentComment() != null && 
-            !comment.getParentComment().getAuthor().getId().equals(currentUser.getId())) {
-            notificationService.createCommentReplyNotification(comment.getParentComment(), comment, currentUser);
-        }
+        // Comment activity and owner/reply notifications are written asynchronously
+        sideEffectOutbox.record(OutboxEvent.SideEffectType.COMMENT_ADDED, currentUser.getId(), comment.getId());
         
         return convertToResponse(comment);
     }
@@ -164,10 +153,6 @@ public class CommentService {
     }
     
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return null;
-        }
-        return (User) authentication.getPrincipal();
+        return currentUserContext.find().orElse(null);
     }
 }
@@ -3,18 +3,18 @@ package code.hub.codehubbackend.service;
 import code.hub.codehubbackend.dto.favorite.*;
 import code.hub.codehubbackend.dto.snippet.SnippetResponse;
 import code.hub.codehubbackend.entity.Favorite;
+import code.hub.codehubbackend.entity.OutboxEvent;
 import code.hub.codehubbackend.entity.Snippet;
 import code.hub.codehubbackend.entity.User;
 import code.hub.codehubbackend.mapper.SnippetMapper;
 import code.hub.codehubbackend.repository.FavoriteRepository;
 import code.hub.codehubbackend.repository.SnippetRepository;
 import code.hub.codehubbackend.repository.UserRepository;
+import code.hub.codehubbackend.security.CurrentUserContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -41,7 +41,10 @@ public class FavoriteService {
     private SnippetMapper snippetMapper;
     
     @Autowired
-    private NotificationService notificationService;
+    private SideEffectOutbox sideEffectOutbox;
+    
+    @Autowired
+    private CurrentUserContext currentUserContext;
     
     @Transactional
     public boolean toggleFavorite(Long snippetId, String notes) {
@@ -59,8 +62,8 @@ public class FavoriteService {
             // Remove from favorites
             favoriteRepository.deleteByUserIdAndSnippetId(currentUser.getId(), snippetId);
             
-            // Create unfavorite activity
-            activityService.createFavoriteActivity(snippet, false);
+            // Unfavorite activity is written asynchronously
+            sideEffectOutbox.record(OutboxEvent.SideEffectType.SNIPPET_UNFAVORITED, currentUser.getId(), snippetId);
             
             return false;
         } else {
@@ -73,11 +76,9 @@ public class FavoriteService {
                     .build();
             
             favoriteRepository.save(favorite);
-              // Create favorite activity
-            activityService.createFavoriteActivity(snippet, true);
             
-            // Create notification for snippet owner
-            notificationService.createSnippetStarNotification(snippet, currentUser);
+            // Favorite activity and owner notification are written asynchronously
+            sideEffectOutbox.record(OutboxEvent.SideEffectType.SNIPPET_FAVORITED, currentUser.getId(), snippetId);
             
             return true;
         }
@@ -250,9 +251,6 @@ public class FavoriteService {
         }
         return "normal";
     }    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return currentUserContext.require();
     }
 }
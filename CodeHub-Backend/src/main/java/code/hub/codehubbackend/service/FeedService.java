@@ -0,0 +1,324 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.dto.activity.ActivityResponse;
+import code.hub.codehubbackend.dto.activity.FeedResponse;
+import code.hub.codehubbackend.entity.Activity;
+import code.hub.codehubbackend.entity.User;
+import code.hub.codehubbackend.event.ActivityCreatedEvent;
+import code.hub.codehubbackend.event.FollowChangedEvent;
+import code.hub.codehubbackend.repository.ActivityRepository;
+import code.hub.codehubbackend.repository.UserFollowRepository;
+import code.hub.codehubbackend.security.CurrentUserContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Home feed of activities from followed users. Each user has a bounded in-memory timeline of
+ * activity ids that is built lazily from the database and then fanned out to on write. Authors
+ * with more followers than the threshold are not fanned out; their recent activities are merged
+ * in at read time instead. Pages are keyset-paginated on the activity id.
+ *
+ * <p>Timelines and fan-out are per node. With the clustered broker
+ * ({@code app.websocket.broker.mode=cluster}) a node only fans out the activities it wrote, so its
+ * timelines expire after {@code app.feed.cluster-timeline-ttl-ms} and are rebuilt from the
+ * database; activities and follows from other nodes show up within that delay.
+ */
+@Service
+@Slf4j
+public class FeedService {
+
+    public static final Set<Activity.ActivityType> FEED_TYPES = EnumSet.of(
+            Activity.ActivityType.SNIPPET_CREATED,
+            Activity.ActivityType.SNIPPET_UPDATED,
+            Activity.ActivityType.SNIPPET_LIKED,
+            Activity.ActivityType.SNIPPET_FAVORITED,
+            Activity.ActivityType.COMMENT_ADDED,
+            Activity.ActivityType.USER_FOLLOWED);
+
+    private static final int MAX_PAGE_SIZE = 50;
+
+    private final ActivityRepository activityRepository;
+    private final UserFollowRepository userFollowRepository;
+    private final ActivityService activityService;
+    private final CurrentUserContext currentUserContext;
+    private final ThreadPoolTaskExecutor fanoutExecutor;
+    // Access-ordered, so iteration starts at the least recently read timeline
+    private final LinkedHashMap<Long, FeedTimeline> timelines = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxTimelines;
+    private final int timelineSize;
+    // Negative when timelines never expire
+    private final long timelineTtlMillis;
+    private final long celebrityThreshold;
+    private final Counter fanoutCounter;
+
+    private volatile Set<Long> celebrities;
+
+    public FeedService(ActivityRepository activityRepository,
+                       UserFollowRepository userFollowRepository,
+                       ActivityService activityService,
+                       CurrentUserContext currentUserContext,
+                       @Qualifier("sideEffectExecutor") ThreadPoolTaskExecutor fanoutExecutor,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.feed.max-timelines:10000}") int maxTimelines,
+                       @Value("${app.feed.timeline-size:500}") int timelineSize,
+                       @Value("${app.feed.celebrity-threshold:1000}") long celebrityThreshold,
+                       @Value("${app.websocket.broker.mode:simple}") String brokerMode,
+                       @Value("${app.feed.cluster-timeline-ttl-ms:30000}") long clusterTimelineTtlMillis) {
+        this.activityRepository = activityRepository;
+        this.userFollowRepository = userFollowRepository;
+        this.activityService = activityService;
+        this.currentUserContext = currentUserContext;
+        this.fanoutExecutor = fanoutExecutor;
+        this.maxTimelines = maxTimelines;
+        this.timelineSize = timelineSize;
+        this.timelineTtlMillis = "cluster".equals(brokerMode) ? clusterTimelineTtlMillis : -1;
+        this.celebrityThreshold = celebrityThreshold;
+        this.fanoutCounter = meterRegistry.counter("codehub.feed.fanout");
+        meterRegistry.gauge("codehub.feed.timelines", timelines, map -> {
+            synchronized (map) {
+                return map.size();
+            }
+        });
+    }
+
+    /**
+     * Feed page for the authenticated user
+     */
+    public FeedResponse getCurrentUserFeed(Long before, int limit) {
+        return getFeed(getCurrentUser().getId(), before, limit);
+    }
+
+    /**
+     * One page of the user's feed strictly older than {@code before} (newest first when null)
+     */
+    public FeedResponse getFeed(Long userId, Long before, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long cursor = before != null ? before : Long.MAX_VALUE;
+        FeedTimeline timeline = timeline(userId);
+
+        // Fanned-out part, falling back to the database past the in-memory window
+        List<Long> candidates = new ArrayList<>(timeline.idsBefore(cursor, pageSize + 1));
+        if (candidates.size() <= pageSize && timeline.isTruncated()) {
+            Long oldest = timeline.oldestId();
+            long from = candidates.isEmpty()
+                    ? (oldest != null ? Math.min(cursor, oldest) : cursor)
+                    : candidates.get(candidates.size() - 1);
+            List<Long> authors = regularAuthors(timeline.getFollowedUserIds());
+            if (!authors.isEmpty()) {
+                candidates.addAll(activityRepository.findFeedActivityIds(
+                        authors, FEED_TYPES, from, PageRequest.of(0, pageSize + 1 - candidates.size())));
+            }
+        }
+
+        // High-follower authors are merged on read
+        List<Long> followedCelebrities = followedCelebrities(timeline.getFollowedUserIds());
+        if (!followedCelebrities.isEmpty()) {
+            candidates.addAll(activityRepository.findFeedActivityIds(
+                    followedCelebrities, FEED_TYPES, cursor, PageRequest.of(0, pageSize + 1)));
+        }
+
+        List<Long> pageIds = new TreeSet<>(candidates).descendingSet().stream()
+                .limit(pageSize + 1L)
+                .collect(Collectors.toList());
+        boolean hasMore = pageIds.size() > pageSize;
+        if (hasMore) {
+            pageIds = pageIds.subList(0, pageSize);
+        }
+
+        return FeedResponse.builder()
+                .items(hydrate(pageIds))
+                .nextCursor(pageIds.isEmpty() ? null : pageIds.get(pageIds.size() - 1))
+                .hasMore(hasMore)
+                .build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onActivityCreated(ActivityCreatedEvent event) {
+        if (!FEED_TYPES.contains(event.getType()) || celebrities().contains(event.getUserId())) {
+            return;
+        }
+        try {
+            fanoutExecutor.execute(() -> fanOut(event));
+        } catch (TaskRejectedException e) {
+            // A skipped fan-out would leave cached timelines stale, so do it inline instead
+            fanOut(event);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFollowChanged(FollowChangedEvent event) {
+        // Rebuilt lazily on the next read with the new set of authors
+        synchronized (timelines) {
+            timelines.remove(event.getFollowerId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.feed.celebrity-refresh-ms:600000}")
+    public void refreshCelebrities() {
+        Set<Long> refreshed = new HashSet<>(userFollowRepository.findUserIdsWithMoreFollowersThan(celebrityThreshold));
+        Set<Long> previous = celebrities;
+        celebrities = refreshed;
+        if (previous != null && !previous.equals(refreshed)) {
+            // Authors moved between fan-out and merge-on-read; rebuild timelines consistently
+            synchronized (timelines) {
+                timelines.clear();
+            }
+            log.info("Feed celebrity set changed ({} authors), timelines reset", refreshed.size());
+        }
+    }
+
+    private void fanOut(ActivityCreatedEvent event) {
+        try {
+            int delivered = 0;
+            for (Long followerId : userFollowRepository.findFollowerIdsByUserId(event.getUserId())) {
+                // Uncached timelines will pick the activity up when they are built; timelines still
+                // being built are cached already, so the activity is kept if their read missed it
+                FeedTimeline timeline;
+                synchronized (timelines) {
+                    timeline = timelines.get(followerId);
+                }
+                if (timeline != null) {
+                    timeline.add(event.getActivityId());
+                    delivered++;
+                }
+            }
+            fanoutCounter.increment(delivered);
+        } catch (Exception e) {
+            log.warn("Feed fan-out of activity {} failed: {}", event.getActivityId(), e.getMessage());
+        }
+    }
+
+    /**
+     * The user's timeline, built on first read or once expired. Concurrent reads for a user share
+     * one build; fan-out reaches the timeline while it is being built.
+     */
+    private FeedTimeline timeline(Long userId) {
+        FeedTimeline timeline;
+        boolean created = false;
+        synchronized (timelines) {
+            timeline = timelines.get(userId);
+            if (timeline != null && isExpired(timeline)) {
+                timelines.remove(userId);
+                timeline = null;
+            }
+            if (timeline == null) {
+                timeline = new FeedTimeline(timelineSize);
+                timelines.put(userId, timeline);
+                created = true;
+            }
+        }
+
+        if (created) {
+            try {
+                buildTimeline(userId, timeline);
+                timeline.ready.complete(null);
+            } catch (RuntimeException e) {
+                synchronized (timelines) {
+                    timelines.remove(userId, timeline);
+                }
+                timeline.ready.completeExceptionally(e);
+                throw e;
+            }
+            enforceLimit(timeline);
+        }
+
+        try {
+            timeline.ready.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        return timeline;
+    }
+
+    private void buildTimeline(Long userId, FeedTimeline timeline) {
+        List<Long> followed = userFollowRepository.findFollowedUserIdsByUserId(userId);
+        List<Long> authors = regularAuthors(followed.stream().mapToLong(Long::longValue).toArray());
+        List<Long> ids = authors.isEmpty()
+                ? List.of()
+                : activityRepository.findFeedActivityIds(authors, FEED_TYPES, Long.MAX_VALUE,
+                        PageRequest.of(0, timelineSize));
+        timeline.load(ids, ids.size() >= timelineSize, followed);
+    }
+
+    private boolean isExpired(FeedTimeline timeline) {
+        return timelineTtlMillis >= 0 && timeline.ready.isDone()
+                && System.currentTimeMillis() - timeline.getLoadedAt() >= timelineTtlMillis;
+    }
+
+    // Drop least recently read timelines, except the one in use, until the cache fits
+    private void enforceLimit(FeedTimeline inUse) {
+        synchronized (timelines) {
+            Iterator<FeedTimeline> eldest = timelines.values().iterator();
+            int count = timelines.size();
+            while (count > maxTimelines && eldest.hasNext()) {
+                FeedTimeline timeline = eldest.next();
+                // Reads may be waiting on a timeline that is still being built
+                if (timeline == inUse || !timeline.ready.isDone()) {
+                    continue;
+                }
+                eldest.remove();
+                count--;
+            }
+        }
+    }
+
+    private List<Long> regularAuthors(long[] followedUserIds) {
+        Set<Long> excluded = celebrities();
+        return Arrays.stream(followedUserIds).boxed().filter(id -> !excluded.contains(id)).toList();
+    }
+
+    private List<Long> followedCelebrities(long[] followedUserIds) {
+        Set<Long> included = celebrities();
+        if (included.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.stream(followedUserIds).boxed().filter(included::contains).toList();
+    }
+
+    private Set<Long> celebrities() {
+        Set<Long> current = celebrities;
+        if (current == null) {
+            refreshCelebrities();
+            current = celebrities;
+        }
+        return current;
+    }
+
+    private User getCurrentUser() {
+        return currentUserContext.require();
+    }
+
+    private List<ActivityResponse> hydrate(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // Ids of deleted activities simply drop out of the page
+        Map<Long, Activity> byId = activityRepository.findAllWithUserByIdIn(ids).stream()
+                .collect(Collectors.toMap(Activity::getId, Function.identity()));
+        List<Activity> ordered = ids.stream().map(byId::get).filter(activity -> activity != null).toList();
+        return activityService.convertToResponses(ordered);
+    }
+}
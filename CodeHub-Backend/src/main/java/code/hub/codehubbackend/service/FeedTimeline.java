@@ -0,0 +1,118 @@
+package code.hub.codehubbackend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Bounded, newest-first list of activity ids for one user's home feed, kept as a primitive array.
+ * Also remembers who the user followed when it was built, so reads need no follow query.
+ * A timeline is cached before it is loaded, so activities fanned out while the database is read
+ * are kept; readers wait on {@link #ready}.
+ */
+class FeedTimeline {
+
+    final CompletableFuture<Void> ready = new CompletableFuture<>();
+
+    private final int capacity;
+    private volatile long[] followedUserIds = new long[0];
+    private volatile long loadedAt;
+    private long[] ids;
+    private int size;
+    // True when older activities exist beyond the oldest id held here
+    private boolean truncated;
+
+    FeedTimeline(int capacity) {
+        this.capacity = capacity;
+        this.ids = new long[Math.min(16, capacity)];
+    }
+
+    /**
+     * Merge the ids read from the database with any fanned out since the timeline was cached
+     */
+    synchronized void load(List<Long> idsNewestFirst, boolean truncated, List<Long> followedUserIds) {
+        long[] merged = new long[Math.max(16, Math.min(capacity, idsNewestFirst.size() + size + 16))];
+        int count = 0;
+        int fannedOut = 0;
+        int loaded = 0;
+        while ((fannedOut < size || loaded < idsNewestFirst.size()) && count < capacity) {
+            long next;
+            if (loaded == idsNewestFirst.size()
+                    || (fannedOut < size && ids[fannedOut] >= idsNewestFirst.get(loaded))) {
+                next = ids[fannedOut++];
+            } else {
+                next = idsNewestFirst.get(loaded++);
+            }
+            if (count == 0 || merged[count - 1] != next) {
+                merged[count++] = next;
+            }
+        }
+        this.truncated = truncated || fannedOut < size || loaded < idsNewestFirst.size();
+        this.ids = merged;
+        this.size = count;
+        this.followedUserIds = followedUserIds.stream().mapToLong(Long::longValue).sorted().toArray();
+        this.loadedAt = System.currentTimeMillis();
+    }
+
+    long[] getFollowedUserIds() {
+        return followedUserIds;
+    }
+
+    /**
+     * Epoch millis of the database load; 0 while the timeline is still being built
+     */
+    long getLoadedAt() {
+        return loadedAt;
+    }
+
+    synchronized boolean isTruncated() {
+        return truncated;
+    }
+
+    synchronized Long oldestId() {
+        return size == 0 ? null : ids[size - 1];
+    }
+
+    /**
+     * Insert an id in order; ids normally arrive newest, so this is usually a prepend
+     */
+    synchronized void add(long id) {
+        int position = 0;
+        while (position < size && ids[position] > id) {
+            position++;
+        }
+        if (position < size && ids[position] == id) {
+            return;
+        }
+        if (position >= capacity) {
+            return; // Older than everything we keep
+        }
+        if (size == ids.length && ids.length < capacity) {
+            ids = Arrays.copyOf(ids, Math.min(capacity, ids.length * 2));
+        }
+        int moved = Math.min(size, capacity - 1) - position;
+        if (moved > 0) {
+            System.arraycopy(ids, position, ids, position + 1, moved);
+        }
+        ids[position] = id;
+        if (size < capacity) {
+            size++;
+        } else {
+            truncated = true;
+        }
+    }
+
+    /**
+     * Up to {@code limit} ids strictly below {@code beforeId}, newest first
+     */
+    synchronized List<Long> idsBefore(long beforeId, int limit) {
+        List<Long> result = new ArrayList<>(Math.min(limit, size));
+        for (int i = 0; i < size && result.size() < limit; i++) {
+            if (ids[i] < beforeId) {
+                result.add(ids[i]);
+            }
+        }
+        return result;
+    }
+}
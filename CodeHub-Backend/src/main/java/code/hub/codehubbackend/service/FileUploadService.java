@@ -1,66 +1,101 @@
 package code.hub.codehubbackend.service;
 
-import com.cloudinary.Cloudinary;
-import com.cloudinary.utils.ObjectUtils;
-import org.springframework.beans.factory.annotation.Value;
+import code.hub.codehubbackend.storage.MediaStore;
+import code.hub.codehubbackend.storage.StorageRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
+@Slf4j
 public class FileUploadService {
-    
-    private final Cloudinary cloudinary;
-    
-    public FileUploadService(@Value("${cloudinary.cloud-name}") String cloudName,
-                           @Value("${cloudinary.api-key}") String apiKey,
-                           @Value("${cloudinary.api-secret}") String apiSecret) {
-        this.cloudinary = new Cloudinary(ObjectUtils.asMap(
-                "cloud_name", cloudName,
-                "api_key", apiKey,
-                "api_secret", apiSecret));
+
+    private final MediaStore mediaStore;
+    private final ThreadPoolTaskExecutor uploadExecutor;
+
+    public FileUploadService(MediaStore mediaStore,
+                             @Qualifier("storageUploadExecutor") ThreadPoolTaskExecutor uploadExecutor) {
+        this.mediaStore = mediaStore;
+        this.uploadExecutor = uploadExecutor;
     }
-    
-    public List<String> uploadFiles(List<MultipartFile> files) {
-        List<String> uploadedUrls = new ArrayList<>();
-        
+
+    /**
+     * Upload the user's files concurrently on the upload pool; the URLs keep the order of the files.
+     * When one upload fails, the files already stored are released before the failure is thrown.
+     */
+    public List<String> uploadFiles(List<MultipartFile> files, String username) {
+        if (files.size() == 1) {
+            return new ArrayList<>(List.of(uploadOrThrow(files.get(0), username)));
+        }
+
+        // Set on the first failure so uploads that have not started yet are skipped
+        AtomicBoolean aborted = new AtomicBoolean();
+        List<CompletableFuture<String>> uploads = new ArrayList<>();
         for (MultipartFile file : files) {
-            try {
-                String url = uploadFile(file);
-                uploadedUrls.add(url);
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to upload file: " + file.getOriginalFilename(), e);
+            uploads.add(CompletableFuture.supplyAsync(
+                    () -> aborted.get() ? null : uploadOrThrow(file, username), uploadExecutor));
+        }
+
+        List<String> uploadedUrls = new ArrayList<>();
+        try {
+            for (CompletableFuture<String> upload : uploads) {
+                uploadedUrls.add(upload.join());
             }
+        } catch (CompletionException e) {
+            aborted.set(true);
+            releaseCompleted(uploads, username);
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
         }
-        
+
         return uploadedUrls;
     }
-    
-    public String uploadFile(MultipartFile file) throws IOException {
-        // Generate unique filename
-        String filename = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-        
-        // Upload to Cloudinary
-        Map<String, Object> uploadResult = cloudinary.uploader().upload(
-                file.getBytes(),
-                ObjectUtils.asMap(
-                        "public_id", filename,
-                        "folder", "codehub",
-                        "resource_type", "auto"));
-        
-        return (String) uploadResult.get("secure_url");
+
+    // Wait for uploads already running and drop the references of every one that was stored
+    private void releaseCompleted(List<CompletableFuture<String>> uploads, String username) {
+        for (CompletableFuture<String> upload : uploads) {
+            String url;
+            try {
+                url = upload.join();
+            } catch (CompletionException e) {
+                continue;
+            }
+            if (url == null) {
+                continue;
+            }
+            try {
+                mediaStore.release(url, username);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to release {} after a failed multi-file upload: {}", url, e.getMessage());
+            }
+        }
     }
-    
-    public void deleteFile(String publicId) {
+
+    public String uploadFile(MultipartFile file, String username) throws IOException {
+        StorageRequest request = StorageRequest.builder()
+                .folder("codehub")
+                .filename(file.getOriginalFilename())
+                .contentType(file.getContentType())
+                .size(file.getSize())
+                .build();
+
+        // Identical content is stored once; the media store names it after its hash
+        return mediaStore.store(file, request, username);
+    }
+
+    private String uploadOrThrow(MultipartFile file, String username) {
         try {
-            cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
+            return uploadFile(file, username);
         } catch (IOException e) {
-            throw new RuntimeException("Failed to delete file: " + publicId, e);
+            throw new RuntimeException("Failed to upload file: " + file.getOriginalFilename(), e);
         }
     }
 }
@@ -0,0 +1,270 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.event.FollowChangedEvent;
+import code.hub.codehubbackend.repository.UserFollowRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of the follow graph. Each user keeps sorted primitive arrays of the users they
+ * follow and are followed by, so follow checks, counts and mutual lookups need no queries.
+ * Writes go to the database first and are applied here after commit; a periodic reload repairs
+ * any drift, such as follows made on another instance.
+ */
+@Component
+@Slf4j
+public class FollowGraph {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final UserFollowRepository userFollowRepository;
+    private final MeterRegistry meterRegistry;
+    private final Timer reloadTimer;
+
+    private volatile Map<Long, Adjacency> graph = new ConcurrentHashMap<>();
+    private List<FollowChangedEvent> replay; // Changes seen while a reload is reading, guarded by this
+
+    @Value("${app.follow-graph.load-chunk-size:10000}")
+    private int loadChunkSize;
+
+    public FollowGraph(UserFollowRepository userFollowRepository, MeterRegistry meterRegistry) {
+        this.userFollowRepository = userFollowRepository;
+        this.meterRegistry = meterRegistry;
+        this.reloadTimer = meterRegistry.timer("codehub.follow-graph.reload");
+    }
+
+    @PostConstruct
+    void init() {
+        meterRegistry.gauge("codehub.follow-graph.users", this, g -> g.graph.size());
+        reload();
+    }
+
+    public boolean isFollowing(Long followerId, Long followedUserId) {
+        return contains(adjacency(followerId).following, followedUserId);
+    }
+
+    public long followerCount(Long userId) {
+        return adjacency(userId).followers.length;
+    }
+
+    public long followingCount(Long userId) {
+        return adjacency(userId).following.length;
+    }
+
+    /**
+     * Ids the user follows, in ascending order
+     */
+    public long[] following(Long userId) {
+        return adjacency(userId).following.clone();
+    }
+
+    /**
+     * Ids following the user, in ascending order
+     */
+    public long[] followers(Long userId) {
+        return adjacency(userId).followers.clone();
+    }
+
+    /**
+     * Ids of all users with at least one follow edge
+     */
+    public Set<Long> userIds() {
+        return Set.copyOf(graph.keySet());
+    }
+
+    /**
+     * Users the user follows who follow them back
+     */
+    public long[] mutuals(Long userId) {
+        Adjacency adjacency = adjacency(userId);
+        return intersect(adjacency.following, adjacency.followers);
+    }
+
+    /**
+     * Users the viewer follows who also follow the target ("followed by people you follow")
+     */
+    public long[] followedFollowers(Long viewerId, Long targetId) {
+        return intersect(adjacency(viewerId).following, adjacency(targetId).followers);
+    }
+
+    /**
+     * Follow state between the viewer and each of the given users, in request order
+     */
+    public Map<Long, FollowState> followStates(Long viewerId, Collection<Long> userIds) {
+        Adjacency viewer = adjacency(viewerId);
+        Map<Long, FollowState> states = new LinkedHashMap<>();
+        for (Long userId : userIds) {
+            Adjacency other = adjacency(userId);
+            states.put(userId, new FollowState(
+                    contains(viewer.following, userId),
+                    contains(viewer.followers, userId),
+                    other.followers.length,
+                    other.following.length));
+        }
+        return states;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onFollowChanged(FollowChangedEvent event) {
+        if (replay != null) {
+            replay.add(event);
+        }
+        apply(graph, event);
+    }
+
+    /**
+     * Rebuild the graph from the database and swap it in, replaying changes that committed
+     * while the edges were being read
+     */
+    @Scheduled(fixedDelayString = "${app.follow-graph.reload-ms:900000}",
+            initialDelayString = "${app.follow-graph.reload-ms:900000}")
+    public void reload() {
+        synchronized (this) {
+            replay = new ArrayList<>();
+        }
+        try {
+            Timer.Sample sample = Timer.start();
+            Map<Long, Adjacency> fresh = load();
+            sample.stop(reloadTimer);
+            synchronized (this) {
+                replay.forEach(event -> apply(fresh, event));
+                graph = fresh;
+            }
+            log.info("Follow graph loaded for {} users", fresh.size());
+        } catch (Exception e) {
+            log.error("Follow graph reload failed, keeping the current copy: {}", e.getMessage());
+        } finally {
+            synchronized (this) {
+                replay = null;
+            }
+        }
+    }
+
+    private Map<Long, Adjacency> load() {
+        Map<Long, List<Long>> following = new HashMap<>();
+        Map<Long, List<Long>> followers = new HashMap<>();
+        long afterId = 0;
+        List<Object[]> edges;
+        do {
+            edges = userFollowRepository.findEdgesAfter(afterId, PageRequest.of(0, loadChunkSize));
+            for (Object[] edge : edges) {
+                Long followerId = (Long) edge[1];
+                Long followedUserId = (Long) edge[2];
+                following.computeIfAbsent(followerId, id -> new ArrayList<>()).add(followedUserId);
+                followers.computeIfAbsent(followedUserId, id -> new ArrayList<>()).add(followerId);
+                afterId = (Long) edge[0];
+            }
+        } while (edges.size() == loadChunkSize);
+
+        Map<Long, Adjacency> loaded = new ConcurrentHashMap<>();
+        following.forEach((userId, ids) -> loaded.computeIfAbsent(userId, id -> new Adjacency()).following = sorted(ids));
+        followers.forEach((userId, ids) -> loaded.computeIfAbsent(userId, id -> new Adjacency()).followers = sorted(ids));
+        return loaded;
+    }
+
+    // Callers hold the monitor, so each array is replaced by one writer at a time
+    private static void apply(Map<Long, Adjacency> target, FollowChangedEvent event) {
+        Adjacency follower = target.computeIfAbsent(event.getFollowerId(), id -> new Adjacency());
+        Adjacency followed = target.computeIfAbsent(event.getFollowedUserId(), id -> new Adjacency());
+        if (event.isFollowing()) {
+            follower.following = insert(follower.following, event.getFollowedUserId());
+            followed.followers = insert(followed.followers, event.getFollowerId());
+        } else {
+            follower.following = remove(follower.following, event.getFollowedUserId());
+            followed.followers = remove(followed.followers, event.getFollowerId());
+        }
+    }
+
+    private Adjacency adjacency(Long userId) {
+        Adjacency adjacency = userId == null ? null : graph.get(userId);
+        return adjacency != null ? adjacency : Adjacency.NONE;
+    }
+
+    private static boolean contains(long[] ids, Long id) {
+        return id != null && Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    private static long[] sorted(List<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+    }
+
+    private static long[] insert(long[] ids, long id) {
+        int position = Arrays.binarySearch(ids, id);
+        if (position >= 0) {
+            return ids;
+        }
+        position = -position - 1;
+        long[] result = new long[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, position);
+        result[position] = id;
+        System.arraycopy(ids, position, result, position + 1, ids.length - position);
+        return result;
+    }
+
+    private static long[] remove(long[] ids, long id) {
+        int position = Arrays.binarySearch(ids, id);
+        if (position < 0) {
+            return ids;
+        }
+        if (ids.length == 1) {
+            return EMPTY;
+        }
+        long[] result = new long[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, position);
+        System.arraycopy(ids, position + 1, result, position, ids.length - position - 1);
+        return result;
+    }
+
+    private static long[] intersect(long[] a, long[] b) {
+        long[] result = new long[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static final class Adjacency {
+        static final Adjacency NONE = new Adjacency();
+
+        // Replaced wholesale on change, never mutated in place
+        volatile long[] following = EMPTY;
+        volatile long[] followers = EMPTY;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class FollowState {
+        private final boolean following;
+        private final boolean followedBy;
+        private final long followerCount;
+        private final long followingCount;
+    }
+}
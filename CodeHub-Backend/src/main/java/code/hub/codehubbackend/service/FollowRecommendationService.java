@@ -0,0 +1,301 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.dto.user.FollowSuggestionResponse;
+import code.hub.codehubbackend.entity.User;
+import code.hub.codehubbackend.repository.SnippetRepository;
+import code.hub.codehubbackend.repository.UserRepository;
+import code.hub.codehubbackend.security.CurrentUserContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * "Who to follow" suggestions. A periodic batch walks the follow graph two hops out from each
+ * user (sampling wide fan-outs) and adds authors who write in the same languages and tags, then
+ * keeps the best few ids per user. Requests only read the precomputed list.
+ */
+@Service
+@Slf4j
+public class FollowRecommendationService {
+
+    private static final byte REASON_SOCIAL = 0;
+    private static final byte REASON_INTERESTS = 1;
+    private static final byte REASON_POPULAR = 2;
+    private static final String[] REASONS = {"FOLLOWED_BY_PEOPLE_YOU_FOLLOW", "SIMILAR_INTERESTS", "POPULAR"};
+
+    private static final double AFFINITY_WEIGHT = 0.5;
+    private static final double POPULARITY_WEIGHT = 0.1;
+    private static final int POPULAR_SIZE = 50;
+
+    private final FollowGraph followGraph;
+    private final SnippetRepository snippetRepository;
+    private final UserRepository userRepository;
+    private final CurrentUserContext currentUserContext;
+    private final MeterRegistry meterRegistry;
+    private final Timer refreshTimer;
+
+    private volatile Map<Long, Suggestions> suggestions = new ConcurrentHashMap<>();
+    private volatile long[] popular = new long[0];
+
+    @Value("${app.recommendations.per-user:20}")
+    private int perUser;
+
+    @Value("${app.recommendations.fan-out-sample:50}")
+    private int fanOutSample;
+
+    @Value("${app.recommendations.interests-per-user:5}")
+    private int interestsPerUser;
+
+    @Value("${app.recommendations.authors-per-interest:200}")
+    private int authorsPerInterest;
+
+    @Value("${app.recommendations.max-users:100000}")
+    private int maxUsers;
+
+    public FollowRecommendationService(FollowGraph followGraph,
+                                       SnippetRepository snippetRepository,
+                                       UserRepository userRepository,
+                                       CurrentUserContext currentUserContext,
+                                       MeterRegistry meterRegistry) {
+        this.followGraph = followGraph;
+        this.snippetRepository = snippetRepository;
+        this.userRepository = userRepository;
+        this.currentUserContext = currentUserContext;
+        this.meterRegistry = meterRegistry;
+        this.refreshTimer = meterRegistry.timer("codehub.recommendations.refresh");
+    }
+
+    @PostConstruct
+    void init() {
+        meterRegistry.gauge("codehub.recommendations.users", this, service -> service.suggestions.size());
+    }
+
+    /**
+     * Suggested users for the current user, topped up with popular users when the precomputed
+     * list runs short or has not been built yet
+     */
+    public List<FollowSuggestionResponse> getSuggestions(int limit) {
+        User currentUser = getCurrentUser();
+        Long viewerId = currentUser.getId();
+
+        // Every candidate in order; both lists are short, and disabled users are skipped before the limit
+        Map<Long, Byte> candidates = new LinkedHashMap<>();
+        Suggestions own = suggestions.get(viewerId);
+        if (own != null) {
+            for (int i = 0; i < own.userIds.length; i++) {
+                if (!followGraph.isFollowing(viewerId, own.userIds[i])) {
+                    candidates.put(own.userIds[i], own.reasons[i]);
+                }
+            }
+        }
+        for (long userId : popular) {
+            if (userId != viewerId && !followGraph.isFollowing(viewerId, userId)) {
+                candidates.putIfAbsent(userId, REASON_POPULAR);
+            }
+        }
+
+        Map<Long, User> users = userRepository.findAllById(candidates.keySet()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        List<FollowSuggestionResponse> responses = new ArrayList<>();
+        for (Map.Entry<Long, Byte> candidate : candidates.entrySet()) {
+            if (responses.size() >= limit) {
+                break;
+            }
+            Long userId = candidate.getKey();
+            User user = users.get(userId);
+            if (user == null || !user.isEnabled()) {
+                continue;
+            }
+            responses.add(FollowSuggestionResponse.builder()
+                    .id(user.getId())
+                    .username(user.getUsername())
+                    .fullName(user.getFullName())
+                    .avatarUrl(user.getAvatarUrl())
+                    .bio(user.getBio())
+                    .reason(REASONS[candidate.getValue()])
+                    .mutualCount(followGraph.followedFollowers(viewerId, userId).length)
+                    .followerCount(followGraph.followerCount(userId))
+                    .build());
+        }
+        return responses;
+    }
+
+    /**
+     * Recompute suggestions for every user with follows or snippets and swap the store in
+     */
+    @Scheduled(fixedDelayString = "${app.recommendations.refresh-ms:3600000}",
+            initialDelayString = "${app.recommendations.initial-delay-ms:60000}")
+    public void refresh() {
+        try {
+            Timer.Sample sample = Timer.start();
+
+            Map<Long, List<String>> interests = loadInterests();
+            Map<String, long[]> authorsByInterest = indexAuthors(interests);
+            long[] popularUsers = mostFollowed();
+
+            Set<Long> userIds = new LinkedHashSet<>(followGraph.userIds());
+            userIds.addAll(interests.keySet());
+
+            Map<Long, Suggestions> computed = new ConcurrentHashMap<>();
+            for (Long userId : userIds) {
+                if (computed.size() >= maxUsers) {
+                    break;
+                }
+                Suggestions result = compute(userId, interests, authorsByInterest);
+                if (result.userIds.length > 0) {
+                    computed.put(userId, result);
+                }
+            }
+
+            suggestions = computed;
+            popular = popularUsers;
+            sample.stop(refreshTimer);
+            log.info("Follow suggestions refreshed for {} users", computed.size());
+        } catch (Exception e) {
+            log.error("Follow suggestion refresh failed, keeping previous results: {}", e.getMessage());
+        }
+    }
+
+    private Suggestions compute(Long userId, Map<Long, List<String>> interests, Map<String, long[]> authorsByInterest) {
+        long[] following = followGraph.following(userId);
+        Map<Long, double[]> scores = new HashMap<>(); // candidate -> {social, interests}
+
+        // Friends of friends: two hops, sampling each fan-out so hubs stay cheap
+        for (long followedId : sample(following, fanOutSample)) {
+            for (long candidate : sample(followGraph.following(followedId), fanOutSample)) {
+                if (isCandidate(userId, following, candidate)) {
+                    scores.computeIfAbsent(candidate, id -> new double[2])[0] += 1;
+                }
+            }
+        }
+
+        // Authors writing in the same languages and tags
+        for (String interest : interests.getOrDefault(userId, List.of())) {
+            for (long candidate : sample(authorsByInterest.getOrDefault(interest, new long[0]), fanOutSample)) {
+                if (isCandidate(userId, following, candidate)) {
+                    scores.computeIfAbsent(candidate, id -> new double[2])[1] += AFFINITY_WEIGHT;
+                }
+            }
+        }
+
+        List<Map.Entry<Long, double[]>> ranked = scores.entrySet().stream()
+                .sorted(Comparator.comparingDouble((Map.Entry<Long, double[]> entry) -> score(entry)).reversed())
+                .limit(perUser)
+                .toList();
+        long[] ids = new long[ranked.size()];
+        byte[] reasons = new byte[ranked.size()];
+        for (int i = 0; i < ranked.size(); i++) {
+            ids[i] = ranked.get(i).getKey();
+            reasons[i] = ranked.get(i).getValue()[0] >= ranked.get(i).getValue()[1] ? REASON_SOCIAL : REASON_INTERESTS;
+        }
+        return new Suggestions(ids, reasons);
+    }
+
+    private double score(Map.Entry<Long, double[]> entry) {
+        double[] parts = entry.getValue();
+        return parts[0] + parts[1] + POPULARITY_WEIGHT * Math.log1p(followGraph.followerCount(entry.getKey()));
+    }
+
+    private static boolean isCandidate(long userId, long[] following, long candidate) {
+        return candidate != userId && Arrays.binarySearch(following, candidate) < 0;
+    }
+
+    /**
+     * Each author's strongest languages and tags, as "lang:" and "tag:" keys
+     */
+    private Map<Long, List<String>> loadInterests() {
+        Map<Long, Map<String, Long>> counts = new HashMap<>();
+        for (Object[] row : snippetRepository.countLanguagesByOwner()) {
+            counts.computeIfAbsent((Long) row[0], id -> new HashMap<>())
+                    .merge("lang:" + ((String) row[1]).toLowerCase(), (Long) row[2], Long::sum);
+        }
+        for (Object[] row : snippetRepository.countTagsByOwner()) {
+            counts.computeIfAbsent((Long) row[0], id -> new HashMap<>())
+                    .merge("tag:" + ((String) row[1]).toLowerCase(), (Long) row[2], Long::sum);
+        }
+
+        Map<Long, List<String>> interests = new HashMap<>();
+        counts.forEach((ownerId, byInterest) -> interests.put(ownerId, byInterest.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(interestsPerUser)
+                .map(Map.Entry::getKey)
+                .toList()));
+        return interests;
+    }
+
+    private Map<String, long[]> indexAuthors(Map<Long, List<String>> interests) {
+        Map<String, List<Long>> authors = new HashMap<>();
+        interests.forEach((ownerId, keys) -> keys.forEach(key ->
+                authors.computeIfAbsent(key, k -> new ArrayList<>()).add(ownerId)));
+
+        Map<String, long[]> index = new HashMap<>();
+        // Prefer well-followed authors when an interest is crowded
+        authors.forEach((key, ids) -> index.put(key, ids.stream()
+                .sorted(Comparator.<Long>comparingLong(followGraph::followerCount).reversed())
+                .limit(authorsPerInterest)
+                .mapToLong(Long::longValue)
+                .toArray()));
+        return index;
+    }
+
+    private long[] mostFollowed() {
+        PriorityQueue<Long> top = new PriorityQueue<>(Comparator.comparingLong(followGraph::followerCount));
+        for (Long userId : followGraph.userIds()) {
+            top.offer(userId);
+            if (top.size() > POPULAR_SIZE) {
+                top.poll();
+            }
+        }
+        return top.stream()
+                .sorted(Comparator.<Long>comparingLong(followGraph::followerCount).reversed())
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    private static long[] sample(long[] ids, int size) {
+        if (ids.length <= size) {
+            return ids;
+        }
+        // Partial Fisher-Yates shuffle over a copy
+        long[] copy = ids.clone();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < size; i++) {
+            int j = i + random.nextInt(copy.length - i);
+            long swap = copy[i];
+            copy[i] = copy[j];
+            copy[j] = swap;
+        }
+        return Arrays.copyOf(copy, size);
+    }
+
+    private User getCurrentUser() {
+        return currentUserContext.require();
+    }
+
+    // Ranked candidate ids with a parallel reason code per id
+    @AllArgsConstructor
+    private static final class Suggestions {
+        private final long[] userIds;
+        private final byte[] reasons;
+    }
+}
@@ -1,13 +1,13 @@
 package code.hub.codehubbackend.service;
 
 import code.hub.codehubbackend.entity.Like;
+import code.hub.codehubbackend.entity.OutboxEvent;
 import code.hub.codehubbackend.entity.Snippet;
 import code.hub.codehubbackend.entity.User;
 import code.hub.codehubbackend.repository.LikeRepository;
 import code.hub.codehubbackend.repository.SnippetRepository;
+import code.hub.codehubbackend.security.CurrentUserContext;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,11 +18,12 @@ public class LikeService {
     private LikeRepository likeRepository;
       @Autowired
     private SnippetRepository snippetRepository;
-      @Autowired
-    private ActivityService activityService;
     
     @Autowired
-    private NotificationService notificationService;
+    private SideEffectOutbox sideEffectOutbox;
+    
+    @Autowired
+    private CurrentUserContext currentUserContext;
     
     @Transactional
     public boolean toggleLike(Long snippetId) {
@@ -41,8 +42,8 @@ public class LikeService {
             snippet.decrementLikeCount();
             snippetRepository.save(snippet);
             
-            // Create unlike activity
-            activityService.createLikeActivity(snippet, false);
+            // Unlike activity is written asynchronously
+            sideEffectOutbox.record(OutboxEvent.SideEffectType.SNIPPET_UNLIKED, currentUser.getId(), snippetId);
             
             return false;
         } else {
@@ -56,11 +57,9 @@ public class LikeService {
             likeRepository.save(like);
             snippet.incrementLikeCount();
             snippetRepository.save(snippet);
-              // Create like activity
-            activityService.createLikeActivity(snippet, true);
             
-            // Create notification for snippet owner
-            notificationService.createSnippetLikeNotification(snippet, currentUser);
+            // Like activity and owner notification are written asynchronously
+            sideEffectOutbox.record(OutboxEvent.SideEffectType.SNIPPET_LIKED, currentUser.getId(), snippetId);
             
             return true;
         }
@@ -80,10 +79,6 @@ public class LikeService {
     }
     
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return null;
-        }
-        return (User) authentication.getPrincipal();
+        return currentUserContext.find().orElse(null);
     }
 }
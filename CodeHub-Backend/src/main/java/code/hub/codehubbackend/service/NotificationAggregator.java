@@ -0,0 +1,123 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.entity.Notification;
+import code.hub.codehubbackend.entity.User;
+import code.hub.codehubbackend.repository.NotificationRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Folds repeated notifications into one rolling group per (recipient, type, target). A group stays
+ * open while it is unread and younger than the aggregation window; each new actor bumps the actor
+ * count, becomes the displayed actor and is kept in a short list of recent actors. Every actor of a
+ * group is also recorded in {@code notification_group_actors}, so an actor who has dropped off the
+ * recent list is still not counted twice. Concurrent folds into the same group are serialized by
+ * the notification's optimistic version. Concurrent first notifications cannot both start a group:
+ * groups are numbered per (recipient, key) under a unique constraint, so the losing insert fails and
+ * its outbox retry folds into the winner's group.
+ */
+@Component
+@Slf4j
+public class NotificationAggregator {
+
+    private final NotificationRepository notificationRepository;
+    private final Duration window;
+    private final int maxRecentActors;
+
+    public NotificationAggregator(NotificationRepository notificationRepository,
+                                  @Value("${app.notifications.aggregation.window-ms:86400000}") long windowMillis,
+                                  @Value("${app.notifications.aggregation.max-recent-actors:5}") int maxRecentActors) {
+        this.notificationRepository = notificationRepository;
+        this.window = Duration.ofMillis(windowMillis);
+        this.maxRecentActors = maxRecentActors;
+    }
+
+    public static String groupKey(Notification.NotificationType type, String targetType, Long targetId) {
+        return type.name() + ":" + targetType + ":" + targetId;
+    }
+
+    /**
+     * "alice", "alice and 1 other" or "alice and 41 others"
+     */
+    public static String actorsPhrase(String latestActor, int actorCount) {
+        int others = actorCount - 1;
+        if (others <= 0) {
+            return latestActor;
+        }
+        return latestActor + " and " + others + (others == 1 ? " other" : " others");
+    }
+
+    public static List<Long> parseRecentActorIds(String recentActorIds) {
+        if (recentActorIds == null || recentActorIds.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(recentActorIds.split(","))
+                .map(Long::valueOf)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Fold the actor into the recipient's open group for the key.
+     *
+     * @param message builds the message from an actor phrase such as "alice and 3 others"
+     * @return the open group, or empty if a new group has to be started
+     */
+    public Optional<Fold> fold(User recipient, User actor, String groupKey,
+                               Function<String, String> message, String actionUrl) {
+        Instant now = Instant.now();
+        Optional<Notification> open = notificationRepository
+                .findFirstByRecipientAndGroupKeyAndReadFalseAndCreatedAtAfterOrderByCreatedAtDesc(
+                        recipient, groupKey, now.minus(window));
+        if (open.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Notification group = open.get();
+        List<Long> recent = new ArrayList<>(parseRecentActorIds(group.getRecentActorIds()));
+        if (notificationRepository.countGroupActors(group.getId()) == 0) {
+            // First fold into the group: record the actors it was started with
+            recent.forEach(actorId -> notificationRepository.addGroupActor(group.getId(), actorId));
+        }
+        if (notificationRepository.addGroupActor(group.getId(), actor.getId()) == 0) {
+            // Same actor again (e.g. unlike then like); nothing new to tell the recipient
+            return Optional.of(new Fold(group, false));
+        }
+
+        recent.remove(actor.getId());
+
+        recent.add(0, actor.getId());
+        if (recent.size() > maxRecentActors) {
+            recent = recent.subList(0, maxRecentActors);
+        }
+
+        group.setActorCount(group.getActorCount() + 1);
+        group.setRecentActorIds(recent.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        group.setActor(actor);
+        group.setMessage(message.apply(actorsPhrase(actor.getUsername(), group.getActorCount())));
+        group.setActionUrl(actionUrl);
+        group.setUpdatedAt(now);
+
+        Notification saved = notificationRepository.save(group);
+        log.debug("Folded actor {} into notification group {} ({} actors)", actor.getId(), groupKey, saved.getActorCount());
+        return Optional.of(new Fold(saved, true));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Fold {
+        private final Notification notification;
+        private final boolean changed;
+    }
+}
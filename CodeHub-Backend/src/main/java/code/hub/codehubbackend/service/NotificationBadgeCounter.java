@@ -0,0 +1,81 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.repository.NotificationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ConcurrentLruCache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user unread notification count. A user's count is loaded with one COUNT query the first
+ * time it is needed and afterwards kept up to date from committed deltas. Entries are bounded by
+ * an LRU and reloaded after a TTL, which also repairs drift from bulk deletes that bypass the service.
+ */
+@Component
+@Slf4j
+public class NotificationBadgeCounter {
+
+    private final NotificationRepository notificationRepository;
+    private final long ttlMillis;
+    private final ConcurrentLruCache<Long, Badge> badges;
+
+    public NotificationBadgeCounter(NotificationRepository notificationRepository,
+                                    @Value("${app.notifications.badge.max-users:10000}") int maxUsers,
+                                    @Value("${app.notifications.badge.ttl-ms:600000}") long ttlMillis) {
+        this.notificationRepository = notificationRepository;
+        this.ttlMillis = ttlMillis;
+        this.badges = new ConcurrentLruCache<>(maxUsers, this::load);
+    }
+
+    public long getUnreadCount(Long userId) {
+        return badge(userId).count.get();
+    }
+
+    /**
+     * Apply a committed delta and return the resulting count. A user that is not cached is loaded
+     * instead, since the fresh COUNT already includes the committed change.
+     */
+    public long applyDelta(Long userId, long delta) {
+        if (!badges.contains(userId)) {
+            return getUnreadCount(userId);
+        }
+        return badge(userId).count.updateAndGet(current -> Math.max(0, current + delta));
+    }
+
+    public void reset(Long userId) {
+        if (badges.contains(userId)) {
+            badges.get(userId).count.set(0);
+        }
+    }
+
+    public void invalidate(Long userId) {
+        badges.remove(userId);
+    }
+
+    private Badge badge(Long userId) {
+        Badge badge = badges.get(userId);
+        if (System.currentTimeMillis() - badge.loadedAt > ttlMillis) {
+            badges.remove(userId);
+            badge = badges.get(userId);
+        }
+        return badge;
+    }
+
+    private Badge load(Long userId) {
+        long count = notificationRepository.countByRecipientIdAndReadFalse(userId);
+        log.debug("Loaded unread notification badge {} for user {}", count, userId);
+        return new Badge(count, System.currentTimeMillis());
+    }
+
+    private static final class Badge {
+        private final AtomicLong count;
+        private final long loadedAt;
+
+        private Badge(long count, long loadedAt) {
+            this.count = new AtomicLong(count);
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.dto.notification.NotificationPushMessage;
+import code.hub.codehubbackend.event.NotificationEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Applies committed notification changes to the badge counter and pushes them to the recipient on
+ * {@code /user/queue/notifications}: new or re-aggregated notifications as NOTIFICATION frames, read and delete
+ * changes as BADGE frames carrying the unread delta and the resulting count.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class NotificationPushService {
+
+    private static final String NOTIFICATIONS_QUEUE = "/queue/notifications";
+
+    private final NotificationBadgeCounter badgeCounter;
+    private final PresenceService presenceService;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationEvent(NotificationEvent event) {
+        try {
+            long unreadCount;
+            if (event.getType() == NotificationEvent.Type.ALL_READ) {
+                badgeCounter.reset(event.getRecipientId());
+                unreadCount = 0;
+            } else {
+                unreadCount = badgeCounter.applyDelta(event.getRecipientId(), event.getUnreadDelta());
+            }
+
+            // Offline users pick up the count from /stats when they come back
+            if (!presenceService.isOnline(event.getRecipientId())) {
+                return;
+            }
+
+            NotificationPushMessage message = NotificationPushMessage.builder()
+                    .kind(event.getNotification() != null
+                            ? NotificationPushMessage.KIND_NOTIFICATION
+                            : NotificationPushMessage.KIND_BADGE)
+                    .notification(event.getNotification())
+                    .unreadDelta(event.getUnreadDelta())
+                    .unreadCount(unreadCount)
+                    .build();
+            messagingTemplate.convertAndSendToUser(event.getRecipientUsername(), NOTIFICATIONS_QUEUE, message);
+        } catch (Exception e) {
+            // The change is committed; a stale badge must not fail the caller
+            log.warn("Failed to push notification event {}: {}", event, e.getMessage());
+            badgeCounter.invalidate(event.getRecipientId());
+        }
+    }
+}
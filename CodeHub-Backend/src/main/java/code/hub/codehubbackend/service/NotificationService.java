@@ -6,18 +6,20 @@ import code.hub.codehubbackend.entity.Notification;
 import code.hub.codehubbackend.entity.Snippet;
 import code.hub.codehubbackend.entity.User;
 import code.hub.codehubbackend.entity.Comment;
+import code.hub.codehubbackend.event.NotificationEvent;
 import code.hub.codehubbackend.exception.ResourceNotFoundException;
 import code.hub.codehubbackend.repository.NotificationRepository;
 import code.hub.codehubbackend.repository.UserRepository;
+import code.hub.codehubbackend.retention.DataRetentionService;
+import code.hub.codehubbackend.security.CurrentUserContext;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,6 +28,8 @@ import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -35,6 +39,11 @@ public class NotificationService {
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
     private final ObjectMapper objectMapper;
+    private final NotificationBadgeCounter badgeCounter;
+    private final NotificationAggregator notificationAggregator;
+    private final DataRetentionService dataRetentionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CurrentUserContext currentUserContext;
     
     /**
      * Get paginated notifications for current user
@@ -46,15 +55,15 @@ public class NotificationService {
         Page<Notification> notifications;
         switch (filter.toLowerCase()) {
             case "unread":
-                notifications = notificationRepository.findByRecipientAndReadOrderByCreatedAtDesc(
+                notifications = notificationRepository.findByRecipientAndReadOrderByUpdatedAtDesc(
                     currentUser, false, pageable);
                 break;
             case "read":
-                notifications = notificationRepository.findByRecipientAndReadOrderByCreatedAtDesc(
+                notifications = notificationRepository.findByRecipientAndReadOrderByUpdatedAtDesc(
                     currentUser, true, pageable);
                 break;
             default:
-                notifications = notificationRepository.findByRecipientOrderByCreatedAtDesc(
+                notifications = notificationRepository.findByRecipientOrderByUpdatedAtDesc(
                     currentUser, pageable);
         }
         
@@ -67,14 +76,22 @@ public class NotificationService {
     public NotificationStatsResponse getNotificationStats() {
         User currentUser = getCurrentUser();
         
-        long unreadCount = notificationRepository.countByRecipientAndRead(currentUser, false);
-        long totalCount = notificationRepository.countByRecipient(currentUser);
+        // Unread comes from the cached badge, the rest from one aggregate query
+        long unreadCount = badgeCounter.getUnreadCount(currentUser.getId());
         
         Instant today = Instant.now().truncatedTo(ChronoUnit.DAYS);
         Instant weekAgo = Instant.now().minus(7, ChronoUnit.DAYS);
         
-        long todayCount = notificationRepository.countByRecipientAndCreatedAtAfter(currentUser, today);
-        long weekCount = notificationRepository.countByRecipientAndCreatedAtAfter(currentUser, weekAgo);
+        long totalCount = 0;
+        long todayCount = 0;
+        long weekCount = 0;
+        List<Object[]> rows = notificationRepository.aggregateCountsByRecipientId(currentUser.getId(), today, weekAgo);
+        if (!rows.isEmpty()) {
+            Object[] row = rows.get(0);
+            totalCount = ((Number) row[0]).longValue();
+            todayCount = ((Number) row[1]).longValue();
+            weekCount = ((Number) row[2]).longValue();
+        }
         
         return NotificationStatsResponse.builder()
                 .unreadCount(unreadCount)
@@ -100,6 +117,7 @@ public class NotificationService {
         if (!notification.isRead()) {
             notification.markAsRead();
             notificationRepository.save(notification);
+            publishEvent(NotificationEvent.Type.READ, currentUser, null, -1);
             log.info("Marked notification {} as read for user {}", notificationId, currentUser.getId());
         }
     }
@@ -111,6 +129,9 @@ public class NotificationService {
     public void markAllAsRead() {
         User currentUser = getCurrentUser();
         int updatedCount = notificationRepository.markAllAsReadByRecipient(currentUser, Instant.now());
+        if (updatedCount > 0) {
+            publishEvent(NotificationEvent.Type.ALL_READ, currentUser, null, -updatedCount);
+        }
         log.info("Marked {} notifications as read for user {}", updatedCount, currentUser.getId());
     }
     
@@ -128,6 +149,9 @@ public class NotificationService {
         }
         
         notificationRepository.delete(notification);
+        if (!notification.isRead()) {
+            publishEvent(NotificationEvent.Type.DELETED, currentUser, null, -1);
+        }
         log.info("Deleted notification {} for user {}", notificationId, currentUser.getId());
     }
     
@@ -140,20 +164,13 @@ public class NotificationService {
             return; // Don't notify when user likes their own snippet
         }
         
-        // Check if notification already exists
-        if (notificationRepository.existsByRecipientAndActorAndTypeAndTargetIdAndTargetType(
-                snippet.getOwner(), actor, Notification.NotificationType.SNIPPET_LIKED, 
-                snippet.getId(), "snippet")) {
-            return; // Avoid duplicate notifications
-        }
-        
         String title = "New like on your snippet";
-        String message = String.format("%s liked your \"%s\" snippet", 
-                actor.getUsername(), snippet.getTitle());
         String actionUrl = "/snippets/" + snippet.getId();
         
-        createNotification(snippet.getOwner(), actor, Notification.NotificationType.SNIPPET_LIKED,
-                title, message, snippet.getId(), "snippet", actionUrl, null);
+        // Repeat likes by the same actor are deduplicated by the aggregation group
+        createOrFoldNotification(snippet.getOwner(), actor, Notification.NotificationType.SNIPPET_LIKED,
+                title, actors -> String.format("%s liked your \"%s\" snippet", actors, snippet.getTitle()),
+                snippet.getId(), "snippet", actionUrl);
     }
     
     /**
@@ -166,12 +183,11 @@ public class NotificationService {
         }
         
         String title = "New comment on your snippet";
-        String message = String.format("%s commented on your \"%s\" snippet", 
-                actor.getUsername(), snippet.getTitle());
         String actionUrl = "/snippets/" + snippet.getId() + "#comment-" + comment.getId();
         
-        createNotification(snippet.getOwner(), actor, Notification.NotificationType.SNIPPET_COMMENTED,
-                title, message, snippet.getId(), "snippet", actionUrl, null);
+        createOrFoldNotification(snippet.getOwner(), actor, Notification.NotificationType.SNIPPET_COMMENTED,
+                title, actors -> String.format("%s commented on your \"%s\" snippet", actors, snippet.getTitle()),
+                snippet.getId(), "snippet", actionUrl);
     }
     
     /**
@@ -180,11 +196,12 @@ public class NotificationService {
     @Transactional
     public void createUserFollowNotification(User followedUser, User follower) {
         String title = "New follower";
-        String message = String.format("%s started following you", follower.getUsername());
         String actionUrl = "/users/" + follower.getUsername();
         
-        createNotification(followedUser, follower, Notification.NotificationType.USER_FOLLOWED,
-                title, message, follower.getId(), "user", actionUrl, null);
+        // Grouped on the followed user so a burst of follows collapses into one notification
+        createOrFoldNotification(followedUser, follower, Notification.NotificationType.USER_FOLLOWED,
+                title, actors -> String.format("%s started following you", actors),
+                followedUser.getId(), "user", actionUrl);
     }
     
     /**
@@ -197,12 +214,11 @@ public class NotificationService {
         }
         
         String title = "Snippet starred";
-        String message = String.format("%s starred your \"%s\" snippet", 
-                actor.getUsername(), snippet.getTitle());
         String actionUrl = "/snippets/" + snippet.getId();
         
-        createNotification(snippet.getOwner(), actor, Notification.NotificationType.SNIPPET_STARRED,
-                title, message, snippet.getId(), "snippet", actionUrl, null);
+        createOrFoldNotification(snippet.getOwner(), actor, Notification.NotificationType.SNIPPET_STARRED,
+                title, actors -> String.format("%s starred your \"%s\" snippet", actors, snippet.getTitle()),
+                snippet.getId(), "snippet", actionUrl);
     }
     
     /**
@@ -236,11 +252,13 @@ public class NotificationService {
                     .type(Notification.NotificationType.COMMENT_LIKED)
                     .title(liker.getUsername() + " liked your comment")
                     .message("Your comment on \"" + comment.getSnippet().getTitle() + "\" was liked by " + liker.getUsername())
+                    .targetId(comment.getId())
+                    .targetType("comment")
                     .actionUrl("/snippets/" + comment.getSnippet().getId() + "#comment-" + comment.getId())
                     .metadata(objectMapper.writeValueAsString(metadata))
                     .build();
             
-            notificationRepository.save(notification);
+            saveAndPublish(notification);
             log.info("Created comment like notification for user: {}", comment.getAuthor().getId());
         } catch (JsonProcessingException e) {
             log.error("Error creating comment like notification", e);
@@ -282,11 +300,13 @@ public class NotificationService {
                     .type(Notification.NotificationType.COMMENT_REPLIED)
                     .title(replier.getUsername() + " replied to your comment")
                     .message(replier.getUsername() + " replied to your comment on \"" + parentComment.getSnippet().getTitle() + "\"")
+                    .targetId(reply.getId())
+                    .targetType("comment")
                     .actionUrl("/snippets/" + parentComment.getSnippet().getId() + "#comment-" + reply.getId())
                     .metadata(objectMapper.writeValueAsString(metadata))
                     .build();
             
-            notificationRepository.save(notification);
+            saveAndPublish(notification);
             log.info("Created comment reply notification for user: {}", parentComment.getAuthor().getId());
         } catch (JsonProcessingException e) {
             log.error("Error creating comment reply notification", e);
@@ -294,37 +314,57 @@ public class NotificationService {
     }
 
     /**
-     * Generic method to create notification
+     * Fold the actor into the recipient's open group for (type, target), or start a new group
      */
-    private void createNotification(User recipient, User actor, Notification.NotificationType type,
-                                  String title, String message, Long targetId, String targetType,
-                                  String actionUrl, Map<String, Object> metadata) {
-        try {
-            String metadataJson = null;
-            if (metadata != null) {
-                metadataJson = objectMapper.writeValueAsString(metadata);
+    private void createOrFoldNotification(User recipient, User actor, Notification.NotificationType type,
+                                          String title, Function<String, String> message, Long targetId,
+                                          String targetType, String actionUrl) {
+        String groupKey = NotificationAggregator.groupKey(type, targetType, targetId);
+        // Read before looking for the open group: a group started concurrently either shows up as
+        // open or takes the same sequence number, and the second insert fails on the unique key
+        Integer latestGroupSeq = notificationRepository.findMaxGroupSeq(recipient, groupKey);
+        Optional<NotificationAggregator.Fold> fold = notificationAggregator.fold(
+                recipient, actor, groupKey, message, actionUrl);
+        
+        if (fold.isPresent()) {
+            if (fold.get().isChanged()) {
+                // Still unread, so the badge is unchanged
+                publishEvent(NotificationEvent.Type.UPDATED, recipient,
+                        convertToResponse(fold.get().getNotification()), 0);
             }
-            
-            Notification notification = Notification.builder()
-                    .recipient(recipient)
-                    .actor(actor)
-                    .type(type)
-                    .title(title)
-                    .message(message)
-                    .targetId(targetId)
-                    .targetType(targetType)
-                    .actionUrl(actionUrl)
-                    .metadata(metadataJson)
-                    .build();
-            
-            notificationRepository.save(notification);
-            
-            log.info("Created {} notification for user {} from actor {}", 
-                    type, recipient.getId(), actor != null ? actor.getId() : "system");
-            
-        } catch (JsonProcessingException e) {
-            log.error("Error creating notification metadata", e);
+            return;
         }
+        
+        Notification notification = Notification.builder()
+                .recipient(recipient)
+                .actor(actor)
+                .type(type)
+                .title(title)
+                .message(message.apply(actor.getUsername()))
+                .targetId(targetId)
+                .targetType(targetType)
+                .actionUrl(actionUrl)
+                .groupKey(groupKey)
+                .groupSeq(latestGroupSeq != null ? latestGroupSeq + 1 : 1)
+                .recentActorIds(String.valueOf(actor.getId()))
+                .build();
+        
+        saveAndPublish(notification);
+        log.info("Created {} notification group for user {} from actor {}", type, recipient.getId(), actor.getId());
+    }
+    
+    /**
+     * Persist a new notification and publish it for push delivery after commit
+     */
+    private void saveAndPublish(Notification notification) {
+        Notification saved = notificationRepository.save(notification);
+        publishEvent(NotificationEvent.Type.CREATED, saved.getRecipient(), convertToResponse(saved), 1);
+    }
+    
+    private void publishEvent(NotificationEvent.Type type, User recipient, NotificationResponse notification,
+                              long unreadDelta) {
+        eventPublisher.publishEvent(new NotificationEvent(
+                type, recipient.getId(), recipient.getUsername(), notification, unreadDelta));
     }
     
     /**
@@ -353,6 +393,8 @@ public class NotificationService {
                 .createdAt(notification.getCreatedAt())
                 .readAt(notification.getReadAt())
                 .actor(actorInfo)
+                .actorCount(notification.getActorCount())
+                .recentActorIds(NotificationAggregator.parseRecentActorIds(notification.getRecentActorIds()))
                 .build();
     }
     
@@ -360,25 +402,14 @@ public class NotificationService {
      * Get current authenticated user
      */
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        return currentUserContext.require();
     }
     
     /**
-     * Cleanup old read notifications (can be called periodically)
+     * Cleanup old read notifications. Runs the chunked, set-based retention policies for
+     * notifications; the same policies also run on the retention schedule.
      */
-    @Transactional
-    public void cleanupOldNotifications() {
-        Instant thirtyDaysAgo = Instant.now().minus(30, ChronoUnit.DAYS);
-        List<User> users = userRepository.findAll();
-        
-        for (User user : users) {
-            int deletedCount = notificationRepository.deleteOldReadNotifications(user, thirtyDaysAgo);
-            if (deletedCount > 0) {
-                log.info("Cleaned up {} old notifications for user {}", deletedCount, user.getId());
-            }
-        }
+    public long cleanupOldNotifications() {
+        return dataRetentionService.run("notifications");
     }
 }
@@ -0,0 +1,92 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.dto.user.PresenceResponse;
+import code.hub.codehubbackend.repository.ChatParticipantRepository;
+import code.hub.codehubbackend.repository.UserFollowRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Periodically pushes presence changes to the followers and chat peers of the users that went
+ * online or offline. Changes are coalesced per interval and each online recipient receives a single
+ * frame on {@code /user/queue/presence} listing every update relevant to them.
+ * <p>
+ * Presence is tracked per node (see {@link PresenceService}). With the clustered broker a recipient
+ * may be connected to another node, so recipients are not filtered by local presence and the relay
+ * delivers the frame wherever they are connected.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PresenceBroadcaster {
+
+    private final PresenceService presenceService;
+    private final UserFollowRepository userFollowRepository;
+    private final ChatParticipantRepository chatParticipantRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @Value("${app.websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Scheduled(fixedDelayString = "${app.presence.broadcast-interval-ms:2000}")
+    public void broadcastChanges() {
+        presenceService.expireStaleSessions();
+
+        Set<Long> changedUsers = presenceService.drainChangedUsers();
+        if (changedUsers.isEmpty()) {
+            return;
+        }
+
+        Map<Long, PresenceResponse> updates = new HashMap<>();
+        for (Long userId : changedUsers) {
+            updates.put(userId, PresenceResponse.builder()
+                    .userId(userId)
+                    .username(presenceService.getUsername(userId).orElse(null))
+                    .isOnline(presenceService.isOnline(userId))
+                    .lastSeenAt(presenceService.getLastSeen(userId).orElse(null))
+                    .build());
+        }
+
+        // recipient username -> updates for that recipient
+        Map<String, List<PresenceResponse>> framesByRecipient = new HashMap<>();
+        collectRecipients(userFollowRepository.findFollowerIdsAndUsernamesByUserIds(changedUsers),
+                updates, framesByRecipient);
+        collectRecipients(chatParticipantRepository.findPeerIdsAndUsernamesByUserIds(changedUsers),
+                updates, framesByRecipient);
+
+        framesByRecipient.forEach((username, frame) ->
+                messagingTemplate.convertAndSendToUser(username, "/queue/presence", frame));
+
+        log.debug("Broadcast presence of {} users to {} recipients", changedUsers.size(), framesByRecipient.size());
+    }
+
+    /**
+     * Rows are (changed user id, recipient id, recipient username); offline recipients are skipped
+     * unless they may be connected to another node
+     */
+    private void collectRecipients(List<Object[]> rows, Map<Long, PresenceResponse> updates,
+                                   Map<String, List<PresenceResponse>> framesByRecipient) {
+        boolean clustered = "cluster".equals(brokerMode);
+        for (Object[] row : rows) {
+            Long recipientId = (Long) row[1];
+            if (!clustered && !presenceService.isOnline(recipientId)) {
+                continue;
+            }
+            PresenceResponse update = updates.get((Long) row[0]);
+            List<PresenceResponse> frame = framesByRecipient.computeIfAbsent((String) row[2], key -> new ArrayList<>());
+            if (!frame.contains(update)) {
+                frame.add(update);
+            }
+        }
+    }
+}
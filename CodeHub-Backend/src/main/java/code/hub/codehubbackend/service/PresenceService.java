@@ -0,0 +1,189 @@
+package code.hub.codehubbackend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory registry of connected WebSocket sessions.
+ * <p>
+ * Fed by STOMP CONNECT, DISCONNECT and heartbeat frames; a user is online while at least one of
+ * their sessions is alive. Lookups never touch the database. Online/offline transitions are recorded
+ * as "changed users" which {@link PresenceBroadcaster} drains and broadcasts in coalesced batches.
+ * <p>
+ * The registry is per node and is not shared. With the clustered broker
+ * ({@code app.websocket.broker.mode=cluster}) it only knows the sessions connected to this node, so
+ * {@link #isOnline} and {@link #getLastSeen} answer for local sessions, and a user connected to
+ * several nodes goes offline here when their last local session ends. Route a user's sessions to one
+ * node (sticky routing) for exact presence.
+ */
+@Service
+@Slf4j
+public class PresenceService {
+
+    private final Map<String, SessionEntry> sessions = new ConcurrentHashMap<>();
+    private final Map<Long, UserPresence> users = new ConcurrentHashMap<>();
+    private final Set<Long> changedUsers = ConcurrentHashMap.newKeySet();
+    private final long sessionTimeoutMillis;
+
+    public PresenceService(@Value("${app.presence.session-timeout-ms:45000}") long sessionTimeoutMillis) {
+        this.sessionTimeoutMillis = sessionTimeoutMillis;
+    }
+
+    /**
+     * Register a newly authenticated session
+     */
+    public void connect(String sessionId, Long userId, String username) {
+        if (sessionId == null || userId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        sessions.put(sessionId, new SessionEntry(userId, now));
+        users.compute(userId, (id, presence) -> {
+            UserPresence updated = presence != null ? presence : new UserPresence(username);
+            if (updated.sessionIds.isEmpty()) {
+                changedUsers.add(id);
+            }
+            updated.sessionIds.add(sessionId);
+            updated.lastSeenMillis = now;
+            return updated;
+        });
+    }
+
+    /**
+     * Remove a session; safe to call more than once for the same session
+     */
+    public void disconnect(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        SessionEntry entry = sessions.remove(sessionId);
+        if (entry == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        users.computeIfPresent(entry.userId, (id, presence) -> {
+            presence.sessionIds.remove(sessionId);
+            presence.lastSeenMillis = now;
+            if (presence.sessionIds.isEmpty()) {
+                changedUsers.add(id);
+            }
+            return presence;
+        });
+    }
+
+    /**
+     * Record activity (heartbeat or any inbound frame) on a session
+     */
+    public void touch(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        SessionEntry entry = sessions.get(sessionId);
+        if (entry != null) {
+            long now = System.currentTimeMillis();
+            entry.lastSeenMillis = now;
+            UserPresence presence = users.get(entry.userId);
+            if (presence != null) {
+                presence.lastSeenMillis = now;
+            }
+        }
+    }
+
+    public boolean isOnline(Long userId) {
+        UserPresence presence = userId != null ? users.get(userId) : null;
+        return presence != null && !presence.sessionIds.isEmpty();
+    }
+
+    /**
+     * Bulk online lookup; every requested id is present in the result
+     */
+    public Map<Long, Boolean> isOnline(Collection<Long> userIds) {
+        Map<Long, Boolean> result = new HashMap<>();
+        for (Long userId : userIds) {
+            result.put(userId, isOnline(userId));
+        }
+        return result;
+    }
+
+    public Optional<Instant> getLastSeen(Long userId) {
+        UserPresence presence = userId != null ? users.get(userId) : null;
+        return presence != null ? Optional.of(Instant.ofEpochMilli(presence.lastSeenMillis)) : Optional.empty();
+    }
+
+    public Optional<String> getUsername(Long userId) {
+        UserPresence presence = userId != null ? users.get(userId) : null;
+        return presence != null ? Optional.ofNullable(presence.username) : Optional.empty();
+    }
+
+    public int getOnlineUserCount() {
+        int count = 0;
+        for (UserPresence presence : users.values()) {
+            if (!presence.sessionIds.isEmpty()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Return and clear the users whose online state flipped since the previous call
+     */
+    public Set<Long> drainChangedUsers() {
+        Set<Long> drained = new HashSet<>();
+        Iterator<Long> iterator = changedUsers.iterator();
+        while (iterator.hasNext()) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+
+    /**
+     * Drop sessions that stopped sending heartbeats without a DISCONNECT frame
+     */
+    public int expireStaleSessions() {
+        long cutoff = System.currentTimeMillis() - sessionTimeoutMillis;
+        int expired = 0;
+        for (Map.Entry<String, SessionEntry> entry : sessions.entrySet()) {
+            if (entry.getValue().lastSeenMillis < cutoff) {
+                disconnect(entry.getKey());
+                expired++;
+            }
+        }
+        if (expired > 0) {
+            log.debug("Expired {} stale WebSocket sessions", expired);
+        }
+        return expired;
+    }
+
+    private static final class SessionEntry {
+        private final Long userId;
+        private volatile long lastSeenMillis;
+
+        private SessionEntry(Long userId, long lastSeenMillis) {
+            this.userId = userId;
+            this.lastSeenMillis = lastSeenMillis;
+        }
+    }
+
+    private static final class UserPresence {
+        private final String username;
+        private final Set<String> sessionIds = ConcurrentHashMap.newKeySet();
+        private volatile long lastSeenMillis;
+
+        private UserPresence(String username) {
+            this.username = username;
+        }
+    }
+}
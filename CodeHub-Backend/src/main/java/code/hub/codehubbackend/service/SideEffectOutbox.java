@@ -0,0 +1,40 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.entity.OutboxEvent;
+import code.hub.codehubbackend.event.SideEffectRecordedEvent;
+import code.hub.codehubbackend.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Records the side effects of a social action in the caller's transaction. The row carries only
+ * ids; activities and notifications are built later by {@link SideEffectWorker}.
+ */
+@Service
+@RequiredArgsConstructor
+public class SideEffectOutbox {
+    
+    private final OutboxEventRepository outboxEventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Value("${app.outbox.lease-ms:30000}")
+    private long leaseMillis;
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(OutboxEvent.SideEffectType type, Long actorId, Long targetId) {
+        // The lease keeps the poller away while the post-commit dispatch handles the first attempt
+        OutboxEvent event = outboxEventRepository.save(OutboxEvent.builder()
+                .type(type)
+                .actorId(actorId)
+                .targetId(targetId)
+                .nextAttemptAt(Instant.now().plusMillis(leaseMillis))
+                .build());
+        eventPublisher.publishEvent(new SideEffectRecordedEvent(event.getId()));
+    }
+}
@@ -0,0 +1,198 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.entity.Comment;
+import code.hub.codehubbackend.entity.OutboxEvent;
+import code.hub.codehubbackend.entity.Snippet;
+import code.hub.codehubbackend.entity.User;
+import code.hub.codehubbackend.event.SideEffectRecordedEvent;
+import code.hub.codehubbackend.repository.CommentRepository;
+import code.hub.codehubbackend.repository.OutboxEventRepository;
+import code.hub.codehubbackend.repository.SnippetRepository;
+import code.hub.codehubbackend.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Processes outbox rows off the request path. Each row is dispatched to the bounded fan-out pool
+ * right after the recording transaction commits; rows that were rejected, failed or lost to a
+ * restart are picked up again by a poller once their lease or backoff expires.
+ */
+@Component
+@Slf4j
+public class SideEffectWorker {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final SnippetRepository snippetRepository;
+    private final CommentRepository commentRepository;
+    private final UserRepository userRepository;
+    private final ActivityService activityService;
+    private final NotificationService notificationService;
+    private final ThreadPoolTaskExecutor executor;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter processedCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+
+    @Value("${app.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.lease-ms:30000}")
+    private long leaseMillis;
+
+    @Value("${app.outbox.backoff-ms:2000}")
+    private long backoffMillis;
+
+    @Value("${app.outbox.poll-batch-size:100}")
+    private int pollBatchSize;
+
+    public SideEffectWorker(OutboxEventRepository outboxEventRepository,
+                            SnippetRepository snippetRepository,
+                            CommentRepository commentRepository,
+                            UserRepository userRepository,
+                            ActivityService activityService,
+                            NotificationService notificationService,
+                            @Qualifier("sideEffectExecutor") ThreadPoolTaskExecutor executor,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.snippetRepository = snippetRepository;
+        this.commentRepository = commentRepository;
+        this.userRepository = userRepository;
+        this.activityService = activityService;
+        this.notificationService = notificationService;
+        this.executor = executor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.processedCounter = meterRegistry.counter("codehub.outbox.processed");
+        this.retriedCounter = meterRegistry.counter("codehub.outbox.retried");
+        this.failedCounter = meterRegistry.counter("codehub.outbox.failed");
+        Gauge.builder("codehub.outbox.queued", executor, pool -> pool.getThreadPoolExecutor().getQueue().size())
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener
+    public void onSideEffectRecorded(SideEffectRecordedEvent event) {
+        dispatch(event.getOutboxEventId(), 0);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:5000}")
+    public void pollDue() {
+        List<OutboxEvent> due = outboxEventRepository.findDue(Instant.now(), PageRequest.of(0, pollBatchSize));
+        for (OutboxEvent event : due) {
+            if (!dispatch(event.getId(), event.getAttempts())) {
+                break;
+            }
+        }
+    }
+
+    private boolean dispatch(Long outboxEventId, int attempts) {
+        try {
+            executor.execute(() -> process(outboxEventId, attempts));
+            return true;
+        } catch (TaskRejectedException e) {
+            // Pool is saturated; the row stays pending and the poller retries after the lease
+            log.debug("Fan-out pool saturated, deferring outbox event {}", outboxEventId);
+            return false;
+        }
+    }
+
+    void process(Long outboxEventId, int attempts) {
+        Integer claimed = transactionTemplate.execute(status -> outboxEventRepository.claim(
+                outboxEventId, attempts, Instant.now().plusMillis(leaseMillis)));
+        if (claimed == null || claimed == 0) {
+            return; // Already handled by another worker
+        }
+
+        try {
+            // Side effects and removal of the row commit together
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.findById(outboxEventId)
+                    .ifPresent(event -> {
+                        apply(event);
+                        outboxEventRepository.delete(event);
+                    }));
+            processedCounter.increment();
+        } catch (Exception e) {
+            handleFailure(outboxEventId, attempts + 1, e);
+        }
+    }
+
+    private void handleFailure(Long outboxEventId, int attempt, Exception e) {
+        String error = e.getMessage() != null && e.getMessage().length() > MAX_ERROR_LENGTH
+                ? e.getMessage().substring(0, MAX_ERROR_LENGTH)
+                : e.getMessage();
+        try {
+            if (attempt >= maxAttempts) {
+                transactionTemplate.execute(status -> outboxEventRepository.markFailed(outboxEventId, error));
+                failedCounter.increment();
+                log.error("Outbox event {} failed after {} attempts: {}", outboxEventId, attempt, error);
+            } else {
+                Instant nextAttemptAt = Instant.now().plusMillis(backoffMillis << (attempt - 1));
+                transactionTemplate.execute(status -> outboxEventRepository.reschedule(outboxEventId, nextAttemptAt, error));
+                retriedCounter.increment();
+                log.warn("Outbox event {} attempt {} failed, retrying at {}: {}", outboxEventId, attempt, nextAttemptAt, error);
+            }
+        } catch (Exception recordError) {
+            // The claim lease still expires, so the poller will pick the row up again
+            log.error("Failed to record outcome of outbox event {}: {}", outboxEventId, recordError.getMessage());
+        }
+    }
+
+    private void apply(OutboxEvent event) {
+        User actor = userRepository.findById(event.getActorId()).orElse(null);
+        if (actor == null) {
+            log.debug("Actor {} of outbox event {} no longer exists", event.getActorId(), event.getId());
+            return;
+        }
+
+        switch (event.getType()) {
+            case SNIPPET_LIKED, SNIPPET_UNLIKED -> snippetRepository.findById(event.getTargetId()).ifPresent(snippet -> {
+                boolean liked = event.getType() == OutboxEvent.SideEffectType.SNIPPET_LIKED;
+                activityService.createLikeActivity(snippet, actor, liked);
+                if (liked) {
+                    notificationService.createSnippetLikeNotification(snippet, actor);
+                }
+            });
+            case SNIPPET_FAVORITED, SNIPPET_UNFAVORITED -> snippetRepository.findById(event.getTargetId()).ifPresent(snippet -> {
+                boolean favorited = event.getType() == OutboxEvent.SideEffectType.SNIPPET_FAVORITED;
+                activityService.createFavoriteActivity(snippet, actor, favorited);
+                if (favorited) {
+                    notificationService.createSnippetStarNotification(snippet, actor);
+                }
+            });
+            case COMMENT_ADDED -> commentRepository.findById(event.getTargetId())
+                    .ifPresent(comment -> applyCommentAdded(comment, actor));
+            case USER_FOLLOWED -> userRepository.findById(event.getTargetId())
+                    .ifPresent(followed -> notificationService.createUserFollowNotification(followed, actor));
+        }
+    }
+
+    private void applyCommentAdded(Comment comment, User actor) {
+        Snippet snippet = comment.getSnippet();
+        activityService.createCommentActivity(snippet, actor, comment.getContent());
+
+        if (!snippet.getOwner().getId().equals(actor.getId())) {
+            notificationService.createSnippetCommentNotification(snippet, comment, actor);
+        }
+
+        Comment parent = comment.getParentComment();
+        if (parent != null && !parent.getAuthor().getId().equals(actor.getId())) {
+            notificationService.createCommentReplyNotification(parent, comment, actor);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.entity.Snippet;
+import code.hub.codehubbackend.repository.ActivityRepository;
+import code.hub.codehubbackend.repository.CommentLikeRepository;
+import code.hub.codehubbackend.repository.CommentRepository;
+import code.hub.codehubbackend.repository.FavoriteRepository;
+import code.hub.codehubbackend.repository.LikeRepository;
+import code.hub.codehubbackend.repository.NotificationRepository;
+import code.hub.codehubbackend.repository.RecentlyViewedRepository;
+import code.hub.codehubbackend.repository.SnippetRepository;
+import code.hub.codehubbackend.repository.SnippetVersionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deletes snippets together with everything that hangs off them using set-based statements,
+ * instead of letting JPA cascades load every comment, like and version first. Snippets with
+ * more engagement than the async threshold are tombstoned and purged in the background, where
+ * their children are deleted in chunks of short transactions before the final purge.
+ */
+@Service
+@Slf4j
+public class SnippetPurgeService {
+
+    // Children of a tombstoned snippet, deleted a chunk at a time in this order; rows that point at
+    // comments go before the comments themselves
+    private static final List<String> CHUNKED_DELETES = List.of(
+            "DELETE FROM notifications WHERE (target_type = 'snippet' AND target_id = :snippetId) "
+                    + "OR (target_type = 'comment' AND target_id IN (SELECT id FROM comments WHERE snippet_id = :snippetId)) "
+                    + "LIMIT :limit",
+            "DELETE FROM activities WHERE snippet_id = :snippetId "
+                    + "OR (target_type = 'snippet' AND target_id = :snippetId) "
+                    + "OR (target_type = 'comment' AND target_id IN (SELECT id FROM comments WHERE snippet_id = :snippetId)) "
+                    + "LIMIT :limit",
+            "DELETE FROM comment_likes WHERE comment_id IN (SELECT id FROM comments WHERE snippet_id = :snippetId) LIMIT :limit",
+            "UPDATE comments SET parent_comment_id = NULL WHERE snippet_id = :snippetId AND parent_comment_id IS NOT NULL LIMIT :limit",
+            "DELETE FROM comments WHERE snippet_id = :snippetId LIMIT :limit",
+            "DELETE FROM likes WHERE snippet_id = :snippetId LIMIT :limit",
+            "DELETE FROM snippet_versions WHERE snippet_id = :snippetId LIMIT :limit");
+
+    private final SnippetRepository snippetRepository;
+    private final CommentRepository commentRepository;
+    private final CommentLikeRepository commentLikeRepository;
+    private final LikeRepository likeRepository;
+    private final FavoriteRepository favoriteRepository;
+    private final RecentlyViewedRepository recentlyViewedRepository;
+    private final SnippetVersionRepository versionRepository;
+    private final ActivityRepository activityRepository;
+    private final NotificationRepository notificationRepository;
+    private final ActivityWriter activityWriter;
+    private final NotificationBadgeCounter badgeCounter;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter purgedCounter;
+    private final Counter tombstonedCounter;
+
+    @Value("${app.snippet.delete.async-threshold:5000}")
+    private long asyncThreshold;
+
+    @Value("${app.snippet.purge.batch-size:10}")
+    private int purgeBatchSize;
+
+    @Value("${app.snippet.purge.chunk-size:1000}")
+    private int purgeChunkSize;
+
+    public SnippetPurgeService(SnippetRepository snippetRepository,
+                               CommentRepository commentRepository,
+                               CommentLikeRepository commentLikeRepository,
+                               LikeRepository likeRepository,
+                               FavoriteRepository favoriteRepository,
+                               RecentlyViewedRepository recentlyViewedRepository,
+                               SnippetVersionRepository versionRepository,
+                               ActivityRepository activityRepository,
+                               NotificationRepository notificationRepository,
+                               ActivityWriter activityWriter,
+                               NotificationBadgeCounter badgeCounter,
+                               NamedParameterJdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry) {
+        this.snippetRepository = snippetRepository;
+        this.commentRepository = commentRepository;
+        this.commentLikeRepository = commentLikeRepository;
+        this.likeRepository = likeRepository;
+        this.favoriteRepository = favoriteRepository;
+        this.recentlyViewedRepository = recentlyViewedRepository;
+        this.versionRepository = versionRepository;
+        this.activityRepository = activityRepository;
+        this.notificationRepository = notificationRepository;
+        this.activityWriter = activityWriter;
+        this.badgeCounter = badgeCounter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.purgedCounter = meterRegistry.counter("codehub.snippets.purged");
+        this.tombstonedCounter = meterRegistry.counter("codehub.snippets.tombstoned");
+    }
+
+    /**
+     * Delete a snippet. Small snippets are purged in the caller's transaction; large ones are
+     * hidden right away and their rows removed by {@link #purgeTombstoned()}.
+     */
+    public void delete(Snippet snippet) {
+        long likes = snippet.getLikeCount() == null ? 0 : snippet.getLikeCount();
+        long engagement = likes + commentRepository.countBySnippet(snippet);
+        if (engagement > asyncThreshold) {
+            tombstone(snippet.getId());
+        } else {
+            purge(snippet.getId());
+        }
+    }
+
+    /**
+     * Remove a snippet and all rows that reference it, one statement per table
+     */
+    public void purge(Long snippetId) {
+        // Buffered activities for this snippet would otherwise land after the delete
+        activityWriter.flush();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> badgeOwners = notificationRepository.findUnreadRecipientIdsBySnippetId(snippetId);
+            int notifications = notificationRepository.deleteAllBySnippetId(snippetId);
+            int activities = activityRepository.deleteAllBySnippetId(snippetId);
+            int commentLikes = commentLikeRepository.deleteAllBySnippetId(snippetId);
+            commentRepository.detachRepliesBySnippetId(snippetId);
+            int comments = commentRepository.deleteAllBySnippetId(snippetId);
+            int likes = likeRepository.deleteAllBySnippetId(snippetId);
+            int favorites = favoriteRepository.deleteAllBySnippetId(snippetId);
+            recentlyViewedRepository.deleteAllBySnippetId(snippetId);
+            int versions = versionRepository.deleteAllBySnippetId(snippetId);
+            snippetRepository.deleteTagsBySnippetId(snippetId);
+            snippetRepository.deleteMediaUrlsBySnippetId(snippetId);
+            snippetRepository.deleteRowById(snippetId);
+
+            afterCommit(() -> badgeOwners.forEach(badgeCounter::invalidate));
+            log.info("Purged snippet {}: {} comments, {} comment likes, {} likes, {} favorites, {} versions, " +
+                            "{} activities, {} notifications",
+                    snippetId, comments, commentLikes, likes, favorites, versions, activities, notifications);
+        });
+        purgedCounter.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${app.snippet.purge.interval-ms:30000}")
+    public void purgeTombstoned() {
+        for (Long snippetId : snippetRepository.findTombstonedIds(purgeBatchSize)) {
+            try {
+                deleteChildrenInChunks(snippetId);
+                purge(snippetId);
+            } catch (Exception e) {
+                // Left tombstoned; the next run tries again
+                log.warn("Background purge of snippet {} failed: {}", snippetId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Empty the child tables of a tombstoned snippet one chunk per transaction, so a heavily
+     * engaged snippet never holds locks on them for one long delete. A failure leaves the
+     * remaining rows for the next run.
+     */
+    void deleteChildrenInChunks(Long snippetId) {
+        activityWriter.flush();
+        List<Long> badgeOwners = notificationRepository.findUnreadRecipientIdsBySnippetId(snippetId);
+
+        Map<String, Object> params = Map.of("snippetId", snippetId, "limit", purgeChunkSize);
+        long rows = 0;
+        for (String statement : CHUNKED_DELETES) {
+            int chunk;
+            do {
+                Integer updated = transactionTemplate.execute(status -> jdbcTemplate.update(statement, params));
+                chunk = updated == null ? 0 : updated;
+                rows += chunk;
+            } while (chunk >= purgeChunkSize);
+        }
+
+        badgeOwners.forEach(badgeCounter::invalidate);
+        log.info("Deleted {} rows under tombstoned snippet {} in chunks of {}", rows, snippetId, purgeChunkSize);
+    }
+
+    private void tombstone(Long snippetId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            snippetRepository.tombstone(snippetId, Instant.now());
+            // These lists dereference the snippet, so they must not outlive the tombstone
+            favoriteRepository.deleteAllBySnippetId(snippetId);
+            recentlyViewedRepository.deleteAllBySnippetId(snippetId);
+        });
+        tombstonedCounter.increment();
+        log.info("Tombstoned snippet {} for background purge", snippetId);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -11,6 +11,7 @@ import code.hub.codehubbackend.exception.UnauthorizedException;
 import code.hub.codehubbackend.mapper.SnippetMapper;
 import code.hub.codehubbackend.monitoring.CustomMetrics;
 import code.hub.codehubbackend.repository.*;
+import code.hub.codehubbackend.security.CurrentUserContext;
 import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,8 +21,6 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.annotation.Propagation;
@@ -55,12 +54,18 @@ public class SnippetService {
     @Autowired
     private ActivityService activityService;
     
+    @Autowired
+    private SnippetPurgeService snippetPurgeService;
+    
     @Autowired
     private RecentlyViewedService recentlyViewedService;
     
     @Autowired
     private SnippetMapper snippetMapper;
     
+    @Autowired
+    private CurrentUserContext currentUserContext;
+    
     @Autowired
     private CustomMetrics customMetrics;
     
@@ -99,7 +104,7 @@ public class SnippetService {
         // Upload files if provided
         List<String> mediaUrls = new ArrayList<>();
         if (files != null && !files.isEmpty()) {
-            mediaUrls = fileUploadService.uploadFiles(files);
+            mediaUrls = fileUploadService.uploadFiles(files, currentUser.getUsername());
         }
         
         // Also include any mediaUrls from the request (if any were provided)
@@ -140,7 +145,7 @@ public class SnippetService {
         
         // Upload new files if provided
         if (files != null && !files.isEmpty()) {
-            List<String> newMediaUrls = fileUploadService.uploadFiles(files);
+            List<String> newMediaUrls = fileUploadService.uploadFiles(files, currentUser.getUsername());
             snippet.getMediaUrls().addAll(newMediaUrls);
         }        // Update snippet
         snippet.setTitle(request.getTitle());
@@ -164,10 +169,8 @@ public class SnippetService {
             throw new UnauthorizedException("You can only delete your own snippets");
         }
         
-        // Delete related activities before deleting snippet
-        activityService.deleteActivitiesByTarget(id, "snippet");
-        
-        snippetRepository.delete(snippet);
+        // Children go in set-based deletes rather than through the JPA cascades
+        snippetPurgeService.delete(snippet);
     }
     
     public List<SnippetVersionResponse> getSnippetVersions(Long snippetId) {
@@ -325,13 +328,7 @@ public class SnippetService {
     // =============== HELPER METHODS ===============
     
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {            throw new UnauthorizedException("User not authenticated");
-        }
-        
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        return currentUserContext.require();
     }
     
     @SuppressWarnings("unused")
@@ -2,15 +2,18 @@ package code.hub.codehubbackend.service;
 
 import code.hub.codehubbackend.entity.User;
 import code.hub.codehubbackend.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+@Slf4j
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     
     @Autowired
     private UserRepository userRepository;
@@ -23,4 +26,18 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         
         return user;
     }
+    
+    /**
+     * Store a password re-hashed with the current cost during login. Only the hash column is
+     * written, so concurrent profile edits are not overwritten.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = (User) userDetails;
+        userRepository.updatePasswordHash(user.getId(), newPassword);
+        user.setPasswordHash(newPassword);
+        log.info("Upgraded password hash for user {}", user.getUsername());
+        return user;
+    }
 }
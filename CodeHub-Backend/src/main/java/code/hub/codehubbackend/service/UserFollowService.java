@@ -2,22 +2,33 @@ package code.hub.codehubbackend.service;
 
 import code.hub.codehubbackend.dto.user.FollowResponse;
 import code.hub.codehubbackend.dto.user.FollowStatusResponse;
+import code.hub.codehubbackend.entity.OutboxEvent;
 import code.hub.codehubbackend.entity.User;
 import code.hub.codehubbackend.entity.UserFollow;
+import code.hub.codehubbackend.event.FollowChangedEvent;
 import code.hub.codehubbackend.exception.ResourceNotFoundException;
 import code.hub.codehubbackend.repository.UserFollowRepository;
 import code.hub.codehubbackend.repository.UserRepository;
 import code.hub.codehubbackend.repository.SnippetRepository;
+import code.hub.codehubbackend.security.CurrentUserContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -26,7 +37,10 @@ public class UserFollowService {
     private final UserFollowRepository userFollowRepository;
     private final UserRepository userRepository;
     private final SnippetRepository snippetRepository;
-    private final NotificationService notificationService;
+    private final SideEffectOutbox sideEffectOutbox;
+    private final FollowGraph followGraph;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CurrentUserContext currentUserContext;
     
     /**
      * Toggle follow status for a user
@@ -47,6 +61,7 @@ public class UserFollowService {
         if (isFollowing) {
             // Unfollow
             userFollowRepository.deleteByFollowerIdAndFollowedUserId(currentUser.getId(), userId);
+            eventPublisher.publishEvent(new FollowChangedEvent(currentUser.getId(), userId, false));
             log.info("User {} unfollowed user {}", currentUser.getId(), userId);
             return false;
         } else {
@@ -54,8 +69,9 @@ public class UserFollowService {
             UserFollow userFollow = new UserFollow(currentUser, targetUser);
             userFollowRepository.save(userFollow);
             
-            // Create notification for followed user
-            notificationService.createUserFollowNotification(targetUser, currentUser);
+            // Notification for the followed user is written asynchronously
+            sideEffectOutbox.record(OutboxEvent.SideEffectType.USER_FOLLOWED, currentUser.getId(), userId);
+            eventPublisher.publishEvent(new FollowChangedEvent(currentUser.getId(), userId, true));
             
             log.info("User {} followed user {}", currentUser.getId(), userId);
             return true;
@@ -81,6 +97,7 @@ public class UserFollowService {
         }
         
         userFollowRepository.deleteByFollowerIdAndFollowedUserId(currentUser.getId(), userId);
+        eventPublisher.publishEvent(new FollowChangedEvent(currentUser.getId(), userId, false));
         log.info("User {} unfollowed user {}", currentUser.getId(), userId);
     }
     
@@ -89,34 +106,72 @@ public class UserFollowService {
      */
     public FollowStatusResponse getFollowStatus(Long userId) {
         User currentUser = getCurrentUser();
+        // For self, return counts but no follow status
+        boolean self = currentUser.getId().equals(userId);
         
-        if (currentUser.getId().equals(userId)) {
-            // For self, return counts but no follow status
-            long followerCount = userFollowRepository.countFollowersByUserId(userId);
-            long followingCount = userFollowRepository.countFollowingByUserId(userId);
-            
-            return FollowStatusResponse.builder()
-                    .isFollowing(false)
-                    .isFollowedBy(false)
-                    .followerCount(followerCount)
-                    .followingCount(followingCount)
-                    .build();
+        return FollowStatusResponse.builder()
+                .isFollowing(!self && followGraph.isFollowing(currentUser.getId(), userId))
+                .isFollowedBy(!self && followGraph.isFollowing(userId, currentUser.getId()))
+                .followerCount(followGraph.followerCount(userId))
+                .followingCount(followGraph.followingCount(userId))
+                .build();
+    }
+    
+    /**
+     * Get follow status between current user and each of the given users, answered from memory
+     */
+    public Map<Long, FollowStatusResponse> getFollowStatuses(List<Long> userIds) {
+        User currentUser = getCurrentUser();
+        Map<Long, FollowStatusResponse> statuses = new LinkedHashMap<>();
+        followGraph.followStates(currentUser.getId(), userIds).forEach((userId, state) -> {
+            boolean self = currentUser.getId().equals(userId);
+            statuses.put(userId, FollowStatusResponse.builder()
+                    .isFollowing(!self && state.isFollowing())
+                    .isFollowedBy(!self && state.isFollowedBy())
+                    .followerCount(state.getFollowerCount())
+                    .followingCount(state.getFollowingCount())
+                    .build());
+        });
+        return statuses;
+    }
+    
+    /**
+     * Get users who follow the given user back, in the graph's order (ascending id)
+     */
+    public List<FollowResponse> getMutualFollows(Long userId, int limit) {
+        long[] mutualIds = followGraph.mutuals(userId);
+        List<Long> ids = Arrays.stream(mutualIds).limit(limit).boxed().toList();
+        if (ids.isEmpty()) {
+            return List.of();
         }
         
-        boolean isFollowing = userFollowRepository.existsByFollowerIdAndFollowedUserId(
-                currentUser.getId(), userId);
-        boolean isFollowedBy = userFollowRepository.existsByFollowerIdAndFollowedUserId(
-                userId, currentUser.getId());
-        
-        long followerCount = userFollowRepository.countFollowersByUserId(userId);
-        long followingCount = userFollowRepository.countFollowingByUserId(userId);
+        Map<Long, User> users = userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        // Snippet counts and likes for the whole page in one query
+        Map<Long, Object[]> snippetStats = new HashMap<>();
+        for (Object[] row : snippetRepository.sumStatsByOwnerIds(ids)) {
+            snippetStats.put((Long) row[0], row);
+        }
         
-        return FollowStatusResponse.builder()
-                .isFollowing(isFollowing)
-                .isFollowedBy(isFollowedBy)
-                .followerCount(followerCount)
-                .followingCount(followingCount)
-                .build();
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .map(user -> {
+                    Object[] stats = snippetStats.get(user.getId());
+                    return FollowResponse.builder()
+                            .id(user.getId())
+                            .username(user.getUsername())
+                            .fullName(user.getFullName())
+                            .avatarUrl(user.getAvatarUrl())
+                            .bio(user.getBio())
+                            .location(user.getLocation())
+                            .isFollowingBack(true)
+                            .stats(buildFollowStats(user.getId(),
+                                    stats != null ? ((Number) stats[1]).longValue() : 0,
+                                    stats != null ? ((Number) stats[2]).longValue() : 0))
+                            .build();
+                })
+                .collect(Collectors.toList());
     }
     
     /**
@@ -130,7 +185,8 @@ public class UserFollowService {
         Page<UserFollow> followers = userFollowRepository.findByFollowedUserOrderByCreatedAtDesc(
                 targetUser, pageable);
         
-        return followers.map(this::convertToFollowResponse);
+        Long viewerId = followers.isEmpty() ? null : getCurrentUser().getId();
+        return followers.map(userFollow -> convertToFollowResponse(userFollow, viewerId));
     }
     
     /**
@@ -144,7 +200,8 @@ public class UserFollowService {
         Page<UserFollow> following = userFollowRepository.findByFollowerOrderByCreatedAtDesc(
                 targetUser, pageable);
         
-        return following.map(this::convertToFollowingResponse);
+        Long viewerId = following.isEmpty() ? null : getCurrentUser().getId();
+        return following.map(userFollow -> convertToFollowingResponse(userFollow, viewerId));
     }
     
     /**
@@ -166,16 +223,12 @@ public class UserFollowService {
     /**
      * Convert UserFollow to FollowResponse for followers
      */
-    private FollowResponse convertToFollowResponse(UserFollow userFollow) {
+    private FollowResponse convertToFollowResponse(UserFollow userFollow, Long viewerId) {
         User follower = userFollow.getFollower();
-        User currentUser = getCurrentUser();
         
         // Check if current user follows this follower back
-        boolean isFollowingBack = false;
-        if (!currentUser.getId().equals(follower.getId())) {
-            isFollowingBack = userFollowRepository.existsByFollowerIdAndFollowedUserId(
-                    currentUser.getId(), follower.getId());
-        }
+        boolean isFollowingBack = !follower.getId().equals(viewerId)
+                && followGraph.isFollowing(viewerId, follower.getId());
         
         return FollowResponse.builder()
                 .id(follower.getId())
@@ -193,13 +246,11 @@ public class UserFollowService {
     /**
      * Convert UserFollow to FollowResponse for following
      */
-    private FollowResponse convertToFollowingResponse(UserFollow userFollow) {
+    private FollowResponse convertToFollowingResponse(UserFollow userFollow, Long viewerId) {
         User followedUser = userFollow.getFollowedUser();
-        User currentUser = getCurrentUser();
         
         // Check if this followed user follows current user back
-        boolean isFollowingBack = userFollowRepository.existsByFollowerIdAndFollowedUserId(
-                followedUser.getId(), currentUser.getId());
+        boolean isFollowingBack = followGraph.isFollowing(followedUser.getId(), viewerId);
         
         return FollowResponse.builder()
                 .id(followedUser.getId())
@@ -218,15 +269,15 @@ public class UserFollowService {
      * Build follow stats for a user
      */
     private FollowResponse.FollowStats buildFollowStats(User user) {
-        long snippetCount = snippetRepository.countByOwner(user);
-        long followerCount = userFollowRepository.countFollowersByUserId(user.getId());
-        long followingCount = userFollowRepository.countFollowingByUserId(user.getId());
-        long totalLikes = snippetRepository.sumLikesByOwner(user);
-        
+        return buildFollowStats(user.getId(), snippetRepository.countByOwner(user),
+                snippetRepository.sumLikesByOwner(user));
+    }
+    
+    private FollowResponse.FollowStats buildFollowStats(Long userId, long snippetCount, long totalLikes) {
         return FollowResponse.FollowStats.builder()
                 .snippetCount(snippetCount)
-                .followerCount(followerCount)
-                .followingCount(followingCount)
+                .followerCount(followGraph.followerCount(userId))
+                .followingCount(followGraph.followingCount(userId))
                 .totalLikes(totalLikes)
                 .build();
     }
@@ -235,9 +286,6 @@ public class UserFollowService {
      * Get current authenticated user
      */
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        return currentUserContext.require();
     }
 }
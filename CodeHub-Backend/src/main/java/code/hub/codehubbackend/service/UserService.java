@@ -4,23 +4,27 @@ import code.hub.codehubbackend.dto.snippet.SnippetResponse;
 import code.hub.codehubbackend.dto.user.*;
 import code.hub.codehubbackend.entity.Snippet;
 import code.hub.codehubbackend.entity.User;
+import code.hub.codehubbackend.event.UserAccountChangedEvent;
 import code.hub.codehubbackend.exception.ResourceNotFoundException;
 import code.hub.codehubbackend.mapper.SnippetMapper;
 import code.hub.codehubbackend.repository.SnippetRepository;
 import code.hub.codehubbackend.repository.UserRepository;
 import code.hub.codehubbackend.repository.UserFollowRepository;
+import code.hub.codehubbackend.security.CurrentUserContext;
+import code.hub.codehubbackend.security.JwtUtils;
+import code.hub.codehubbackend.security.PasswordHasher;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -39,7 +43,22 @@ public class UserService {
     private ActivityService activityService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private PresenceService presenceService;
+
+    @Autowired
+    private FollowGraph followGraph;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CurrentUserContext currentUserContext;
+
+    @Autowired
+    private JwtUtils jwtUtils;
 
     public UserProfileResponse getCurrentUserProfile() {
         User currentUser = getCurrentUser();
@@ -74,10 +93,10 @@ public class UserService {
         Long snippetsCount = snippetRepository.countByOwner(user);
 
         // Count followers (users who follow this user)
-        Long followersCount = userFollowRepository.countFollowersByUserId(user.getId());
+        Long followersCount = followGraph.followerCount(user.getId());
 
         // Count following (users this user follows)
-        Long followingCount = userFollowRepository.countFollowingByUserId(user.getId()); // Calculate total likes,
+        Long followingCount = followGraph.followingCount(user.getId()); // Calculate total likes,
                                                                                          // views, and comments on
                                                                                          // user's snippets
         List<Snippet> userSnippets = snippetRepository.findByOwner(user);
@@ -97,7 +116,7 @@ public class UserService {
 
     @Transactional
     public UserProfileResponse updateUserProfile(UserUpdateRequest request) {
-        User currentUser = getCurrentUser();
+        User currentUser = loadCurrentUserForUpdate();
 
         if (request.getEmail() != null && !request.getEmail().equals(currentUser.getEmail())) {
             if (userRepository.existsByEmail(request.getEmail())) {
@@ -142,6 +161,7 @@ public class UserService {
             currentUser.setLinkedinUrl(request.getLinkedinUrl());
         }
         currentUser = userRepository.save(currentUser);
+        eventPublisher.publishEvent(new UserAccountChangedEvent(currentUser.getId()));
 
         // Create profile update activity
         activityService.createProfileUpdateActivity();
@@ -164,23 +184,30 @@ public class UserService {
         return getUserSnippets(currentUser.getId(), page, size);
     }
 
+    /**
+     * Change the current user's password and revoke every token issued before the change.
+     * Returns a new token, so the caller stays signed in.
+     */
     @Transactional
-    public void changePassword(PasswordChangeRequest request) {
-        User currentUser = getCurrentUser();
+    public String changePassword(PasswordChangeRequest request) {
+        User currentUser = loadCurrentUserForUpdate();
 
         // Verify current password
-        if (!passwordEncoder.matches(request.getCurrentPassword(), currentUser.getPasswordHash())) {
+        if (!passwordHasher.verify(request.getCurrentPassword(), currentUser.getPasswordHash())) {
             throw new RuntimeException("Current password is incorrect");
         }
 
         // Validate new password is different
-        if (passwordEncoder.matches(request.getNewPassword(), currentUser.getPasswordHash())) {
+        if (passwordHasher.verify(request.getNewPassword(), currentUser.getPasswordHash())) {
             throw new RuntimeException("New password must be different from current password");
         }
 
         // Update password
-        currentUser.setPasswordHash(passwordEncoder.encode(request.getNewPassword()));
+        currentUser.setPasswordHash(passwordHasher.hash(request.getNewPassword()));
+        currentUser.setPasswordChangedAt(Instant.now().truncatedTo(ChronoUnit.SECONDS));
         userRepository.save(currentUser);
+        eventPublisher.publishEvent(new UserAccountChangedEvent(currentUser.getId()));
+        return jwtUtils.generateToken(currentUser);
     }
 
     private UserProfileResponse convertToProfileResponse(User user) {
@@ -210,12 +237,33 @@ public class UserService {
                 .build();
     }
 
+    /**
+     * Online state of the given users, answered from the in-memory presence registry
+     */
+    public List<PresenceResponse> getPresence(List<Long> userIds) {
+        Map<Long, Boolean> online = presenceService.isOnline(userIds);
+        return userIds.stream()
+                .map(id -> PresenceResponse.builder()
+                        .userId(id)
+                        .username(presenceService.getUsername(id).orElse(null))
+                        .isOnline(online.get(id))
+                        .lastSeenAt(presenceService.getLastSeen(id).orElse(null))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
     public User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new RuntimeException("No authenticated user found");
-        }
-        return (User) authentication.getPrincipal();
+        return currentUserContext.require();
+    }
+
+    /**
+     * The current user as stored now. The authenticated principal can be a cached copy that is
+     * up to the cache TTL old, so saving it could write back a stale password hash or enabled flag.
+     */
+    private User loadCurrentUserForUpdate() {
+        Long userId = getCurrentUser().getId();
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
     }
 
     public User getUserByUsername(String username) {
@@ -406,8 +454,8 @@ public class UserService {
         Long totalViews = snippetRepository.sumViewsByOwner(user);
         
         // Get followers and following counts
-        Long followersCount = userFollowRepository.countFollowersByUserId(user.getId());
-        Long followingCount = userFollowRepository.countFollowingByUserId(user.getId());
+        Long followersCount = followGraph.followerCount(user.getId());
+        Long followingCount = followGraph.followingCount(user.getId());
 
         // Calculate reputation based on activity
         Double reputation = calculateReputation(snippetCount, totalLikes, totalViews);
@@ -439,7 +487,7 @@ public class UserService {
                 .reputation(reputation)
                 .skills(skills)
                 .experienceLevel(calculateExperienceLevel(snippetCount, reputation))
-                .isOnline(false) // Mock value for now
+                .isOnline(presenceService.isOnline(user.getId()))
                 .lastActive(user.getUpdatedAt())
                 .build();
     }
@@ -0,0 +1,87 @@
+package code.hub.codehubbackend.storage;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores files on Cloudinary with chunked uploads. Each upload holds one chunk in memory at a
+ * time, never more than {@code chunkSize}, instead of the whole file.
+ */
+@Slf4j
+public class CloudinaryStorageService implements StorageService {
+
+    // Cloudinary requires every chunk except the last to be at least 5MB
+    private static final int MIN_CHUNK_SIZE = 5 * 1024 * 1024;
+
+    private final Cloudinary cloudinary;
+    private final int chunkSize;
+    private final StorageMetrics metrics;
+
+    public CloudinaryStorageService(Cloudinary cloudinary, int chunkSize, MeterRegistry meterRegistry) {
+        this.cloudinary = cloudinary;
+        this.chunkSize = Math.max(MIN_CHUNK_SIZE, chunkSize);
+        this.metrics = new StorageMetrics(meterRegistry, "cloudinary");
+    }
+
+    @Override
+    public StoredObject store(StorageRequest request, InputStream content) throws IOException {
+        Map<String, Object> params = new HashMap<>(request.getOptions());
+        params.put("public_id", request.getPublicId());
+        params.put("folder", request.getFolder());
+        params.put("resource_type", request.getResourceType() == StorageRequest.ResourceType.IMAGE ? "image" : "auto");
+
+        // Small files get a buffer of their own size rather than a full chunk
+        int bufferSize = request.getSize() > 0 ? (int) Math.min(chunkSize, request.getSize()) : chunkSize;
+
+        StorageMetrics.Upload upload = metrics.start(content);
+        Map<?, ?> result = cloudinary.uploader().uploadLarge(upload, params, bufferSize);
+        upload.complete();
+
+        return new StoredObject((String) result.get("public_id"), (String) result.get("secure_url"), upload.bytes());
+    }
+
+    @Override
+    public String keyOf(String url) {
+        try {
+            if (url == null || !url.contains("cloudinary.com")) {
+                return null;
+            }
+
+            // Example URL:
+            // https://res.cloudinary.com/dqmlxcbxt/image/upload/v1234567890/codehub/avatars/user123_uuid.webp
+            int lastSlash = url.lastIndexOf('/');
+            int secondLastSlash = url.lastIndexOf('/', lastSlash - 1);
+            int thirdLastSlash = url.lastIndexOf('/', secondLastSlash - 1);
+
+            if (thirdLastSlash > 0) {
+                String publicId = url.substring(thirdLastSlash + 1);
+                // Remove file extension
+                int dotIndex = publicId.lastIndexOf('.');
+                if (dotIndex > 0) {
+                    publicId = publicId.substring(0, dotIndex);
+                }
+                return publicId;
+            }
+
+            return null;
+        } catch (Exception e) {
+            log.error("Error extracting public ID from URL: {}", url, e);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        Map<?, ?> result = cloudinary.uploader().destroy(key, ObjectUtils.emptyMap());
+        String resultStatus = (String) result.get("result");
+        log.info("Image deletion result for {}: {}", key, resultStatus);
+        return "ok".equals(resultStatus);
+    }
+}
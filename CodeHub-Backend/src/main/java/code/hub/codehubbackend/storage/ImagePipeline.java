@@ -0,0 +1,367 @@
+package code.hub.codehubbackend.storage;
+
+import code.hub.codehubbackend.entity.MediaObject;
+import code.hub.codehubbackend.exception.ResourceNotFoundException;
+import code.hub.codehubbackend.exception.ServiceBusyException;
+import code.hub.codehubbackend.repository.MediaObjectRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process resizing of avatars and covers for the local storage backend, standing in for the
+ * transformations Cloudinary applies remotely. The original is stored through the
+ * {@link MediaStore}; each image is decoded once and rendered into every variant of its profile on
+ * the bounded image pool. Variant URLs and cache paths name the content hash and the render version,
+ * so the bytes behind one never change and can be served with strong ETags and immutable cache
+ * headers.
+ * <p>
+ * The JDK has no WebP encoder, so variants are JPEG; transparent areas are flattened onto white and
+ * crops are centered.
+ */
+@Service
+@Slf4j
+public class ImagePipeline {
+
+    /**
+     * Part of every variant URL and cache path; bump it when rendering changes. New URLs then name
+     * variants that are rendered afresh, and older URLs are redirected to them.
+     */
+    public static final String RENDER_VERSION = "v1";
+
+    private final StorageService storageService;
+    private final MediaStore mediaStore;
+    private final MediaObjectRepository mediaObjectRepository;
+    private final ThreadPoolTaskExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Path cacheDir;
+    private final String publicUrl;
+    private final float jpegQuality;
+    private final long maxPixels;
+    private final long retryAfterSeconds;
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    private final Counter cacheHitCounter;
+    private final Counter cacheMissCounter;
+    private final Counter rejectedCounter;
+
+    public ImagePipeline(StorageService storageService,
+                         MediaStore mediaStore,
+                         MediaObjectRepository mediaObjectRepository,
+                         @Qualifier("imageProcessingExecutor") ThreadPoolTaskExecutor executor,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.storage.images.enabled:true}") boolean enabled,
+                         @Value("${app.storage.images.cache-dir:./data/media-cache}") String cacheDir,
+                         @Value("${app.storage.images.public-url:${app.storage.local.public-url:/media}/images}") String publicUrl,
+                         @Value("${app.storage.images.jpeg-quality:0.82}") float jpegQuality,
+                         @Value("${app.storage.images.max-pixels:40000000}") long maxPixels,
+                         @Value("${app.storage.images.retry-after-seconds:2}") long retryAfterSeconds) {
+        this.storageService = storageService;
+        this.mediaStore = mediaStore;
+        this.mediaObjectRepository = mediaObjectRepository;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled && storageService instanceof LocalStorageService;
+        this.cacheDir = Path.of(cacheDir).toAbsolutePath().normalize();
+        this.publicUrl = publicUrl.endsWith("/") ? publicUrl.substring(0, publicUrl.length() - 1) : publicUrl;
+        this.jpegQuality = jpegQuality;
+        this.maxPixels = maxPixels;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.cacheHitCounter = meterRegistry.counter("codehub.image.variant.cache", "outcome", "hit");
+        this.cacheMissCounter = meterRegistry.counter("codehub.image.variant.cache", "outcome", "miss");
+        this.rejectedCounter = meterRegistry.counter("codehub.image.render.rejected");
+    }
+
+    /**
+     * Whether uploads of this profile kind should go through the pipeline; only with local storage
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Store the original, referenced by the owner, and render its variants; returns the URL of the
+     * full-size variant. The other sizes are at the same URL with the last segment replaced.
+     */
+    public String store(MultipartFile file, ImageProfile profile, String owner) throws IOException {
+        StorageRequest request = StorageRequest.builder()
+                .folder(profile.getFolder())
+                .filename(file.getOriginalFilename())
+                .contentType(file.getContentType())
+                .size(file.getSize())
+                .resourceType(StorageRequest.ResourceType.IMAGE)
+                .build();
+        StoredMedia media = mediaStore.storeMedia(file, request, owner);
+
+        try {
+            await(render(profile, media.getContentHash(), media.getStorageKey()));
+        } catch (RuntimeException e) {
+            // Not a usable image; give back the reference taken for it
+            mediaStore.release(media.getUrl(), owner);
+            throw e;
+        }
+        return variantUrl(profile, media.getContentHash(), ImageVariant.FULL);
+    }
+
+    /**
+     * The stored original of an image. Variants of released images stay cached until their
+     * directory is dropped, so callers check the original before serving anything.
+     */
+    public MediaObject original(ImageProfile profile, String hash) {
+        Optional<MediaObject> original = enabled
+                ? mediaObjectRepository.findByContentHashAndFolder(hash, profile.getFolder())
+                : Optional.empty();
+        return original.orElseThrow(() -> new ResourceNotFoundException("Image", "hash", hash));
+    }
+
+    /**
+     * The cached file of a variant, rendering it from the original when the cache lost it
+     */
+    public Path variant(ImageProfile profile, MediaObject original, ImageVariant variant) {
+        String hash = original.getContentHash();
+        Path path = variantPath(profile, hash, variant);
+        if (Files.exists(path)) {
+            cacheHitCounter.increment();
+            return path;
+        }
+        cacheMissCounter.increment();
+
+        await(render(profile, hash, original.getStorageKey()));
+        return path;
+    }
+
+    public String etag(String hash, ImageVariant variant) {
+        return hash + "-" + variant.getPath() + "-" + RENDER_VERSION;
+    }
+
+    public boolean isVariantUrl(String url) {
+        return url != null && url.startsWith(publicUrl + "/");
+    }
+
+    /**
+     * Release the owner's reference to the original behind a variant URL of any render version, and
+     * drop the cached variants once the original is gone
+     */
+    public boolean release(String url, String owner) throws IOException {
+        String[] parts = url.substring(publicUrl.length() + 1).split("/");
+        ImageProfile profile = parts.length == 4 ? ImageProfile.fromPath(parts[0]) : null;
+        if (profile == null) {
+            return false;
+        }
+        String hash = parts[1];
+
+        Optional<MediaObject> original = mediaObjectRepository.findByContentHashAndFolder(hash, profile.getFolder());
+        if (original.isEmpty()) {
+            return false;
+        }
+        boolean released = mediaStore.release(original.get().getUrl(), owner);
+        if (mediaObjectRepository.findByContentHashAndFolder(hash, profile.getFolder()).isEmpty()) {
+            FileSystemUtils.deleteRecursively(variantDir(profile, hash));
+        }
+        return released;
+    }
+
+    /**
+     * The URL of a variant as rendered by the current version
+     */
+    public String variantUrl(ImageProfile profile, String hash, ImageVariant variant) {
+        return publicUrl + "/" + profile.getPath() + "/" + hash + "/" + RENDER_VERSION + "/" + variant.getPath();
+    }
+
+    private CompletableFuture<Void> render(ImageProfile profile, String hash, String storageKey) {
+        if (allVariantsCached(profile, hash)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // Concurrent requests for the same image share one render
+        String key = profile.getPath() + "/" + hash;
+        CompletableFuture<Void> render = inFlight.computeIfAbsent(key, k -> submit(profile, hash, storageKey));
+        render.whenComplete((result, error) -> inFlight.remove(key, render));
+        return render;
+    }
+
+    private CompletableFuture<Void> submit(ImageProfile profile, String hash, String storageKey) {
+        Timer timer = meterRegistry.timer("codehub.image.render", "profile", profile.getPath());
+        Path source = ((LocalStorageService) storageService).pathOf(storageKey);
+        try {
+            return CompletableFuture.runAsync(() -> {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                try {
+                    renderVariants(profile, hash, source);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    sample.stop(timer);
+                }
+            }, executor);
+        } catch (TaskRejectedException e) {
+            rejectedCounter.increment();
+            throw new ServiceBusyException("Too many images being processed, please retry shortly", retryAfterSeconds);
+        }
+    }
+
+    private void renderVariants(ImageProfile profile, String hash, Path source) throws IOException {
+        BufferedImage image = decode(source, profile.width(ImageVariant.FULL), profile.height(ImageVariant.FULL));
+        Path dir = Files.createDirectories(variantDir(profile, hash).resolve(RENDER_VERSION));
+
+        // Largest first, each from the previous one, so the source is scaled down only once
+        for (ImageVariant variant : ImageVariant.values()) {
+            image = fill(image, profile.width(variant), profile.height(variant));
+            writeJpeg(image, dir, variantPath(profile, hash, variant));
+        }
+
+        // Variants of earlier render versions are no longer served
+        try (DirectoryStream<Path> versions = Files.newDirectoryStream(variantDir(profile, hash), Files::isDirectory)) {
+            for (Path version : versions) {
+                if (!version.getFileName().toString().equals(RENDER_VERSION)) {
+                    FileSystemUtils.deleteRecursively(version);
+                }
+            }
+        }
+    }
+
+    private BufferedImage decode(Path source, int targetWidth, int targetHeight) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IllegalArgumentException("Image dimensions are too large");
+                }
+
+                // Skip source pixels while decoding large photos, keeping twice the needed resolution
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.min(width / targetWidth, height / targetHeight) / 2);
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage image = reader.read(0, param);
+                if (image == null) {
+                    throw new IllegalArgumentException("Image could not be decoded");
+                }
+                return image;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Scale to cover the target and crop the overflow around the center
+    private static BufferedImage fill(BufferedImage source, int width, int height) {
+        double scale = Math.max((double) width / source.getWidth(), (double) height / source.getHeight());
+        int cropWidth = Math.max(1, Math.min(source.getWidth(), (int) Math.round(width / scale)));
+        int cropHeight = Math.max(1, Math.min(source.getHeight(), (int) Math.round(height / scale)));
+        BufferedImage current = source.getSubimage(
+                (source.getWidth() - cropWidth) / 2, (source.getHeight() - cropHeight) / 2, cropWidth, cropHeight);
+
+        // Halve in steps first; a single bilinear pass over a large reduction drops most pixels
+        while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        return draw(current, width, height);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private void writeJpeg(BufferedImage image, Path dir, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+
+        // Written aside and moved into place, so a reader never gets half a file
+        Path temp = Files.createTempFile(dir, ".variant-", ".tmp");
+        try {
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private boolean allVariantsCached(ImageProfile profile, String hash) {
+        for (ImageVariant variant : ImageVariant.values()) {
+            if (!Files.exists(variantPath(profile, hash, variant))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Path variantDir(ImageProfile profile, String hash) {
+        return cacheDir.resolve(profile.getPath()).resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private Path variantPath(ImageProfile profile, String hash, ImageVariant variant) {
+        return variantDir(profile, hash).resolve(RENDER_VERSION).resolve(variant.getPath() + ".jpg");
+    }
+
+    private static void await(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw new IllegalArgumentException("Image could not be processed: " + io.getCause().getMessage(), io);
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package code.hub.codehubbackend.storage;
+
+/**
+ * Kinds of profile image with the size of each variant, largest first. All variants of a profile
+ * share its aspect ratio and are cropped to fill it.
+ */
+public enum ImageProfile {
+
+    AVATAR("avatar", "codehub/avatars", new int[][]{{300, 300}, {160, 160}, {64, 64}}),
+    COVER("cover", "codehub/covers", new int[][]{{1200, 400}, {800, 267}, {400, 133}});
+
+    private final String path;
+    private final String folder;
+    private final int[][] sizes;
+
+    ImageProfile(String path, String folder, int[][] sizes) {
+        this.path = path;
+        this.folder = folder;
+        this.sizes = sizes;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getFolder() {
+        return folder;
+    }
+
+    public int width(ImageVariant variant) {
+        return sizes[variant.ordinal()][0];
+    }
+
+    public int height(ImageVariant variant) {
+        return sizes[variant.ordinal()][1];
+    }
+
+    public static ImageProfile fromPath(String path) {
+        for (ImageProfile profile : values()) {
+            if (profile.path.equals(path)) {
+                return profile;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,30 @@
+package code.hub.codehubbackend.storage;
+
+/**
+ * Rendered sizes of a profile image, largest first
+ */
+public enum ImageVariant {
+
+    FULL("full"),
+    MEDIUM("medium"),
+    THUMBNAIL("thumbnail");
+
+    private final String path;
+
+    ImageVariant(String path) {
+        this.path = path;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public static ImageVariant fromPath(String path) {
+        for (ImageVariant variant : values()) {
+            if (variant.path.equals(path)) {
+                return variant;
+            }
+        }
+        return null;
+    }
+}
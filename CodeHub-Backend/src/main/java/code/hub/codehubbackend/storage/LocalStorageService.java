@@ -0,0 +1,109 @@
+package code.hub.codehubbackend.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Stores files on the local filesystem, for tests and self-hosted installs. Files are written to a
+ * temporary name and moved into place, so readers never see a partial file. Objects are served
+ * under {@code publicBaseUrl} by the static resource handler.
+ */
+@Slf4j
+public class LocalStorageService implements StorageService {
+
+    private final Path root;
+    private final String publicBaseUrl;
+    private final int bufferSize;
+    private final StorageMetrics metrics;
+
+    public LocalStorageService(Path root, String publicBaseUrl, int bufferSize, MeterRegistry meterRegistry) throws IOException {
+        this.root = Files.createDirectories(root).toAbsolutePath().normalize();
+        this.publicBaseUrl = publicBaseUrl.endsWith("/")
+                ? publicBaseUrl.substring(0, publicBaseUrl.length() - 1) : publicBaseUrl;
+        this.bufferSize = Math.max(4096, bufferSize);
+        this.metrics = new StorageMetrics(meterRegistry, "local");
+        log.info("Local storage at {} served from {}", this.root, this.publicBaseUrl);
+    }
+
+    @Override
+    public StoredObject store(StorageRequest request, InputStream content) throws IOException {
+        String extension = extensionOf(request.getFilename());
+        String name = request.getPublicId().endsWith(extension) ? request.getPublicId() : request.getPublicId() + extension;
+        String key = sanitize(request.getFolder() + "/" + name);
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+
+        Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+        StorageMetrics.Upload upload = metrics.start(content);
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[bufferSize];
+                int n;
+                while ((n = upload.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        upload.complete();
+        return new StoredObject(key, publicBaseUrl + "/" + key, upload.bytes());
+    }
+
+    @Override
+    public String keyOf(String url) {
+        if (url == null || !url.startsWith(publicBaseUrl + "/")) {
+            return null;
+        }
+        return url.substring(publicBaseUrl.length() + 1);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(resolve(key));
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public String getPublicBaseUrl() {
+        return publicBaseUrl;
+    }
+
+    /**
+     * Where the object with the given key lives on disk
+     */
+    public Path pathOf(String key) {
+        return resolve(key);
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        return path;
+    }
+
+    // Keys come partly from client file names; keep them to characters that are safe in paths and URLs
+    private static String sanitize(String key) {
+        return key.replaceAll("[^A-Za-z0-9._/-]", "_").replaceAll("\\.{2,}", "_");
+    }
+
+    private static String extensionOf(String filename) {
+        if (filename == null) {
+            return "";
+        }
+        int dot = filename.lastIndexOf('.');
+        return dot >= 0 && dot < filename.length() - 1 ? filename.substring(dot) : "";
+    }
+}
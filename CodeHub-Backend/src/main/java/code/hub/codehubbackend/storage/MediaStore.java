@@ -0,0 +1,198 @@
+package code.hub.codehubbackend.storage;
+
+import code.hub.codehubbackend.entity.MediaObject;
+import code.hub.codehubbackend.entity.MediaRef;
+import code.hub.codehubbackend.repository.MediaObjectRepository;
+import code.hub.codehubbackend.repository.MediaRefRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Content-addressed front of the {@link StorageService}. Uploads are hashed with SHA-256 first, a
+ * cheap pass over the multipart temp file, and content already stored in the same folder is
+ * reused instead of being sent again. Every upload of an object takes a reference held by the
+ * uploader, who alone can release it, and the object is only deleted from storage once the last one
+ * is released.
+ * <p>
+ * Storage keys start with the content hash and end with a per-upload suffix. The index is what
+ * makes lookups content-addressed; the suffix keeps a late delete of a released copy from removing
+ * a fresh upload of the same content.
+ */
+@Service
+@Slf4j
+public class MediaStore {
+
+    private static final int INSERT_ATTEMPTS = 3;
+
+    private final StorageService storageService;
+    private final MediaObjectRepository mediaObjectRepository;
+    private final MediaRefRepository mediaRefRepository;
+    private final int bufferSize;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter savedBytesCounter;
+
+    public MediaStore(StorageService storageService,
+                      MediaObjectRepository mediaObjectRepository,
+                      MediaRefRepository mediaRefRepository,
+                      MeterRegistry meterRegistry,
+                      @Value("${app.storage.buffer-size:65536}") int bufferSize) {
+        this.storageService = storageService;
+        this.mediaObjectRepository = mediaObjectRepository;
+        this.mediaRefRepository = mediaRefRepository;
+        this.bufferSize = Math.max(4096, bufferSize);
+        this.hitCounter = meterRegistry.counter("codehub.media.dedup", "outcome", "hit");
+        this.missCounter = meterRegistry.counter("codehub.media.dedup", "outcome", "miss");
+        this.savedBytesCounter = meterRegistry.counter("codehub.media.dedup.saved.bytes");
+    }
+
+    /**
+     * Store the file, or take another reference to an identical file already in the request's
+     * folder, and return its URL. The reference is held by the owner, a username. The request's
+     * public id is replaced by one derived from the content hash.
+     */
+    public String store(MultipartFile file, StorageRequest request, String owner) throws IOException {
+        return storeMedia(file, request, owner).getUrl();
+    }
+
+    /**
+     * Like {@link #store}, also telling the caller the content hash and storage key
+     */
+    public StoredMedia storeMedia(MultipartFile file, StorageRequest request, String owner) throws IOException {
+        String hash = hash(file);
+
+        Optional<StoredMedia> existing = reuse(hash, request.getFolder(), owner);
+        if (existing.isPresent()) {
+            hitCounter.increment();
+            savedBytesCounter.increment(file.getSize());
+            if (file instanceof SpooledFile spooled) {
+                spooled.alreadyStored();
+            }
+            return existing.get();
+        }
+        missCounter.increment();
+
+        StorageRequest addressed = request.toBuilder()
+                .publicId(hash.substring(0, 32) + "_" + UUID.randomUUID().toString().substring(0, 8)
+                        + fileExtension(request))
+                .build();
+        StoredObject stored;
+        // Upload jobs count progress on this stream only, not on the hash pass above
+        try (InputStream content = file instanceof SpooledFile spooled
+                ? spooled.getStorageInputStream() : file.getInputStream()) {
+            stored = storageService.store(addressed, content);
+        }
+
+        for (int attempt = 1; attempt <= INSERT_ATTEMPTS; attempt++) {
+            try {
+                MediaObject media = mediaObjectRepository.save(MediaObject.builder()
+                        .contentHash(hash)
+                        .folder(request.getFolder())
+                        .storageKey(stored.getKey())
+                        .url(stored.getUrl())
+                        .contentType(request.getContentType())
+                        .sizeBytes(stored.getBytes())
+                        .build());
+                addRef(media.getId(), owner);
+                return new StoredMedia(hash, stored.getKey(), stored.getUrl());
+            } catch (DataIntegrityViolationException e) {
+                // Someone stored the same content meanwhile; keep theirs and drop this copy
+                Optional<StoredMedia> winner = reuse(hash, request.getFolder(), owner);
+                if (winner.isPresent()) {
+                    deleteQuietly(stored.getKey());
+                    return winner.get();
+                }
+                // Their object was just released and is being removed; try to take its place
+            }
+        }
+
+        log.warn("Could not index upload {}; it is stored but will not be deduplicated", stored.getKey());
+        return new StoredMedia(hash, stored.getKey(), stored.getUrl());
+    }
+
+    /**
+     * Drop one of the owner's references to the object behind the URL and delete it once nothing
+     * references it. Returns false when the owner holds no reference, which includes URLs of
+     * uploads from before references had owners.
+     */
+    public boolean release(String url, String owner) throws IOException {
+        Optional<MediaObject> media = mediaObjectRepository.findFirstByUrl(url);
+        if (media.isEmpty()) {
+            return false;
+        }
+
+        Long id = media.get().getId();
+        // The owner's row goes first: a crash in between leaves the object referenced, not lost
+        if (mediaRefRepository.deleteOne(id, owner) == 0 || mediaObjectRepository.release(id) == 0) {
+            return false;
+        }
+        if (mediaObjectRepository.deleteIfUnreferenced(id) == 1) {
+            storageService.delete(media.get().getStorageKey());
+            log.info("Deleted media {} after its last reference was released", media.get().getStorageKey());
+        }
+        return true;
+    }
+
+    private Optional<StoredMedia> reuse(String hash, String folder, String owner) {
+        return mediaObjectRepository.findByContentHashAndFolder(hash, folder)
+                .filter(media -> mediaObjectRepository.acquire(media.getId()) == 1)
+                .map(media -> {
+                    addRef(media.getId(), owner);
+                    return new StoredMedia(hash, media.getStorageKey(), media.getUrl());
+                });
+    }
+
+    private void addRef(Long mediaId, String owner) {
+        mediaRefRepository.save(MediaRef.builder().mediaId(mediaId).owner(owner).build());
+    }
+
+    private String hash(MultipartFile file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+
+        try (InputStream content = file.getInputStream()) {
+            byte[] buffer = new byte[bufferSize];
+            int n;
+            while ((n = content.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void deleteQuietly(String key) {
+        try {
+            storageService.delete(key);
+        } catch (Exception e) {
+            log.warn("Failed to delete duplicate upload {}: {}", key, e.getMessage());
+        }
+    }
+
+    // Non-image files keep their extension so downloads open with the right application
+    private static String fileExtension(StorageRequest request) {
+        String filename = request.getFilename();
+        if (request.getResourceType() == StorageRequest.ResourceType.IMAGE || filename == null) {
+            return "";
+        }
+        int dot = filename.lastIndexOf('.');
+        return dot >= 0 && dot < filename.length() - 1
+                ? filename.substring(dot).replaceAll("[^A-Za-z0-9.]", "") : "";
+    }
+}
@@ -0,0 +1,124 @@
+package code.hub.codehubbackend.storage;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.LongConsumer;
+
+/**
+ * A job's spooled upload, handed to the existing upload code as a {@link MultipartFile}. Progress
+ * is only reported from the stream the storage backend reads, opened by {@link MediaStore}; other
+ * reads, such as the hash pass, do not move it.
+ */
+class SpooledFile implements MultipartFile {
+
+    private final UploadJob job;
+    private final LongConsumer progress;
+
+    SpooledFile(UploadJob job, LongConsumer progress) {
+        this.job = job;
+        this.progress = progress;
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return job.getFilename();
+    }
+
+    @Override
+    public String getContentType() {
+        return job.getContentType();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return job.getTotalBytes() == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return job.getTotalBytes();
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return Files.readAllBytes(job.getSpool());
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(job.getSpool());
+    }
+
+    /**
+     * The stream sent to storage; its reads are the job's progress
+     */
+    InputStream getStorageInputStream() throws IOException {
+        return new Progress(Files.newInputStream(job.getSpool()), progress);
+    }
+
+    /**
+     * Identical content is already stored, so nothing is left to send
+     */
+    void alreadyStored() {
+        progress.accept(job.getTotalBytes());
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        transferTo(dest.toPath());
+    }
+
+    @Override
+    public void transferTo(Path dest) throws IOException {
+        Files.copy(job.getSpool(), dest, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static final class Progress extends FilterInputStream {
+
+        private final LongConsumer progress;
+        private long bytes;
+
+        Progress(InputStream in, LongConsumer progress) {
+            super(in);
+            this.progress = progress;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                progress.accept(++bytes);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                bytes += n;
+                progress.accept(bytes);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            bytes += skipped;
+            return skipped;
+        }
+    }
+}
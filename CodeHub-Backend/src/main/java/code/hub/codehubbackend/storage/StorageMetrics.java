@@ -0,0 +1,86 @@
+package code.hub.codehubbackend.storage;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upload duration, size and throughput for one storage backend
+ */
+class StorageMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Timer uploadTimer;
+    private final DistributionSummary bytesSummary;
+    private final DistributionSummary throughputSummary;
+
+    StorageMetrics(MeterRegistry meterRegistry, String backend) {
+        this.meterRegistry = meterRegistry;
+        this.uploadTimer = Timer.builder("codehub.storage.upload")
+                .tag("backend", backend).register(meterRegistry);
+        this.bytesSummary = DistributionSummary.builder("codehub.storage.upload.size")
+                .baseUnit("bytes").tag("backend", backend).register(meterRegistry);
+        this.throughputSummary = DistributionSummary.builder("codehub.storage.upload.throughput")
+                .baseUnit("bytes_per_second").tag("backend", backend).register(meterRegistry);
+    }
+
+    Upload start(InputStream content) {
+        return new Upload(content);
+    }
+
+    /**
+     * Counts the bytes read by the backend, so the numbers reflect what was actually sent
+     */
+    class Upload extends FilterInputStream {
+
+        private final Timer.Sample sample = Timer.start(meterRegistry);
+        private long bytes;
+
+        private Upload(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                bytes += n;
+            }
+            return n;
+        }
+
+        long bytes() {
+            return bytes;
+        }
+
+        /**
+         * Record a finished upload; failed uploads are left out of the throughput numbers
+         */
+        void complete() {
+            long nanos = sample.stop(uploadTimer);
+            bytesSummary.record(bytes);
+            if (nanos > 0) {
+                throughputSummary.record(bytes * (double) TimeUnit.SECONDS.toNanos(1) / nanos);
+            }
+        }
+
+        @Override
+        public void close() {
+            // The caller owns the underlying stream
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package code.hub.codehubbackend.storage;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+import java.util.Map;
+
+/**
+ * What to store and where. Options are backend-specific hints, such as Cloudinary transformations;
+ * backends that do not understand them store the content as is.
+ */
+@SuppressWarnings("cast") // Lombok's @Singular builder casts map values to Object
+@Getter
+@Builder(toBuilder = true)
+public class StorageRequest {
+
+    private final String folder;
+    private final String publicId;
+    private final String filename;
+    private final String contentType;
+    private final long size;
+
+    @Builder.Default
+    private final ResourceType resourceType = ResourceType.AUTO;
+
+    @Singular
+    private final Map<String, Object> options;
+
+    public enum ResourceType {
+        IMAGE, AUTO
+    }
+}
@@ -0,0 +1,28 @@
+package code.hub.codehubbackend.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Where uploaded files end up. Content is streamed from the caller's input stream through a
+ * fixed-size buffer, so an upload never has to fit in memory.
+ */
+public interface StorageService {
+
+    /**
+     * Store the content under the request's folder and public id. The stream is read to the end
+     * but not closed.
+     */
+    StoredObject store(StorageRequest request, InputStream content) throws IOException;
+
+    /**
+     * The key of an object from the URL {@link #store} returned for it, or null when the URL does
+     * not belong to this storage
+     */
+    String keyOf(String url);
+
+    /**
+     * Delete an object by key; returns false when there was nothing to delete
+     */
+    boolean delete(String key) throws IOException;
+}
@@ -0,0 +1,16 @@
+package code.hub.codehubbackend.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An upload as recorded by the {@link MediaStore}
+ */
+@Getter
+@AllArgsConstructor
+public class StoredMedia {
+
+    private final String contentHash;
+    private final String storageKey;
+    private final String url;
+}
@@ -0,0 +1,13 @@
+package code.hub.codehubbackend.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class StoredObject {
+
+    private final String key;
+    private final String url;
+    private final long bytes;
+}
@@ -0,0 +1,86 @@
+package code.hub.codehubbackend.storage;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * An upload accepted by {@link UploadJobService}: the spooled file, who sent it and how far it has
+ * got. Workers update it while readers poll it, so the mutable state is volatile.
+ */
+@Getter
+public class UploadJob {
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED;
+
+        public boolean isFinished() {
+            return this == SUCCEEDED || this == FAILED;
+        }
+    }
+
+    private final String id;
+    private final String owner;
+    private final String kind;
+    private final String filename;
+    private final String contentType;
+    private final long totalBytes;
+    private final Instant createdAt;
+    private final Path spool;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile long transferredBytes;
+    private volatile int attempts;
+    private volatile String url;
+    private volatile Object result;
+    private volatile String error;
+    private volatile Instant updatedAt;
+
+    UploadJob(String id, String owner, String kind, String filename, String contentType, long totalBytes, Path spool) {
+        this.id = id;
+        this.owner = owner;
+        this.kind = kind;
+        this.filename = filename;
+        this.contentType = contentType;
+        this.totalBytes = totalBytes;
+        this.spool = spool;
+        this.createdAt = Instant.now();
+        this.updatedAt = createdAt;
+    }
+
+    /**
+     * Percentage of the file sent to storage by the current attempt, 100 once the job has succeeded
+     */
+    public int getProgress() {
+        if (status == Status.SUCCEEDED) {
+            return 100;
+        }
+        return totalBytes > 0 ? (int) Math.min(99, transferredBytes * 100 / totalBytes) : 0;
+    }
+
+    void started() {
+        attempts++;
+        transferredBytes = 0;
+        status = Status.RUNNING;
+        updatedAt = Instant.now();
+    }
+
+    void transferred(long bytes) {
+        transferredBytes = bytes;
+    }
+
+    void succeeded(String url, Object result) {
+        this.url = url;
+        this.result = result;
+        this.transferredBytes = totalBytes;
+        this.updatedAt = Instant.now();
+        this.status = Status.SUCCEEDED;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        this.updatedAt = Instant.now();
+        this.status = Status.FAILED;
+    }
+}
@@ -0,0 +1,308 @@
+package code.hub.codehubbackend.storage;
+
+import code.hub.codehubbackend.dto.upload.UploadJobResponse;
+import code.hub.codehubbackend.exception.BadRequestException;
+import code.hub.codehubbackend.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs uploads as background jobs so a slow storage provider never holds a request thread.
+ * <p>
+ * The request spools the file to local disk, which is usually just a rename of the multipart temp
+ * file, and returns a job id. A worker on the bounded upload job pool then sends it to storage,
+ * retrying transient failures with exponential backoff, and runs the job's completion step, such
+ * as posting the chat message the file belongs to. The owner follows the job by polling or on
+ * {@code /user/queue/uploads}, which gets every status change and throttled progress.
+ * <p>
+ * Jobs live in memory only; finished jobs are kept for a while so late pollers still see the
+ * outcome, and spool files left behind by a restart are removed at startup. A job belongs to the
+ * node that spooled it, so with several nodes the job endpoints need sticky routing by user; pushes
+ * reach the owner on any node through the cluster broker.
+ */
+@Service
+@Slf4j
+public class UploadJobService {
+
+    private static final String UPLOADS_QUEUE = "/queue/uploads";
+    private static final String SPOOL_SUFFIX = ".part";
+
+    /**
+     * Sends a spooled file to storage and returns its URL
+     */
+    @FunctionalInterface
+    public interface Upload {
+        String upload(MultipartFile file) throws IOException;
+    }
+
+    /**
+     * Uses the stored URL, e.g. to post a chat message; the return value is reported with the job
+     */
+    @FunctionalInterface
+    public interface Completion {
+        Object complete(String url);
+    }
+
+    private final ThreadPoolTaskExecutor executor;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Path spoolDir;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final long retentionMillis;
+    private final long progressIntervalMillis;
+    private final int maxActivePerUser;
+    private final long retryAfterSeconds;
+    private final Map<String, UploadJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Integer> activeByOwner = new ConcurrentHashMap<>();
+    private final Timer durationTimer;
+    private final Counter succeededCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+    private final Counter retryCounter;
+
+    public UploadJobService(@Qualifier("uploadJobExecutor") ThreadPoolTaskExecutor executor,
+                            @Lazy SimpMessagingTemplate messagingTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.storage.jobs.spool-dir:./data/upload-spool}") String spoolDir,
+                            @Value("${app.storage.jobs.max-attempts:3}") int maxAttempts,
+                            @Value("${app.storage.jobs.retry-backoff-ms:1000}") long retryBackoffMillis,
+                            @Value("${app.storage.jobs.retention-ms:900000}") long retentionMillis,
+                            @Value("${app.storage.jobs.progress-interval-ms:500}") long progressIntervalMillis,
+                            @Value("${app.storage.jobs.max-active-per-user:5}") int maxActivePerUser,
+                            @Value("${app.storage.jobs.retry-after-seconds:5}") long retryAfterSeconds) throws IOException {
+        this.executor = executor;
+        this.messagingTemplate = messagingTemplate;
+        this.meterRegistry = meterRegistry;
+        this.spoolDir = Files.createDirectories(Paths.get(spoolDir).toAbsolutePath().normalize());
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.retentionMillis = retentionMillis;
+        this.progressIntervalMillis = progressIntervalMillis;
+        this.maxActivePerUser = maxActivePerUser;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.durationTimer = meterRegistry.timer("codehub.upload.job.duration");
+        this.succeededCounter = meterRegistry.counter("codehub.upload.jobs", "outcome", "succeeded");
+        this.failedCounter = meterRegistry.counter("codehub.upload.jobs", "outcome", "failed");
+        this.rejectedCounter = meterRegistry.counter("codehub.upload.jobs", "outcome", "rejected");
+        this.retryCounter = meterRegistry.counter("codehub.upload.job.retries");
+        Gauge.builder("codehub.upload.jobs.active", jobs,
+                all -> all.values().stream().filter(job -> !job.getStatus().isFinished()).count())
+                .register(meterRegistry);
+        removeStaleSpoolFiles();
+    }
+
+    /**
+     * Spool the file and queue it for upload. Throws {@link ServiceBusyException} when the owner
+     * already has too many uploads in flight or the pool's queue is full.
+     */
+    public UploadJob submit(String owner, String kind, MultipartFile file, Upload upload, Completion completion)
+            throws IOException {
+        if (!reserve(owner)) {
+            rejectedCounter.increment();
+            throw new ServiceBusyException("Too many uploads in progress, please wait for one to finish",
+                    retryAfterSeconds);
+        }
+
+        String id = UUID.randomUUID().toString();
+        Path spool = spoolDir.resolve(id + SPOOL_SUFFIX);
+        try {
+            file.transferTo(spool);
+        } catch (IOException e) {
+            unreserve(owner);
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+        UploadJob job = new UploadJob(id, owner, kind, file.getOriginalFilename(), file.getContentType(),
+                Files.size(spool), spool);
+        jobs.put(id, job);
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            executor.execute(() -> {
+                try {
+                    run(job, upload, completion);
+                } finally {
+                    unreserve(owner);
+                    sample.stop(durationTimer);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            jobs.remove(id);
+            unreserve(owner);
+            deleteSpool(job);
+            rejectedCounter.increment();
+            throw new ServiceBusyException("Too many uploads being processed, please retry shortly", retryAfterSeconds);
+        }
+
+        // The response reports the job as queued; pushes start when a worker picks it up
+        return job;
+    }
+
+    /**
+     * The job, if it exists and belongs to the owner
+     */
+    public Optional<UploadJob> getJob(String id, String owner) {
+        return Optional.ofNullable(jobs.get(id)).filter(job -> job.getOwner().equals(owner));
+    }
+
+    /**
+     * Forget finished jobs once their owners have had time to see the outcome
+     */
+    @Scheduled(fixedDelayString = "${app.storage.jobs.sweep-ms:60000}")
+    public void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minusMillis(retentionMillis);
+        jobs.values().removeIf(job -> job.getStatus().isFinished() && job.getUpdatedAt().isBefore(cutoff));
+    }
+
+    // Counted per owner in one atomic step, so concurrent submits cannot both take the last slot
+    private boolean reserve(String owner) {
+        boolean[] reserved = new boolean[1];
+        activeByOwner.compute(owner, (key, active) -> {
+            int count = active != null ? active : 0;
+            if (count >= maxActivePerUser) {
+                return active;
+            }
+            reserved[0] = true;
+            return count + 1;
+        });
+        return reserved[0];
+    }
+
+    private void unreserve(String owner) {
+        activeByOwner.computeIfPresent(owner, (key, active) -> active > 1 ? active - 1 : null);
+    }
+
+    void run(UploadJob job, Upload upload, Completion completion) {
+        String url;
+        try {
+            url = uploadWithRetry(job, upload);
+        } catch (JobFailedException e) {
+            deleteSpool(job);
+            fail(job, e.getMessage());
+            return;
+        }
+        // The stored copy is all that is needed from here on
+        deleteSpool(job);
+
+        Object result;
+        try {
+            result = completion != null ? completion.complete(url) : null;
+        } catch (Exception e) {
+            // The file is stored; only what it was for failed, and repeating the upload would not help
+            log.warn("Upload job {} stored {} but could not complete: {}", job.getId(), url, e.getMessage());
+            fail(job, e.getMessage());
+            return;
+        }
+
+        job.succeeded(url, result);
+        succeededCounter.increment();
+        publish(job);
+    }
+
+    private String uploadWithRetry(UploadJob job, Upload upload) throws JobFailedException {
+        AtomicLong lastPush = new AtomicLong(System.nanoTime());
+        SpooledFile file = new SpooledFile(job, bytes -> {
+            job.transferred(bytes);
+            long now = System.nanoTime();
+            long last = lastPush.get();
+            if (now - last >= TimeUnit.MILLISECONDS.toNanos(progressIntervalMillis)
+                    && lastPush.compareAndSet(last, now)) {
+                publish(job);
+            }
+        });
+
+        while (true) {
+            job.started();
+            publish(job);
+            try {
+                return upload.upload(file);
+            } catch (IllegalArgumentException | BadRequestException e) {
+                throw new JobFailedException(e.getMessage());
+            } catch (Exception e) {
+                if (job.getAttempts() >= maxAttempts) {
+                    log.error("Upload job {} failed after {} attempts", job.getId(), job.getAttempts(), e);
+                    throw new JobFailedException("Upload failed: " + e.getMessage());
+                }
+                log.warn("Upload job {} attempt {} failed, retrying: {}", job.getId(), job.getAttempts(), e.getMessage());
+                retryCounter.increment();
+            }
+
+            // The pool is dedicated to these jobs, so backing off on the worker stalls no request
+            try {
+                Thread.sleep(retryBackoffMillis << Math.min(job.getAttempts() - 1, 10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new JobFailedException("Upload was interrupted");
+            }
+        }
+    }
+
+    private void fail(UploadJob job, String error) {
+        job.failed(error);
+        failedCounter.increment();
+        publish(job);
+    }
+
+    private void publish(UploadJob job) {
+        try {
+            messagingTemplate.convertAndSendToUser(job.getOwner(), UPLOADS_QUEUE, UploadJobResponse.from(job));
+        } catch (Exception e) {
+            // Polling still reports the job
+            log.debug("Failed to push upload job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    private void deleteSpool(UploadJob job) {
+        try {
+            Files.deleteIfExists(job.getSpool());
+        } catch (IOException e) {
+            log.warn("Failed to delete spooled upload {}: {}", job.getSpool(), e.getMessage());
+        }
+    }
+
+    // Jobs do not survive a restart, so anything still spooled belongs to none
+    private void removeStaleSpoolFiles() {
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(spoolDir, "*" + SPOOL_SUFFIX)) {
+            for (Path path : stale) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to clean upload spool {}: {}", spoolDir, e.getMessage());
+        }
+    }
+
+    private static final class JobFailedException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        JobFailedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package code.hub.codehubbackend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalMediaHeadersTest {
+
+    private final StorageConfig.LocalMediaHeaders headers = new StorageConfig.LocalMediaHeaders();
+
+    @Test
+    void preHandle_ShowsRasterImagesInline() {
+        MockHttpServletResponse response = handle("/media/avatars/photo.PNG");
+
+        assertEquals("nosniff", response.getHeader("X-Content-Type-Options"));
+        assertNull(response.getHeader("Content-Disposition"));
+    }
+
+    @Test
+    void preHandle_DownloadsEverythingElse() {
+        assertTrue(handle("/media/chat/page.html").getHeader("Content-Disposition").startsWith("attachment"));
+        assertTrue(handle("/media/chat/logo.svg").getHeader("Content-Disposition").startsWith("attachment"));
+        assertTrue(handle("/media/chat/notes").getHeader("Content-Disposition").startsWith("attachment"));
+    }
+
+    private MockHttpServletResponse handle(String uri) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(headers.preHandle(new MockHttpServletRequest("GET", uri), response, new ResourceHttpRequestHandler()));
+        return response;
+    }
+}
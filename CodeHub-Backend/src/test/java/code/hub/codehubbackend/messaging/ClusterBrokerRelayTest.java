@@ -0,0 +1,111 @@
+package code.hub.codehubbackend.messaging;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs several broker nodes in one JVM, connected through an in-process hub.
+ */
+public class ClusterBrokerRelayTest {
+
+    private Node nodeA;
+    private Node nodeB;
+    private Node nodeC;
+
+    @BeforeEach
+    void setUp() {
+        InProcessClusterTransport.Hub hub = new InProcessClusterTransport.Hub();
+        nodeA = new Node("node-a", hub);
+        nodeB = new Node("node-b", hub);
+        nodeC = new Node("node-c", hub);
+    }
+
+    @Test
+    void topicMessage_ReachesEveryNodeExactlyOnce() {
+        nodeA.send("/topic/chat/room-1", "hello");
+
+        assertEquals(List.of("/topic/chat/room-1"), nodeA.destinations());
+        assertEquals(List.of("/topic/chat/room-1"), nodeB.destinations());
+        assertEquals(List.of("/topic/chat/room-1"), nodeC.destinations());
+        assertEquals("hello", nodeB.payloads().get(0));
+    }
+
+    @Test
+    void userDestination_IsRelayedForPeersToResolve() {
+        nodeB.send("/user/alice/queue/messages", "hi alice");
+
+        assertEquals(List.of("/user/alice/queue/messages"), nodeA.destinations());
+        assertEquals(List.of("/user/alice/queue/messages"), nodeC.destinations());
+    }
+
+    @Test
+    void resolvedSessionDestination_StaysLocal() {
+        nodeA.send("/queue/messages-usersession1", "local only");
+
+        assertEquals(1, nodeA.destinations().size());
+        assertTrue(nodeB.destinations().isEmpty());
+        assertTrue(nodeC.destinations().isEmpty());
+    }
+
+    @Test
+    void messageFromPeer_IsMarkedWithOriginNode() {
+        nodeA.send("/topic/presence", "ping");
+
+        Message<?> received = nodeB.received.get(0);
+        assertEquals("node-a", received.getHeaders().get(ClusterBrokerRelay.ORIGIN_NODE_HEADER));
+    }
+
+    @Test
+    void attach_AgainDoesNotDuplicatePeerMessages() {
+        nodeB.relay.attach(nodeB.brokerChannel);
+
+        nodeA.send("/topic/chat/room-1", "once");
+
+        assertEquals(List.of("/topic/chat/room-1"), nodeB.destinations());
+    }
+
+    private static class Node {
+
+        private final ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        private final List<Message<?>> received = new CopyOnWriteArrayList<>();
+        private final ClusterBrokerRelay relay;
+
+        Node(String nodeId, InProcessClusterTransport.Hub hub) {
+            relay = new ClusterBrokerRelay(
+                    new InProcessClusterTransport(nodeId, hub), "/topic/", "/user/");
+            brokerChannel.addInterceptor(relay);
+            brokerChannel.subscribe(received::add);
+            relay.attach(brokerChannel);
+        }
+
+        void send(String destination, String body) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination(destination);
+            brokerChannel.send(MessageBuilder.createMessage(
+                    body.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders()));
+        }
+
+        List<String> destinations() {
+            return received.stream()
+                    .map(message -> SimpMessageHeaderAccessor.getDestination(message.getHeaders()))
+                    .toList();
+        }
+
+        List<String> payloads() {
+            return received.stream()
+                    .map(message -> new String((byte[]) message.getPayload(), StandardCharsets.UTF_8))
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package code.hub.codehubbackend.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClusterRateLimiterTest {
+
+    private static final long MINUTE = 60_000L;
+
+    private final RateLimitPolicy policy = RateLimitPolicy.builder()
+            .name("test")
+            .pattern("/api/**")
+            .requests(100)
+            .period(Duration.ofMinutes(1))
+            .burst(100)
+            .keyType(RateLimitPolicy.KeyType.USER)
+            .build();
+
+    @Test
+    void tryAcquire_HoldsGlobalLimitAcrossNodes() {
+        InMemorySharedCounterStore store = new InMemorySharedCounterStore();
+        List<ClusterRateLimiter> nodes = List.of(
+                new ClusterRateLimiter(policy, store, 10, 1000),
+                new ClusterRateLimiter(policy, store, 10, 1000),
+                new ClusterRateLimiter(policy, store, 10, 1000));
+
+        int allowed = 0;
+        for (int i = 0; i < 300; i++) {
+            if (nodes.get(i % nodes.size()).tryAcquire("user:1", 5 * MINUTE + i)) {
+                allowed++;
+            }
+        }
+
+        // Never above the limit; below it by at most the tokens stranded in other nodes' leases
+        assertTrue(allowed <= 100);
+        assertTrue(allowed >= 100 - (nodes.size() - 1) * 9);
+        long storeCalls = nodes.stream().mapToLong(ClusterRateLimiter::leaseCallCount).sum();
+        assertTrue(storeCalls <= 300 / 10 + nodes.size());
+    }
+
+    @Test
+    void tryAcquire_StartsOverInNextWindow() {
+        ClusterRateLimiter limiter = new ClusterRateLimiter(policy, new InMemorySharedCounterStore(), 10, 1000);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire("ip:1.2.3.4", MINUTE));
+        }
+        assertFalse(limiter.tryAcquire("ip:1.2.3.4", MINUTE + 1));
+        assertEquals(2 * MINUTE, limiter.windowEnd(MINUTE + 1));
+
+        assertTrue(limiter.tryAcquire("ip:1.2.3.4", 2 * MINUTE));
+        assertEquals(1, limiter.evictStale(3 * MINUTE));
+    }
+
+    @Test
+    void tryAcquire_FailsOpenWhenStoreIsDown() {
+        SharedCounterStore broken = new SharedCounterStore() {
+            @Override
+            public long lease(String key, long windowStart, long requested, long limit) {
+                throw new IllegalStateException("store unavailable");
+            }
+
+            @Override
+            public void evictBefore(long windowStart) {
+            }
+        };
+        ClusterRateLimiter limiter = new ClusterRateLimiter(policy, broken, 10, 1000);
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire("user:1", MINUTE));
+        }
+        // One failed call per batch, not per request
+        assertEquals(2, limiter.storeErrorCount());
+    }
+}
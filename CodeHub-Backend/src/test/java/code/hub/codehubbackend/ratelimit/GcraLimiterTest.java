@@ -0,0 +1,100 @@
+package code.hub.codehubbackend.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GcraLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    // One request per second sustained, three back to back
+    private final RateLimitPolicy policy = RateLimitPolicy.builder()
+            .name("test")
+            .pattern("/api/**")
+            .requests(60)
+            .period(Duration.ofMinutes(1))
+            .burst(3)
+            .keyType(RateLimitPolicy.KeyType.IP)
+            .build();
+
+    @Test
+    void tryAcquire_AllowsBurstThenRejects() {
+        GcraLimiter limiter = new GcraLimiter(policy, 100);
+
+        assertEquals(2, limiter.tryAcquire("ip:1.2.3.4", 0).getRemaining());
+        assertEquals(1, limiter.tryAcquire("ip:1.2.3.4", 0).getRemaining());
+        assertEquals(0, limiter.tryAcquire("ip:1.2.3.4", 0).getRemaining());
+
+        RateLimitDecision rejected = limiter.tryAcquire("ip:1.2.3.4", 0);
+        assertFalse(rejected.isAllowed());
+        assertEquals(1, rejected.retryAfterSeconds());
+        assertEquals(3, rejected.resetSeconds());
+
+        // Other keys are unaffected
+        assertTrue(limiter.tryAcquire("ip:5.6.7.8", 0).isAllowed());
+    }
+
+    @Test
+    void tryAcquire_RefillsAtSustainedRate() {
+        GcraLimiter limiter = new GcraLimiter(policy, 100);
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("user:1", 0);
+        }
+
+        assertFalse(limiter.tryAcquire("user:1", SECOND / 2).isAllowed());
+        assertTrue(limiter.tryAcquire("user:1", SECOND).isAllowed());
+        assertFalse(limiter.tryAcquire("user:1", SECOND).isAllowed());
+
+        RateLimitDecision full = limiter.tryAcquire("user:1", 10 * SECOND);
+        assertTrue(full.isAllowed());
+        assertEquals(2, full.getRemaining());
+    }
+
+    @Test
+    void evictExpired_DropsOnlyRefilledKeys() {
+        GcraLimiter limiter = new GcraLimiter(policy, 100);
+        limiter.tryAcquire("ip:1.1.1.1", 0);
+        limiter.tryAcquire("ip:2.2.2.2", 5 * SECOND);
+
+        assertEquals(1, limiter.evictExpired(2 * SECOND));
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    void tryAcquire_SharesOverflowCellWhenFull() {
+        GcraLimiter limiter = new GcraLimiter(policy, 2);
+        limiter.tryAcquire("ip:1.1.1.1", 0);
+        limiter.tryAcquire("ip:2.2.2.2", 0);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("ip:10.0.0." + i, 0).isAllowed());
+        }
+        assertFalse(limiter.tryAcquire("ip:10.0.0.99", 0).isAllowed());
+        assertEquals(2, limiter.size());
+        assertEquals(4, limiter.overflowCount());
+    }
+
+    @Test
+    void resolve_IgnoresForwardedForFromUntrustedClients() {
+        ClientAddressResolver resolver = new ClientAddressResolver("10.0.0.0/8");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("203.0.113.7");
+        request.addHeader("X-Forwarded-For", "1.2.3.4");
+
+        assertEquals("203.0.113.7", resolver.resolve(request));
+    }
+
+    @Test
+    void resolve_TakesFirstUntrustedHopBehindProxies() {
+        ClientAddressResolver resolver = new ClientAddressResolver("10.0.0.0/8, 192.168.1.1");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.1.2.3");
+        request.addHeader("X-Forwarded-For", "6.6.6.6, 198.51.100.20, 192.168.1.1");
+
+        assertEquals("198.51.100.20", resolver.resolve(request));
+    }
+}
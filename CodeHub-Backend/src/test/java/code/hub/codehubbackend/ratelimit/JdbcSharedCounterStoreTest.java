@@ -0,0 +1,68 @@
+package code.hub.codehubbackend.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JdbcSharedCounterStoreTest {
+
+    private JdbcSharedCounterStore store;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MariaDB;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+            CREATE TABLE rate_limit_counters (
+                counter_key VARCHAR(191) NOT NULL,
+                window_start BIGINT NOT NULL,
+                used BIGINT NOT NULL DEFAULT 0,
+                PRIMARY KEY (counter_key, window_start)
+            )
+            """);
+        store = new JdbcSharedCounterStore(jdbcTemplate, new DataSourceTransactionManager(dataSource));
+    }
+
+    @Test
+    void lease_OpensTheWindowAndStopsAtTheLimit() {
+        assertEquals(10, store.lease("upload:alice", 0, 10, 25));
+        assertEquals(10, store.lease("upload:alice", 0, 10, 25));
+        assertEquals(5, store.lease("upload:alice", 0, 10, 25));
+        assertEquals(0, store.lease("upload:alice", 0, 10, 25));
+
+        // A new window starts from zero
+        assertEquals(10, store.lease("upload:alice", 60_000, 10, 25));
+    }
+
+    @Test
+    void lease_ConcurrentFirstHitsNeverGrantMoreThanTheLimit() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Long>> leases = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                leases.add(() -> store.lease("auth:10.0.0.1", 0, 5, 100));
+            }
+
+            long granted = 0;
+            for (Future<Long> lease : pool.invokeAll(leases)) {
+                granted += lease.get();
+            }
+            assertEquals(100, granted);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package code.hub.codehubbackend.repository;
+
+import code.hub.codehubbackend.entity.Comment;
+import code.hub.codehubbackend.entity.Notification;
+import code.hub.codehubbackend.entity.Snippet;
+import code.hub.codehubbackend.entity.User;
+import code.hub.codehubbackend.util.TestDataBuilder;
+
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.MariaDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Testcontainers
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class NotificationRepositoryTest {
+
+    @Container
+    static MariaDBContainer<?> mariaDB = new MariaDBContainer<>("mariadb:10.6")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    private User owner;
+    private User reader;
+    private Snippet snippet;
+    private Snippet otherSnippet;
+    private Comment comment;
+    private Comment reply;
+
+    @BeforeEach
+    void setUp() {
+        owner = entityManager.persistAndFlush(TestDataBuilder.createTestUser());
+        User otherUser = TestDataBuilder.createTestUser();
+        otherUser.setUsername("reader");
+        otherUser.setEmail("reader@example.com");
+        reader = entityManager.persistAndFlush(otherUser);
+
+        snippet = entityManager.persistAndFlush(TestDataBuilder.createTestSnippet(owner));
+        otherSnippet = entityManager.persistAndFlush(TestDataBuilder.createTestSnippet(owner));
+        comment = entityManager.persistAndFlush(Comment.builder().snippet(snippet).author(reader).content("first").build());
+        reply = entityManager.persistAndFlush(Comment.builder().snippet(snippet).author(owner).content("reply")
+                .parentComment(comment).build());
+    }
+
+    @Test
+    void deleteAllBySnippetId_RemovesSnippetAndCommentNotifications() {
+        notification(owner, Notification.NotificationType.SNIPPET_LIKED, snippet.getId(), "snippet", false);
+        notification(reader, Notification.NotificationType.COMMENT_LIKED, comment.getId(), "comment", false);
+        notification(reader, Notification.NotificationType.COMMENT_REPLIED, reply.getId(), "comment", true);
+        Notification kept = notification(owner, Notification.NotificationType.SNIPPET_LIKED, otherSnippet.getId(), "snippet", false);
+
+        int deleted = notificationRepository.deleteAllBySnippetId(snippet.getId());
+        entityManager.clear();
+
+        assertEquals(3, deleted);
+        assertEquals(List.of(kept.getId()), notificationRepository.findAll().stream().map(Notification::getId).toList());
+    }
+
+    @Test
+    void findUnreadRecipientIdsBySnippetId_FindsRecipientsOfCommentNotifications() {
+        notification(reader, Notification.NotificationType.COMMENT_LIKED, comment.getId(), "comment", false);
+        notification(owner, Notification.NotificationType.COMMENT_REPLIED, reply.getId(), "comment", true);
+        notification(owner, Notification.NotificationType.SNIPPET_LIKED, otherSnippet.getId(), "snippet", false);
+
+        List<Long> recipients = notificationRepository.findUnreadRecipientIdsBySnippetId(snippet.getId());
+
+        assertEquals(List.of(reader.getId()), recipients);
+    }
+
+    @Test
+    void findMaxGroupSeq_ReturnsTheLatestGroupOfTheKey() {
+        group(owner, "SNIPPET_LIKED:snippet:1", 1);
+        group(owner, "SNIPPET_LIKED:snippet:1", 2);
+        group(reader, "SNIPPET_LIKED:snippet:1", 5);
+
+        assertEquals(2, notificationRepository.findMaxGroupSeq(owner, "SNIPPET_LIKED:snippet:1"));
+        assertNull(notificationRepository.findMaxGroupSeq(owner, "SNIPPET_LIKED:snippet:2"));
+    }
+
+    @Test
+    void groupSeq_IsUniquePerRecipientAndKey() {
+        group(owner, "SNIPPET_LIKED:snippet:1", 1);
+        // Ungrouped notifications leave the sequence empty
+        notification(owner, Notification.NotificationType.COMMENT_REPLIED, reply.getId(), "comment", false);
+        notification(owner, Notification.NotificationType.COMMENT_REPLIED, reply.getId(), "comment", false);
+
+        assertThrows(PersistenceException.class, () -> group(owner, "SNIPPET_LIKED:snippet:1", 1));
+    }
+
+    private Notification group(User recipient, String groupKey, int groupSeq) {
+        return entityManager.persistAndFlush(Notification.builder()
+                .recipient(recipient)
+                .type(Notification.NotificationType.SNIPPET_LIKED)
+                .title("title")
+                .message("message")
+                .targetId(snippet.getId())
+                .targetType("snippet")
+                .groupKey(groupKey)
+                .groupSeq(groupSeq)
+                .build());
+    }
+
+    private Notification notification(User recipient, Notification.NotificationType type, Long targetId,
+                                      String targetType, boolean read) {
+        return entityManager.persistAndFlush(Notification.builder()
+                .recipient(recipient)
+                .type(type)
+                .title("title")
+                .message("message")
+                .targetId(targetId)
+                .targetType(targetType)
+                .read(read)
+                .build());
+    }
+}
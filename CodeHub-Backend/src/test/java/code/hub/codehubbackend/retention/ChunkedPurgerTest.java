@@ -0,0 +1,98 @@
+package code.hub.codehubbackend.retention;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkedPurgerTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-31T00:00:00Z");
+
+    private JdbcTemplate jdbcTemplate;
+    private ChunkedPurger purger;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE notifications (id BIGINT PRIMARY KEY, created_at TIMESTAMP, is_read BOOLEAN)");
+        // Chunks of 10 ids, at most 2 chunks per run
+        purger = new ChunkedPurger(jdbcTemplate, new DataSourceTransactionManager(dataSource), 10, 2, 0);
+    }
+
+    @Test
+    void purge_ReachesEligibleRowsPastTheChunkLimit() {
+        // 100 old rows the predicate keeps, then 10 old read rows, then 10 recent read rows
+        insert(1, 100, NOW.minus(Duration.ofDays(60)), false);
+        insert(101, 110, NOW.minus(Duration.ofDays(60)), true);
+        insert(111, 120, NOW.minus(Duration.ofDays(1)), true);
+
+        long removed = purger.purge(policy(), NOW);
+
+        assertEquals(10, removed);
+        assertEquals(0, count("id BETWEEN 101 AND 110"));
+        assertEquals(110, count("1 = 1"));
+    }
+
+    @Test
+    void purge_SkipsKeptRowsBetweenEligibleOnes() {
+        // Eligible rows spread over 25 chunks' worth of kept rows
+        insert(1, 250, NOW.minus(Duration.ofDays(60)), false);
+        for (long id = 5; id <= 250; id += 50) {
+            jdbcTemplate.update("UPDATE notifications SET is_read = TRUE WHERE id = ?", id);
+        }
+
+        long first = purger.purge(policy(), NOW);
+        long second = purger.purge(policy(), NOW);
+
+        // Two chunks per run, each starting at an eligible row
+        assertEquals(2, first);
+        assertEquals(2, second);
+        assertEquals(1, count("is_read = TRUE"));
+    }
+
+    @Test
+    void purge_StopsAtTheFirstRowNewerThanTheCutoff() {
+        insert(1, 10, NOW.minus(Duration.ofDays(60)), true);
+        insert(11, 20, NOW.minus(Duration.ofDays(1)), true);
+        // Out of order with the ids, so the walk must not reach it
+        jdbcTemplate.update("UPDATE notifications SET created_at = ? WHERE id = 15", Timestamp.from(NOW.minus(Duration.ofDays(60))));
+
+        long removed = purger.purge(policy(), NOW);
+
+        assertEquals(10, removed);
+        assertEquals(10, count("id BETWEEN 11 AND 20"));
+    }
+
+    private RetentionPolicy policy() {
+        return RetentionPolicy.builder()
+                .name("notifications")
+                .table("notifications")
+                .timestampColumn("created_at")
+                .retention(Duration.ofDays(30))
+                .predicate("is_read = TRUE")
+                .monotonic(true)
+                .build();
+    }
+
+    private void insert(long from, long to, Instant createdAt, boolean read) {
+        for (long id = from; id <= to; id++) {
+            jdbcTemplate.update("INSERT INTO notifications (id, created_at, is_read) VALUES (?, ?, ?)",
+                    id, Timestamp.from(createdAt), read);
+        }
+    }
+
+    private int count(String where) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notifications WHERE " + where, Integer.class);
+    }
+}
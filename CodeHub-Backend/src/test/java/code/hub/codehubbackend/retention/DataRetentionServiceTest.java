@@ -0,0 +1,58 @@
+package code.hub.codehubbackend.retention;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DataRetentionServiceTest {
+
+    @Mock
+    private ChunkedPurger purger;
+
+    private DataRetentionService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new DataRetentionService(purger, new SimpleMeterRegistry(), 30, "", 365, "", 90, 0, 86_400_000L);
+    }
+
+    @Test
+    void run_OnlyRunsPoliciesWithThePrefix() {
+        List<String> purged = new ArrayList<>();
+        when(purger.purge(any(RetentionPolicy.class), any(Instant.class))).thenAnswer(invocation -> {
+            purged.add(invocation.<RetentionPolicy>getArgument(0).getName());
+            return 2L;
+        });
+
+        assertEquals(4, service.run("notification"));
+        assertEquals(List.of("notifications", "notification_group_actors"), purged);
+    }
+
+    @Test
+    void run_IsSkippedWhileAnotherRunIsInProgress() {
+        List<Long> nested = new ArrayList<>();
+        when(purger.purge(any(RetentionPolicy.class), any(Instant.class))).thenAnswer(invocation -> {
+            nested.add(service.run("notifications"));
+            return 1L;
+        });
+
+        service.runAll();
+
+        assertFalse(nested.isEmpty());
+        assertTrue(nested.stream().allMatch(removed -> removed == 0L));
+        // Released afterwards
+        assertTrue(service.run("notifications") > 0);
+    }
+}
@@ -0,0 +1,84 @@
+package code.hub.codehubbackend.security;
+
+import code.hub.codehubbackend.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class PasswordHasherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ThreadPoolTaskExecutor executor = executor(1, 1);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void hash_RunsOnTheHashingPoolAndVerifies() {
+        PasswordHasher hasher = new PasswordHasher(new BCryptPasswordEncoder(4), executor, meterRegistry, 2);
+
+        String hash = hasher.hash("secret");
+
+        assertTrue(hasher.verify("secret", hash));
+        assertFalse(hasher.verify("wrong", hash));
+        assertEquals(1, meterRegistry.timer("codehub.password.hash", "operation", "encode").count());
+        assertEquals(2, meterRegistry.timer("codehub.password.hash", "operation", "matches").count());
+    }
+
+    @Test
+    void submit_RefusesWorkWhenThePoolIsFull() throws Exception {
+        PasswordHasher hasher = new PasswordHasher(new BCryptPasswordEncoder(4), executor, meterRegistry, 2);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> busy = hasher.submit("login", () -> {
+            running.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        running.await();
+        CompletableFuture<String> queued = hasher.encode("queued");
+
+        ServiceBusyException e = assertThrows(ServiceBusyException.class, () -> hasher.hash("refused"));
+
+        assertEquals(2, e.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.counter("codehub.password.hash.rejected").count());
+        release.countDown();
+        assertTrue(busy.join());
+        assertNotNull(queued.join());
+    }
+
+    @Test
+    void verify_RethrowsTheEncodersFailure() {
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.matches(any(), anyString())).thenThrow(new IllegalArgumentException("Invalid salt"));
+        PasswordHasher hasher = new PasswordHasher(encoder, executor, meterRegistry, 2);
+
+        assertThrows(IllegalArgumentException.class, () -> hasher.verify("secret", "not-a-hash"));
+    }
+
+    private static ThreadPoolTaskExecutor executor(int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.initialize();
+        return executor;
+    }
+}
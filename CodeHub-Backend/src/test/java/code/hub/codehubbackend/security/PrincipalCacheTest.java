@@ -0,0 +1,66 @@
+package code.hub.codehubbackend.security;
+
+import code.hub.codehubbackend.entity.User;
+import code.hub.codehubbackend.event.UserAccountChangedEvent;
+import code.hub.codehubbackend.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PrincipalCacheTest {
+
+    private static final Instant CHANGED_AT = Instant.parse("2026-01-01T12:00:00Z");
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final User user = User.builder().id(1L).username("alice").passwordHash("hash").build();
+    private PrincipalCache principalCache;
+
+    @BeforeEach
+    void setUp() {
+        principalCache = new PrincipalCache(userRepository, new SimpleMeterRegistry(), 100, 30_000);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void resolve_RejectsTokensIssuedBeforeThePasswordChange() {
+        assertNotNull(principalCache.resolve(claims(CHANGED_AT.minusSeconds(60))));
+
+        user.setPasswordChangedAt(CHANGED_AT);
+        principalCache.onUserAccountChanged(new UserAccountChangedEvent(1L));
+
+        assertNull(principalCache.resolve(claims(CHANGED_AT.minusSeconds(1))));
+        // Issued-at has whole seconds, so a token issued in the second of the change is accepted
+        assertNotNull(principalCache.resolve(claims(CHANGED_AT)));
+        assertNull(principalCache.resolve(claims(null)));
+    }
+
+    @Test
+    void resolve_AcceptsAnyTokenWhenThePasswordNeverChanged() {
+        User resolved = principalCache.resolve(claims(null));
+
+        assertEquals("alice", resolved.getUsername());
+        assertNotSame(user, resolved);
+    }
+
+    @Test
+    void resolve_RejectsRenamedAndDisabledAccounts() {
+        assertNull(principalCache.resolve(new TokenClaims("bob", 1L, "USER", true, CHANGED_AT, null)));
+        assertNull(principalCache.resolve(new TokenClaims("alice", 1L, "USER", false, CHANGED_AT, null)));
+    }
+
+    private static TokenClaims claims(Instant issuedAt) {
+        return new TokenClaims("alice", 1L, "USER", true, issuedAt, null);
+    }
+}
@@ -0,0 +1,55 @@
+package code.hub.codehubbackend.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionExpiryWheelTest {
+
+    @Test
+    void advance_ReturnsSessionsOnceTheirDeadlinePasses() {
+        SessionExpiryWheel wheel = new SessionExpiryWheel(100, 8, 0);
+        wheel.schedule("a", 250);
+        wheel.schedule("b", 900);
+
+        assertTrue(wheel.advance(200).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(300));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("b"), wheel.advance(1000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_KeepsDeadlinesMoreThanOneLapAhead() {
+        SessionExpiryWheel wheel = new SessionExpiryWheel(100, 4, 0);
+        // Same slot as tick 2, but two laps later
+        wheel.schedule("later", 1000);
+        wheel.schedule("soon", 200);
+
+        assertEquals(List.of("soon"), wheel.advance(400));
+        assertTrue(wheel.advance(900).isEmpty());
+        assertEquals(List.of("later"), wheel.advance(1000));
+    }
+
+    @Test
+    void schedule_ReplacesEarlierDeadlineAndCancelRemoves() {
+        SessionExpiryWheel wheel = new SessionExpiryWheel(100, 8, 0);
+        wheel.schedule("a", 200);
+        wheel.schedule("a", 600);
+        wheel.schedule("b", 300);
+        wheel.cancel("b");
+
+        assertTrue(wheel.advance(500).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(600));
+    }
+
+    @Test
+    void schedule_PastDeadlineFiresOnNextAdvance() {
+        SessionExpiryWheel wheel = new SessionExpiryWheel(100, 8, 1000);
+        wheel.schedule("late", 500);
+
+        assertEquals(List.of("late"), wheel.advance(1100));
+    }
+}
@@ -0,0 +1,134 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.entity.Activity;
+import code.hub.codehubbackend.entity.User;
+import code.hub.codehubbackend.event.ActivityCreatedEvent;
+import code.hub.codehubbackend.repository.ActivityRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ActivityWriterTest {
+
+    @Mock
+    private ActivityRepository activityRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ThreadPoolTaskExecutor executor;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private ActivityWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = new ActivityWriter(activityRepository, eventPublisher, executor, transactionManager,
+                new SimpleMeterRegistry(), 100);
+        ReflectionTestUtils.setField(writer, "batchSize", 2);
+        lenient().when(activityRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Activity> batch = invocation.getArgument(0);
+            batchSizes.add(batch.size());
+            return batch;
+        });
+    }
+
+    @Test
+    void flush_WritesQueuedActivitiesInBatches() {
+        for (int i = 0; i < 5; i++) {
+            writer.submit(activity(i));
+        }
+
+        assertEquals(5, writer.flush());
+
+        assertEquals(List.of(2, 2, 1), batchSizes);
+        verify(eventPublisher, times(5)).publishEvent(any(ActivityCreatedEvent.class));
+        // A full batch asks the pool for an early flush
+        verify(executor, atLeastOnce()).execute(any(Runnable.class));
+        assertEquals(0, writer.flush());
+    }
+
+    @Test
+    void flush_RetriesAFailedBatchOneByOneAndDropsOnlyTheBadActivity() {
+        Activity good = activity(1);
+        Activity bad = activity(2);
+        when(activityRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Activity> batch = invocation.getArgument(0);
+            if (batch.contains(bad)) {
+                throw new IllegalStateException("constraint violation");
+            }
+            return batch;
+        });
+        writer.submit(good);
+        writer.submit(bad);
+
+        assertEquals(1, writer.flush());
+
+        verify(activityRepository).saveAll(List.of(good));
+        verify(eventPublisher, times(1)).publishEvent(any(ActivityCreatedEvent.class));
+    }
+
+    @Test
+    void submit_InsideATransactionQueuesOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            writer.submit(activity(1));
+            assertEquals(0, writer.flush());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1, writer.flush());
+    }
+
+    @Test
+    void writeNow_InsertsWithoutBuffering() {
+        Activity activity = activity(1);
+
+        writer.writeNow(activity);
+
+        verify(activityRepository).save(activity);
+        verify(eventPublisher).publishEvent(any(ActivityCreatedEvent.class));
+        assertEquals(0, writer.flush());
+    }
+
+    @Test
+    void writeNow_ThrowsWhenTheInsertFails() {
+        when(activityRepository.save(any(Activity.class))).thenThrow(new IllegalStateException("database down"));
+
+        assertThrows(IllegalStateException.class, () -> writer.writeNow(activity(1)));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    private static Activity activity(int id) {
+        return Activity.builder()
+                .user(User.builder().id((long) id).username("user" + id).build())
+                .type(Activity.ActivityType.SNIPPET_LIKED)
+                .targetId(10L + id)
+                .targetType("snippet")
+                .build();
+    }
+}
@@ -0,0 +1,133 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.event.ChatMessageEvent;
+import code.hub.codehubbackend.repository.ChatMessageRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ChatSearchIndexTest {
+
+    private static final Instant SENT_AT = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Mock
+    private ChatMessageRepository chatMessageRepository;
+
+    @Test
+    void tokenize_FoldsCaseAndDiacriticsAndKeepsOffsets() {
+        List<ChatSearchIndex.Token> tokens = ChatSearchIndex.tokenize("Xin chào Đà Nẵng, a OK!");
+
+        assertEquals(List.of("xin", "chao", "da", "nang", "ok"), tokens.stream().map(ChatSearchIndex.Token::getTerm).toList());
+        assertEquals(4, tokens.get(1).getStart());
+        assertEquals(8, tokens.get(1).getEnd());
+        assertEquals(List.of("deploy", "server"), ChatSearchIndex.queryTerms("Deploy SERVER, deploy"));
+    }
+
+    @Test
+    void search_RequiresEveryTermAndRanksDenserMatchesFirst() {
+        messages(1L, row(1, 1, "deploy the server tonight"),
+                row(2, 1, "server server server deploy"),
+                row(3, 1, "only the server"));
+        ChatSearchIndex index = index(10, 1000);
+
+        ChatSearchIndex.SearchResult result = index.search(1L, "deploy server", Set.of(1L), 0, 10);
+
+        assertEquals(List.of(2L, 1L), messageIds(result));
+        assertEquals(2, result.getMatchCount());
+        assertFalse(result.isTruncated());
+    }
+
+    @Test
+    void search_FiltersRoomsBeforePaging() {
+        messages(1L, row(1, 1, "standup notes"), row(2, 2, "standup notes"), row(3, 1, "standup notes"),
+                row(4, 2, "standup notes"), row(5, 2, "standup notes"), row(6, 1, "standup notes"));
+        ChatSearchIndex index = index(10, 1000);
+
+        ChatSearchIndex.SearchResult result = index.search(1L, "standup", Set.of(2L), 0, 3);
+
+        assertEquals(3, result.getHits().size());
+        assertTrue(result.getHits().stream().allMatch(hit -> hit.getChatRoomId() == 2L));
+        assertEquals(3, result.getMatchCount());
+    }
+
+    @Test
+    void search_ReportsCountsAsLowerBoundWhenTheScanIsCapped() {
+        messages(1L, row(1, 1, "lunch"), row(2, 1, "lunch"), row(3, 1, "lunch"), row(4, 1, "lunch"));
+        ChatSearchIndex index = new ChatSearchIndex(chatMessageRepository, 10, 100, 1000, 2);
+
+        ChatSearchIndex.SearchResult result = index.search(1L, "lunch", Set.of(1L), 0, 10);
+
+        assertTrue(result.isTruncated());
+        assertEquals(2, result.getMatchCount());
+    }
+
+    @Test
+    void search_EvictsLeastRecentlySearchedPartitionsOverTheBudget() {
+        messages(1L, row(1, 1, "alpha"), row(2, 1, "alpha"));
+        messages(2L, row(3, 2, "beta"), row(4, 2, "beta"));
+        ChatSearchIndex index = index(10, 3);
+
+        index.search(1L, "alpha", Set.of(1L), 0, 10);
+        index.search(2L, "beta", Set.of(2L), 0, 10);
+
+        // User 1 was dropped to make room for user 2
+        assertEquals(2, index.getIndexedMessages());
+        assertEquals(2, index.search(1L, "alpha", Set.of(1L), 0, 10).getHits().size());
+        verify(chatMessageRepository, times(2)).findIndexableMessagesForUser(eq(1L), anyLong(), any());
+    }
+
+    @Test
+    void onChatMessageEvent_ChangesDuringABuildAreKept() {
+        ChatSearchIndex index = index(10, 1000);
+        when(chatMessageRepository.findIndexableMessagesForUser(eq(1L), anyLong(), any())).thenAnswer(invocation -> {
+            // Committed while the partition is loading; the rows read for message 5 are older
+            index.onChatMessageEvent(event(ChatMessageEvent.Type.SENT, 10L, "fresh release notes"));
+            index.onChatMessageEvent(event(ChatMessageEvent.Type.EDITED, 5L, "updated wording"));
+            index.onChatMessageEvent(event(ChatMessageEvent.Type.DELETED, 6L, null));
+            return rows(row(5, 1, "original wording"), row(6, 1, "removed wording"));
+        });
+
+        assertEquals(List.of(10L), messageIds(index.search(1L, "release", Set.of(1L), 0, 10)));
+        assertEquals(List.of(5L), messageIds(index.search(1L, "updated", Set.of(1L), 0, 10)));
+        assertTrue(index.search(1L, "original", Set.of(1L), 0, 10).getHits().isEmpty());
+        assertTrue(index.search(1L, "removed", Set.of(1L), 0, 10).getHits().isEmpty());
+    }
+
+    private ChatSearchIndex index(int maxPartitions, long maxIndexedMessages) {
+        return new ChatSearchIndex(chatMessageRepository, maxPartitions, 100, maxIndexedMessages, 5000);
+    }
+
+    private void messages(Long userId, Object[]... rows) {
+        when(chatMessageRepository.findIndexableMessagesForUser(eq(userId), anyLong(), any())).thenReturn(rows(rows));
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        // Newest first, as the repository returns them
+        List<Object[]> list = new ArrayList<>(List.of(rows));
+        list.sort((a, b) -> Long.compare((Long) b[0], (Long) a[0]));
+        return list;
+    }
+
+    private static Object[] row(long messageId, long chatRoomId, String content) {
+        return new Object[]{messageId, chatRoomId, content, null, SENT_AT};
+    }
+
+    private static ChatMessageEvent event(ChatMessageEvent.Type type, Long messageId, String content) {
+        return new ChatMessageEvent(type, messageId, 1L, content, null, SENT_AT, List.of(1L));
+    }
+
+    private static List<Long> messageIds(ChatSearchIndex.SearchResult result) {
+        return result.getHits().stream().map(ChatSearchIndex.Hit::getMessageId).toList();
+    }
+}
@@ -0,0 +1,144 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.dto.activity.ActivityResponse;
+import code.hub.codehubbackend.dto.activity.FeedResponse;
+import code.hub.codehubbackend.entity.Activity;
+import code.hub.codehubbackend.event.ActivityCreatedEvent;
+import code.hub.codehubbackend.repository.ActivityRepository;
+import code.hub.codehubbackend.repository.UserFollowRepository;
+import code.hub.codehubbackend.security.CurrentUserContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FeedServiceTest {
+
+    @Mock
+    private ActivityRepository activityRepository;
+
+    @Mock
+    private UserFollowRepository userFollowRepository;
+
+    @Mock
+    private ActivityService activityService;
+
+    @Mock
+    private CurrentUserContext currentUserContext;
+
+    @Mock
+    private ThreadPoolTaskExecutor fanoutExecutor;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(userFollowRepository.findUserIdsWithMoreFollowersThan(anyLong())).thenReturn(List.of());
+        lenient().doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(fanoutExecutor).execute(any(Runnable.class));
+        lenient().when(activityRepository.findAllWithUserByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> Activity.builder().id(id).build()).toList();
+        });
+        lenient().when(activityService.convertToResponses(anyList())).thenAnswer(invocation -> {
+            List<Activity> activities = invocation.getArgument(0);
+            return activities.stream().map(activity -> ActivityResponse.builder().id(activity.getId()).build()).toList();
+        });
+    }
+
+    @Test
+    void getFeed_KeepsActivitiesFannedOutWhileTheTimelineIsBuilt() {
+        FeedService feedService = feedService(10, 100, "simple");
+        when(userFollowRepository.findFollowedUserIdsByUserId(1L)).thenReturn(List.of(2L));
+        when(userFollowRepository.findFollowerIdsByUserId(2L)).thenReturn(List.of(1L));
+        when(activityRepository.findFeedActivityIds(eq(List.of(2L)), any(), eq(Long.MAX_VALUE), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    // Committed after the timeline's rows were read
+                    feedService.onActivityCreated(new ActivityCreatedEvent(60L, 2L, Activity.ActivityType.SNIPPET_CREATED));
+                    return List.of(50L, 40L);
+                });
+
+        assertEquals(List.of(60L, 50L, 40L), activityIds(feedService.getFeed(1L, null, 10)));
+    }
+
+    @Test
+    void onActivityCreated_FansOutOnlyToCachedTimelines() {
+        FeedService feedService = feedService(10, 100, "simple");
+        followed(1L, List.of(50L));
+        when(userFollowRepository.findFollowerIdsByUserId(2L)).thenReturn(List.of(1L, 3L));
+        feedService.getFeed(1L, null, 10);
+
+        feedService.onActivityCreated(new ActivityCreatedEvent(70L, 2L, Activity.ActivityType.SNIPPET_CREATED));
+
+        assertEquals(List.of(70L, 50L), activityIds(feedService.getFeed(1L, null, 10)));
+        verify(userFollowRepository, times(1)).findFollowedUserIdsByUserId(1L);
+        verify(userFollowRepository, never()).findFollowedUserIdsByUserId(3L);
+    }
+
+    @Test
+    void getFeed_PagesPastTheTimelineFromTheDatabase() {
+        FeedService feedService = feedService(10, 2, "simple");
+        followed(1L, List.of(50L, 40L));
+        when(activityRepository.findFeedActivityIds(eq(List.of(2L)), any(), eq(40L), any(Pageable.class)))
+                .thenReturn(List.of(30L, 20L));
+
+        FeedResponse page = feedService.getFeed(1L, null, 3);
+
+        assertEquals(List.of(50L, 40L, 30L), activityIds(page));
+        assertTrue(page.isHasMore());
+        assertEquals(30L, page.getNextCursor());
+    }
+
+    @Test
+    void getFeed_EvictsLeastRecentlyReadTimelines() {
+        FeedService feedService = feedService(1, 100, "simple");
+        followed(1L, List.of(50L));
+        when(userFollowRepository.findFollowedUserIdsByUserId(3L)).thenReturn(List.of());
+
+        feedService.getFeed(1L, null, 10);
+        feedService.getFeed(3L, null, 10);
+        feedService.getFeed(1L, null, 10);
+
+        verify(userFollowRepository, times(2)).findFollowedUserIdsByUserId(1L);
+    }
+
+    @Test
+    void getFeed_RebuildsExpiredTimelinesInClusterMode() {
+        FeedService feedService = feedService(10, 100, "cluster");
+        followed(1L, List.of(50L));
+
+        feedService.getFeed(1L, null, 10);
+        feedService.getFeed(1L, null, 10);
+
+        verify(userFollowRepository, times(2)).findFollowedUserIdsByUserId(1L);
+    }
+
+    // Cluster-mode timelines expire immediately, so every read rebuilds
+    private FeedService feedService(int maxTimelines, int timelineSize, String brokerMode) {
+        return new FeedService(activityRepository, userFollowRepository, activityService, currentUserContext,
+                fanoutExecutor, new SimpleMeterRegistry(), maxTimelines, timelineSize, 1000, brokerMode, 0);
+    }
+
+    // User follows user 2, whose activities are the given ids
+    private void followed(Long userId, List<Long> activityIds) {
+        when(userFollowRepository.findFollowedUserIdsByUserId(userId)).thenReturn(List.of(2L));
+        when(activityRepository.findFeedActivityIds(eq(List.of(2L)), any(), eq(Long.MAX_VALUE), any(Pageable.class)))
+                .thenReturn(activityIds);
+    }
+
+    private static List<Long> activityIds(FeedResponse response) {
+        return response.getItems().stream().map(ActivityResponse::getId).toList();
+    }
+}
@@ -0,0 +1,82 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.storage.MediaStore;
+import code.hub.codehubbackend.storage.StorageRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FileUploadServiceTest {
+
+    @Mock
+    private MediaStore mediaStore;
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private FileUploadService fileUploadService;
+
+    @BeforeEach
+    void setUp() {
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.initialize();
+        fileUploadService = new FileUploadService(mediaStore, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void uploadFiles_KeepsTheOrderOfTheFiles() throws IOException {
+        when(mediaStore.store(any(MultipartFile.class), any(StorageRequest.class), eq("alice")))
+                .thenAnswer(invocation -> "/media/" + invocation.<MultipartFile>getArgument(0).getOriginalFilename());
+
+        List<String> urls = fileUploadService.uploadFiles(List.of(file("a.txt"), file("b.txt"), file("c.txt")), "alice");
+
+        assertEquals(List.of("/media/a.txt", "/media/b.txt", "/media/c.txt"), urls);
+        verify(mediaStore, never()).release(any(), any());
+    }
+
+    @Test
+    void uploadFiles_ReleasesStoredFilesWhenOneFails() throws IOException {
+        Set<String> stored = ConcurrentHashMap.newKeySet();
+        when(mediaStore.store(any(MultipartFile.class), any(StorageRequest.class), eq("alice"))).thenAnswer(invocation -> {
+            String name = invocation.<MultipartFile>getArgument(0).getOriginalFilename();
+            if (name.equals("b.txt")) {
+                throw new IOException("storage unavailable");
+            }
+            stored.add("/media/" + name);
+            return "/media/" + name;
+        });
+
+        assertThrows(RuntimeException.class,
+                () -> fileUploadService.uploadFiles(List.of(file("a.txt"), file("b.txt"), file("c.txt")), "alice"));
+
+        assertTrue(stored.contains("/media/a.txt"));
+        for (String url : stored) {
+            verify(mediaStore).release(url, "alice");
+        }
+        verify(mediaStore, times(stored.size())).release(anyString(), eq("alice"));
+    }
+
+    private static MockMultipartFile file(String name) {
+        return new MockMultipartFile("files", name, "text/plain", name.getBytes());
+    }
+}
@@ -0,0 +1,125 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.event.FollowChangedEvent;
+import code.hub.codehubbackend.repository.UserFollowRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FollowGraphTest {
+
+    @Mock
+    private UserFollowRepository userFollowRepository;
+
+    private final List<Object[]> edges = new ArrayList<>();
+    private FollowGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = new FollowGraph(userFollowRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(graph, "loadChunkSize", 2);
+        lenient().when(userFollowRepository.findEdgesAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            Pageable page = invocation.getArgument(1);
+            return edges.stream().filter(edge -> (Long) edge[0] > afterId).limit(page.getPageSize()).toList();
+        });
+    }
+
+    @Test
+    void reload_LoadsEveryChunkIntoSortedAdjacency() {
+        // Loaded two edges at a time, out of id order within each user
+        edge(1, 1, 30);
+        edge(2, 1, 10);
+        edge(3, 1, 20);
+        edge(4, 10, 1);
+        edge(5, 30, 1);
+
+        graph.reload();
+
+        assertArrayEquals(new long[]{10, 20, 30}, graph.following(1L));
+        assertArrayEquals(new long[]{10, 30}, graph.followers(1L));
+        assertTrue(graph.isFollowing(1L, 20L));
+        assertFalse(graph.isFollowing(20L, 1L));
+        assertEquals(3, graph.followingCount(1L));
+        assertEquals(0, graph.followerCount(99L));
+        assertArrayEquals(new long[]{10, 30}, graph.mutuals(1L));
+    }
+
+    @Test
+    void onFollowChanged_KeepsArraysSortedAndIgnoresRepeats() {
+        graph.onFollowChanged(new FollowChangedEvent(1L, 30L, true));
+        graph.onFollowChanged(new FollowChangedEvent(1L, 10L, true));
+        graph.onFollowChanged(new FollowChangedEvent(1L, 20L, true));
+        graph.onFollowChanged(new FollowChangedEvent(1L, 20L, true));
+
+        assertArrayEquals(new long[]{10, 20, 30}, graph.following(1L));
+        assertArrayEquals(new long[]{1}, graph.followers(20L));
+
+        graph.onFollowChanged(new FollowChangedEvent(1L, 20L, false));
+        graph.onFollowChanged(new FollowChangedEvent(1L, 99L, false));
+
+        assertArrayEquals(new long[]{10, 30}, graph.following(1L));
+        assertArrayEquals(new long[0], graph.followers(20L));
+    }
+
+    @Test
+    void followedFollowers_IntersectsTheViewersFollowingWithTheTargetsFollowers() {
+        edge(1, 1, 2);
+        edge(2, 1, 3);
+        edge(3, 1, 4);
+        edge(4, 2, 9);
+        edge(5, 4, 9);
+        edge(6, 5, 9);
+        graph.reload();
+
+        assertArrayEquals(new long[]{2, 4}, graph.followedFollowers(1L, 9L));
+        Map<Long, FollowGraph.FollowState> states = graph.followStates(2L, List.of(9L, 1L));
+        assertEquals(List.of(9L, 1L), List.copyOf(states.keySet()));
+        assertTrue(states.get(9L).isFollowing());
+        assertTrue(states.get(1L).isFollowedBy());
+        assertEquals(3, states.get(9L).getFollowerCount());
+    }
+
+    @Test
+    void reload_ReplaysChangesCommittedWhileReading() {
+        edge(1, 1, 2);
+        when(userFollowRepository.findEdgesAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            // Committed after the rows below were read
+            graph.onFollowChanged(new FollowChangedEvent(1L, 2L, false));
+            graph.onFollowChanged(new FollowChangedEvent(3L, 1L, true));
+            return edges;
+        });
+
+        graph.reload();
+
+        assertFalse(graph.isFollowing(1L, 2L));
+        assertTrue(graph.isFollowing(3L, 1L));
+    }
+
+    @Test
+    void following_ReturnsACopy() {
+        graph.onFollowChanged(new FollowChangedEvent(1L, 2L, true));
+
+        graph.following(1L)[0] = 42;
+
+        assertTrue(graph.isFollowing(1L, 2L));
+    }
+
+    private void edge(long id, long followerId, long followedUserId) {
+        edges.add(new Object[]{id, followerId, followedUserId});
+    }
+}
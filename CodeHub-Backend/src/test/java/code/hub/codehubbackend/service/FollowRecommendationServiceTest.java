@@ -0,0 +1,119 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.dto.user.FollowSuggestionResponse;
+import code.hub.codehubbackend.entity.User;
+import code.hub.codehubbackend.event.FollowChangedEvent;
+import code.hub.codehubbackend.repository.SnippetRepository;
+import code.hub.codehubbackend.repository.UserFollowRepository;
+import code.hub.codehubbackend.repository.UserRepository;
+import code.hub.codehubbackend.security.CurrentUserContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FollowRecommendationServiceTest {
+
+    @Mock
+    private UserFollowRepository userFollowRepository;
+
+    @Mock
+    private SnippetRepository snippetRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CurrentUserContext currentUserContext;
+
+    private final Set<Long> disabled = new HashSet<>();
+    private FollowGraph graph;
+    private FollowRecommendationService service;
+
+    @BeforeEach
+    void setUp() {
+        graph = new FollowGraph(userFollowRepository, new SimpleMeterRegistry());
+        service = new FollowRecommendationService(graph, snippetRepository, userRepository, currentUserContext,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "perUser", 20);
+        ReflectionTestUtils.setField(service, "fanOutSample", 50);
+        ReflectionTestUtils.setField(service, "interestsPerUser", 5);
+        ReflectionTestUtils.setField(service, "authorsPerInterest", 200);
+        ReflectionTestUtils.setField(service, "maxUsers", 1000);
+        when(currentUserContext.require()).thenReturn(User.builder().id(1L).username("viewer").build());
+        when(userRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            Iterable<Long> ids = invocation.getArgument(0);
+            return StreamSupport.stream(ids.spliterator(), false)
+                    .map(id -> User.builder().id(id).username("user" + id).enabled(!disabled.contains(id)).build())
+                    .toList();
+        });
+    }
+
+    @Test
+    void getSuggestions_RanksFriendsOfFriendsFirst() {
+        follow(1L, 2L);
+        follow(1L, 3L);
+        follow(2L, 4L);
+        follow(3L, 4L);
+        follow(2L, 5L);
+        follow(2L, 1L);
+        service.refresh();
+
+        List<FollowSuggestionResponse> suggestions = service.getSuggestions(1);
+
+        assertEquals(1, suggestions.size());
+        assertEquals(4L, suggestions.get(0).getId());
+        assertEquals("FOLLOWED_BY_PEOPLE_YOU_FOLLOW", suggestions.get(0).getReason());
+        assertEquals(2, suggestions.get(0).getMutualCount());
+    }
+
+    @Test
+    void getSuggestions_SkipsDisabledUsersBeforeApplyingTheLimit() {
+        // Popular order: 7 (3 followers), 8 (2), 9 (1)
+        follow(20L, 7L);
+        follow(21L, 7L);
+        follow(22L, 7L);
+        follow(20L, 8L);
+        follow(21L, 8L);
+        follow(20L, 9L);
+        service.refresh();
+        disabled.add(7L);
+
+        List<FollowSuggestionResponse> suggestions = service.getSuggestions(2);
+
+        assertEquals(List.of(8L, 9L), suggestions.stream().map(FollowSuggestionResponse::getId).toList());
+        assertTrue(suggestions.stream().allMatch(suggestion -> suggestion.getReason().equals("POPULAR")));
+    }
+
+    @Test
+    void getSuggestions_LeavesOutUsersFollowedSinceTheRefresh() {
+        follow(1L, 2L);
+        follow(2L, 4L);
+        follow(2L, 5L);
+        service.refresh();
+
+        follow(1L, 4L);
+
+        List<Long> ids = service.getSuggestions(10).stream().map(FollowSuggestionResponse::getId).toList();
+        assertTrue(ids.contains(5L));
+        assertFalse(ids.contains(4L));
+        assertFalse(ids.contains(1L));
+    }
+
+    private void follow(Long followerId, Long followedUserId) {
+        graph.onFollowChanged(new FollowChangedEvent(followerId, followedUserId, true));
+    }
+}
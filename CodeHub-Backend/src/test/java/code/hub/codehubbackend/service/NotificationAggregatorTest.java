@@ -0,0 +1,80 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.entity.Notification;
+import code.hub.codehubbackend.entity.User;
+import code.hub.codehubbackend.repository.NotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationAggregatorTest {
+
+    private static final String GROUP_KEY = "SNIPPET_LIKED:SNIPPET:1";
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    private final Set<Long> groupActors = new HashSet<>();
+    private final User recipient = User.builder().id(100L).username("owner").build();
+    private Notification group;
+    private NotificationAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        group = Notification.builder()
+                .id(1L)
+                .recipient(recipient)
+                .actor(actor(1))
+                .type(Notification.NotificationType.SNIPPET_LIKED)
+                .groupKey(GROUP_KEY)
+                .recentActorIds("1")
+                .build();
+        aggregator = new NotificationAggregator(notificationRepository, 86_400_000L, 5);
+
+        // notification_group_actors for the group, backed by a set
+        when(notificationRepository.findFirstByRecipientAndGroupKeyAndReadFalseAndCreatedAtAfterOrderByCreatedAtDesc(
+                eq(recipient), eq(GROUP_KEY), any())).thenReturn(Optional.of(group));
+        when(notificationRepository.countGroupActors(1L)).thenAnswer(invocation -> (long) groupActors.size());
+        when(notificationRepository.addGroupActor(eq(1L), anyLong()))
+                .thenAnswer(invocation -> groupActors.add(invocation.getArgument(1)) ? 1 : 0);
+        lenient().when(notificationRepository.save(any(Notification.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void fold_CountsActorsWhoLeftTheRecentListOnlyOnce() {
+        for (int id = 2; id <= 7; id++) {
+            assertTrue(fold(id).isChanged());
+        }
+        assertEquals(7, group.getActorCount());
+        assertEquals(List.of(7L, 6L, 5L, 4L, 3L), NotificationAggregator.parseRecentActorIds(group.getRecentActorIds()));
+
+        // The first actor has dropped off the recent list but is still a member of the group
+        NotificationAggregator.Fold again = fold(1);
+
+        assertFalse(again.isChanged());
+        assertEquals(7, group.getActorCount());
+        assertTrue(group.getMessage().startsWith("user7 and 6 others"));
+    }
+
+    private NotificationAggregator.Fold fold(int actorId) {
+        return aggregator.fold(recipient, actor(actorId), GROUP_KEY, phrase -> phrase + " liked your snippet",
+                "/snippets/1").orElseThrow();
+    }
+
+    private static User actor(int id) {
+        return User.builder().id((long) id).username("user" + id).build();
+    }
+}
@@ -0,0 +1,85 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.dto.user.PresenceResponse;
+import code.hub.codehubbackend.repository.ChatParticipantRepository;
+import code.hub.codehubbackend.repository.UserFollowRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PresenceBroadcasterTest {
+
+    @Mock
+    private UserFollowRepository userFollowRepository;
+
+    @Mock
+    private ChatParticipantRepository chatParticipantRepository;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    private PresenceService presenceService;
+    private PresenceBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        presenceService = new PresenceService(45_000);
+        broadcaster = new PresenceBroadcaster(presenceService, userFollowRepository, chatParticipantRepository,
+                messagingTemplate);
+        ReflectionTestUtils.setField(broadcaster, "brokerMode", "simple");
+    }
+
+    @Test
+    void broadcastChanges_SendsOneFramePerOnlineRecipient() {
+        presenceService.connect("s1", 1L, "alice");
+        presenceService.connect("s2", 2L, "bob");
+        presenceService.connect("s3", 3L, "carol");
+        // Carol follows both and shares a chat with Alice; Dave is offline
+        when(userFollowRepository.findFollowerIdsAndUsernamesByUserIds(anyCollection())).thenReturn(List.of(
+                new Object[]{1L, 3L, "carol"},
+                new Object[]{2L, 3L, "carol"},
+                new Object[]{1L, 4L, "dave"}));
+        when(chatParticipantRepository.findPeerIdsAndUsernamesByUserIds(anyCollection())).thenReturn(List.<Object[]>of(
+                new Object[]{1L, 3L, "carol"}));
+
+        broadcaster.broadcastChanges();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PresenceResponse>> frame = ArgumentCaptor.forClass(List.class);
+        verify(messagingTemplate).convertAndSendToUser(eq("carol"), eq("/queue/presence"), frame.capture());
+        assertEquals(List.of(1L, 2L), frame.getValue().stream().map(PresenceResponse::getUserId).sorted().toList());
+        assertTrue(frame.getValue().stream().allMatch(PresenceResponse::getIsOnline));
+        verify(messagingTemplate, never()).convertAndSendToUser(eq("dave"), anyString(), any());
+    }
+
+    @Test
+    void broadcastChanges_SkipsTheQueriesWhenNothingChanged() {
+        broadcaster.broadcastChanges();
+
+        verifyNoInteractions(userFollowRepository, chatParticipantRepository, messagingTemplate);
+    }
+
+    @Test
+    void broadcastChanges_ClusteredSendsToRecipientsConnectedElsewhere() {
+        ReflectionTestUtils.setField(broadcaster, "brokerMode", "cluster");
+        presenceService.connect("s1", 1L, "alice");
+        when(userFollowRepository.findFollowerIdsAndUsernamesByUserIds(anyCollection())).thenReturn(List.<Object[]>of(
+                new Object[]{1L, 4L, "dave"}));
+
+        broadcaster.broadcastChanges();
+
+        verify(messagingTemplate).convertAndSendToUser(eq("dave"), eq("/queue/presence"), any());
+    }
+}
@@ -0,0 +1,60 @@
+package code.hub.codehubbackend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PresenceServiceTest {
+
+    private final PresenceService presenceService = new PresenceService(45_000);
+
+    @Test
+    void connect_UserStaysOnlineUntilTheLastSessionEnds() {
+        presenceService.connect("s1", 1L, "alice");
+        presenceService.connect("s2", 1L, "alice");
+        assertEquals(Set.of(1L), presenceService.drainChangedUsers());
+
+        presenceService.disconnect("s1");
+        assertTrue(presenceService.isOnline(1L));
+        assertTrue(presenceService.drainChangedUsers().isEmpty());
+
+        presenceService.disconnect("s2");
+        presenceService.disconnect("s2");
+        assertFalse(presenceService.isOnline(1L));
+        assertEquals(Set.of(1L), presenceService.drainChangedUsers());
+        assertEquals("alice", presenceService.getUsername(1L).orElseThrow());
+        assertTrue(presenceService.getLastSeen(1L).isPresent());
+    }
+
+    @Test
+    void isOnline_AnswersEveryRequestedUser() {
+        presenceService.connect("s1", 1L, "alice");
+        presenceService.connect("s2", 2L, "bob");
+
+        Map<Long, Boolean> online = presenceService.isOnline(List.of(1L, 3L));
+
+        assertEquals(Map.of(1L, true, 3L, false), online);
+        assertEquals(2, presenceService.getOnlineUserCount());
+        assertTrue(presenceService.getLastSeen(3L).isEmpty());
+    }
+
+    @Test
+    void expireStaleSessions_DropsSessionsWithoutHeartbeats() throws InterruptedException {
+        PresenceService shortTimeout = new PresenceService(20);
+        shortTimeout.connect("stale", 1L, "alice");
+        shortTimeout.connect("live", 2L, "bob");
+        shortTimeout.drainChangedUsers();
+        Thread.sleep(50);
+        shortTimeout.touch("live");
+
+        assertEquals(1, shortTimeout.expireStaleSessions());
+
+        assertFalse(shortTimeout.isOnline(1L));
+        assertTrue(shortTimeout.isOnline(2L));
+        assertEquals(Set.of(1L), shortTimeout.drainChangedUsers());
+    }
+}
@@ -0,0 +1,186 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.entity.OutboxEvent;
+import code.hub.codehubbackend.entity.Snippet;
+import code.hub.codehubbackend.entity.User;
+import code.hub.codehubbackend.repository.CommentRepository;
+import code.hub.codehubbackend.repository.OutboxEventRepository;
+import code.hub.codehubbackend.repository.SnippetRepository;
+import code.hub.codehubbackend.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SideEffectWorkerTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private SnippetRepository snippetRepository;
+
+    @Mock
+    private CommentRepository commentRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ActivityService activityService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private ThreadPoolTaskExecutor executor;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final User actor = User.builder().id(1L).username("alice").build();
+    private final Snippet snippet = Snippet.builder().id(10L).owner(User.builder().id(2L).build()).build();
+    private SideEffectWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        worker = new SideEffectWorker(outboxEventRepository, snippetRepository, commentRepository, userRepository,
+                activityService, notificationService, executor, transactionManager, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(worker, "maxAttempts", 3);
+        ReflectionTestUtils.setField(worker, "leaseMillis", 30_000L);
+        ReflectionTestUtils.setField(worker, "backoffMillis", 1_000L);
+        ReflectionTestUtils.setField(worker, "pollBatchSize", 10);
+    }
+
+    @Test
+    void process_ClaimsAppliesAndRemovesTheRow() {
+        OutboxEvent event = likeEvent(0);
+        when(outboxEventRepository.claim(eq(5L), eq(0), any())).thenReturn(1);
+        when(outboxEventRepository.findById(5L)).thenReturn(Optional.of(event));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(actor));
+        when(snippetRepository.findById(10L)).thenReturn(Optional.of(snippet));
+        Instant before = Instant.now();
+
+        worker.process(5L, 0);
+
+        ArgumentCaptor<Instant> leaseUntil = ArgumentCaptor.forClass(Instant.class);
+        verify(outboxEventRepository).claim(eq(5L), eq(0), leaseUntil.capture());
+        assertFalse(leaseUntil.getValue().isBefore(before.plusSeconds(30)));
+        verify(activityService).createLikeActivity(snippet, actor, true);
+        verify(notificationService).createSnippetLikeNotification(snippet, actor);
+        verify(outboxEventRepository).delete(event);
+    }
+
+    @Test
+    void process_SkipsRowsAnotherWorkerClaimed() {
+        when(outboxEventRepository.claim(eq(5L), eq(0), any())).thenReturn(0);
+
+        worker.process(5L, 0);
+
+        verify(outboxEventRepository, never()).findById(any());
+        verifyNoInteractions(activityService, notificationService);
+    }
+
+    @Test
+    void process_ReschedulesFailuresWithExponentialBackoff() {
+        OutboxEvent event = likeEvent(1);
+        when(outboxEventRepository.claim(eq(5L), eq(1), any())).thenReturn(1);
+        when(outboxEventRepository.findById(5L)).thenReturn(Optional.of(event));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(actor));
+        when(snippetRepository.findById(10L)).thenReturn(Optional.of(snippet));
+        doThrow(new IllegalStateException("database down")).when(activityService).createLikeActivity(snippet, actor, true);
+        Instant before = Instant.now();
+
+        worker.process(5L, 1);
+
+        // Second attempt failed: backoff doubles once
+        ArgumentCaptor<Instant> nextAttemptAt = ArgumentCaptor.forClass(Instant.class);
+        verify(outboxEventRepository).reschedule(eq(5L), nextAttemptAt.capture(), eq("database down"));
+        Duration delay = Duration.between(before, nextAttemptAt.getValue());
+        assertTrue(delay.compareTo(Duration.ofMillis(2_000)) >= 0 && delay.compareTo(Duration.ofMillis(3_000)) < 0);
+        verify(outboxEventRepository, never()).delete(any());
+        verify(outboxEventRepository, never()).markFailed(any(), any());
+    }
+
+    @Test
+    void process_MarksTheRowFailedOnTheLastAttempt() {
+        OutboxEvent event = likeEvent(2);
+        when(outboxEventRepository.claim(eq(5L), eq(2), any())).thenReturn(1);
+        when(outboxEventRepository.findById(5L)).thenReturn(Optional.of(event));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(actor));
+        when(snippetRepository.findById(10L)).thenReturn(Optional.of(snippet));
+        doThrow(new IllegalStateException("constraint violation"))
+                .when(notificationService).createSnippetLikeNotification(snippet, actor);
+
+        worker.process(5L, 2);
+
+        verify(outboxEventRepository).markFailed(5L, "constraint violation");
+        verify(outboxEventRepository, never()).reschedule(any(), any(), any());
+        verify(outboxEventRepository, never()).delete(any());
+    }
+
+    @Test
+    void pollDue_RedispatchesExpiredLeasesWithTheirAttemptCount() {
+        // A worker claimed attempt 1 and died; its lease has run out
+        OutboxEvent expired = likeEvent(1);
+        when(outboxEventRepository.findDue(any(Instant.class), any(Pageable.class))).thenReturn(List.of(expired));
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+        when(outboxEventRepository.claim(eq(5L), eq(1), any())).thenReturn(1);
+        when(outboxEventRepository.findById(5L)).thenReturn(Optional.of(expired));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(actor));
+        when(snippetRepository.findById(10L)).thenReturn(Optional.of(snippet));
+
+        worker.pollDue();
+
+        // Claiming by attempt count keeps the dead worker's attempt from being claimed twice
+        verify(outboxEventRepository).claim(eq(5L), eq(1), any());
+        verify(outboxEventRepository).delete(expired);
+    }
+
+    @Test
+    void pollDue_StopsWhenThePoolIsSaturated() {
+        OutboxEvent first = likeEvent(0);
+        OutboxEvent second = likeEvent(0);
+        second.setId(6L);
+        OutboxEvent third = likeEvent(0);
+        third.setId(7L);
+        when(outboxEventRepository.findDue(any(Instant.class), any(Pageable.class))).thenReturn(List.of(first, second, third));
+        doNothing().doThrow(new TaskRejectedException("full")).when(executor).execute(any(Runnable.class));
+
+        worker.pollDue();
+
+        verify(executor, times(2)).execute(any(Runnable.class));
+    }
+
+    private static OutboxEvent likeEvent(int attempts) {
+        return OutboxEvent.builder()
+                .id(5L)
+                .type(OutboxEvent.SideEffectType.SNIPPET_LIKED)
+                .actorId(1L)
+                .targetId(10L)
+                .attempts(attempts)
+                .nextAttemptAt(Instant.now())
+                .build();
+    }
+}
@@ -11,6 +11,7 @@ import code.hub.codehubbackend.mapper.SnippetMapper;
 import code.hub.codehubbackend.repository.SnippetRepository;
 import code.hub.codehubbackend.repository.SnippetVersionRepository;
 import code.hub.codehubbackend.repository.UserRepository;
+import code.hub.codehubbackend.security.CurrentUserContext;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,9 +22,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContext;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.Arrays;
@@ -56,13 +54,13 @@ public class SnippetServiceTest {
     private RecentlyViewedService recentlyViewedService;
 
     @Mock
-    private FileUploadService fileUploadService;
+    private SnippetPurgeService snippetPurgeService;
 
     @Mock
-    private SecurityContext securityContext;
+    private FileUploadService fileUploadService;
 
     @Mock
-    private Authentication authentication;
+    private CurrentUserContext currentUserContext;
 
     @InjectMocks
     private SnippetService snippetService;
@@ -84,15 +82,12 @@ public class SnippetServiceTest {
         testSnippet.setOwner(testUser);
     }
 
-    private void setupSecurityContext() {
-        SecurityContextHolder.setContext(securityContext);
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getName()).thenReturn("testuser");
-        when(authentication.isAuthenticated()).thenReturn(true);
+    private void setupCurrentUser(User user) {
+        when(currentUserContext.require()).thenReturn(user);
     }    @Test
     void createSnippet_Success() {
         // Given
-        setupSecurityContext();
+        setupCurrentUser(testUser);
         SnippetCreateRequest request = new SnippetCreateRequest();
         request.setTitle("Test Snippet");
         request.setCode("console.log('test');");
@@ -109,7 +104,6 @@ public class SnippetServiceTest {
                 .tags(Arrays.asList("test", "javascript"))
                 .build();
 
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
         when(snippetRepository.save(any(Snippet.class))).thenReturn(testSnippet);
         when(snippetMapper.convertToResponse(any(Snippet.class))).thenReturn(expectedResponse);
         when(versionRepository.findMaxVersionNumberBySnippetId(anyLong())).thenReturn(null);
@@ -183,29 +177,25 @@ public class SnippetServiceTest {
     }    @Test
     void deleteSnippet_Success() {
         // Given
-        setupSecurityContext();
+        setupCurrentUser(testUser);
         Long snippetId = 1L;
         when(snippetRepository.findById(snippetId)).thenReturn(Optional.of(testSnippet));
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        doNothing().when(activityService).deleteActivitiesByTarget(snippetId, "snippet");
 
         // When
         snippetService.deleteSnippet(snippetId);
 
         // Then
-        verify(snippetRepository).delete(testSnippet);
-        verify(activityService).deleteActivitiesByTarget(snippetId, "snippet");
+        verify(snippetPurgeService).delete(testSnippet);
     }    @Test
     void deleteSnippet_NotOwner_ThrowsException() {
         // Given
-        setupSecurityContext();
         Long snippetId = 1L;
         User otherUser = new User();
         otherUser.setId(2L);
         otherUser.setUsername("otheruser");
+        setupCurrentUser(otherUser);
         
         when(snippetRepository.findById(snippetId)).thenReturn(Optional.of(testSnippet));
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(otherUser));
 
         // When & Then
         assertThrows(UnauthorizedException.class, () -> {
@@ -213,7 +203,6 @@ public class SnippetServiceTest {
         });
         
         // Verify that delete was never called
-        verify(snippetRepository, never()).delete(any());
-        verify(activityService, never()).deleteActivitiesByTarget(anyLong(), anyString());
+        verify(snippetPurgeService, never()).delete(any());
     }
 }
@@ -0,0 +1,69 @@
+package code.hub.codehubbackend.service;
+
+import code.hub.codehubbackend.entity.User;
+import code.hub.codehubbackend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserDetailsServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Test
+    void updatePassword_WritesOnlyTheHash() {
+        User user = User.builder().id(1L).username("alice").passwordHash("old").build();
+
+        userDetailsService.updatePassword(user, "new");
+
+        verify(userRepository).updatePasswordHash(1L, "new");
+        verify(userRepository, never()).save(any());
+        assertEquals("new", user.getPasswordHash());
+    }
+
+    @Test
+    void authenticate_RehashesPasswordsStoredWithALowerCost() {
+        User user = User.builder().id(1L).username("alice")
+                .passwordHash(new BCryptPasswordEncoder(4).encode("secret")).build();
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(new BCryptPasswordEncoder(5));
+        provider.setUserDetailsPasswordService(userDetailsService);
+
+        provider.authenticate(new UsernamePasswordAuthenticationToken("alice", "secret"));
+
+        verify(userRepository).updatePasswordHash(eq(1L), startsWith("$2a$05$"));
+    }
+
+    @Test
+    void authenticate_KeepsHashesAtTheCurrentCost() {
+        User user = User.builder().id(1L).username("alice")
+                .passwordHash(new BCryptPasswordEncoder(5).encode("secret")).build();
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(new BCryptPasswordEncoder(5));
+        provider.setUserDetailsPasswordService(userDetailsService);
+
+        provider.authenticate(new UsernamePasswordAuthenticationToken("alice", "secret"));
+
+        verify(userRepository, never()).updatePasswordHash(any(), any());
+    }
+}
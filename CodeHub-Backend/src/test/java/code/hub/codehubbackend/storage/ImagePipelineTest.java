@@ -0,0 +1,155 @@
+package code.hub.codehubbackend.storage;
+
+import code.hub.codehubbackend.entity.MediaObject;
+import code.hub.codehubbackend.exception.ResourceNotFoundException;
+import code.hub.codehubbackend.repository.MediaObjectRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ImagePipelineTest {
+
+    private static final String HASH = "ab".repeat(32);
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    private MediaStore mediaStore;
+
+    @Mock
+    private MediaObjectRepository mediaObjectRepository;
+
+    private LocalStorageService storage;
+    private ThreadPoolTaskExecutor executor;
+    private ImagePipeline pipeline;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        storage = new LocalStorageService(dir.resolve("media"), "/media", 4096, new SimpleMeterRegistry());
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setQueueCapacity(4);
+        executor.initialize();
+        pipeline = new ImagePipeline(storage, mediaStore, mediaObjectRepository, executor, new SimpleMeterRegistry(),
+                true, dir.resolve("cache").toString(), "/media/images", 0.8f, 40_000_000, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void store_RendersEveryVariantOfTheProfile() throws Exception {
+        byte[] png = png(1500, 500);
+        Path original = storage.pathOf("codehub/covers/original.png");
+        Files.createDirectories(original.getParent());
+        Files.write(original, png);
+        when(mediaStore.storeMedia(any(), any(), eq("alice")))
+                .thenReturn(new StoredMedia(HASH, "codehub/covers/original.png", "/media/codehub/covers/original.png"));
+
+        String url = pipeline.store(new MockMultipartFile("file", "cover.png", "image/png", png), ImageProfile.COVER, "alice");
+
+        assertEquals("/media/images/cover/" + HASH + "/" + ImagePipeline.RENDER_VERSION + "/full", url);
+        MediaObject stored = original(ImageProfile.COVER, "codehub/covers/original.png");
+        for (ImageVariant variant : ImageVariant.values()) {
+            BufferedImage rendered = ImageIO.read(pipeline.variant(ImageProfile.COVER, stored, variant).toFile());
+            assertEquals(ImageProfile.COVER.width(variant), rendered.getWidth());
+            assertEquals(ImageProfile.COVER.height(variant), rendered.getHeight());
+        }
+        assertTrue(pipeline.isVariantUrl(url));
+    }
+
+    @Test
+    void store_ReplacesVariantsOfEarlierRenderVersions() throws Exception {
+        byte[] png = png(400, 400);
+        Path original = storage.pathOf("codehub/avatars/original.png");
+        Files.createDirectories(original.getParent());
+        Files.write(original, png);
+        when(mediaStore.storeMedia(any(), any(), eq("alice")))
+                .thenReturn(new StoredMedia(HASH, "codehub/avatars/original.png", "/media/codehub/avatars/original.png"));
+
+        // Left behind by an earlier rendering of the same image
+        Path stale = dir.resolve("cache/avatar").resolve(HASH.substring(0, 2)).resolve(HASH).resolve("v0/full.jpg");
+        Files.createDirectories(stale.getParent());
+        Files.write(stale, "old rendering".getBytes());
+
+        pipeline.store(new MockMultipartFile("file", "avatar.png", "image/png", png), ImageProfile.AVATAR, "alice");
+
+        Path full = pipeline.variant(ImageProfile.AVATAR, original(ImageProfile.AVATAR, "codehub/avatars/original.png"),
+                ImageVariant.FULL);
+        assertNotEquals(stale, full);
+        assertNotNull(ImageIO.read(full.toFile()));
+        assertFalse(Files.exists(stale.getParent()));
+    }
+
+    @Test
+    void store_ReleasesTheOriginalWhenItIsNotAnImage() throws Exception {
+        Path original = storage.pathOf("codehub/avatars/broken.png");
+        Files.createDirectories(original.getParent());
+        Files.write(original, "not an image".getBytes());
+        when(mediaStore.storeMedia(any(), any(), eq("alice")))
+                .thenReturn(new StoredMedia(HASH, "codehub/avatars/broken.png", "/media/codehub/avatars/broken.png"));
+
+        MockMultipartFile file = new MockMultipartFile("file", "broken.png", "image/png", "not an image".getBytes());
+        assertThrows(IllegalArgumentException.class, () -> pipeline.store(file, ImageProfile.AVATAR, "alice"));
+        verify(mediaStore).release("/media/codehub/avatars/broken.png", "alice");
+    }
+
+    @Test
+    void original_UnknownImageIsNotFound() {
+        when(mediaObjectRepository.findByContentHashAndFolder(HASH, "codehub/avatars")).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> pipeline.original(ImageProfile.AVATAR, HASH));
+    }
+
+    @Test
+    void variant_RendersFromTheOriginalWhenTheCacheLostIt() throws Exception {
+        Path stored = storage.pathOf("codehub/avatars/original.png");
+        Files.createDirectories(stored.getParent());
+        Files.write(stored, png(400, 400));
+
+        Path thumbnail = pipeline.variant(ImageProfile.AVATAR, original(ImageProfile.AVATAR, "codehub/avatars/original.png"),
+                ImageVariant.THUMBNAIL);
+
+        assertEquals(ImageProfile.AVATAR.width(ImageVariant.THUMBNAIL), ImageIO.read(thumbnail.toFile()).getWidth());
+    }
+
+    // The original as MediaController resolves it before serving a variant
+    private MediaObject original(ImageProfile profile, String storageKey) {
+        when(mediaObjectRepository.findByContentHashAndFolder(HASH, profile.getFolder())).thenReturn(Optional.of(
+                MediaObject.builder()
+                        .contentHash(HASH)
+                        .folder(profile.getFolder())
+                        .storageKey(storageKey)
+                        .url("/media/" + storageKey)
+                        .build()));
+        return pipeline.original(profile, HASH);
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,71 @@
+package code.hub.codehubbackend.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalStorageServiceTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void store_StreamsContentLargerThanTheBuffer() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LocalStorageService storage = new LocalStorageService(root, "http://localhost:8080/media/", 4096, registry);
+        byte[] content = new byte[100_000];
+        Arrays.fill(content, (byte) 7);
+
+        StoredObject stored = storage.store(request("photo.png", content.length), new ByteArrayInputStream(content));
+
+        assertEquals("codehub/abc.png", stored.getKey());
+        assertEquals("http://localhost:8080/media/codehub/abc.png", stored.getUrl());
+        assertEquals(content.length, stored.getBytes());
+        assertArrayEquals(content, Files.readAllBytes(root.resolve(stored.getKey())));
+        assertEquals(content.length, registry.get("codehub.storage.upload.size").summary().totalAmount());
+        assertEquals(1, registry.get("codehub.storage.upload.throughput").summary().count());
+    }
+
+    @Test
+    void keyOfAndDelete_RoundTripTheStoredUrl() throws Exception {
+        LocalStorageService storage = new LocalStorageService(root, "/media", 4096, new SimpleMeterRegistry());
+        StoredObject stored = storage.store(request("notes.txt", 3), new ByteArrayInputStream(new byte[]{1, 2, 3}));
+
+        assertEquals(stored.getKey(), storage.keyOf(stored.getUrl()));
+        assertNull(storage.keyOf("https://res.cloudinary.com/demo/image/upload/v1/x.png"));
+        assertTrue(storage.delete(stored.getKey()));
+        assertFalse(storage.delete(stored.getKey()));
+    }
+
+    @Test
+    void store_KeepsClientFileNamesInsideTheRoot() throws Exception {
+        LocalStorageService storage = new LocalStorageService(root, "/media", 4096, new SimpleMeterRegistry());
+        StorageRequest request = StorageRequest.builder()
+                .folder("codehub")
+                .publicId("../../etc/passwd")
+                .filename("passwd")
+                .build();
+
+        StoredObject stored = storage.store(request, new ByteArrayInputStream(new byte[]{1}));
+
+        assertTrue(root.resolve(stored.getKey()).normalize().startsWith(root));
+        assertThrows(IllegalArgumentException.class, () -> storage.delete("../outside.txt"));
+    }
+
+    private static StorageRequest request(String filename, long size) {
+        return StorageRequest.builder()
+                .folder("codehub")
+                .publicId("abc")
+                .filename(filename)
+                .contentType("application/octet-stream")
+                .size(size)
+                .build();
+    }
+}
@@ -0,0 +1,178 @@
+package code.hub.codehubbackend.storage;
+
+import code.hub.codehubbackend.entity.MediaObject;
+import code.hub.codehubbackend.entity.MediaRef;
+import code.hub.codehubbackend.repository.MediaObjectRepository;
+import code.hub.codehubbackend.repository.MediaRefRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MediaStoreTest {
+
+    @TempDir
+    Path root;
+
+    @TempDir
+    Path spool;
+
+    @Mock
+    private MediaObjectRepository mediaObjectRepository;
+
+    @Mock
+    private MediaRefRepository mediaRefRepository;
+
+    private LocalStorageService storage;
+    private MediaStore mediaStore;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        storage = new LocalStorageService(root, "/media", 4096, new SimpleMeterRegistry());
+        mediaStore = new MediaStore(storage, mediaObjectRepository, mediaRefRepository, new SimpleMeterRegistry(), 4096);
+    }
+
+    @Test
+    void store_UploadsNewContentUnderItsHash() throws Exception {
+        when(mediaObjectRepository.findByContentHashAndFolder(anyString(), eq("codehub"))).thenReturn(Optional.empty());
+        when(mediaObjectRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        String url = mediaStore.store(file("report.pdf", "hello"), request("report.pdf"), "alice");
+
+        ArgumentCaptor<MediaObject> saved = ArgumentCaptor.forClass(MediaObject.class);
+        verify(mediaObjectRepository).save(saved.capture());
+        // SHA-256 of "hello"
+        assertEquals("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824", saved.getValue().getContentHash());
+        assertTrue(saved.getValue().getStorageKey().startsWith("codehub/2cf24dba5fb0a30e26e83b2ac5b9e29e_"));
+        assertTrue(saved.getValue().getStorageKey().endsWith(".pdf"));
+        assertEquals(url, saved.getValue().getUrl());
+        assertTrue(Files.exists(root.resolve(saved.getValue().getStorageKey())));
+        verify(mediaRefRepository).save(argThat(ref -> ref.getOwner().equals("alice")));
+    }
+
+    @Test
+    void store_ReusesKnownContentWithoutUploading() throws Exception {
+        MediaObject existing = MediaObject.builder().id(7L).url("/media/codehub/existing.pdf").build();
+        when(mediaObjectRepository.findByContentHashAndFolder(anyString(), eq("codehub"))).thenReturn(Optional.of(existing));
+        when(mediaObjectRepository.acquire(7L)).thenReturn(1);
+
+        String url = mediaStore.store(file("copy.pdf", "hello"), request("copy.pdf"), "bob");
+
+        assertEquals("/media/codehub/existing.pdf", url);
+        verify(mediaObjectRepository, never()).save(any());
+        verify(mediaRefRepository).save(MediaRef.builder().mediaId(7L).owner("bob").build());
+        assertFalse(Files.exists(root.resolve("codehub")));
+    }
+
+    @Test
+    void release_DeletesOnlyWithTheLastReference() throws Exception {
+        MediaObject media = storeShared();
+        when(mediaRefRepository.deleteOne(1L, "alice")).thenReturn(1);
+        when(mediaObjectRepository.release(1L)).thenReturn(1);
+
+        // Still referenced elsewhere
+        when(mediaObjectRepository.deleteIfUnreferenced(1L)).thenReturn(0);
+        assertTrue(mediaStore.release(media.getUrl(), "alice"));
+        assertTrue(Files.exists(root.resolve(media.getStorageKey())));
+
+        when(mediaObjectRepository.deleteIfUnreferenced(1L)).thenReturn(1);
+        assertTrue(mediaStore.release(media.getUrl(), "alice"));
+        assertFalse(Files.exists(root.resolve(media.getStorageKey())));
+    }
+
+    @Test
+    void release_LeavesOtherUsersReferencesAlone() throws Exception {
+        MediaObject media = storeShared();
+        when(mediaRefRepository.deleteOne(1L, "mallory")).thenReturn(0);
+
+        assertFalse(mediaStore.release(media.getUrl(), "mallory"));
+
+        verify(mediaObjectRepository, never()).release(anyLong());
+        verify(mediaObjectRepository, never()).deleteIfUnreferenced(anyLong());
+        assertTrue(Files.exists(root.resolve(media.getStorageKey())));
+    }
+
+    @Test
+    void release_DoesNotDeleteUnindexedUrls() throws Exception {
+        Files.createDirectories(root.resolve("codehub"));
+        Files.write(root.resolve("codehub/legacy.pdf"), "old".getBytes());
+        when(mediaObjectRepository.findFirstByUrl("/media/codehub/legacy.pdf")).thenReturn(Optional.empty());
+
+        assertFalse(mediaStore.release("/media/codehub/legacy.pdf", "alice"));
+        assertTrue(Files.exists(root.resolve("codehub/legacy.pdf")));
+    }
+
+    @Test
+    void store_ReportsUploadJobProgressOnlyFromTheStoredStream() throws Exception {
+        when(mediaObjectRepository.findByContentHashAndFolder(anyString(), eq("codehub"))).thenReturn(Optional.empty());
+        when(mediaObjectRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        List<Long> progress = new ArrayList<>();
+
+        mediaStore.store(spooled("report.pdf", "hello", progress), request("report.pdf"), "alice");
+
+        // The hash pass reads the file too, but only the upload counts
+        assertEquals(List.of(5L), progress);
+    }
+
+    @Test
+    void store_ReportsReusedContentAsFullySent() throws Exception {
+        MediaObject existing = MediaObject.builder().id(7L).url("/media/codehub/existing.pdf").build();
+        when(mediaObjectRepository.findByContentHashAndFolder(anyString(), eq("codehub"))).thenReturn(Optional.of(existing));
+        when(mediaObjectRepository.acquire(7L)).thenReturn(1);
+        List<Long> progress = new ArrayList<>();
+
+        mediaStore.store(spooled("copy.pdf", "hello", progress), request("copy.pdf"), "alice");
+
+        assertEquals(List.of(5L), progress);
+    }
+
+    // A stored object with id 1, as saved by alice
+    private MediaObject storeShared() throws Exception {
+        when(mediaObjectRepository.findByContentHashAndFolder(anyString(), eq("codehub"))).thenReturn(Optional.empty());
+        when(mediaObjectRepository.save(any())).thenAnswer(invocation -> {
+            MediaObject media = invocation.getArgument(0);
+            media.setId(1L);
+            return media;
+        });
+        mediaStore.store(file("a.pdf", "shared"), request("a.pdf"), "alice");
+        ArgumentCaptor<MediaObject> saved = ArgumentCaptor.forClass(MediaObject.class);
+        verify(mediaObjectRepository).save(saved.capture());
+        MediaObject media = saved.getValue();
+        when(mediaObjectRepository.findFirstByUrl(media.getUrl())).thenReturn(Optional.of(media));
+        return media;
+    }
+
+    private SpooledFile spooled(String name, String content, List<Long> progress) throws Exception {
+        Path path = Files.write(spool.resolve(name + ".part"), content.getBytes());
+        UploadJob job = new UploadJob("job", "alice", "chat-file", name, "application/pdf", Files.size(path), path);
+        return new SpooledFile(job, progress::add);
+    }
+
+    private static MockMultipartFile file(String name, String content) {
+        return new MockMultipartFile("file", name, "application/pdf", content.getBytes());
+    }
+
+    private static StorageRequest request(String filename) {
+        return StorageRequest.builder()
+                .folder("codehub")
+                .filename(filename)
+                .contentType("application/pdf")
+                .build();
+    }
+}
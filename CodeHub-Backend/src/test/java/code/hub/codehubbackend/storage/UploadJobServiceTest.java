@@ -0,0 +1,181 @@
+package code.hub.codehubbackend.storage;
+
+import code.hub.codehubbackend.dto.upload.UploadJobResponse;
+import code.hub.codehubbackend.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UploadJobServiceTest {
+
+    @TempDir
+    Path spool;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    private ThreadPoolTaskExecutor executor;
+    private UploadJobService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setQueueCapacity(4);
+        executor.initialize();
+        service = new UploadJobService(executor, messagingTemplate, new SimpleMeterRegistry(),
+                spool.toString(), 3, 1, 60_000, 0, 2, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void submit_RetriesTransientFailuresAndCompletes() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        UploadJob job = service.submit("alice", "chat-file", file("notes.txt", "hello"),
+                spooled -> {
+                    assertArrayEquals("hello".getBytes(), spooled.getBytes());
+                    if (calls.incrementAndGet() == 1) {
+                        throw new IOException("connection reset");
+                    }
+                    return "/media/chat-files/notes.txt";
+                },
+                url -> "sent " + url);
+
+        awaitFinished(job);
+
+        assertEquals(UploadJob.Status.SUCCEEDED, job.getStatus());
+        assertEquals(2, job.getAttempts());
+        assertEquals("/media/chat-files/notes.txt", job.getUrl());
+        assertEquals("sent /media/chat-files/notes.txt", job.getResult());
+        assertEquals(100, job.getProgress());
+        assertFalse(Files.exists(job.getSpool()));
+        verify(messagingTemplate, atLeastOnce())
+                .convertAndSendToUser(eq("alice"), eq("/queue/uploads"), any(UploadJobResponse.class));
+    }
+
+    @Test
+    void submit_DoesNotRetryInvalidFiles() throws Exception {
+        UploadJob job = service.submit("alice", "avatar", file("avatar.png", "not an image"),
+                spooled -> {
+                    throw new IllegalArgumentException("File must be an image");
+                },
+                null);
+
+        awaitFinished(job);
+
+        assertEquals(UploadJob.Status.FAILED, job.getStatus());
+        assertEquals(1, job.getAttempts());
+        assertEquals("File must be an image", job.getError());
+    }
+
+    @Test
+    void getJob_OnlyFindsTheOwnersJobs() throws Exception {
+        UploadJob job = service.submit("alice", "image", file("a.png", "a"), spooled -> "/media/a.png", null);
+        awaitFinished(job);
+
+        assertTrue(service.getJob(job.getId(), "alice").isPresent());
+        assertTrue(service.getJob(job.getId(), "mallory").isEmpty());
+    }
+
+    @Test
+    void submit_LimitsActiveUploadsPerOwnerUnderConcurrentSubmits() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        UploadJobService.Upload blocked = spooled -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "/media/a.png";
+        };
+
+        // Limit of 2 per owner; submit 8 at once
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<UploadJob>> submits = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String name = "a" + i + ".png";
+            submits.add(callers.submit(() -> {
+                start.await();
+                return service.submit("alice", "image", file(name, "a"), blocked, null);
+            }));
+        }
+        start.countDown();
+
+        List<UploadJob> accepted = new ArrayList<>();
+        int busy = 0;
+        for (Future<UploadJob> submit : submits) {
+            try {
+                accepted.add(submit.get(5, TimeUnit.SECONDS));
+            } catch (ExecutionException e) {
+                assertInstanceOf(ServiceBusyException.class, e.getCause());
+                busy++;
+            }
+        }
+        callers.shutdown();
+
+        assertEquals(2, accepted.size());
+        assertEquals(6, busy);
+        // Another owner is not affected
+        UploadJob bob = service.submit("bob", "image", file("b.png", "b"), spooled -> "/media/b.png", null);
+
+        release.countDown();
+        for (UploadJob job : accepted) {
+            awaitFinished(job);
+        }
+        awaitFinished(bob);
+        // Slots are given back as the workers finish
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            try {
+                awaitFinished(service.submit("alice", "image", file("c.png", "c"), spooled -> "/media/c.png", null));
+                break;
+            } catch (ServiceBusyException e) {
+                assertTrue(System.currentTimeMillis() < deadline, "slots were not released");
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private static void awaitFinished(UploadJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!job.getStatus().isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.getStatus().isFinished(), "job did not finish");
+    }
+
+    private static MockMultipartFile file(String name, String content) {
+        return new MockMultipartFile("file", name, "text/plain", content.getBytes());
+    }
+}
@@ -20,6 +20,7 @@ import {
 import { Button, Card } from '../ui';
 import SkillBadge from './SkillBadge';
 import ReputationBadge from './ReputationBadge';
+import { imageVariant } from '../../utils/imageVariants';
 
 const DeveloperCard = ({ developer, onClick, variant = 'default', showActions = true, className = '' }) => {
   const {
@@ -82,7 +83,7 @@ const DeveloperCard = ({ developer, onClick, variant = 'default', showActions =
             <div className="flex flex-col items-center text-center mb-3">
               <div className="relative mb-3">
                 <img
-                  src={avatarUrl || `https://ui-avatars.com/api/?name=${encodeURIComponent(fullName || username)}&background=3b82f6&color=fff&size=80`}
+                  src={imageVariant(avatarUrl, 'medium') || `https://ui-avatars.com/api/?name=${encodeURIComponent(fullName || username)}&background=3b82f6&color=fff&size=80`}
                   alt={fullName || username}
                   className="w-20 h-20 rounded-full border-3 border-slate-600 group-hover:border-cyan-500 transition-colors object-cover shadow-lg"
                 />
@@ -3,6 +3,7 @@ import { motion } from 'framer-motion';
 import { Star, MapPin, Calendar, Users, ExternalLink, Github, Linkedin, Twitter } from 'lucide-react';
 import { Card } from '../ui';
 import { SkillBadge, ReputationBadge } from './';
+import { imageVariant } from '../../utils/imageVariants';
 
 const DeveloperList = ({ developers, loading, onDeveloperClick }) => {
   if (loading) {
@@ -44,7 +45,7 @@ const DeveloperList = ({ developers, loading, onDeveloperClick }) => {
                 {/* Avatar */}
                 <div className="flex-shrink-0">
                   <img
-                    src={developer.avatarUrl || developer.avatar || `https://ui-avatars.com/api/?name=${encodeURIComponent(developer.fullName || developer.name || developer.username)}&background=3b82f6&color=fff&size=64`}
+                    src={imageVariant(developer.avatarUrl, 'medium') || developer.avatar || `https://ui-avatars.com/api/?name=${encodeURIComponent(developer.fullName || developer.name || developer.username)}&background=3b82f6&color=fff&size=64`}
                     alt={developer.fullName || developer.name || developer.username}
                     className="w-16 h-16 rounded-full object-cover ring-2 ring-slate-600 group-hover:ring-blue-500/50 transition-all duration-300"
                   />
@@ -16,6 +16,7 @@ import {
 } from "lucide-react";
 import { useAuth } from "../../contexts/AuthContext";
 import { notificationsAPI, chatHistoryAPI } from "../../services/api";
+import webSocketService from "../../services/webSocketService";
 import { Button, Input, NotificationDropdown, MessageDropdown, SmartSearch } from "../ui";
 
 const Navbar = () => {
@@ -110,14 +111,26 @@ const Navbar = () => {
     
     window.addEventListener('messagesMarkedAsRead', handleMessagesMarkedAsRead);
     
-    // Optionally, poll for updates every minute
+    // Notification badge updates are pushed; only message counts are still polled
+    const handleNotificationPush = (push) => {
+      if (push && typeof push.unreadCount === "number") {
+        setUnreadCount(push.unreadCount);
+      }
+    };
+
+    if (isAuthenticated && user) {
+      webSocketService.subscribeToNotifications(handleNotificationPush).catch((error) => {
+        console.warn("⚠️ [Navbar] Notification push unavailable:", error.message);
+      });
+    }
+
     const interval = setInterval(() => {
-      loadUnreadCount();
       loadUnreadMessageCount();
     }, 60000);
     
     return () => {
       clearInterval(interval);
+      webSocketService.unsubscribe('/user/queue/notifications');
       window.removeEventListener('messagesMarkedAsRead', handleMessagesMarkedAsRead);
     };
   }, [isAuthenticated, user]);
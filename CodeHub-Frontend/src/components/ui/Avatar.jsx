@@ -1,4 +1,5 @@
 import React from 'react';
+import { imageVariant } from '../../utils/imageVariants';
 
 const Avatar = ({ 
   src, 
@@ -16,6 +17,9 @@ const Avatar = ({
     '2xl': 'w-20 h-20 text-2xl'
   };
 
+  // 64px thumbnails cover the small sizes even on high-density screens
+  const variant = size === 'sm' || size === 'md' ? 'thumbnail' : 'medium';
+
   const handleError = (e) => {
     e.target.style.display = 'none';
     e.target.nextElementSibling.style.display = 'flex';
@@ -28,7 +32,7 @@ const Avatar = ({
     >
       {src && (
         <img
-          src={src}
+          src={imageVariant(src, variant)}
           alt={alt}
           className="w-full h-full object-cover"
           onError={handleError}
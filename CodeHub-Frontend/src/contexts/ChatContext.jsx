@@ -220,7 +220,19 @@ export const ChatProvider = ({ children }) => {
 
   // Handle typing notifications
   const handleTypingNotification = useCallback((notification) => {
-    const { chatId, username, isTyping } = notification;
+    const { chatId, username, isTyping, typingUsers } = notification;
+
+    // Coalesced frames carry the full list of users typing in the room
+    if (Array.isArray(typingUsers)) {
+      dispatch({
+        type: ActionTypes.SET_TYPING_USERS,
+        payload: {
+          chatId,
+          users: typingUsers.filter(u => u !== user?.username)
+        }
+      });
+      return;
+    }
     
     dispatch({
       type: ActionTypes.SET_TYPING_USERS,
@@ -231,7 +243,7 @@ export const ChatProvider = ({ children }) => {
           : (state.typingUsers[chatId] || []).filter(u => u !== username)
       }
     });
-  }, [state.typingUsers]);
+  }, [state.typingUsers, user?.username]);
 
   // Initialize WebSocket
   const initializeWebSocket = useCallback(async () => {
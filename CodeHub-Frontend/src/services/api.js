@@ -168,6 +168,15 @@ export const api = {
   },
 };
 
+// Changing the password revokes earlier tokens; keep the session on the token it returns
+const changePassword = async (passwords) => {
+  const response = await api.put('/users/profile/password', passwords);
+  if (response.data?.token) {
+    localStorage.setItem(STORAGE_KEYS.AUTH_TOKEN, response.data.token);
+  }
+  return response;
+};
+
 // Auth-specific API methods
 export const authAPI = {
   login: (credentials) => api.post('/auth/login', credentials),
@@ -176,31 +185,74 @@ export const authAPI = {
   refreshToken: () => api.post('/auth/refresh'),
   getCurrentUser: () => api.get('/users/profile'),
   updateProfile: (userData) => api.put('/users/profile', userData),
-  changePassword: (passwords) => api.put('/users/profile/password', passwords),
+  changePassword,
+};
+
+// Upload jobs: uploads are queued and answered with a job id right away; the job reports
+// progress and the stored URL here or on /user/queue/uploads
+const UPLOAD_JOB_TIMEOUT = 5 * 60 * 1000; // 5 minutes
+
+export const uploadJobsAPI = {
+  // Get job status (not cached, it changes between polls)
+  getJob: (jobId) => apiClient.get(`/upload/jobs/${jobId}`),
+
+  // Poll until the job finishes; resolves with the finished job, rejects if it failed
+  waitForJob: async (jobId, onProgress) => {
+    const deadline = Date.now() + UPLOAD_JOB_TIMEOUT;
+    let delay = 500;
+    while (Date.now() < deadline) {
+      const response = await uploadJobsAPI.getJob(jobId);
+      const job = response.data.job;
+      onProgress?.(job);
+      if (job.status === 'SUCCEEDED') {
+        return job;
+      }
+      if (job.status === 'FAILED') {
+        throw new Error(job.error || 'Upload failed');
+      }
+      await new Promise((resolve) => setTimeout(resolve, delay));
+      delay = Math.min(delay * 2, 3000);
+    }
+    throw new Error('Upload is taking too long');
+  },
+
+  // Queue an upload and wait for it to finish
+  submitAndWait: async (url, formData, onProgress) => {
+    const response = await api.postFormData(url, formData, {
+      timeout: 30000, // 30 seconds to send the file; storage happens in the background
+    });
+    return uploadJobsAPI.waitForJob(response.data.jobId, onProgress);
+  },
 };
 
 // Upload API methods
 export const uploadAPI = {
   // Upload avatar
-  uploadAvatar: (file) => {
+  uploadAvatar: async (file, onProgress) => {
     const formData = new FormData();
     formData.append('file', file);
-    return api.postFormData('/upload/avatar', formData);
+    formData.append('type', 'avatar');
+    const job = await uploadJobsAPI.submitAndWait('/upload/jobs', formData, onProgress);
+    return { data: { success: true, message: 'Avatar uploaded successfully', imageUrl: job.url } };
   },
   
   // Upload cover photo
-  uploadCoverPhoto: (file) => {
+  uploadCoverPhoto: async (file, onProgress) => {
     const formData = new FormData();
     formData.append('file', file);
-    return api.postFormData('/upload/cover', formData);
+    formData.append('type', 'cover');
+    const job = await uploadJobsAPI.submitAndWait('/upload/jobs', formData, onProgress);
+    return { data: { success: true, message: 'Cover photo uploaded successfully', imageUrl: job.url } };
   },
   
   // Upload general image
-  uploadImage: (file, folder = 'general') => {
+  uploadImage: async (file, folder = 'general', onProgress) => {
     const formData = new FormData();
     formData.append('file', file);
+    formData.append('type', 'image');
     formData.append('folder', folder);
-    return api.postFormData('/upload/image', formData);
+    const job = await uploadJobsAPI.submitAndWait('/upload/jobs', formData, onProgress);
+    return { data: { success: true, message: 'Image uploaded successfully', imageUrl: job.url } };
   },
   
   // Delete image
@@ -333,7 +385,7 @@ export const usersAPI = {
   updateProfile: (profileData) => api.put('/users/profile', profileData),
   
   // Change password
-  changePassword: (passwordData) => api.put('/users/profile/password', passwordData),
+  changePassword,
     // Upload avatar
   uploadAvatar: (formData) => api.postFormData('/users/profile/avatar', formData),
 };
@@ -803,24 +855,20 @@ export const chatHistoryAPI = {
     return apiClient.get(url);
   },
 
-  // Send file message
-  sendFileMessage: (formData) => {
-    const url = '/chat/send-file';
+  // Send file message: the file is uploaded as a job and the message is sent once it is stored
+  sendFileMessage: async (formData, onProgress) => {
+    const url = '/chat/send-file/jobs';
     console.log('📎 [API] Send File Message:', url);
     
-    // Create axios instance for file upload with multipart/form-data
-    return apiClient.post(url, formData, {
-      headers: {
-        'Content-Type': 'multipart/form-data',
-      },
-      timeout: 30000, // 30 seconds for file upload
-    }).then(response => {
+    try {
+      const job = await uploadJobsAPI.submitAndWait(url, formData, onProgress);
+      const response = { data: { success: true, message: 'File sent successfully', data: job.result, fileUrl: job.url } };
       console.log('✅ [API] File Message Response:', response.data);
       return response;
-    }).catch(error => {
+    } catch (error) {
       console.error('❌ [API] File Message Error:', error);
       throw error;
-    });
+    }
   }
 };
 
@@ -44,6 +44,14 @@ class WebSocketService {
             Authorization: `Bearer ${token}`
           },
 
+          // Reconnects pick up the latest token rather than the one from the first connect
+          beforeConnect: () => {
+            const latestToken = localStorage.getItem(STORAGE_KEYS.AUTH_TOKEN);
+            if (latestToken && this.client) {
+              this.client.connectHeaders = { Authorization: `Bearer ${latestToken}` };
+            }
+          },
+
           debug: (str) => {
             console.log('🔌 [WebSocket Debug]', str);
           },
@@ -53,6 +61,7 @@ class WebSocketService {
             this.connected = true;
             this.reconnectAttempts = 0;
             this.connectionPromise = null;
+            this.subscribeToSessionControl();
             resolve(frame);
           },
 
@@ -102,6 +111,25 @@ class WebSocketService {
     return this.connectionPromise;
   }
 
+  // The server asks for a fresh token when the one this session connected with expires
+  subscribeToSessionControl() {
+    this.client.subscribe('/user/queue/session', (message) => {
+      const body = JSON.parse(message.body);
+      if (body.type !== 'REAUTH_REQUIRED') {
+        return;
+      }
+
+      const latestToken = localStorage.getItem(STORAGE_KEYS.AUTH_TOKEN);
+      if (latestToken) {
+        console.log('🔑 [WebSocket] Re-authenticating session');
+        this.client.publish({
+          destination: '/app/session.refresh',
+          headers: { Authorization: `Bearer ${latestToken}` }
+        });
+      }
+    });
+  }
+
   // Schedule reconnection
   scheduleReconnect() {
     if (this.reconnectAttempts >= this.maxReconnectAttempts) {
@@ -217,6 +245,12 @@ class WebSocketService {
     return this.subscribe(destination, onMessage);
   }
 
+  // Subscribe to pushed notifications and unread badge deltas
+  async subscribeToNotifications(onNotification) {
+    const destination = '/user/queue/notifications';
+    return this.subscribe(destination, onNotification);
+  }
+
   // Send chat message
   async sendChatMessage(messageData) {
     await this.sendMessage('/app/chat.sendMessage', messageData);
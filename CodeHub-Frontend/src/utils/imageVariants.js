@@ -0,0 +1,9 @@
+// Avatars and covers from local storage are served in several sizes at
+// .../media/images/{avatar|cover}/{hash}/{version}/{full|medium|thumbnail}.
+// Other URLs (Cloudinary, external) are returned unchanged.
+const VARIANT_URL = /\/media\/images\/(avatar|cover)\/[0-9a-f]{64}\/v\d+\/(full|medium|thumbnail)$/;
+
+export const imageVariant = (url, variant) => {
+  if (!url || !VARIANT_URL.test(url)) return url;
+  return url.replace(/(full|medium|thumbnail)$/, variant);
+};